@@ -835,6 +835,47 @@ public final class C2SProtos {
      */
     com.google.protobuf.ByteString
         getProviderBytes();
+
+    /**
+     * <code>optional uint64 from_epoch = 4;</code>
+     *
+     * <pre>
+     * for a range request, set from_epoch instead of epoch: the server
+     * streams the commitments for all epochs from from_epoch up to 
+     * to_epoch (or the current epoch) in epoch order, at most limit of them,
+     * and ends the stream with a SUCCESS server response
+     * </pre>
+     */
+    boolean hasFromEpoch();
+    /**
+     * <code>optional uint64 from_epoch = 4;</code>
+     *
+     * <pre>
+     * for a range request, set from_epoch instead of epoch: the server
+     * streams the commitments for all epochs from from_epoch up to 
+     * to_epoch (or the current epoch) in epoch order, at most limit of them,
+     * and ends the stream with a SUCCESS server response
+     * </pre>
+     */
+    long getFromEpoch();
+
+    /**
+     * <code>optional uint64 to_epoch = 5;</code>
+     */
+    boolean hasToEpoch();
+    /**
+     * <code>optional uint64 to_epoch = 5;</code>
+     */
+    long getToEpoch();
+
+    /**
+     * <code>optional uint32 limit = 6;</code>
+     */
+    boolean hasLimit();
+    /**
+     * <code>optional uint32 limit = 6;</code>
+     */
+    int getLimit();
   }
   /**
    * Protobuf type {@code org.coniks.coniks_common.CommitmentReq}
@@ -910,6 +951,21 @@ public final class C2SProtos {
               provider_ = bs;
               break;
             }
+            case 32: {
+              bitField0_ |= 0x00000008;
+              fromEpoch_ = input.readUInt64();
+              break;
+            }
+            case 40: {
+              bitField0_ |= 0x00000010;
+              toEpoch_ = input.readUInt64();
+              break;
+            }
+            case 48: {
+              bitField0_ |= 0x00000020;
+              limit_ = input.readUInt32();
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -1136,10 +1192,72 @@ public final class C2SProtos {
       }
     }
 
+    public static final int FROM_EPOCH_FIELD_NUMBER = 4;
+    private long fromEpoch_;
+    /**
+     * <code>optional uint64 from_epoch = 4;</code>
+     *
+     * <pre>
+     * for a range request, set from_epoch instead of epoch: the server
+     * streams the commitments for all epochs from from_epoch up to 
+     * to_epoch (or the current epoch) in epoch order, at most limit of them,
+     * and ends the stream with a SUCCESS server response
+     * </pre>
+     */
+    public boolean hasFromEpoch() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    /**
+     * <code>optional uint64 from_epoch = 4;</code>
+     *
+     * <pre>
+     * for a range request, set from_epoch instead of epoch: the server
+     * streams the commitments for all epochs from from_epoch up to 
+     * to_epoch (or the current epoch) in epoch order, at most limit of them,
+     * and ends the stream with a SUCCESS server response
+     * </pre>
+     */
+    public long getFromEpoch() {
+      return fromEpoch_;
+    }
+
+    public static final int TO_EPOCH_FIELD_NUMBER = 5;
+    private long toEpoch_;
+    /**
+     * <code>optional uint64 to_epoch = 5;</code>
+     */
+    public boolean hasToEpoch() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+    /**
+     * <code>optional uint64 to_epoch = 5;</code>
+     */
+    public long getToEpoch() {
+      return toEpoch_;
+    }
+
+    public static final int LIMIT_FIELD_NUMBER = 6;
+    private int limit_;
+    /**
+     * <code>optional uint32 limit = 6;</code>
+     */
+    public boolean hasLimit() {
+      return ((bitField0_ & 0x00000020) == 0x00000020);
+    }
+    /**
+     * <code>optional uint32 limit = 6;</code>
+     */
+    public int getLimit() {
+      return limit_;
+    }
+
     private void initFields() {
       type_ = org.coniks.coniks_common.C2SProtos.CommitmentReq.CommitmentType.SELF;
       epoch_ = 0L;
       provider_ = "";
+      fromEpoch_ = 0L;
+      toEpoch_ = 0L;
+      limit_ = 0;
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -1163,6 +1281,15 @@ public final class C2SProtos {
       if (((bitField0_ & 0x00000004) == 0x00000004)) {
         output.writeBytes(3, getProviderBytes());
       }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeUInt64(4, fromEpoch_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeUInt64(5, toEpoch_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        output.writeUInt32(6, limit_);
+      }
       getUnknownFields().writeTo(output);
     }
 
@@ -1184,6 +1311,18 @@ public final class C2SProtos {
         size += com.google.protobuf.CodedOutputStream
           .computeBytesSize(3, getProviderBytes());
       }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(4, fromEpoch_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(5, toEpoch_);
+      }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(6, limit_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -1307,6 +1446,12 @@ public final class C2SProtos {
         bitField0_ = (bitField0_ & ~0x00000002);
         provider_ = "";
         bitField0_ = (bitField0_ & ~0x00000004);
+        fromEpoch_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        toEpoch_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000010);
+        limit_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000020);
         return this;
       }
 
@@ -1347,6 +1492,18 @@ public final class C2SProtos {
           to_bitField0_ |= 0x00000004;
         }
         result.provider_ = provider_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.fromEpoch_ = fromEpoch_;
+        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        result.toEpoch_ = toEpoch_;
+        if (((from_bitField0_ & 0x00000020) == 0x00000020)) {
+          to_bitField0_ |= 0x00000020;
+        }
+        result.limit_ = limit_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -1374,6 +1531,15 @@ public final class C2SProtos {
           provider_ = other.provider_;
           onChanged();
         }
+        if (other.hasFromEpoch()) {
+          setFromEpoch(other.getFromEpoch());
+        }
+        if (other.hasToEpoch()) {
+          setToEpoch(other.getToEpoch());
+        }
+        if (other.hasLimit()) {
+          setLimit(other.getLimit());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -1600,6 +1766,130 @@ public final class C2SProtos {
         return this;
       }
 
+      private long fromEpoch_ ;
+      /**
+       * <code>optional uint64 from_epoch = 4;</code>
+       *
+       * <pre>
+       * for a range request, set from_epoch instead of epoch: the server
+       * streams the commitments for all epochs from from_epoch up to 
+       * to_epoch (or the current epoch) in epoch order, at most limit of them,
+       * and ends the stream with a SUCCESS server response
+       * </pre>
+       */
+      public boolean hasFromEpoch() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      /**
+       * <code>optional uint64 from_epoch = 4;</code>
+       *
+       * <pre>
+       * for a range request, set from_epoch instead of epoch: the server
+       * streams the commitments for all epochs from from_epoch up to 
+       * to_epoch (or the current epoch) in epoch order, at most limit of them,
+       * and ends the stream with a SUCCESS server response
+       * </pre>
+       */
+      public long getFromEpoch() {
+        return fromEpoch_;
+      }
+      /**
+       * <code>optional uint64 from_epoch = 4;</code>
+       *
+       * <pre>
+       * for a range request, set from_epoch instead of epoch: the server
+       * streams the commitments for all epochs from from_epoch up to 
+       * to_epoch (or the current epoch) in epoch order, at most limit of them,
+       * and ends the stream with a SUCCESS server response
+       * </pre>
+       */
+      public Builder setFromEpoch(long value) {
+        bitField0_ |= 0x00000008;
+        fromEpoch_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 from_epoch = 4;</code>
+       *
+       * <pre>
+       * for a range request, set from_epoch instead of epoch: the server
+       * streams the commitments for all epochs from from_epoch up to 
+       * to_epoch (or the current epoch) in epoch order, at most limit of them,
+       * and ends the stream with a SUCCESS server response
+       * </pre>
+       */
+      public Builder clearFromEpoch() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        fromEpoch_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long toEpoch_ ;
+      /**
+       * <code>optional uint64 to_epoch = 5;</code>
+       */
+      public boolean hasToEpoch() {
+        return ((bitField0_ & 0x00000010) == 0x00000010);
+      }
+      /**
+       * <code>optional uint64 to_epoch = 5;</code>
+       */
+      public long getToEpoch() {
+        return toEpoch_;
+      }
+      /**
+       * <code>optional uint64 to_epoch = 5;</code>
+       */
+      public Builder setToEpoch(long value) {
+        bitField0_ |= 0x00000010;
+        toEpoch_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 to_epoch = 5;</code>
+       */
+      public Builder clearToEpoch() {
+        bitField0_ = (bitField0_ & ~0x00000010);
+        toEpoch_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private int limit_ ;
+      /**
+       * <code>optional uint32 limit = 6;</code>
+       */
+      public boolean hasLimit() {
+        return ((bitField0_ & 0x00000020) == 0x00000020);
+      }
+      /**
+       * <code>optional uint32 limit = 6;</code>
+       */
+      public int getLimit() {
+        return limit_;
+      }
+      /**
+       * <code>optional uint32 limit = 6;</code>
+       */
+      public Builder setLimit(int value) {
+        bitField0_ |= 0x00000020;
+        limit_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 limit = 6;</code>
+       */
+      public Builder clearLimit() {
+        bitField0_ = (bitField0_ & ~0x00000020);
+        limit_ = 0;
+        onChanged();
+        return this;
+      }
+
       // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.CommitmentReq)
     }
 
@@ -1649,6 +1939,24 @@ public final class C2SProtos {
      * <code>optional uint64 epoch = 2;</code>
      */
     long getEpoch();
+    /**
+     * <code>optional bytes cached_key_digest = 3;</code>
+     *
+     * <pre>
+     * digest of the key the client already has for name, if any:
+     * if it matches, the server leaves the key out of the leaf
+     * </pre>
+     */
+    boolean hasCachedKeyDigest();
+    /**
+     * <code>optional bytes cached_key_digest = 3;</code>
+     *
+     * <pre>
+     * digest of the key the client already has for name, if any:
+     * if it matches, the server leaves the key out of the leaf
+     * </pre>
+     */
+    com.google.protobuf.ByteString getCachedKeyDigest();
   }
   /**
    * Protobuf type {@code org.coniks.coniks_common.KeyLookup}
@@ -1713,6 +2021,11 @@ public final class C2SProtos {
               epoch_ = input.readUInt64();
               break;
             }
+            case 26: {
+              bitField0_ |= 0x00000004;
+              cachedKeyDigest_ = input.readBytes();
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -1822,9 +2135,35 @@ public final class C2SProtos {
       return epoch_;
     }
 
+    public static final int CACHED_KEY_DIGEST_FIELD_NUMBER = 3;
+    private com.google.protobuf.ByteString cachedKeyDigest_;
+    /**
+     * <code>optional bytes cached_key_digest = 3;</code>
+     *
+     * <pre>
+     * digest of the key the client already has for name, if any:
+     * if it matches, the server leaves the key out of the leaf
+     * </pre>
+     */
+    public boolean hasCachedKeyDigest() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    /**
+     * <code>optional bytes cached_key_digest = 3;</code>
+     *
+     * <pre>
+     * digest of the key the client already has for name, if any:
+     * if it matches, the server leaves the key out of the leaf
+     * </pre>
+     */
+    public com.google.protobuf.ByteString getCachedKeyDigest() {
+      return cachedKeyDigest_;
+    }
+
     private void initFields() {
       name_ = "";
       epoch_ = 0L;
+      cachedKeyDigest_ = com.google.protobuf.ByteString.EMPTY;
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -1845,6 +2184,9 @@ public final class C2SProtos {
       if (((bitField0_ & 0x00000002) == 0x00000002)) {
         output.writeUInt64(2, epoch_);
       }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeBytes(3, cachedKeyDigest_);
+      }
       getUnknownFields().writeTo(output);
     }
 
@@ -1862,6 +2204,10 @@ public final class C2SProtos {
         size += com.google.protobuf.CodedOutputStream
           .computeUInt64Size(2, epoch_);
       }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(3, cachedKeyDigest_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -1983,6 +2329,8 @@ public final class C2SProtos {
         bitField0_ = (bitField0_ & ~0x00000001);
         epoch_ = 0L;
         bitField0_ = (bitField0_ & ~0x00000002);
+        cachedKeyDigest_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000004);
         return this;
       }
 
@@ -2019,6 +2367,10 @@ public final class C2SProtos {
           to_bitField0_ |= 0x00000002;
         }
         result.epoch_ = epoch_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.cachedKeyDigest_ = cachedKeyDigest_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -2043,6 +2395,9 @@ public final class C2SProtos {
         if (other.hasEpoch()) {
           setEpoch(other.getEpoch());
         }
+        if (other.hasCachedKeyDigest()) {
+          setCachedKeyDigest(other.getCachedKeyDigest());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -2202,6 +2557,61 @@ public final class C2SProtos {
         return this;
       }
 
+      private com.google.protobuf.ByteString cachedKeyDigest_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <code>optional bytes cached_key_digest = 3;</code>
+       *
+       * <pre>
+       * digest of the key the client already has for name, if any:
+       * if it matches, the server leaves the key out of the leaf
+       * </pre>
+       */
+      public boolean hasCachedKeyDigest() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      /**
+       * <code>optional bytes cached_key_digest = 3;</code>
+       *
+       * <pre>
+       * digest of the key the client already has for name, if any:
+       * if it matches, the server leaves the key out of the leaf
+       * </pre>
+       */
+      public com.google.protobuf.ByteString getCachedKeyDigest() {
+        return cachedKeyDigest_;
+      }
+      /**
+       * <code>optional bytes cached_key_digest = 3;</code>
+       *
+       * <pre>
+       * digest of the key the client already has for name, if any:
+       * if it matches, the server leaves the key out of the leaf
+       * </pre>
+       */
+      public Builder setCachedKeyDigest(com.google.protobuf.ByteString value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000004;
+        cachedKeyDigest_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bytes cached_key_digest = 3;</code>
+       *
+       * <pre>
+       * digest of the key the client already has for name, if any:
+       * if it matches, the server leaves the key out of the leaf
+       * </pre>
+       */
+      public Builder clearCachedKeyDigest() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        cachedKeyDigest_ = getDefaultInstance().getCachedKeyDigest();
+        onChanged();
+        return this;
+      }
+
       // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.KeyLookup)
     }
 
@@ -3100,6 +3510,24 @@ public final class C2SProtos {
        * </pre>
        */
       int getIntlevels();
+      /**
+       * <code>optional bytes key_digest = 8;</code>
+       *
+       * <pre>
+       * the leaf commits to the SHA-256 digest of the public key;
+       * the key itself is left out if the client already has it
+       * </pre>
+       */
+      boolean hasKeyDigest();
+      /**
+       * <code>optional bytes key_digest = 8;</code>
+       *
+       * <pre>
+       * the leaf commits to the SHA-256 digest of the public key;
+       * the key itself is left out if the client already has it
+       * </pre>
+       */
+      com.google.protobuf.ByteString getKeyDigest();
     }
     /**
      * Protobuf type {@code org.coniks.coniks_common.AuthPath.UserLeafNode}
@@ -3210,6 +3638,11 @@ public final class C2SProtos {
                 intlevels_ = input.readUInt32();
                 break;
               }
+              case 66: {
+                bitField0_ |= 0x00000040;
+                keyDigest_ = input.readBytes();
+                break;
+              }
             }
           }
         } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -3439,6 +3872,31 @@ public final class C2SProtos {
         return intlevels_;
       }
 
+      public static final int KEY_DIGEST_FIELD_NUMBER = 8;
+      private com.google.protobuf.ByteString keyDigest_;
+      /**
+       * <code>optional bytes key_digest = 8;</code>
+       *
+       * <pre>
+       * the leaf commits to the SHA-256 digest of the public key;
+       * the key itself is left out if the client already has it
+       * </pre>
+       */
+      public boolean hasKeyDigest() {
+        return ((bitField0_ & 0x00000040) == 0x00000040);
+      }
+      /**
+       * <code>optional bytes key_digest = 8;</code>
+       *
+       * <pre>
+       * the leaf commits to the SHA-256 digest of the public key;
+       * the key itself is left out if the client already has it
+       * </pre>
+       */
+      public com.google.protobuf.ByteString getKeyDigest() {
+        return keyDigest_;
+      }
+
       private void initFields() {
         name_ = "";
         publickey_ = "";
@@ -3447,6 +3905,7 @@ public final class C2SProtos {
         allowsPublicLookup_ = false;
         lookupIndex_ = java.util.Collections.emptyList();
         intlevels_ = 0;
+        keyDigest_ = com.google.protobuf.ByteString.EMPTY;
       }
       private byte memoizedIsInitialized = -1;
       public final boolean isInitialized() {
@@ -3482,6 +3941,9 @@ public final class C2SProtos {
         if (((bitField0_ & 0x00000020) == 0x00000020)) {
           output.writeUInt32(7, intlevels_);
         }
+        if (((bitField0_ & 0x00000040) == 0x00000040)) {
+          output.writeBytes(8, keyDigest_);
+        }
         getUnknownFields().writeTo(output);
       }
 
@@ -3521,6 +3983,10 @@ public final class C2SProtos {
           size += com.google.protobuf.CodedOutputStream
             .computeUInt32Size(7, intlevels_);
         }
+        if (((bitField0_ & 0x00000040) == 0x00000040)) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeBytesSize(8, keyDigest_);
+        }
         size += getUnknownFields().getSerializedSize();
         memoizedSerializedSize = size;
         return size;
@@ -3656,6 +4122,8 @@ public final class C2SProtos {
           bitField0_ = (bitField0_ & ~0x00000020);
           intlevels_ = 0;
           bitField0_ = (bitField0_ & ~0x00000040);
+          keyDigest_ = com.google.protobuf.ByteString.EMPTY;
+          bitField0_ = (bitField0_ & ~0x00000080);
           return this;
         }
 
@@ -3713,6 +4181,10 @@ public final class C2SProtos {
             to_bitField0_ |= 0x00000020;
           }
           result.intlevels_ = intlevels_;
+          if (((from_bitField0_ & 0x00000080) == 0x00000080)) {
+            to_bitField0_ |= 0x00000040;
+          }
+          result.keyDigest_ = keyDigest_;
           result.bitField0_ = to_bitField0_;
           onBuilt();
           return result;
@@ -3761,6 +4233,9 @@ public final class C2SProtos {
           if (other.hasIntlevels()) {
             setIntlevels(other.getIntlevels());
           }
+          if (other.hasKeyDigest()) {
+            setKeyDigest(other.getKeyDigest());
+          }
           this.mergeUnknownFields(other.getUnknownFields());
           return this;
         }
@@ -4174,24 +4649,79 @@ public final class C2SProtos {
           return this;
         }
 
-        // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.AuthPath.UserLeafNode)
-      }
-
-      static {
-        defaultInstance = new UserLeafNode(true);
-        defaultInstance.initFields();
-      }
-
-      // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.AuthPath.UserLeafNode)
-    }
-
-    public interface InteriorNodeOrBuilder extends
-        // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.AuthPath.InteriorNode)
-        com.google.protobuf.MessageOrBuilder {
-
-      /**
-       * <code>optional .org.coniks.coniks_common.AuthPath.PrunedChild prunedchild = 1;</code>
-       *
+        private com.google.protobuf.ByteString keyDigest_ = com.google.protobuf.ByteString.EMPTY;
+        /**
+         * <code>optional bytes key_digest = 8;</code>
+         *
+         * <pre>
+         * the leaf commits to the SHA-256 digest of the public key;
+         * the key itself is left out if the client already has it
+         * </pre>
+         */
+        public boolean hasKeyDigest() {
+          return ((bitField0_ & 0x00000080) == 0x00000080);
+        }
+        /**
+         * <code>optional bytes key_digest = 8;</code>
+         *
+         * <pre>
+         * the leaf commits to the SHA-256 digest of the public key;
+         * the key itself is left out if the client already has it
+         * </pre>
+         */
+        public com.google.protobuf.ByteString getKeyDigest() {
+          return keyDigest_;
+        }
+        /**
+         * <code>optional bytes key_digest = 8;</code>
+         *
+         * <pre>
+         * the leaf commits to the SHA-256 digest of the public key;
+         * the key itself is left out if the client already has it
+         * </pre>
+         */
+        public Builder setKeyDigest(com.google.protobuf.ByteString value) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          bitField0_ |= 0x00000080;
+          keyDigest_ = value;
+          onChanged();
+          return this;
+        }
+        /**
+         * <code>optional bytes key_digest = 8;</code>
+         *
+         * <pre>
+         * the leaf commits to the SHA-256 digest of the public key;
+         * the key itself is left out if the client already has it
+         * </pre>
+         */
+        public Builder clearKeyDigest() {
+          bitField0_ = (bitField0_ & ~0x00000080);
+          keyDigest_ = getDefaultInstance().getKeyDigest();
+          onChanged();
+          return this;
+        }
+
+        // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.AuthPath.UserLeafNode)
+      }
+
+      static {
+        defaultInstance = new UserLeafNode(true);
+        defaultInstance.initFields();
+      }
+
+      // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.AuthPath.UserLeafNode)
+    }
+
+    public interface InteriorNodeOrBuilder extends
+        // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.AuthPath.InteriorNode)
+        com.google.protobuf.MessageOrBuilder {
+
+      /**
+       * <code>optional .org.coniks.coniks_common.AuthPath.PrunedChild prunedchild = 1;</code>
+       *
        * <pre>
        * client needs to check that both of these fields are set for each interior node
        * </pre>
@@ -6629,146 +7159,6635 @@ public final class C2SProtos {
     // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.AuthPath)
   }
 
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_Registration_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_Registration_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_CommitmentReq_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_CommitmentReq_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_KeyLookup_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_KeyLookup_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_RegistrationResp_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_RegistrationResp_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_AuthPath_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_AuthPath_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_AuthPath_UserLeafNode_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_AuthPath_UserLeafNode_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_AuthPath_InteriorNode_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_AuthPath_InteriorNode_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_AuthPath_RootNode_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_AuthPath_RootNode_fieldAccessorTable;
+  public interface BulkRegistrationOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.BulkRegistration)
+      com.google.protobuf.MessageOrBuilder {
 
-  public static com.google.protobuf.Descriptors.FileDescriptor
-      getDescriptor() {
-    return descriptor;
+    /**
+     * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+     */
+    java.util.List<org.coniks.coniks_common.C2SProtos.Registration> 
+        getRegistrationList();
+    /**
+     * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+     */
+    org.coniks.coniks_common.C2SProtos.Registration getRegistration(int index);
+    /**
+     * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+     */
+    int getRegistrationCount();
+    /**
+     * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+     */
+    java.util.List<? extends org.coniks.coniks_common.C2SProtos.RegistrationOrBuilder> 
+        getRegistrationOrBuilderList();
+    /**
+     * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+     */
+    org.coniks.coniks_common.C2SProtos.RegistrationOrBuilder getRegistrationOrBuilder(
+        int index);
+
+    /**
+     * <code>optional bool more = 2;</code>
+     *
+     * <pre>
+     * set if another bulk registration follows on this connection
+     * </pre>
+     */
+    boolean hasMore();
+    /**
+     * <code>optional bool more = 2;</code>
+     *
+     * <pre>
+     * set if another bulk registration follows on this connection
+     * </pre>
+     */
+    boolean getMore();
   }
-  private static com.google.protobuf.Descriptors.FileDescriptor
-      descriptor;
-  static {
-    java.lang.String[] descriptorData = {
-      "\n\tc2s.proto\022\030org.coniks.coniks_common\032\nu" +
-      "til.proto\"/\n\014Registration\022\014\n\004name\030\001 \001(\t\022" +
-      "\021\n\tpublickey\030\002 \001(\t\"\237\001\n\rCommitmentReq\022D\n\004" +
-      "type\030\001 \001(\01626.org.coniks.coniks_common.Co" +
-      "mmitmentReq.CommitmentType\022\r\n\005epoch\030\002 \001(" +
-      "\004\022\020\n\010provider\030\003 \001(\t\"\'\n\016CommitmentType\022\010\n" +
-      "\004SELF\020\000\022\013\n\007WITNESS\020\001\"(\n\tKeyLookup\022\014\n\004nam" +
-      "e\030\001 \001(\t\022\r\n\005epoch\030\002 \001(\004\">\n\020RegistrationRe" +
-      "sp\022\022\n\ninit_epoch\030\001 \001(\004\022\026\n\016epoch_interval" +
-      "\030\002 \001(\r\"\343\005\n\010AuthPath\022=\n\004leaf\030\001 \001(\0132/.org.",
-      "coniks.coniks_common.AuthPath.UserLeafNo" +
-      "de\022A\n\010interior\030\002 \003(\0132/.org.coniks.coniks" +
-      "_common.AuthPath.InteriorNode\0229\n\004root\030\003 " +
-      "\001(\0132+.org.coniks.coniks_common.AuthPath." +
-      "RootNode\032\256\001\n\014UserLeafNode\022\014\n\004name\030\001 \001(\t\022" +
-      "\021\n\tpublickey\030\002 \001(\t\022\023\n\013epoch_added\030\003 \001(\004\022" +
-      "!\n\031allows_unsigned_keychange\030\004 \001(\010\022\034\n\024al" +
-      "lows_public_lookup\030\005 \001(\010\022\024\n\014lookup_index" +
-      "\030\006 \003(\007\022\021\n\tintlevels\030\007 \001(\r\032\204\001\n\014InteriorNo" +
-      "de\022C\n\013prunedchild\030\001 \001(\0162..org.coniks.con",
-      "iks_common.AuthPath.PrunedChild\022/\n\007subtr" +
-      "ee\030\002 \001(\0132\036.org.coniks.coniks_common.Hash" +
-      "\032\275\001\n\010RootNode\022C\n\013prunedchild\030\001 \001(\0162..org" +
-      ".coniks.coniks_common.AuthPath.PrunedChi" +
-      "ld\022/\n\007subtree\030\002 \001(\0132\036.org.coniks.coniks_" +
-      "common.Hash\022,\n\004prev\030\003 \001(\0132\036.org.coniks.c" +
-      "oniks_common.Hash\022\r\n\005epoch\030\004 \001(\004\"\"\n\013Prun" +
-      "edChild\022\010\n\004LEFT\020\000\022\t\n\005RIGHT\020\001B%\n\030org.coni" +
-      "ks.coniks_commonB\tC2SProtos"
-    };
-    com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
-        new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
-          public com.google.protobuf.ExtensionRegistry assignDescriptors(
-              com.google.protobuf.Descriptors.FileDescriptor root) {
-            descriptor = root;
-            return null;
+  /**
+   * Protobuf type {@code org.coniks.coniks_common.BulkRegistration}
+   *
+   * <pre>
+   * sent by a provider importing many users at once, possibly as several
+   * chunks on the same connection; only accepted from clients that
+   * authenticate with a certificate trusted by the server
+   * </pre>
+   */
+  public static final class BulkRegistration extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:org.coniks.coniks_common.BulkRegistration)
+      BulkRegistrationOrBuilder {
+    // Use BulkRegistration.newBuilder() to construct.
+    private BulkRegistration(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private BulkRegistration(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final BulkRegistration defaultInstance;
+    public static BulkRegistration getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public BulkRegistration getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private BulkRegistration(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 10: {
+              if (!((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+                registration_ = new java.util.ArrayList<org.coniks.coniks_common.C2SProtos.Registration>();
+                mutable_bitField0_ |= 0x00000001;
+              }
+              registration_.add(input.readMessage(org.coniks.coniks_common.C2SProtos.Registration.PARSER, extensionRegistry));
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000001;
+              more_ = input.readBool();
+              break;
+            }
           }
-        };
-    com.google.protobuf.Descriptors.FileDescriptor
-      .internalBuildGeneratedFileFrom(descriptorData,
-        new com.google.protobuf.Descriptors.FileDescriptor[] {
-          org.coniks.coniks_common.UtilProtos.getDescriptor(),
-        }, assigner);
-    internal_static_org_coniks_coniks_common_Registration_descriptor =
-      getDescriptor().getMessageTypes().get(0);
-    internal_static_org_coniks_coniks_common_Registration_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_Registration_descriptor,
-        new java.lang.String[] { "Name", "Publickey", });
-    internal_static_org_coniks_coniks_common_CommitmentReq_descriptor =
-      getDescriptor().getMessageTypes().get(1);
-    internal_static_org_coniks_coniks_common_CommitmentReq_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_CommitmentReq_descriptor,
-        new java.lang.String[] { "Type", "Epoch", "Provider", });
-    internal_static_org_coniks_coniks_common_KeyLookup_descriptor =
-      getDescriptor().getMessageTypes().get(2);
-    internal_static_org_coniks_coniks_common_KeyLookup_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_KeyLookup_descriptor,
-        new java.lang.String[] { "Name", "Epoch", });
-    internal_static_org_coniks_coniks_common_RegistrationResp_descriptor =
-      getDescriptor().getMessageTypes().get(3);
-    internal_static_org_coniks_coniks_common_RegistrationResp_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_RegistrationResp_descriptor,
-        new java.lang.String[] { "InitEpoch", "EpochInterval", });
-    internal_static_org_coniks_coniks_common_AuthPath_descriptor =
-      getDescriptor().getMessageTypes().get(4);
-    internal_static_org_coniks_coniks_common_AuthPath_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_AuthPath_descriptor,
-        new java.lang.String[] { "Leaf", "Interior", "Root", });
-    internal_static_org_coniks_coniks_common_AuthPath_UserLeafNode_descriptor =
-      internal_static_org_coniks_coniks_common_AuthPath_descriptor.getNestedTypes().get(0);
-    internal_static_org_coniks_coniks_common_AuthPath_UserLeafNode_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_AuthPath_UserLeafNode_descriptor,
-        new java.lang.String[] { "Name", "Publickey", "EpochAdded", "AllowsUnsignedKeychange", "AllowsPublicLookup", "LookupIndex", "Intlevels", });
-    internal_static_org_coniks_coniks_common_AuthPath_InteriorNode_descriptor =
-      internal_static_org_coniks_coniks_common_AuthPath_descriptor.getNestedTypes().get(1);
-    internal_static_org_coniks_coniks_common_AuthPath_InteriorNode_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_AuthPath_InteriorNode_descriptor,
-        new java.lang.String[] { "Prunedchild", "Subtree", });
-    internal_static_org_coniks_coniks_common_AuthPath_RootNode_descriptor =
-      internal_static_org_coniks_coniks_common_AuthPath_descriptor.getNestedTypes().get(2);
-    internal_static_org_coniks_coniks_common_AuthPath_RootNode_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_AuthPath_RootNode_descriptor,
-        new java.lang.String[] { "Prunedchild", "Subtree", "Prev", "Epoch", });
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+          registration_ = java.util.Collections.unmodifiableList(registration_);
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_BulkRegistration_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_BulkRegistration_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.coniks.coniks_common.C2SProtos.BulkRegistration.class, org.coniks.coniks_common.C2SProtos.BulkRegistration.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<BulkRegistration> PARSER =
+        new com.google.protobuf.AbstractParser<BulkRegistration>() {
+      public BulkRegistration parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new BulkRegistration(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<BulkRegistration> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int REGISTRATION_FIELD_NUMBER = 1;
+    private java.util.List<org.coniks.coniks_common.C2SProtos.Registration> registration_;
+    /**
+     * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+     */
+    public java.util.List<org.coniks.coniks_common.C2SProtos.Registration> getRegistrationList() {
+      return registration_;
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+     */
+    public java.util.List<? extends org.coniks.coniks_common.C2SProtos.RegistrationOrBuilder> 
+        getRegistrationOrBuilderList() {
+      return registration_;
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+     */
+    public int getRegistrationCount() {
+      return registration_.size();
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+     */
+    public org.coniks.coniks_common.C2SProtos.Registration getRegistration(int index) {
+      return registration_.get(index);
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+     */
+    public org.coniks.coniks_common.C2SProtos.RegistrationOrBuilder getRegistrationOrBuilder(
+        int index) {
+      return registration_.get(index);
+    }
+
+    public static final int MORE_FIELD_NUMBER = 2;
+    private boolean more_;
+    /**
+     * <code>optional bool more = 2;</code>
+     *
+     * <pre>
+     * set if another bulk registration follows on this connection
+     * </pre>
+     */
+    public boolean hasMore() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional bool more = 2;</code>
+     *
+     * <pre>
+     * set if another bulk registration follows on this connection
+     * </pre>
+     */
+    public boolean getMore() {
+      return more_;
+    }
+
+    private void initFields() {
+      registration_ = java.util.Collections.emptyList();
+      more_ = false;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      for (int i = 0; i < registration_.size(); i++) {
+        output.writeMessage(1, registration_.get(i));
+      }
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeBool(2, more_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      for (int i = 0; i < registration_.size(); i++) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(1, registration_.get(i));
+      }
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBoolSize(2, more_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistration parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistration parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistration parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistration parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistration parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistration parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistration parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistration parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistration parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistration parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.coniks.coniks_common.C2SProtos.BulkRegistration prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code org.coniks.coniks_common.BulkRegistration}
+     *
+     * <pre>
+     * sent by a provider importing many users at once, possibly as several
+     * chunks on the same connection; only accepted from clients that
+     * authenticate with a certificate trusted by the server
+     * </pre>
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:org.coniks.coniks_common.BulkRegistration)
+        org.coniks.coniks_common.C2SProtos.BulkRegistrationOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_BulkRegistration_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_BulkRegistration_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.coniks.coniks_common.C2SProtos.BulkRegistration.class, org.coniks.coniks_common.C2SProtos.BulkRegistration.Builder.class);
+      }
+
+      // Construct using org.coniks.coniks_common.C2SProtos.BulkRegistration.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+          getRegistrationFieldBuilder();
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        if (registrationBuilder_ == null) {
+          registration_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000001);
+        } else {
+          registrationBuilder_.clear();
+        }
+        more_ = false;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_BulkRegistration_descriptor;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.BulkRegistration getDefaultInstanceForType() {
+        return org.coniks.coniks_common.C2SProtos.BulkRegistration.getDefaultInstance();
+      }
+
+      public org.coniks.coniks_common.C2SProtos.BulkRegistration build() {
+        org.coniks.coniks_common.C2SProtos.BulkRegistration result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.BulkRegistration buildPartial() {
+        org.coniks.coniks_common.C2SProtos.BulkRegistration result = new org.coniks.coniks_common.C2SProtos.BulkRegistration(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (registrationBuilder_ == null) {
+          if (((bitField0_ & 0x00000001) == 0x00000001)) {
+            registration_ = java.util.Collections.unmodifiableList(registration_);
+            bitField0_ = (bitField0_ & ~0x00000001);
+          }
+          result.registration_ = registration_;
+        } else {
+          result.registration_ = registrationBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.more_ = more_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.coniks.coniks_common.C2SProtos.BulkRegistration) {
+          return mergeFrom((org.coniks.coniks_common.C2SProtos.BulkRegistration)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.coniks.coniks_common.C2SProtos.BulkRegistration other) {
+        if (other == org.coniks.coniks_common.C2SProtos.BulkRegistration.getDefaultInstance()) return this;
+        if (registrationBuilder_ == null) {
+          if (!other.registration_.isEmpty()) {
+            if (registration_.isEmpty()) {
+              registration_ = other.registration_;
+              bitField0_ = (bitField0_ & ~0x00000001);
+            } else {
+              ensureRegistrationIsMutable();
+              registration_.addAll(other.registration_);
+            }
+            onChanged();
+          }
+        } else {
+          if (!other.registration_.isEmpty()) {
+            if (registrationBuilder_.isEmpty()) {
+              registrationBuilder_.dispose();
+              registrationBuilder_ = null;
+              registration_ = other.registration_;
+              bitField0_ = (bitField0_ & ~0x00000001);
+              registrationBuilder_ = 
+                com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders ?
+                   getRegistrationFieldBuilder() : null;
+            } else {
+              registrationBuilder_.addAllMessages(other.registration_);
+            }
+          }
+        }
+        if (other.hasMore()) {
+          setMore(other.getMore());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.coniks.coniks_common.C2SProtos.BulkRegistration parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.coniks.coniks_common.C2SProtos.BulkRegistration) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private java.util.List<org.coniks.coniks_common.C2SProtos.Registration> registration_ =
+        java.util.Collections.emptyList();
+      private void ensureRegistrationIsMutable() {
+        if (!((bitField0_ & 0x00000001) == 0x00000001)) {
+          registration_ = new java.util.ArrayList<org.coniks.coniks_common.C2SProtos.Registration>(registration_);
+          bitField0_ |= 0x00000001;
+         }
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilder<
+          org.coniks.coniks_common.C2SProtos.Registration, org.coniks.coniks_common.C2SProtos.Registration.Builder, org.coniks.coniks_common.C2SProtos.RegistrationOrBuilder> registrationBuilder_;
+
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public java.util.List<org.coniks.coniks_common.C2SProtos.Registration> getRegistrationList() {
+        if (registrationBuilder_ == null) {
+          return java.util.Collections.unmodifiableList(registration_);
+        } else {
+          return registrationBuilder_.getMessageList();
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public int getRegistrationCount() {
+        if (registrationBuilder_ == null) {
+          return registration_.size();
+        } else {
+          return registrationBuilder_.getCount();
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public org.coniks.coniks_common.C2SProtos.Registration getRegistration(int index) {
+        if (registrationBuilder_ == null) {
+          return registration_.get(index);
+        } else {
+          return registrationBuilder_.getMessage(index);
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public Builder setRegistration(
+          int index, org.coniks.coniks_common.C2SProtos.Registration value) {
+        if (registrationBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureRegistrationIsMutable();
+          registration_.set(index, value);
+          onChanged();
+        } else {
+          registrationBuilder_.setMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public Builder setRegistration(
+          int index, org.coniks.coniks_common.C2SProtos.Registration.Builder builderForValue) {
+        if (registrationBuilder_ == null) {
+          ensureRegistrationIsMutable();
+          registration_.set(index, builderForValue.build());
+          onChanged();
+        } else {
+          registrationBuilder_.setMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public Builder addRegistration(org.coniks.coniks_common.C2SProtos.Registration value) {
+        if (registrationBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureRegistrationIsMutable();
+          registration_.add(value);
+          onChanged();
+        } else {
+          registrationBuilder_.addMessage(value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public Builder addRegistration(
+          int index, org.coniks.coniks_common.C2SProtos.Registration value) {
+        if (registrationBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureRegistrationIsMutable();
+          registration_.add(index, value);
+          onChanged();
+        } else {
+          registrationBuilder_.addMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public Builder addRegistration(
+          org.coniks.coniks_common.C2SProtos.Registration.Builder builderForValue) {
+        if (registrationBuilder_ == null) {
+          ensureRegistrationIsMutable();
+          registration_.add(builderForValue.build());
+          onChanged();
+        } else {
+          registrationBuilder_.addMessage(builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public Builder addRegistration(
+          int index, org.coniks.coniks_common.C2SProtos.Registration.Builder builderForValue) {
+        if (registrationBuilder_ == null) {
+          ensureRegistrationIsMutable();
+          registration_.add(index, builderForValue.build());
+          onChanged();
+        } else {
+          registrationBuilder_.addMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public Builder addAllRegistration(
+          java.lang.Iterable<? extends org.coniks.coniks_common.C2SProtos.Registration> values) {
+        if (registrationBuilder_ == null) {
+          ensureRegistrationIsMutable();
+          com.google.protobuf.AbstractMessageLite.Builder.addAll(
+              values, registration_);
+          onChanged();
+        } else {
+          registrationBuilder_.addAllMessages(values);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public Builder clearRegistration() {
+        if (registrationBuilder_ == null) {
+          registration_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000001);
+          onChanged();
+        } else {
+          registrationBuilder_.clear();
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public Builder removeRegistration(int index) {
+        if (registrationBuilder_ == null) {
+          ensureRegistrationIsMutable();
+          registration_.remove(index);
+          onChanged();
+        } else {
+          registrationBuilder_.remove(index);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public org.coniks.coniks_common.C2SProtos.Registration.Builder getRegistrationBuilder(
+          int index) {
+        return getRegistrationFieldBuilder().getBuilder(index);
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public org.coniks.coniks_common.C2SProtos.RegistrationOrBuilder getRegistrationOrBuilder(
+          int index) {
+        if (registrationBuilder_ == null) {
+          return registration_.get(index);  } else {
+          return registrationBuilder_.getMessageOrBuilder(index);
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public java.util.List<? extends org.coniks.coniks_common.C2SProtos.RegistrationOrBuilder> 
+           getRegistrationOrBuilderList() {
+        if (registrationBuilder_ != null) {
+          return registrationBuilder_.getMessageOrBuilderList();
+        } else {
+          return java.util.Collections.unmodifiableList(registration_);
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public org.coniks.coniks_common.C2SProtos.Registration.Builder addRegistrationBuilder() {
+        return getRegistrationFieldBuilder().addBuilder(
+            org.coniks.coniks_common.C2SProtos.Registration.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public org.coniks.coniks_common.C2SProtos.Registration.Builder addRegistrationBuilder(
+          int index) {
+        return getRegistrationFieldBuilder().addBuilder(
+            index, org.coniks.coniks_common.C2SProtos.Registration.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Registration registration = 1;</code>
+       */
+      public java.util.List<org.coniks.coniks_common.C2SProtos.Registration.Builder> 
+           getRegistrationBuilderList() {
+        return getRegistrationFieldBuilder().getBuilderList();
+      }
+      private com.google.protobuf.RepeatedFieldBuilder<
+          org.coniks.coniks_common.C2SProtos.Registration, org.coniks.coniks_common.C2SProtos.Registration.Builder, org.coniks.coniks_common.C2SProtos.RegistrationOrBuilder> 
+          getRegistrationFieldBuilder() {
+        if (registrationBuilder_ == null) {
+          registrationBuilder_ = new com.google.protobuf.RepeatedFieldBuilder<
+              org.coniks.coniks_common.C2SProtos.Registration, org.coniks.coniks_common.C2SProtos.Registration.Builder, org.coniks.coniks_common.C2SProtos.RegistrationOrBuilder>(
+                  registration_,
+                  ((bitField0_ & 0x00000001) == 0x00000001),
+                  getParentForChildren(),
+                  isClean());
+          registration_ = null;
+        }
+        return registrationBuilder_;
+      }
+
+      private boolean more_ ;
+      /**
+       * <code>optional bool more = 2;</code>
+       *
+       * <pre>
+       * set if another bulk registration follows on this connection
+       * </pre>
+       */
+      public boolean hasMore() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      /**
+       * <code>optional bool more = 2;</code>
+       *
+       * <pre>
+       * set if another bulk registration follows on this connection
+       * </pre>
+       */
+      public boolean getMore() {
+        return more_;
+      }
+      /**
+       * <code>optional bool more = 2;</code>
+       *
+       * <pre>
+       * set if another bulk registration follows on this connection
+       * </pre>
+       */
+      public Builder setMore(boolean value) {
+        bitField0_ |= 0x00000002;
+        more_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bool more = 2;</code>
+       *
+       * <pre>
+       * set if another bulk registration follows on this connection
+       * </pre>
+       */
+      public Builder clearMore() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        more_ = false;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.BulkRegistration)
+    }
+
+    static {
+      defaultInstance = new BulkRegistration(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.BulkRegistration)
+  }
+
+  public interface BulkRegistrationRespOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.BulkRegistrationResp)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>optional uint64 init_epoch = 1;</code>
+     */
+    boolean hasInitEpoch();
+    /**
+     * <code>optional uint64 init_epoch = 1;</code>
+     */
+    long getInitEpoch();
+
+    /**
+     * <code>optional uint32 epoch_interval = 2;</code>
+     */
+    boolean hasEpochInterval();
+    /**
+     * <code>optional uint32 epoch_interval = 2;</code>
+     */
+    int getEpochInterval();
+
+    /**
+     * <code>optional uint32 num_entries = 3;</code>
+     */
+    boolean hasNumEntries();
+    /**
+     * <code>optional uint32 num_entries = 3;</code>
+     */
+    int getNumEntries();
+
+    /**
+     * <code>repeated fixed32 registered = 4 [packed = true];</code>
+     *
+     * <pre>
+     * bit (i % 32) of word (i / 32) is set iff entry i was registered
+     * </pre>
+     */
+    java.util.List<java.lang.Integer> getRegisteredList();
+    /**
+     * <code>repeated fixed32 registered = 4 [packed = true];</code>
+     *
+     * <pre>
+     * bit (i % 32) of word (i / 32) is set iff entry i was registered
+     * </pre>
+     */
+    int getRegisteredCount();
+    /**
+     * <code>repeated fixed32 registered = 4 [packed = true];</code>
+     *
+     * <pre>
+     * bit (i % 32) of word (i / 32) is set iff entry i was registered
+     * </pre>
+     */
+    int getRegistered(int index);
+  }
+  /**
+   * Protobuf type {@code org.coniks.coniks_common.BulkRegistrationResp}
+   */
+  public static final class BulkRegistrationResp extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:org.coniks.coniks_common.BulkRegistrationResp)
+      BulkRegistrationRespOrBuilder {
+    // Use BulkRegistrationResp.newBuilder() to construct.
+    private BulkRegistrationResp(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private BulkRegistrationResp(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final BulkRegistrationResp defaultInstance;
+    public static BulkRegistrationResp getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public BulkRegistrationResp getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private BulkRegistrationResp(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              initEpoch_ = input.readUInt64();
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000002;
+              epochInterval_ = input.readUInt32();
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              numEntries_ = input.readUInt32();
+              break;
+            }
+            case 37: {
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+                registered_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              registered_.add(input.readFixed32());
+              break;
+            }
+            case 34: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008) && input.getBytesUntilLimit() > 0) {
+                registered_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                registered_.add(input.readFixed32());
+              }
+              input.popLimit(limit);
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+          registered_ = java.util.Collections.unmodifiableList(registered_);
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_BulkRegistrationResp_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_BulkRegistrationResp_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.coniks.coniks_common.C2SProtos.BulkRegistrationResp.class, org.coniks.coniks_common.C2SProtos.BulkRegistrationResp.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<BulkRegistrationResp> PARSER =
+        new com.google.protobuf.AbstractParser<BulkRegistrationResp>() {
+      public BulkRegistrationResp parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new BulkRegistrationResp(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<BulkRegistrationResp> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int INIT_EPOCH_FIELD_NUMBER = 1;
+    private long initEpoch_;
+    /**
+     * <code>optional uint64 init_epoch = 1;</code>
+     */
+    public boolean hasInitEpoch() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional uint64 init_epoch = 1;</code>
+     */
+    public long getInitEpoch() {
+      return initEpoch_;
+    }
+
+    public static final int EPOCH_INTERVAL_FIELD_NUMBER = 2;
+    private int epochInterval_;
+    /**
+     * <code>optional uint32 epoch_interval = 2;</code>
+     */
+    public boolean hasEpochInterval() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    /**
+     * <code>optional uint32 epoch_interval = 2;</code>
+     */
+    public int getEpochInterval() {
+      return epochInterval_;
+    }
+
+    public static final int NUM_ENTRIES_FIELD_NUMBER = 3;
+    private int numEntries_;
+    /**
+     * <code>optional uint32 num_entries = 3;</code>
+     */
+    public boolean hasNumEntries() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    /**
+     * <code>optional uint32 num_entries = 3;</code>
+     */
+    public int getNumEntries() {
+      return numEntries_;
+    }
+
+    public static final int REGISTERED_FIELD_NUMBER = 4;
+    private java.util.List<java.lang.Integer> registered_;
+    /**
+     * <code>repeated fixed32 registered = 4 [packed = true];</code>
+     *
+     * <pre>
+     * bit (i % 32) of word (i / 32) is set iff entry i was registered
+     * </pre>
+     */
+    public java.util.List<java.lang.Integer>
+        getRegisteredList() {
+      return registered_;
+    }
+    /**
+     * <code>repeated fixed32 registered = 4 [packed = true];</code>
+     *
+     * <pre>
+     * bit (i % 32) of word (i / 32) is set iff entry i was registered
+     * </pre>
+     */
+    public int getRegisteredCount() {
+      return registered_.size();
+    }
+    /**
+     * <code>repeated fixed32 registered = 4 [packed = true];</code>
+     *
+     * <pre>
+     * bit (i % 32) of word (i / 32) is set iff entry i was registered
+     * </pre>
+     */
+    public int getRegistered(int index) {
+      return registered_.get(index);
+    }
+    private int registeredMemoizedSerializedSize = -1;
+
+    private void initFields() {
+      initEpoch_ = 0L;
+      epochInterval_ = 0;
+      numEntries_ = 0;
+      registered_ = java.util.Collections.emptyList();
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeUInt64(1, initEpoch_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeUInt32(2, epochInterval_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeUInt32(3, numEntries_);
+      }
+      if (getRegisteredList().size() > 0) {
+        output.writeRawVarint32(34);
+        output.writeRawVarint32(registeredMemoizedSerializedSize);
+      }
+      for (int i = 0; i < registered_.size(); i++) {
+        output.writeFixed32NoTag(registered_.get(i));
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(1, initEpoch_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(2, epochInterval_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(3, numEntries_);
+      }
+      {
+        int dataSize = 0;
+        dataSize = 4 * getRegisteredList().size();
+        size += dataSize;
+        if (!getRegisteredList().isEmpty()) {
+          size += 1;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        registeredMemoizedSerializedSize = dataSize;
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistrationResp parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistrationResp parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistrationResp parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistrationResp parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistrationResp parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistrationResp parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistrationResp parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistrationResp parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistrationResp parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.BulkRegistrationResp parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.coniks.coniks_common.C2SProtos.BulkRegistrationResp prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code org.coniks.coniks_common.BulkRegistrationResp}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:org.coniks.coniks_common.BulkRegistrationResp)
+        org.coniks.coniks_common.C2SProtos.BulkRegistrationRespOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_BulkRegistrationResp_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_BulkRegistrationResp_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.coniks.coniks_common.C2SProtos.BulkRegistrationResp.class, org.coniks.coniks_common.C2SProtos.BulkRegistrationResp.Builder.class);
+      }
+
+      // Construct using org.coniks.coniks_common.C2SProtos.BulkRegistrationResp.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        initEpoch_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        epochInterval_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        numEntries_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        registered_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_BulkRegistrationResp_descriptor;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.BulkRegistrationResp getDefaultInstanceForType() {
+        return org.coniks.coniks_common.C2SProtos.BulkRegistrationResp.getDefaultInstance();
+      }
+
+      public org.coniks.coniks_common.C2SProtos.BulkRegistrationResp build() {
+        org.coniks.coniks_common.C2SProtos.BulkRegistrationResp result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.BulkRegistrationResp buildPartial() {
+        org.coniks.coniks_common.C2SProtos.BulkRegistrationResp result = new org.coniks.coniks_common.C2SProtos.BulkRegistrationResp(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.initEpoch_ = initEpoch_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.epochInterval_ = epochInterval_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.numEntries_ = numEntries_;
+        if (((bitField0_ & 0x00000008) == 0x00000008)) {
+          registered_ = java.util.Collections.unmodifiableList(registered_);
+          bitField0_ = (bitField0_ & ~0x00000008);
+        }
+        result.registered_ = registered_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.coniks.coniks_common.C2SProtos.BulkRegistrationResp) {
+          return mergeFrom((org.coniks.coniks_common.C2SProtos.BulkRegistrationResp)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.coniks.coniks_common.C2SProtos.BulkRegistrationResp other) {
+        if (other == org.coniks.coniks_common.C2SProtos.BulkRegistrationResp.getDefaultInstance()) return this;
+        if (other.hasInitEpoch()) {
+          setInitEpoch(other.getInitEpoch());
+        }
+        if (other.hasEpochInterval()) {
+          setEpochInterval(other.getEpochInterval());
+        }
+        if (other.hasNumEntries()) {
+          setNumEntries(other.getNumEntries());
+        }
+        if (!other.registered_.isEmpty()) {
+          if (registered_.isEmpty()) {
+            registered_ = other.registered_;
+            bitField0_ = (bitField0_ & ~0x00000008);
+          } else {
+            ensureRegisteredIsMutable();
+            registered_.addAll(other.registered_);
+          }
+          onChanged();
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.coniks.coniks_common.C2SProtos.BulkRegistrationResp parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.coniks.coniks_common.C2SProtos.BulkRegistrationResp) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private long initEpoch_ ;
+      /**
+       * <code>optional uint64 init_epoch = 1;</code>
+       */
+      public boolean hasInitEpoch() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>optional uint64 init_epoch = 1;</code>
+       */
+      public long getInitEpoch() {
+        return initEpoch_;
+      }
+      /**
+       * <code>optional uint64 init_epoch = 1;</code>
+       */
+      public Builder setInitEpoch(long value) {
+        bitField0_ |= 0x00000001;
+        initEpoch_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 init_epoch = 1;</code>
+       */
+      public Builder clearInitEpoch() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        initEpoch_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private int epochInterval_ ;
+      /**
+       * <code>optional uint32 epoch_interval = 2;</code>
+       */
+      public boolean hasEpochInterval() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      /**
+       * <code>optional uint32 epoch_interval = 2;</code>
+       */
+      public int getEpochInterval() {
+        return epochInterval_;
+      }
+      /**
+       * <code>optional uint32 epoch_interval = 2;</code>
+       */
+      public Builder setEpochInterval(int value) {
+        bitField0_ |= 0x00000002;
+        epochInterval_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 epoch_interval = 2;</code>
+       */
+      public Builder clearEpochInterval() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        epochInterval_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int numEntries_ ;
+      /**
+       * <code>optional uint32 num_entries = 3;</code>
+       */
+      public boolean hasNumEntries() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      /**
+       * <code>optional uint32 num_entries = 3;</code>
+       */
+      public int getNumEntries() {
+        return numEntries_;
+      }
+      /**
+       * <code>optional uint32 num_entries = 3;</code>
+       */
+      public Builder setNumEntries(int value) {
+        bitField0_ |= 0x00000004;
+        numEntries_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 num_entries = 3;</code>
+       */
+      public Builder clearNumEntries() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        numEntries_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private java.util.List<java.lang.Integer> registered_ = java.util.Collections.emptyList();
+      private void ensureRegisteredIsMutable() {
+        if (!((bitField0_ & 0x00000008) == 0x00000008)) {
+          registered_ = new java.util.ArrayList<java.lang.Integer>(registered_);
+          bitField0_ |= 0x00000008;
+         }
+      }
+      /**
+       * <code>repeated fixed32 registered = 4 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff entry i was registered
+       * </pre>
+       */
+      public java.util.List<java.lang.Integer>
+          getRegisteredList() {
+        return java.util.Collections.unmodifiableList(registered_);
+      }
+      /**
+       * <code>repeated fixed32 registered = 4 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff entry i was registered
+       * </pre>
+       */
+      public int getRegisteredCount() {
+        return registered_.size();
+      }
+      /**
+       * <code>repeated fixed32 registered = 4 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff entry i was registered
+       * </pre>
+       */
+      public int getRegistered(int index) {
+        return registered_.get(index);
+      }
+      /**
+       * <code>repeated fixed32 registered = 4 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff entry i was registered
+       * </pre>
+       */
+      public Builder setRegistered(
+          int index, int value) {
+        ensureRegisteredIsMutable();
+        registered_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated fixed32 registered = 4 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff entry i was registered
+       * </pre>
+       */
+      public Builder addRegistered(int value) {
+        ensureRegisteredIsMutable();
+        registered_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated fixed32 registered = 4 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff entry i was registered
+       * </pre>
+       */
+      public Builder addAllRegistered(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureRegisteredIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, registered_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated fixed32 registered = 4 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff entry i was registered
+       * </pre>
+       */
+      public Builder clearRegistered() {
+        registered_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.BulkRegistrationResp)
+    }
+
+    static {
+      defaultInstance = new BulkRegistrationResp(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.BulkRegistrationResp)
+  }
+
+  public interface KeyLookupBatchOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.KeyLookupBatch)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+     *
+     * <pre>
+     * server checks that epoch and at least one lookup are specified
+     * the epochs of the individual lookups are ignored
+     * </pre>
+     */
+    java.util.List<org.coniks.coniks_common.C2SProtos.KeyLookup> 
+        getLookupList();
+    /**
+     * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+     *
+     * <pre>
+     * server checks that epoch and at least one lookup are specified
+     * the epochs of the individual lookups are ignored
+     * </pre>
+     */
+    org.coniks.coniks_common.C2SProtos.KeyLookup getLookup(int index);
+    /**
+     * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+     *
+     * <pre>
+     * server checks that epoch and at least one lookup are specified
+     * the epochs of the individual lookups are ignored
+     * </pre>
+     */
+    int getLookupCount();
+    /**
+     * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+     *
+     * <pre>
+     * server checks that epoch and at least one lookup are specified
+     * the epochs of the individual lookups are ignored
+     * </pre>
+     */
+    java.util.List<? extends org.coniks.coniks_common.C2SProtos.KeyLookupOrBuilder> 
+        getLookupOrBuilderList();
+    /**
+     * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+     *
+     * <pre>
+     * server checks that epoch and at least one lookup are specified
+     * the epochs of the individual lookups are ignored
+     * </pre>
+     */
+    org.coniks.coniks_common.C2SProtos.KeyLookupOrBuilder getLookupOrBuilder(
+        int index);
+
+    /**
+     * <code>optional uint64 epoch = 2;</code>
+     */
+    boolean hasEpoch();
+    /**
+     * <code>optional uint64 epoch = 2;</code>
+     */
+    long getEpoch();
+  }
+  /**
+   * Protobuf type {@code org.coniks.coniks_common.KeyLookupBatch}
+   */
+  public static final class KeyLookupBatch extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:org.coniks.coniks_common.KeyLookupBatch)
+      KeyLookupBatchOrBuilder {
+    // Use KeyLookupBatch.newBuilder() to construct.
+    private KeyLookupBatch(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private KeyLookupBatch(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final KeyLookupBatch defaultInstance;
+    public static KeyLookupBatch getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public KeyLookupBatch getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private KeyLookupBatch(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 10: {
+              if (!((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+                lookup_ = new java.util.ArrayList<org.coniks.coniks_common.C2SProtos.KeyLookup>();
+                mutable_bitField0_ |= 0x00000001;
+              }
+              lookup_.add(input.readMessage(org.coniks.coniks_common.C2SProtos.KeyLookup.PARSER, extensionRegistry));
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000001;
+              epoch_ = input.readUInt64();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+          lookup_ = java.util.Collections.unmodifiableList(lookup_);
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_KeyLookupBatch_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_KeyLookupBatch_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.coniks.coniks_common.C2SProtos.KeyLookupBatch.class, org.coniks.coniks_common.C2SProtos.KeyLookupBatch.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<KeyLookupBatch> PARSER =
+        new com.google.protobuf.AbstractParser<KeyLookupBatch>() {
+      public KeyLookupBatch parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new KeyLookupBatch(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<KeyLookupBatch> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int LOOKUP_FIELD_NUMBER = 1;
+    private java.util.List<org.coniks.coniks_common.C2SProtos.KeyLookup> lookup_;
+    /**
+     * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+     *
+     * <pre>
+     * server checks that epoch and at least one lookup are specified
+     * the epochs of the individual lookups are ignored
+     * </pre>
+     */
+    public java.util.List<org.coniks.coniks_common.C2SProtos.KeyLookup> getLookupList() {
+      return lookup_;
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+     *
+     * <pre>
+     * server checks that epoch and at least one lookup are specified
+     * the epochs of the individual lookups are ignored
+     * </pre>
+     */
+    public java.util.List<? extends org.coniks.coniks_common.C2SProtos.KeyLookupOrBuilder> 
+        getLookupOrBuilderList() {
+      return lookup_;
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+     *
+     * <pre>
+     * server checks that epoch and at least one lookup are specified
+     * the epochs of the individual lookups are ignored
+     * </pre>
+     */
+    public int getLookupCount() {
+      return lookup_.size();
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+     *
+     * <pre>
+     * server checks that epoch and at least one lookup are specified
+     * the epochs of the individual lookups are ignored
+     * </pre>
+     */
+    public org.coniks.coniks_common.C2SProtos.KeyLookup getLookup(int index) {
+      return lookup_.get(index);
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+     *
+     * <pre>
+     * server checks that epoch and at least one lookup are specified
+     * the epochs of the individual lookups are ignored
+     * </pre>
+     */
+    public org.coniks.coniks_common.C2SProtos.KeyLookupOrBuilder getLookupOrBuilder(
+        int index) {
+      return lookup_.get(index);
+    }
+
+    public static final int EPOCH_FIELD_NUMBER = 2;
+    private long epoch_;
+    /**
+     * <code>optional uint64 epoch = 2;</code>
+     */
+    public boolean hasEpoch() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional uint64 epoch = 2;</code>
+     */
+    public long getEpoch() {
+      return epoch_;
+    }
+
+    private void initFields() {
+      lookup_ = java.util.Collections.emptyList();
+      epoch_ = 0L;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      for (int i = 0; i < lookup_.size(); i++) {
+        output.writeMessage(1, lookup_.get(i));
+      }
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeUInt64(2, epoch_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      for (int i = 0; i < lookup_.size(); i++) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(1, lookup_.get(i));
+      }
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(2, epoch_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static org.coniks.coniks_common.C2SProtos.KeyLookupBatch parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.KeyLookupBatch parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.KeyLookupBatch parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.KeyLookupBatch parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.KeyLookupBatch parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.KeyLookupBatch parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.KeyLookupBatch parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.KeyLookupBatch parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.KeyLookupBatch parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.KeyLookupBatch parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.coniks.coniks_common.C2SProtos.KeyLookupBatch prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code org.coniks.coniks_common.KeyLookupBatch}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:org.coniks.coniks_common.KeyLookupBatch)
+        org.coniks.coniks_common.C2SProtos.KeyLookupBatchOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_KeyLookupBatch_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_KeyLookupBatch_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.coniks.coniks_common.C2SProtos.KeyLookupBatch.class, org.coniks.coniks_common.C2SProtos.KeyLookupBatch.Builder.class);
+      }
+
+      // Construct using org.coniks.coniks_common.C2SProtos.KeyLookupBatch.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+          getLookupFieldBuilder();
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        if (lookupBuilder_ == null) {
+          lookup_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000001);
+        } else {
+          lookupBuilder_.clear();
+        }
+        epoch_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_KeyLookupBatch_descriptor;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.KeyLookupBatch getDefaultInstanceForType() {
+        return org.coniks.coniks_common.C2SProtos.KeyLookupBatch.getDefaultInstance();
+      }
+
+      public org.coniks.coniks_common.C2SProtos.KeyLookupBatch build() {
+        org.coniks.coniks_common.C2SProtos.KeyLookupBatch result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.KeyLookupBatch buildPartial() {
+        org.coniks.coniks_common.C2SProtos.KeyLookupBatch result = new org.coniks.coniks_common.C2SProtos.KeyLookupBatch(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (lookupBuilder_ == null) {
+          if (((bitField0_ & 0x00000001) == 0x00000001)) {
+            lookup_ = java.util.Collections.unmodifiableList(lookup_);
+            bitField0_ = (bitField0_ & ~0x00000001);
+          }
+          result.lookup_ = lookup_;
+        } else {
+          result.lookup_ = lookupBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.epoch_ = epoch_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.coniks.coniks_common.C2SProtos.KeyLookupBatch) {
+          return mergeFrom((org.coniks.coniks_common.C2SProtos.KeyLookupBatch)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.coniks.coniks_common.C2SProtos.KeyLookupBatch other) {
+        if (other == org.coniks.coniks_common.C2SProtos.KeyLookupBatch.getDefaultInstance()) return this;
+        if (lookupBuilder_ == null) {
+          if (!other.lookup_.isEmpty()) {
+            if (lookup_.isEmpty()) {
+              lookup_ = other.lookup_;
+              bitField0_ = (bitField0_ & ~0x00000001);
+            } else {
+              ensureLookupIsMutable();
+              lookup_.addAll(other.lookup_);
+            }
+            onChanged();
+          }
+        } else {
+          if (!other.lookup_.isEmpty()) {
+            if (lookupBuilder_.isEmpty()) {
+              lookupBuilder_.dispose();
+              lookupBuilder_ = null;
+              lookup_ = other.lookup_;
+              bitField0_ = (bitField0_ & ~0x00000001);
+              lookupBuilder_ = 
+                com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders ?
+                   getLookupFieldBuilder() : null;
+            } else {
+              lookupBuilder_.addAllMessages(other.lookup_);
+            }
+          }
+        }
+        if (other.hasEpoch()) {
+          setEpoch(other.getEpoch());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.coniks.coniks_common.C2SProtos.KeyLookupBatch parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.coniks.coniks_common.C2SProtos.KeyLookupBatch) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private java.util.List<org.coniks.coniks_common.C2SProtos.KeyLookup> lookup_ =
+        java.util.Collections.emptyList();
+      private void ensureLookupIsMutable() {
+        if (!((bitField0_ & 0x00000001) == 0x00000001)) {
+          lookup_ = new java.util.ArrayList<org.coniks.coniks_common.C2SProtos.KeyLookup>(lookup_);
+          bitField0_ |= 0x00000001;
+         }
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilder<
+          org.coniks.coniks_common.C2SProtos.KeyLookup, org.coniks.coniks_common.C2SProtos.KeyLookup.Builder, org.coniks.coniks_common.C2SProtos.KeyLookupOrBuilder> lookupBuilder_;
+
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public java.util.List<org.coniks.coniks_common.C2SProtos.KeyLookup> getLookupList() {
+        if (lookupBuilder_ == null) {
+          return java.util.Collections.unmodifiableList(lookup_);
+        } else {
+          return lookupBuilder_.getMessageList();
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public int getLookupCount() {
+        if (lookupBuilder_ == null) {
+          return lookup_.size();
+        } else {
+          return lookupBuilder_.getCount();
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public org.coniks.coniks_common.C2SProtos.KeyLookup getLookup(int index) {
+        if (lookupBuilder_ == null) {
+          return lookup_.get(index);
+        } else {
+          return lookupBuilder_.getMessage(index);
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public Builder setLookup(
+          int index, org.coniks.coniks_common.C2SProtos.KeyLookup value) {
+        if (lookupBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureLookupIsMutable();
+          lookup_.set(index, value);
+          onChanged();
+        } else {
+          lookupBuilder_.setMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public Builder setLookup(
+          int index, org.coniks.coniks_common.C2SProtos.KeyLookup.Builder builderForValue) {
+        if (lookupBuilder_ == null) {
+          ensureLookupIsMutable();
+          lookup_.set(index, builderForValue.build());
+          onChanged();
+        } else {
+          lookupBuilder_.setMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public Builder addLookup(org.coniks.coniks_common.C2SProtos.KeyLookup value) {
+        if (lookupBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureLookupIsMutable();
+          lookup_.add(value);
+          onChanged();
+        } else {
+          lookupBuilder_.addMessage(value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public Builder addLookup(
+          int index, org.coniks.coniks_common.C2SProtos.KeyLookup value) {
+        if (lookupBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureLookupIsMutable();
+          lookup_.add(index, value);
+          onChanged();
+        } else {
+          lookupBuilder_.addMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public Builder addLookup(
+          org.coniks.coniks_common.C2SProtos.KeyLookup.Builder builderForValue) {
+        if (lookupBuilder_ == null) {
+          ensureLookupIsMutable();
+          lookup_.add(builderForValue.build());
+          onChanged();
+        } else {
+          lookupBuilder_.addMessage(builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public Builder addLookup(
+          int index, org.coniks.coniks_common.C2SProtos.KeyLookup.Builder builderForValue) {
+        if (lookupBuilder_ == null) {
+          ensureLookupIsMutable();
+          lookup_.add(index, builderForValue.build());
+          onChanged();
+        } else {
+          lookupBuilder_.addMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public Builder addAllLookup(
+          java.lang.Iterable<? extends org.coniks.coniks_common.C2SProtos.KeyLookup> values) {
+        if (lookupBuilder_ == null) {
+          ensureLookupIsMutable();
+          com.google.protobuf.AbstractMessageLite.Builder.addAll(
+              values, lookup_);
+          onChanged();
+        } else {
+          lookupBuilder_.addAllMessages(values);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public Builder clearLookup() {
+        if (lookupBuilder_ == null) {
+          lookup_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000001);
+          onChanged();
+        } else {
+          lookupBuilder_.clear();
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public Builder removeLookup(int index) {
+        if (lookupBuilder_ == null) {
+          ensureLookupIsMutable();
+          lookup_.remove(index);
+          onChanged();
+        } else {
+          lookupBuilder_.remove(index);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public org.coniks.coniks_common.C2SProtos.KeyLookup.Builder getLookupBuilder(
+          int index) {
+        return getLookupFieldBuilder().getBuilder(index);
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public org.coniks.coniks_common.C2SProtos.KeyLookupOrBuilder getLookupOrBuilder(
+          int index) {
+        if (lookupBuilder_ == null) {
+          return lookup_.get(index);  } else {
+          return lookupBuilder_.getMessageOrBuilder(index);
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public java.util.List<? extends org.coniks.coniks_common.C2SProtos.KeyLookupOrBuilder> 
+           getLookupOrBuilderList() {
+        if (lookupBuilder_ != null) {
+          return lookupBuilder_.getMessageOrBuilderList();
+        } else {
+          return java.util.Collections.unmodifiableList(lookup_);
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public org.coniks.coniks_common.C2SProtos.KeyLookup.Builder addLookupBuilder() {
+        return getLookupFieldBuilder().addBuilder(
+            org.coniks.coniks_common.C2SProtos.KeyLookup.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public org.coniks.coniks_common.C2SProtos.KeyLookup.Builder addLookupBuilder(
+          int index) {
+        return getLookupFieldBuilder().addBuilder(
+            index, org.coniks.coniks_common.C2SProtos.KeyLookup.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.KeyLookup lookup = 1;</code>
+       *
+       * <pre>
+       * server checks that epoch and at least one lookup are specified
+       * the epochs of the individual lookups are ignored
+       * </pre>
+       */
+      public java.util.List<org.coniks.coniks_common.C2SProtos.KeyLookup.Builder> 
+           getLookupBuilderList() {
+        return getLookupFieldBuilder().getBuilderList();
+      }
+      private com.google.protobuf.RepeatedFieldBuilder<
+          org.coniks.coniks_common.C2SProtos.KeyLookup, org.coniks.coniks_common.C2SProtos.KeyLookup.Builder, org.coniks.coniks_common.C2SProtos.KeyLookupOrBuilder> 
+          getLookupFieldBuilder() {
+        if (lookupBuilder_ == null) {
+          lookupBuilder_ = new com.google.protobuf.RepeatedFieldBuilder<
+              org.coniks.coniks_common.C2SProtos.KeyLookup, org.coniks.coniks_common.C2SProtos.KeyLookup.Builder, org.coniks.coniks_common.C2SProtos.KeyLookupOrBuilder>(
+                  lookup_,
+                  ((bitField0_ & 0x00000001) == 0x00000001),
+                  getParentForChildren(),
+                  isClean());
+          lookup_ = null;
+        }
+        return lookupBuilder_;
+      }
+
+      private long epoch_ ;
+      /**
+       * <code>optional uint64 epoch = 2;</code>
+       */
+      public boolean hasEpoch() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      /**
+       * <code>optional uint64 epoch = 2;</code>
+       */
+      public long getEpoch() {
+        return epoch_;
+      }
+      /**
+       * <code>optional uint64 epoch = 2;</code>
+       */
+      public Builder setEpoch(long value) {
+        bitField0_ |= 0x00000002;
+        epoch_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 epoch = 2;</code>
+       */
+      public Builder clearEpoch() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        epoch_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.KeyLookupBatch)
+    }
+
+    static {
+      defaultInstance = new KeyLookupBatch(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.KeyLookupBatch)
+  }
+
+  public interface MultiAuthPathOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.MultiAuthPath)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+     *
+     * <pre>
+     * leaves for the names that were found, sorted by lookup index
+     * </pre>
+     */
+    java.util.List<org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode> 
+        getLeafList();
+    /**
+     * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+     *
+     * <pre>
+     * leaves for the names that were found, sorted by lookup index
+     * </pre>
+     */
+    org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode getLeaf(int index);
+    /**
+     * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+     *
+     * <pre>
+     * leaves for the names that were found, sorted by lookup index
+     * </pre>
+     */
+    int getLeafCount();
+    /**
+     * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+     *
+     * <pre>
+     * leaves for the names that were found, sorted by lookup index
+     * </pre>
+     */
+    java.util.List<? extends org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNodeOrBuilder> 
+        getLeafOrBuilderList();
+    /**
+     * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+     *
+     * <pre>
+     * leaves for the names that were found, sorted by lookup index
+     * </pre>
+     */
+    org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNodeOrBuilder getLeafOrBuilder(
+        int index);
+    /**
+     * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+     *
+     * <pre>
+     * hashes of the pruned subtrees in depth-first, left-to-right order
+     * </pre>
+     */
+    java.util.List<org.coniks.coniks_common.UtilProtos.Hash> 
+        getPrunedList();
+    /**
+     * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+     *
+     * <pre>
+     * hashes of the pruned subtrees in depth-first, left-to-right order
+     * </pre>
+     */
+    org.coniks.coniks_common.UtilProtos.Hash getPruned(int index);
+    /**
+     * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+     *
+     * <pre>
+     * hashes of the pruned subtrees in depth-first, left-to-right order
+     * </pre>
+     */
+    int getPrunedCount();
+    /**
+     * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+     *
+     * <pre>
+     * hashes of the pruned subtrees in depth-first, left-to-right order
+     * </pre>
+     */
+    java.util.List<? extends org.coniks.coniks_common.UtilProtos.HashOrBuilder> 
+        getPrunedOrBuilderList();
+    /**
+     * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+     *
+     * <pre>
+     * hashes of the pruned subtrees in depth-first, left-to-right order
+     * </pre>
+     */
+    org.coniks.coniks_common.UtilProtos.HashOrBuilder getPrunedOrBuilder(
+        int index);
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+     */
+    boolean hasPrev();
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+     */
+    org.coniks.coniks_common.UtilProtos.Hash getPrev();
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+     */
+    org.coniks.coniks_common.UtilProtos.HashOrBuilder getPrevOrBuilder();
+    /**
+     * <code>optional uint64 epoch = 4;</code>
+     */
+    boolean hasEpoch();
+    /**
+     * <code>optional uint64 epoch = 4;</code>
+     */
+    long getEpoch();
+    /**
+     * <code>optional bytes range_start = 5;</code>
+     *
+     * <pre>
+     * set for a chunk of a leaf range: leaf holds every leaf with a
+     * lookup index in [range_start, range_end), and the leaves just
+     * before and after the range, if any, which prove its bounds;
+     * unset range_end is the end of the index space
+     * </pre>
+     */
+    boolean hasRangeStart();
+    /**
+     * <code>optional bytes range_start = 5;</code>
+     *
+     * <pre>
+     * set for a chunk of a leaf range: leaf holds every leaf with a
+     * lookup index in [range_start, range_end), and the leaves just
+     * before and after the range, if any, which prove its bounds;
+     * unset range_end is the end of the index space
+     * </pre>
+     */
+    com.google.protobuf.ByteString getRangeStart();
+    /**
+     * <code>optional bytes range_end = 6;</code>
+     */
+    boolean hasRangeEnd();
+    /**
+     * <code>optional bytes range_end = 6;</code>
+     */
+    com.google.protobuf.ByteString getRangeEnd();
+  }
+  /**
+   * Protobuf type {@code org.coniks.coniks_common.MultiAuthPath}
+   *
+   * <pre>
+   * one proof for many names: the tree is pruned to the union of the
+   * auth paths, and each pruned subtree hash is only sent once
+   * </pre>
+   */
+  public static final class MultiAuthPath extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:org.coniks.coniks_common.MultiAuthPath)
+      MultiAuthPathOrBuilder {
+    // Use MultiAuthPath.newBuilder() to construct.
+    private MultiAuthPath(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private MultiAuthPath(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final MultiAuthPath defaultInstance;
+    public static MultiAuthPath getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public MultiAuthPath getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private MultiAuthPath(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 10: {
+              if (!((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+                leaf_ = new java.util.ArrayList<org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode>();
+                mutable_bitField0_ |= 0x00000001;
+              }
+              leaf_.add(input.readMessage(org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.PARSER, extensionRegistry));
+              break;
+            }
+            case 18: {
+              if (!((mutable_bitField0_ & 0x00000002) == 0x00000002)) {
+                pruned_ = new java.util.ArrayList<org.coniks.coniks_common.UtilProtos.Hash>();
+                mutable_bitField0_ |= 0x00000002;
+              }
+              pruned_.add(input.readMessage(org.coniks.coniks_common.UtilProtos.Hash.PARSER, extensionRegistry));
+              break;
+            }
+            case 26: {
+              org.coniks.coniks_common.UtilProtos.Hash.Builder subBuilder = null;
+              if (((bitField0_ & 0x00000001) == 0x00000001)) {
+                subBuilder = prev_.toBuilder();
+              }
+              prev_ = input.readMessage(org.coniks.coniks_common.UtilProtos.Hash.PARSER, extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(prev_);
+                prev_ = subBuilder.buildPartial();
+              }
+              bitField0_ |= 0x00000001;
+              break;
+            }
+            case 32: {
+              bitField0_ |= 0x00000002;
+              epoch_ = input.readUInt64();
+              break;
+            }
+            case 42: {
+              bitField0_ |= 0x00000004;
+              rangeStart_ = input.readBytes();
+              break;
+            }
+            case 50: {
+              bitField0_ |= 0x00000008;
+              rangeEnd_ = input.readBytes();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000001) == 0x00000001)) {
+          leaf_ = java.util.Collections.unmodifiableList(leaf_);
+        }
+        if (((mutable_bitField0_ & 0x00000002) == 0x00000002)) {
+          pruned_ = java.util.Collections.unmodifiableList(pruned_);
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_MultiAuthPath_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_MultiAuthPath_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.coniks.coniks_common.C2SProtos.MultiAuthPath.class, org.coniks.coniks_common.C2SProtos.MultiAuthPath.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<MultiAuthPath> PARSER =
+        new com.google.protobuf.AbstractParser<MultiAuthPath>() {
+      public MultiAuthPath parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new MultiAuthPath(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<MultiAuthPath> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int LEAF_FIELD_NUMBER = 1;
+    private java.util.List<org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode> leaf_;
+    /**
+     * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+     *
+     * <pre>
+     * leaves for the names that were found, sorted by lookup index
+     * </pre>
+     */
+    public java.util.List<org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode> getLeafList() {
+      return leaf_;
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+     *
+     * <pre>
+     * leaves for the names that were found, sorted by lookup index
+     * </pre>
+     */
+    public java.util.List<? extends org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNodeOrBuilder> 
+        getLeafOrBuilderList() {
+      return leaf_;
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+     *
+     * <pre>
+     * leaves for the names that were found, sorted by lookup index
+     * </pre>
+     */
+    public int getLeafCount() {
+      return leaf_.size();
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+     *
+     * <pre>
+     * leaves for the names that were found, sorted by lookup index
+     * </pre>
+     */
+    public org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode getLeaf(int index) {
+      return leaf_.get(index);
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+     *
+     * <pre>
+     * leaves for the names that were found, sorted by lookup index
+     * </pre>
+     */
+    public org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNodeOrBuilder getLeafOrBuilder(
+        int index) {
+      return leaf_.get(index);
+    }
+
+    public static final int PRUNED_FIELD_NUMBER = 2;
+    private java.util.List<org.coniks.coniks_common.UtilProtos.Hash> pruned_;
+    /**
+     * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+     *
+     * <pre>
+     * hashes of the pruned subtrees in depth-first, left-to-right order
+     * </pre>
+     */
+    public java.util.List<org.coniks.coniks_common.UtilProtos.Hash> getPrunedList() {
+      return pruned_;
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+     *
+     * <pre>
+     * hashes of the pruned subtrees in depth-first, left-to-right order
+     * </pre>
+     */
+    public java.util.List<? extends org.coniks.coniks_common.UtilProtos.HashOrBuilder> 
+        getPrunedOrBuilderList() {
+      return pruned_;
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+     *
+     * <pre>
+     * hashes of the pruned subtrees in depth-first, left-to-right order
+     * </pre>
+     */
+    public int getPrunedCount() {
+      return pruned_.size();
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+     *
+     * <pre>
+     * hashes of the pruned subtrees in depth-first, left-to-right order
+     * </pre>
+     */
+    public org.coniks.coniks_common.UtilProtos.Hash getPruned(int index) {
+      return pruned_.get(index);
+    }
+    /**
+     * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+     *
+     * <pre>
+     * hashes of the pruned subtrees in depth-first, left-to-right order
+     * </pre>
+     */
+    public org.coniks.coniks_common.UtilProtos.HashOrBuilder getPrunedOrBuilder(
+        int index) {
+      return pruned_.get(index);
+    }
+
+    public static final int PREV_FIELD_NUMBER = 3;
+    private org.coniks.coniks_common.UtilProtos.Hash prev_;
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+     */
+    public boolean hasPrev() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+     */
+    public org.coniks.coniks_common.UtilProtos.Hash getPrev() {
+      return prev_;
+    }
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+     */
+    public org.coniks.coniks_common.UtilProtos.HashOrBuilder getPrevOrBuilder() {
+      return prev_;
+    }
+
+    public static final int EPOCH_FIELD_NUMBER = 4;
+    private long epoch_;
+    /**
+     * <code>optional uint64 epoch = 4;</code>
+     */
+    public boolean hasEpoch() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    /**
+     * <code>optional uint64 epoch = 4;</code>
+     */
+    public long getEpoch() {
+      return epoch_;
+    }
+
+    public static final int RANGE_START_FIELD_NUMBER = 5;
+    private com.google.protobuf.ByteString rangeStart_;
+    /**
+     * <code>optional bytes range_start = 5;</code>
+     *
+     * <pre>
+     * set for a chunk of a leaf range: leaf holds every leaf with a
+     * lookup index in [range_start, range_end), and the leaves just
+     * before and after the range, if any, which prove its bounds;
+     * unset range_end is the end of the index space
+     * </pre>
+     */
+    public boolean hasRangeStart() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    /**
+     * <code>optional bytes range_start = 5;</code>
+     *
+     * <pre>
+     * set for a chunk of a leaf range: leaf holds every leaf with a
+     * lookup index in [range_start, range_end), and the leaves just
+     * before and after the range, if any, which prove its bounds;
+     * unset range_end is the end of the index space
+     * </pre>
+     */
+    public com.google.protobuf.ByteString getRangeStart() {
+      return rangeStart_;
+    }
+
+    public static final int RANGE_END_FIELD_NUMBER = 6;
+    private com.google.protobuf.ByteString rangeEnd_;
+    /**
+     * <code>optional bytes range_end = 6;</code>
+     */
+    public boolean hasRangeEnd() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    /**
+     * <code>optional bytes range_end = 6;</code>
+     */
+    public com.google.protobuf.ByteString getRangeEnd() {
+      return rangeEnd_;
+    }
+
+    private void initFields() {
+      leaf_ = java.util.Collections.emptyList();
+      pruned_ = java.util.Collections.emptyList();
+      prev_ = org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance();
+      epoch_ = 0L;
+      rangeStart_ = com.google.protobuf.ByteString.EMPTY;
+      rangeEnd_ = com.google.protobuf.ByteString.EMPTY;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      for (int i = 0; i < leaf_.size(); i++) {
+        output.writeMessage(1, leaf_.get(i));
+      }
+      for (int i = 0; i < pruned_.size(); i++) {
+        output.writeMessage(2, pruned_.get(i));
+      }
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeMessage(3, prev_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeUInt64(4, epoch_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeBytes(5, rangeStart_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeBytes(6, rangeEnd_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      for (int i = 0; i < leaf_.size(); i++) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(1, leaf_.get(i));
+      }
+      for (int i = 0; i < pruned_.size(); i++) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(2, pruned_.get(i));
+      }
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(3, prev_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(4, epoch_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(5, rangeStart_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(6, rangeEnd_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static org.coniks.coniks_common.C2SProtos.MultiAuthPath parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.MultiAuthPath parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.MultiAuthPath parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.MultiAuthPath parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.MultiAuthPath parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.MultiAuthPath parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.MultiAuthPath parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.MultiAuthPath parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.MultiAuthPath parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.MultiAuthPath parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.coniks.coniks_common.C2SProtos.MultiAuthPath prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code org.coniks.coniks_common.MultiAuthPath}
+     *
+     * <pre>
+     * one proof for many names: the tree is pruned to the union of the
+     * auth paths, and each pruned subtree hash is only sent once
+     * </pre>
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:org.coniks.coniks_common.MultiAuthPath)
+        org.coniks.coniks_common.C2SProtos.MultiAuthPathOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_MultiAuthPath_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_MultiAuthPath_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.coniks.coniks_common.C2SProtos.MultiAuthPath.class, org.coniks.coniks_common.C2SProtos.MultiAuthPath.Builder.class);
+      }
+
+      // Construct using org.coniks.coniks_common.C2SProtos.MultiAuthPath.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+          getLeafFieldBuilder();
+          getPrunedFieldBuilder();
+          getPrevFieldBuilder();
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        if (leafBuilder_ == null) {
+          leaf_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000001);
+        } else {
+          leafBuilder_.clear();
+        }
+        if (prunedBuilder_ == null) {
+          pruned_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000002);
+        } else {
+          prunedBuilder_.clear();
+        }
+        if (prevBuilder_ == null) {
+          prev_ = org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance();
+        } else {
+          prevBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000004);
+        epoch_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        rangeStart_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000010);
+        rangeEnd_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000020);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_MultiAuthPath_descriptor;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.MultiAuthPath getDefaultInstanceForType() {
+        return org.coniks.coniks_common.C2SProtos.MultiAuthPath.getDefaultInstance();
+      }
+
+      public org.coniks.coniks_common.C2SProtos.MultiAuthPath build() {
+        org.coniks.coniks_common.C2SProtos.MultiAuthPath result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.MultiAuthPath buildPartial() {
+        org.coniks.coniks_common.C2SProtos.MultiAuthPath result = new org.coniks.coniks_common.C2SProtos.MultiAuthPath(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (leafBuilder_ == null) {
+          if (((bitField0_ & 0x00000001) == 0x00000001)) {
+            leaf_ = java.util.Collections.unmodifiableList(leaf_);
+            bitField0_ = (bitField0_ & ~0x00000001);
+          }
+          result.leaf_ = leaf_;
+        } else {
+          result.leaf_ = leafBuilder_.build();
+        }
+        if (prunedBuilder_ == null) {
+          if (((bitField0_ & 0x00000002) == 0x00000002)) {
+            pruned_ = java.util.Collections.unmodifiableList(pruned_);
+            bitField0_ = (bitField0_ & ~0x00000002);
+          }
+          result.pruned_ = pruned_;
+        } else {
+          result.pruned_ = prunedBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        if (prevBuilder_ == null) {
+          result.prev_ = prev_;
+        } else {
+          result.prev_ = prevBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.epoch_ = epoch_;
+        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.rangeStart_ = rangeStart_;
+        if (((from_bitField0_ & 0x00000020) == 0x00000020)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.rangeEnd_ = rangeEnd_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.coniks.coniks_common.C2SProtos.MultiAuthPath) {
+          return mergeFrom((org.coniks.coniks_common.C2SProtos.MultiAuthPath)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.coniks.coniks_common.C2SProtos.MultiAuthPath other) {
+        if (other == org.coniks.coniks_common.C2SProtos.MultiAuthPath.getDefaultInstance()) return this;
+        if (leafBuilder_ == null) {
+          if (!other.leaf_.isEmpty()) {
+            if (leaf_.isEmpty()) {
+              leaf_ = other.leaf_;
+              bitField0_ = (bitField0_ & ~0x00000001);
+            } else {
+              ensureLeafIsMutable();
+              leaf_.addAll(other.leaf_);
+            }
+            onChanged();
+          }
+        } else {
+          if (!other.leaf_.isEmpty()) {
+            if (leafBuilder_.isEmpty()) {
+              leafBuilder_.dispose();
+              leafBuilder_ = null;
+              leaf_ = other.leaf_;
+              bitField0_ = (bitField0_ & ~0x00000001);
+              leafBuilder_ = 
+                com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders ?
+                   getLeafFieldBuilder() : null;
+            } else {
+              leafBuilder_.addAllMessages(other.leaf_);
+            }
+          }
+        }
+        if (prunedBuilder_ == null) {
+          if (!other.pruned_.isEmpty()) {
+            if (pruned_.isEmpty()) {
+              pruned_ = other.pruned_;
+              bitField0_ = (bitField0_ & ~0x00000002);
+            } else {
+              ensurePrunedIsMutable();
+              pruned_.addAll(other.pruned_);
+            }
+            onChanged();
+          }
+        } else {
+          if (!other.pruned_.isEmpty()) {
+            if (prunedBuilder_.isEmpty()) {
+              prunedBuilder_.dispose();
+              prunedBuilder_ = null;
+              pruned_ = other.pruned_;
+              bitField0_ = (bitField0_ & ~0x00000002);
+              prunedBuilder_ = 
+                com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders ?
+                   getPrunedFieldBuilder() : null;
+            } else {
+              prunedBuilder_.addAllMessages(other.pruned_);
+            }
+          }
+        }
+        if (other.hasPrev()) {
+          mergePrev(other.getPrev());
+        }
+        if (other.hasEpoch()) {
+          setEpoch(other.getEpoch());
+        }
+        if (other.hasRangeStart()) {
+          setRangeStart(other.getRangeStart());
+        }
+        if (other.hasRangeEnd()) {
+          setRangeEnd(other.getRangeEnd());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.coniks.coniks_common.C2SProtos.MultiAuthPath parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.coniks.coniks_common.C2SProtos.MultiAuthPath) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private java.util.List<org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode> leaf_ =
+        java.util.Collections.emptyList();
+      private void ensureLeafIsMutable() {
+        if (!((bitField0_ & 0x00000001) == 0x00000001)) {
+          leaf_ = new java.util.ArrayList<org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode>(leaf_);
+          bitField0_ |= 0x00000001;
+         }
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilder<
+          org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode, org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.Builder, org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNodeOrBuilder> leafBuilder_;
+
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public java.util.List<org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode> getLeafList() {
+        if (leafBuilder_ == null) {
+          return java.util.Collections.unmodifiableList(leaf_);
+        } else {
+          return leafBuilder_.getMessageList();
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public int getLeafCount() {
+        if (leafBuilder_ == null) {
+          return leaf_.size();
+        } else {
+          return leafBuilder_.getCount();
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode getLeaf(int index) {
+        if (leafBuilder_ == null) {
+          return leaf_.get(index);
+        } else {
+          return leafBuilder_.getMessage(index);
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public Builder setLeaf(
+          int index, org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode value) {
+        if (leafBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureLeafIsMutable();
+          leaf_.set(index, value);
+          onChanged();
+        } else {
+          leafBuilder_.setMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public Builder setLeaf(
+          int index, org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.Builder builderForValue) {
+        if (leafBuilder_ == null) {
+          ensureLeafIsMutable();
+          leaf_.set(index, builderForValue.build());
+          onChanged();
+        } else {
+          leafBuilder_.setMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public Builder addLeaf(org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode value) {
+        if (leafBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureLeafIsMutable();
+          leaf_.add(value);
+          onChanged();
+        } else {
+          leafBuilder_.addMessage(value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public Builder addLeaf(
+          int index, org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode value) {
+        if (leafBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureLeafIsMutable();
+          leaf_.add(index, value);
+          onChanged();
+        } else {
+          leafBuilder_.addMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public Builder addLeaf(
+          org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.Builder builderForValue) {
+        if (leafBuilder_ == null) {
+          ensureLeafIsMutable();
+          leaf_.add(builderForValue.build());
+          onChanged();
+        } else {
+          leafBuilder_.addMessage(builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public Builder addLeaf(
+          int index, org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.Builder builderForValue) {
+        if (leafBuilder_ == null) {
+          ensureLeafIsMutable();
+          leaf_.add(index, builderForValue.build());
+          onChanged();
+        } else {
+          leafBuilder_.addMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public Builder addAllLeaf(
+          java.lang.Iterable<? extends org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode> values) {
+        if (leafBuilder_ == null) {
+          ensureLeafIsMutable();
+          com.google.protobuf.AbstractMessageLite.Builder.addAll(
+              values, leaf_);
+          onChanged();
+        } else {
+          leafBuilder_.addAllMessages(values);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public Builder clearLeaf() {
+        if (leafBuilder_ == null) {
+          leaf_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000001);
+          onChanged();
+        } else {
+          leafBuilder_.clear();
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public Builder removeLeaf(int index) {
+        if (leafBuilder_ == null) {
+          ensureLeafIsMutable();
+          leaf_.remove(index);
+          onChanged();
+        } else {
+          leafBuilder_.remove(index);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.Builder getLeafBuilder(
+          int index) {
+        return getLeafFieldBuilder().getBuilder(index);
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNodeOrBuilder getLeafOrBuilder(
+          int index) {
+        if (leafBuilder_ == null) {
+          return leaf_.get(index);  } else {
+          return leafBuilder_.getMessageOrBuilder(index);
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public java.util.List<? extends org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNodeOrBuilder> 
+           getLeafOrBuilderList() {
+        if (leafBuilder_ != null) {
+          return leafBuilder_.getMessageOrBuilderList();
+        } else {
+          return java.util.Collections.unmodifiableList(leaf_);
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.Builder addLeafBuilder() {
+        return getLeafFieldBuilder().addBuilder(
+            org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.Builder addLeafBuilder(
+          int index) {
+        return getLeafFieldBuilder().addBuilder(
+            index, org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.AuthPath.UserLeafNode leaf = 1;</code>
+       *
+       * <pre>
+       * leaves for the names that were found, sorted by lookup index
+       * </pre>
+       */
+      public java.util.List<org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.Builder> 
+           getLeafBuilderList() {
+        return getLeafFieldBuilder().getBuilderList();
+      }
+      private com.google.protobuf.RepeatedFieldBuilder<
+          org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode, org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.Builder, org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNodeOrBuilder> 
+          getLeafFieldBuilder() {
+        if (leafBuilder_ == null) {
+          leafBuilder_ = new com.google.protobuf.RepeatedFieldBuilder<
+              org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode, org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNode.Builder, org.coniks.coniks_common.C2SProtos.AuthPath.UserLeafNodeOrBuilder>(
+                  leaf_,
+                  ((bitField0_ & 0x00000001) == 0x00000001),
+                  getParentForChildren(),
+                  isClean());
+          leaf_ = null;
+        }
+        return leafBuilder_;
+      }
+
+      private java.util.List<org.coniks.coniks_common.UtilProtos.Hash> pruned_ =
+        java.util.Collections.emptyList();
+      private void ensurePrunedIsMutable() {
+        if (!((bitField0_ & 0x00000002) == 0x00000002)) {
+          pruned_ = new java.util.ArrayList<org.coniks.coniks_common.UtilProtos.Hash>(pruned_);
+          bitField0_ |= 0x00000002;
+         }
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilder<
+          org.coniks.coniks_common.UtilProtos.Hash, org.coniks.coniks_common.UtilProtos.Hash.Builder, org.coniks.coniks_common.UtilProtos.HashOrBuilder> prunedBuilder_;
+
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public java.util.List<org.coniks.coniks_common.UtilProtos.Hash> getPrunedList() {
+        if (prunedBuilder_ == null) {
+          return java.util.Collections.unmodifiableList(pruned_);
+        } else {
+          return prunedBuilder_.getMessageList();
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public int getPrunedCount() {
+        if (prunedBuilder_ == null) {
+          return pruned_.size();
+        } else {
+          return prunedBuilder_.getCount();
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public org.coniks.coniks_common.UtilProtos.Hash getPruned(int index) {
+        if (prunedBuilder_ == null) {
+          return pruned_.get(index);
+        } else {
+          return prunedBuilder_.getMessage(index);
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public Builder setPruned(
+          int index, org.coniks.coniks_common.UtilProtos.Hash value) {
+        if (prunedBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensurePrunedIsMutable();
+          pruned_.set(index, value);
+          onChanged();
+        } else {
+          prunedBuilder_.setMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public Builder setPruned(
+          int index, org.coniks.coniks_common.UtilProtos.Hash.Builder builderForValue) {
+        if (prunedBuilder_ == null) {
+          ensurePrunedIsMutable();
+          pruned_.set(index, builderForValue.build());
+          onChanged();
+        } else {
+          prunedBuilder_.setMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public Builder addPruned(org.coniks.coniks_common.UtilProtos.Hash value) {
+        if (prunedBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensurePrunedIsMutable();
+          pruned_.add(value);
+          onChanged();
+        } else {
+          prunedBuilder_.addMessage(value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public Builder addPruned(
+          int index, org.coniks.coniks_common.UtilProtos.Hash value) {
+        if (prunedBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensurePrunedIsMutable();
+          pruned_.add(index, value);
+          onChanged();
+        } else {
+          prunedBuilder_.addMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public Builder addPruned(
+          org.coniks.coniks_common.UtilProtos.Hash.Builder builderForValue) {
+        if (prunedBuilder_ == null) {
+          ensurePrunedIsMutable();
+          pruned_.add(builderForValue.build());
+          onChanged();
+        } else {
+          prunedBuilder_.addMessage(builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public Builder addPruned(
+          int index, org.coniks.coniks_common.UtilProtos.Hash.Builder builderForValue) {
+        if (prunedBuilder_ == null) {
+          ensurePrunedIsMutable();
+          pruned_.add(index, builderForValue.build());
+          onChanged();
+        } else {
+          prunedBuilder_.addMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public Builder addAllPruned(
+          java.lang.Iterable<? extends org.coniks.coniks_common.UtilProtos.Hash> values) {
+        if (prunedBuilder_ == null) {
+          ensurePrunedIsMutable();
+          com.google.protobuf.AbstractMessageLite.Builder.addAll(
+              values, pruned_);
+          onChanged();
+        } else {
+          prunedBuilder_.addAllMessages(values);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public Builder clearPruned() {
+        if (prunedBuilder_ == null) {
+          pruned_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000002);
+          onChanged();
+        } else {
+          prunedBuilder_.clear();
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public Builder removePruned(int index) {
+        if (prunedBuilder_ == null) {
+          ensurePrunedIsMutable();
+          pruned_.remove(index);
+          onChanged();
+        } else {
+          prunedBuilder_.remove(index);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public org.coniks.coniks_common.UtilProtos.Hash.Builder getPrunedBuilder(
+          int index) {
+        return getPrunedFieldBuilder().getBuilder(index);
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public org.coniks.coniks_common.UtilProtos.HashOrBuilder getPrunedOrBuilder(
+          int index) {
+        if (prunedBuilder_ == null) {
+          return pruned_.get(index);  } else {
+          return prunedBuilder_.getMessageOrBuilder(index);
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public java.util.List<? extends org.coniks.coniks_common.UtilProtos.HashOrBuilder> 
+           getPrunedOrBuilderList() {
+        if (prunedBuilder_ != null) {
+          return prunedBuilder_.getMessageOrBuilderList();
+        } else {
+          return java.util.Collections.unmodifiableList(pruned_);
+        }
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public org.coniks.coniks_common.UtilProtos.Hash.Builder addPrunedBuilder() {
+        return getPrunedFieldBuilder().addBuilder(
+            org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public org.coniks.coniks_common.UtilProtos.Hash.Builder addPrunedBuilder(
+          int index) {
+        return getPrunedFieldBuilder().addBuilder(
+            index, org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .org.coniks.coniks_common.Hash pruned = 2;</code>
+       *
+       * <pre>
+       * hashes of the pruned subtrees in depth-first, left-to-right order
+       * </pre>
+       */
+      public java.util.List<org.coniks.coniks_common.UtilProtos.Hash.Builder> 
+           getPrunedBuilderList() {
+        return getPrunedFieldBuilder().getBuilderList();
+      }
+      private com.google.protobuf.RepeatedFieldBuilder<
+          org.coniks.coniks_common.UtilProtos.Hash, org.coniks.coniks_common.UtilProtos.Hash.Builder, org.coniks.coniks_common.UtilProtos.HashOrBuilder> 
+          getPrunedFieldBuilder() {
+        if (prunedBuilder_ == null) {
+          prunedBuilder_ = new com.google.protobuf.RepeatedFieldBuilder<
+              org.coniks.coniks_common.UtilProtos.Hash, org.coniks.coniks_common.UtilProtos.Hash.Builder, org.coniks.coniks_common.UtilProtos.HashOrBuilder>(
+                  pruned_,
+                  ((bitField0_ & 0x00000002) == 0x00000002),
+                  getParentForChildren(),
+                  isClean());
+          pruned_ = null;
+        }
+        return prunedBuilder_;
+      }
+
+      private org.coniks.coniks_common.UtilProtos.Hash prev_ = org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          org.coniks.coniks_common.UtilProtos.Hash, org.coniks.coniks_common.UtilProtos.Hash.Builder, org.coniks.coniks_common.UtilProtos.HashOrBuilder> prevBuilder_;
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+       */
+      public boolean hasPrev() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+       */
+      public org.coniks.coniks_common.UtilProtos.Hash getPrev() {
+        if (prevBuilder_ == null) {
+          return prev_;
+        } else {
+          return prevBuilder_.getMessage();
+        }
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+       */
+      public Builder setPrev(org.coniks.coniks_common.UtilProtos.Hash value) {
+        if (prevBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          prev_ = value;
+          onChanged();
+        } else {
+          prevBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000004;
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+       */
+      public Builder setPrev(
+          org.coniks.coniks_common.UtilProtos.Hash.Builder builderForValue) {
+        if (prevBuilder_ == null) {
+          prev_ = builderForValue.build();
+          onChanged();
+        } else {
+          prevBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000004;
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+       */
+      public Builder mergePrev(org.coniks.coniks_common.UtilProtos.Hash value) {
+        if (prevBuilder_ == null) {
+          if (((bitField0_ & 0x00000004) == 0x00000004) &&
+              prev_ != org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance()) {
+            prev_ =
+              org.coniks.coniks_common.UtilProtos.Hash.newBuilder(prev_).mergeFrom(value).buildPartial();
+          } else {
+            prev_ = value;
+          }
+          onChanged();
+        } else {
+          prevBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000004;
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+       */
+      public Builder clearPrev() {
+        if (prevBuilder_ == null) {
+          prev_ = org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance();
+          onChanged();
+        } else {
+          prevBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000004);
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+       */
+      public org.coniks.coniks_common.UtilProtos.Hash.Builder getPrevBuilder() {
+        bitField0_ |= 0x00000004;
+        onChanged();
+        return getPrevFieldBuilder().getBuilder();
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+       */
+      public org.coniks.coniks_common.UtilProtos.HashOrBuilder getPrevOrBuilder() {
+        if (prevBuilder_ != null) {
+          return prevBuilder_.getMessageOrBuilder();
+        } else {
+          return prev_;
+        }
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev = 3;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilder<
+          org.coniks.coniks_common.UtilProtos.Hash, org.coniks.coniks_common.UtilProtos.Hash.Builder, org.coniks.coniks_common.UtilProtos.HashOrBuilder> 
+          getPrevFieldBuilder() {
+        if (prevBuilder_ == null) {
+          prevBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              org.coniks.coniks_common.UtilProtos.Hash, org.coniks.coniks_common.UtilProtos.Hash.Builder, org.coniks.coniks_common.UtilProtos.HashOrBuilder>(
+                  getPrev(),
+                  getParentForChildren(),
+                  isClean());
+          prev_ = null;
+        }
+        return prevBuilder_;
+      }
+
+      private long epoch_ ;
+      /**
+       * <code>optional uint64 epoch = 4;</code>
+       */
+      public boolean hasEpoch() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      /**
+       * <code>optional uint64 epoch = 4;</code>
+       */
+      public long getEpoch() {
+        return epoch_;
+      }
+      /**
+       * <code>optional uint64 epoch = 4;</code>
+       */
+      public Builder setEpoch(long value) {
+        bitField0_ |= 0x00000008;
+        epoch_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 epoch = 4;</code>
+       */
+      public Builder clearEpoch() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        epoch_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.ByteString rangeStart_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <code>optional bytes range_start = 5;</code>
+       *
+       * <pre>
+       * set for a chunk of a leaf range: leaf holds every leaf with a
+       * lookup index in [range_start, range_end), and the leaves just
+       * before and after the range, if any, which prove its bounds;
+       * unset range_end is the end of the index space
+       * </pre>
+       */
+      public boolean hasRangeStart() {
+        return ((bitField0_ & 0x00000010) == 0x00000010);
+      }
+      /**
+       * <code>optional bytes range_start = 5;</code>
+       *
+       * <pre>
+       * set for a chunk of a leaf range: leaf holds every leaf with a
+       * lookup index in [range_start, range_end), and the leaves just
+       * before and after the range, if any, which prove its bounds;
+       * unset range_end is the end of the index space
+       * </pre>
+       */
+      public com.google.protobuf.ByteString getRangeStart() {
+        return rangeStart_;
+      }
+      /**
+       * <code>optional bytes range_start = 5;</code>
+       *
+       * <pre>
+       * set for a chunk of a leaf range: leaf holds every leaf with a
+       * lookup index in [range_start, range_end), and the leaves just
+       * before and after the range, if any, which prove its bounds;
+       * unset range_end is the end of the index space
+       * </pre>
+       */
+      public Builder setRangeStart(com.google.protobuf.ByteString value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000010;
+        rangeStart_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bytes range_start = 5;</code>
+       *
+       * <pre>
+       * set for a chunk of a leaf range: leaf holds every leaf with a
+       * lookup index in [range_start, range_end), and the leaves just
+       * before and after the range, if any, which prove its bounds;
+       * unset range_end is the end of the index space
+       * </pre>
+       */
+      public Builder clearRangeStart() {
+        bitField0_ = (bitField0_ & ~0x00000010);
+        rangeStart_ = getDefaultInstance().getRangeStart();
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.ByteString rangeEnd_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <code>optional bytes range_end = 6;</code>
+       */
+      public boolean hasRangeEnd() {
+        return ((bitField0_ & 0x00000020) == 0x00000020);
+      }
+      /**
+       * <code>optional bytes range_end = 6;</code>
+       */
+      public com.google.protobuf.ByteString getRangeEnd() {
+        return rangeEnd_;
+      }
+      /**
+       * <code>optional bytes range_end = 6;</code>
+       */
+      public Builder setRangeEnd(com.google.protobuf.ByteString value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000020;
+        rangeEnd_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bytes range_end = 6;</code>
+       */
+      public Builder clearRangeEnd() {
+        bitField0_ = (bitField0_ & ~0x00000020);
+        rangeEnd_ = getDefaultInstance().getRangeEnd();
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.MultiAuthPath)
+    }
+
+    static {
+      defaultInstance = new MultiAuthPath(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.MultiAuthPath)
+  }
+
+  public interface EpochDiffReqOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.EpochDiffReq)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>optional uint64 epoch = 1;</code>
+     */
+    boolean hasEpoch();
+    /**
+     * <code>optional uint64 epoch = 1;</code>
+     */
+    long getEpoch();
+  }
+  /**
+   * Protobuf type {@code org.coniks.coniks_common.EpochDiffReq}
+   *
+   * <pre>
+   * sent by auditors and monitors to get the changes made in the epoch
+   * in effect at epoch
+   * </pre>
+   */
+  public static final class EpochDiffReq extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:org.coniks.coniks_common.EpochDiffReq)
+      EpochDiffReqOrBuilder {
+    // Use EpochDiffReq.newBuilder() to construct.
+    private EpochDiffReq(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private EpochDiffReq(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final EpochDiffReq defaultInstance;
+    public static EpochDiffReq getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public EpochDiffReq getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private EpochDiffReq(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              epoch_ = input.readUInt64();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_EpochDiffReq_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_EpochDiffReq_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.coniks.coniks_common.C2SProtos.EpochDiffReq.class, org.coniks.coniks_common.C2SProtos.EpochDiffReq.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<EpochDiffReq> PARSER =
+        new com.google.protobuf.AbstractParser<EpochDiffReq>() {
+      public EpochDiffReq parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new EpochDiffReq(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<EpochDiffReq> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int EPOCH_FIELD_NUMBER = 1;
+    private long epoch_;
+    /**
+     * <code>optional uint64 epoch = 1;</code>
+     */
+    public boolean hasEpoch() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional uint64 epoch = 1;</code>
+     */
+    public long getEpoch() {
+      return epoch_;
+    }
+
+    private void initFields() {
+      epoch_ = 0L;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeUInt64(1, epoch_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(1, epoch_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static org.coniks.coniks_common.C2SProtos.EpochDiffReq parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiffReq parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiffReq parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiffReq parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiffReq parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiffReq parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiffReq parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiffReq parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiffReq parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiffReq parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.coniks.coniks_common.C2SProtos.EpochDiffReq prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code org.coniks.coniks_common.EpochDiffReq}
+     *
+     * <pre>
+     * sent by auditors and monitors to get the changes made in the epoch
+     * in effect at epoch
+     * </pre>
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:org.coniks.coniks_common.EpochDiffReq)
+        org.coniks.coniks_common.C2SProtos.EpochDiffReqOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_EpochDiffReq_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_EpochDiffReq_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.coniks.coniks_common.C2SProtos.EpochDiffReq.class, org.coniks.coniks_common.C2SProtos.EpochDiffReq.Builder.class);
+      }
+
+      // Construct using org.coniks.coniks_common.C2SProtos.EpochDiffReq.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        epoch_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_EpochDiffReq_descriptor;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.EpochDiffReq getDefaultInstanceForType() {
+        return org.coniks.coniks_common.C2SProtos.EpochDiffReq.getDefaultInstance();
+      }
+
+      public org.coniks.coniks_common.C2SProtos.EpochDiffReq build() {
+        org.coniks.coniks_common.C2SProtos.EpochDiffReq result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.EpochDiffReq buildPartial() {
+        org.coniks.coniks_common.C2SProtos.EpochDiffReq result = new org.coniks.coniks_common.C2SProtos.EpochDiffReq(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.epoch_ = epoch_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.coniks.coniks_common.C2SProtos.EpochDiffReq) {
+          return mergeFrom((org.coniks.coniks_common.C2SProtos.EpochDiffReq)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.coniks.coniks_common.C2SProtos.EpochDiffReq other) {
+        if (other == org.coniks.coniks_common.C2SProtos.EpochDiffReq.getDefaultInstance()) return this;
+        if (other.hasEpoch()) {
+          setEpoch(other.getEpoch());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.coniks.coniks_common.C2SProtos.EpochDiffReq parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.coniks.coniks_common.C2SProtos.EpochDiffReq) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private long epoch_ ;
+      /**
+       * <code>optional uint64 epoch = 1;</code>
+       */
+      public boolean hasEpoch() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>optional uint64 epoch = 1;</code>
+       */
+      public long getEpoch() {
+        return epoch_;
+      }
+      /**
+       * <code>optional uint64 epoch = 1;</code>
+       */
+      public Builder setEpoch(long value) {
+        bitField0_ |= 0x00000001;
+        epoch_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 epoch = 1;</code>
+       */
+      public Builder clearEpoch() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        epoch_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.EpochDiffReq)
+    }
+
+    static {
+      defaultInstance = new EpochDiffReq(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.EpochDiffReq)
+  }
+
+  public interface EpochDiffOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.EpochDiff)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+     */
+    boolean hasProof();
+    /**
+     * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+     */
+    org.coniks.coniks_common.C2SProtos.MultiAuthPath getProof();
+    /**
+     * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+     */
+    org.coniks.coniks_common.C2SProtos.MultiAuthPathOrBuilder getProofOrBuilder();
+
+    /**
+     * <code>repeated fixed32 moved = 2 [packed = true];</code>
+     *
+     * <pre>
+     * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+     * </pre>
+     */
+    java.util.List<java.lang.Integer> getMovedList();
+    /**
+     * <code>repeated fixed32 moved = 2 [packed = true];</code>
+     *
+     * <pre>
+     * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+     * </pre>
+     */
+    int getMovedCount();
+    /**
+     * <code>repeated fixed32 moved = 2 [packed = true];</code>
+     *
+     * <pre>
+     * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+     * </pre>
+     */
+    int getMoved(int index);
+
+    /**
+     * <code>optional uint64 prev_epoch = 3;</code>
+     *
+     * <pre>
+     * the previous root's epoch and prev hash, unset for the first epoch
+     * </pre>
+     */
+    boolean hasPrevEpoch();
+    /**
+     * <code>optional uint64 prev_epoch = 3;</code>
+     *
+     * <pre>
+     * the previous root's epoch and prev hash, unset for the first epoch
+     * </pre>
+     */
+    long getPrevEpoch();
+
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+     */
+    boolean hasPrevPrev();
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+     */
+    org.coniks.coniks_common.UtilProtos.Hash getPrevPrev();
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+     */
+    org.coniks.coniks_common.UtilProtos.HashOrBuilder getPrevPrevOrBuilder();
+  }
+  /**
+   * Protobuf type {@code org.coniks.coniks_common.EpochDiff}
+   *
+   * <pre>
+   * the leaves added in an epoch, and the existing leaves that were moved
+   * down to make room for them, as one proof from the epoch's root;
+   * the proof without the added leaves, with each interior node that is
+   * left with a single leaf replaced by that leaf, is the previous root's
+   * </pre>
+   */
+  public static final class EpochDiff extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:org.coniks.coniks_common.EpochDiff)
+      EpochDiffOrBuilder {
+    // Use EpochDiff.newBuilder() to construct.
+    private EpochDiff(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private EpochDiff(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final EpochDiff defaultInstance;
+    public static EpochDiff getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public EpochDiff getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private EpochDiff(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 10: {
+              org.coniks.coniks_common.C2SProtos.MultiAuthPath.Builder subBuilder = null;
+              if (((bitField0_ & 0x00000001) == 0x00000001)) {
+                subBuilder = proof_.toBuilder();
+              }
+              proof_ = input.readMessage(org.coniks.coniks_common.C2SProtos.MultiAuthPath.PARSER, extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(proof_);
+                proof_ = subBuilder.buildPartial();
+              }
+              bitField0_ |= 0x00000001;
+              break;
+            }
+            case 21: {
+              if (!((mutable_bitField0_ & 0x00000002) == 0x00000002)) {
+                moved_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000002;
+              }
+              moved_.add(input.readFixed32());
+              break;
+            }
+            case 18: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000002) == 0x00000002) && input.getBytesUntilLimit() > 0) {
+                moved_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000002;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                moved_.add(input.readFixed32());
+              }
+              input.popLimit(limit);
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000002;
+              prevEpoch_ = input.readUInt64();
+              break;
+            }
+            case 34: {
+              org.coniks.coniks_common.UtilProtos.Hash.Builder subBuilder = null;
+              if (((bitField0_ & 0x00000004) == 0x00000004)) {
+                subBuilder = prevPrev_.toBuilder();
+              }
+              prevPrev_ = input.readMessage(org.coniks.coniks_common.UtilProtos.Hash.PARSER, extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(prevPrev_);
+                prevPrev_ = subBuilder.buildPartial();
+              }
+              bitField0_ |= 0x00000004;
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000002) == 0x00000002)) {
+          moved_ = java.util.Collections.unmodifiableList(moved_);
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_EpochDiff_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_EpochDiff_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.coniks.coniks_common.C2SProtos.EpochDiff.class, org.coniks.coniks_common.C2SProtos.EpochDiff.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<EpochDiff> PARSER =
+        new com.google.protobuf.AbstractParser<EpochDiff>() {
+      public EpochDiff parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new EpochDiff(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<EpochDiff> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int PROOF_FIELD_NUMBER = 1;
+    private org.coniks.coniks_common.C2SProtos.MultiAuthPath proof_;
+    /**
+     * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+     */
+    public boolean hasProof() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+     */
+    public org.coniks.coniks_common.C2SProtos.MultiAuthPath getProof() {
+      return proof_;
+    }
+    /**
+     * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+     */
+    public org.coniks.coniks_common.C2SProtos.MultiAuthPathOrBuilder getProofOrBuilder() {
+      return proof_;
+    }
+
+    public static final int MOVED_FIELD_NUMBER = 2;
+    private java.util.List<java.lang.Integer> moved_;
+    /**
+     * <code>repeated fixed32 moved = 2 [packed = true];</code>
+     *
+     * <pre>
+     * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+     * </pre>
+     */
+    public java.util.List<java.lang.Integer>
+        getMovedList() {
+      return moved_;
+    }
+    /**
+     * <code>repeated fixed32 moved = 2 [packed = true];</code>
+     *
+     * <pre>
+     * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+     * </pre>
+     */
+    public int getMovedCount() {
+      return moved_.size();
+    }
+    /**
+     * <code>repeated fixed32 moved = 2 [packed = true];</code>
+     *
+     * <pre>
+     * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+     * </pre>
+     */
+    public int getMoved(int index) {
+      return moved_.get(index);
+    }
+    private int movedMemoizedSerializedSize = -1;
+
+    public static final int PREV_EPOCH_FIELD_NUMBER = 3;
+    private long prevEpoch_;
+    /**
+     * <code>optional uint64 prev_epoch = 3;</code>
+     *
+     * <pre>
+     * the previous root's epoch and prev hash, unset for the first epoch
+     * </pre>
+     */
+    public boolean hasPrevEpoch() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    /**
+     * <code>optional uint64 prev_epoch = 3;</code>
+     *
+     * <pre>
+     * the previous root's epoch and prev hash, unset for the first epoch
+     * </pre>
+     */
+    public long getPrevEpoch() {
+      return prevEpoch_;
+    }
+
+    public static final int PREV_PREV_FIELD_NUMBER = 4;
+    private org.coniks.coniks_common.UtilProtos.Hash prevPrev_;
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+     */
+    public boolean hasPrevPrev() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+     */
+    public org.coniks.coniks_common.UtilProtos.Hash getPrevPrev() {
+      return prevPrev_;
+    }
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+     */
+    public org.coniks.coniks_common.UtilProtos.HashOrBuilder getPrevPrevOrBuilder() {
+      return prevPrev_;
+    }
+
+    private void initFields() {
+      proof_ = org.coniks.coniks_common.C2SProtos.MultiAuthPath.getDefaultInstance();
+      moved_ = java.util.Collections.emptyList();
+      prevEpoch_ = 0L;
+      prevPrev_ = org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance();
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeMessage(1, proof_);
+      }
+      if (getMovedList().size() > 0) {
+        output.writeRawVarint32(18);
+        output.writeRawVarint32(movedMemoizedSerializedSize);
+      }
+      for (int i = 0; i < moved_.size(); i++) {
+        output.writeFixed32NoTag(moved_.get(i));
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeUInt64(3, prevEpoch_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeMessage(4, prevPrev_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(1, proof_);
+      }
+      {
+        int dataSize = 0;
+        dataSize = 4 * getMovedList().size();
+        size += dataSize;
+        if (!getMovedList().isEmpty()) {
+          size += 1;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        movedMemoizedSerializedSize = dataSize;
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(3, prevEpoch_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(4, prevPrev_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static org.coniks.coniks_common.C2SProtos.EpochDiff parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiff parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiff parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiff parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiff parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiff parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiff parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiff parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiff parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.EpochDiff parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.coniks.coniks_common.C2SProtos.EpochDiff prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code org.coniks.coniks_common.EpochDiff}
+     *
+     * <pre>
+     * the leaves added in an epoch, and the existing leaves that were moved
+     * down to make room for them, as one proof from the epoch's root;
+     * the proof without the added leaves, with each interior node that is
+     * left with a single leaf replaced by that leaf, is the previous root's
+     * </pre>
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:org.coniks.coniks_common.EpochDiff)
+        org.coniks.coniks_common.C2SProtos.EpochDiffOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_EpochDiff_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_EpochDiff_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.coniks.coniks_common.C2SProtos.EpochDiff.class, org.coniks.coniks_common.C2SProtos.EpochDiff.Builder.class);
+      }
+
+      // Construct using org.coniks.coniks_common.C2SProtos.EpochDiff.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+          getProofFieldBuilder();
+          getPrevPrevFieldBuilder();
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        if (proofBuilder_ == null) {
+          proof_ = org.coniks.coniks_common.C2SProtos.MultiAuthPath.getDefaultInstance();
+        } else {
+          proofBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000001);
+        moved_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000002);
+        prevEpoch_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        if (prevPrevBuilder_ == null) {
+          prevPrev_ = org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance();
+        } else {
+          prevPrevBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000008);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_EpochDiff_descriptor;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.EpochDiff getDefaultInstanceForType() {
+        return org.coniks.coniks_common.C2SProtos.EpochDiff.getDefaultInstance();
+      }
+
+      public org.coniks.coniks_common.C2SProtos.EpochDiff build() {
+        org.coniks.coniks_common.C2SProtos.EpochDiff result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.EpochDiff buildPartial() {
+        org.coniks.coniks_common.C2SProtos.EpochDiff result = new org.coniks.coniks_common.C2SProtos.EpochDiff(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        if (proofBuilder_ == null) {
+          result.proof_ = proof_;
+        } else {
+          result.proof_ = proofBuilder_.build();
+        }
+        if (((bitField0_ & 0x00000002) == 0x00000002)) {
+          moved_ = java.util.Collections.unmodifiableList(moved_);
+          bitField0_ = (bitField0_ & ~0x00000002);
+        }
+        result.moved_ = moved_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.prevEpoch_ = prevEpoch_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        if (prevPrevBuilder_ == null) {
+          result.prevPrev_ = prevPrev_;
+        } else {
+          result.prevPrev_ = prevPrevBuilder_.build();
+        }
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.coniks.coniks_common.C2SProtos.EpochDiff) {
+          return mergeFrom((org.coniks.coniks_common.C2SProtos.EpochDiff)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.coniks.coniks_common.C2SProtos.EpochDiff other) {
+        if (other == org.coniks.coniks_common.C2SProtos.EpochDiff.getDefaultInstance()) return this;
+        if (other.hasProof()) {
+          mergeProof(other.getProof());
+        }
+        if (!other.moved_.isEmpty()) {
+          if (moved_.isEmpty()) {
+            moved_ = other.moved_;
+            bitField0_ = (bitField0_ & ~0x00000002);
+          } else {
+            ensureMovedIsMutable();
+            moved_.addAll(other.moved_);
+          }
+          onChanged();
+        }
+        if (other.hasPrevEpoch()) {
+          setPrevEpoch(other.getPrevEpoch());
+        }
+        if (other.hasPrevPrev()) {
+          mergePrevPrev(other.getPrevPrev());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.coniks.coniks_common.C2SProtos.EpochDiff parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.coniks.coniks_common.C2SProtos.EpochDiff) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private org.coniks.coniks_common.C2SProtos.MultiAuthPath proof_ = org.coniks.coniks_common.C2SProtos.MultiAuthPath.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          org.coniks.coniks_common.C2SProtos.MultiAuthPath, org.coniks.coniks_common.C2SProtos.MultiAuthPath.Builder, org.coniks.coniks_common.C2SProtos.MultiAuthPathOrBuilder> proofBuilder_;
+      /**
+       * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+       */
+      public boolean hasProof() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+       */
+      public org.coniks.coniks_common.C2SProtos.MultiAuthPath getProof() {
+        if (proofBuilder_ == null) {
+          return proof_;
+        } else {
+          return proofBuilder_.getMessage();
+        }
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+       */
+      public Builder setProof(org.coniks.coniks_common.C2SProtos.MultiAuthPath value) {
+        if (proofBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          proof_ = value;
+          onChanged();
+        } else {
+          proofBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000001;
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+       */
+      public Builder setProof(
+          org.coniks.coniks_common.C2SProtos.MultiAuthPath.Builder builderForValue) {
+        if (proofBuilder_ == null) {
+          proof_ = builderForValue.build();
+          onChanged();
+        } else {
+          proofBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000001;
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+       */
+      public Builder mergeProof(org.coniks.coniks_common.C2SProtos.MultiAuthPath value) {
+        if (proofBuilder_ == null) {
+          if (((bitField0_ & 0x00000001) == 0x00000001) &&
+              proof_ != org.coniks.coniks_common.C2SProtos.MultiAuthPath.getDefaultInstance()) {
+            proof_ =
+              org.coniks.coniks_common.C2SProtos.MultiAuthPath.newBuilder(proof_).mergeFrom(value).buildPartial();
+          } else {
+            proof_ = value;
+          }
+          onChanged();
+        } else {
+          proofBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000001;
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+       */
+      public Builder clearProof() {
+        if (proofBuilder_ == null) {
+          proof_ = org.coniks.coniks_common.C2SProtos.MultiAuthPath.getDefaultInstance();
+          onChanged();
+        } else {
+          proofBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000001);
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+       */
+      public org.coniks.coniks_common.C2SProtos.MultiAuthPath.Builder getProofBuilder() {
+        bitField0_ |= 0x00000001;
+        onChanged();
+        return getProofFieldBuilder().getBuilder();
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+       */
+      public org.coniks.coniks_common.C2SProtos.MultiAuthPathOrBuilder getProofOrBuilder() {
+        if (proofBuilder_ != null) {
+          return proofBuilder_.getMessageOrBuilder();
+        } else {
+          return proof_;
+        }
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.MultiAuthPath proof = 1;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilder<
+          org.coniks.coniks_common.C2SProtos.MultiAuthPath, org.coniks.coniks_common.C2SProtos.MultiAuthPath.Builder, org.coniks.coniks_common.C2SProtos.MultiAuthPathOrBuilder> 
+          getProofFieldBuilder() {
+        if (proofBuilder_ == null) {
+          proofBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              org.coniks.coniks_common.C2SProtos.MultiAuthPath, org.coniks.coniks_common.C2SProtos.MultiAuthPath.Builder, org.coniks.coniks_common.C2SProtos.MultiAuthPathOrBuilder>(
+                  getProof(),
+                  getParentForChildren(),
+                  isClean());
+          proof_ = null;
+        }
+        return proofBuilder_;
+      }
+
+      private java.util.List<java.lang.Integer> moved_ = java.util.Collections.emptyList();
+      private void ensureMovedIsMutable() {
+        if (!((bitField0_ & 0x00000002) == 0x00000002)) {
+          moved_ = new java.util.ArrayList<java.lang.Integer>(moved_);
+          bitField0_ |= 0x00000002;
+         }
+      }
+      /**
+       * <code>repeated fixed32 moved = 2 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+       * </pre>
+       */
+      public java.util.List<java.lang.Integer>
+          getMovedList() {
+        return java.util.Collections.unmodifiableList(moved_);
+      }
+      /**
+       * <code>repeated fixed32 moved = 2 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+       * </pre>
+       */
+      public int getMovedCount() {
+        return moved_.size();
+      }
+      /**
+       * <code>repeated fixed32 moved = 2 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+       * </pre>
+       */
+      public int getMoved(int index) {
+        return moved_.get(index);
+      }
+      /**
+       * <code>repeated fixed32 moved = 2 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+       * </pre>
+       */
+      public Builder setMoved(
+          int index, int value) {
+        ensureMovedIsMutable();
+        moved_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated fixed32 moved = 2 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+       * </pre>
+       */
+      public Builder addMoved(int value) {
+        ensureMovedIsMutable();
+        moved_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated fixed32 moved = 2 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+       * </pre>
+       */
+      public Builder addAllMoved(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureMovedIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, moved_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated fixed32 moved = 2 [packed = true];</code>
+       *
+       * <pre>
+       * bit (i % 32) of word (i / 32) is set iff leaf i was moved
+       * </pre>
+       */
+      public Builder clearMoved() {
+        moved_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000002);
+        onChanged();
+        return this;
+      }
+
+      private long prevEpoch_ ;
+      /**
+       * <code>optional uint64 prev_epoch = 3;</code>
+       *
+       * <pre>
+       * the previous root's epoch and prev hash, unset for the first epoch
+       * </pre>
+       */
+      public boolean hasPrevEpoch() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      /**
+       * <code>optional uint64 prev_epoch = 3;</code>
+       *
+       * <pre>
+       * the previous root's epoch and prev hash, unset for the first epoch
+       * </pre>
+       */
+      public long getPrevEpoch() {
+        return prevEpoch_;
+      }
+      /**
+       * <code>optional uint64 prev_epoch = 3;</code>
+       *
+       * <pre>
+       * the previous root's epoch and prev hash, unset for the first epoch
+       * </pre>
+       */
+      public Builder setPrevEpoch(long value) {
+        bitField0_ |= 0x00000004;
+        prevEpoch_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 prev_epoch = 3;</code>
+       *
+       * <pre>
+       * the previous root's epoch and prev hash, unset for the first epoch
+       * </pre>
+       */
+      public Builder clearPrevEpoch() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        prevEpoch_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private org.coniks.coniks_common.UtilProtos.Hash prevPrev_ = org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          org.coniks.coniks_common.UtilProtos.Hash, org.coniks.coniks_common.UtilProtos.Hash.Builder, org.coniks.coniks_common.UtilProtos.HashOrBuilder> prevPrevBuilder_;
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+       */
+      public boolean hasPrevPrev() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+       */
+      public org.coniks.coniks_common.UtilProtos.Hash getPrevPrev() {
+        if (prevPrevBuilder_ == null) {
+          return prevPrev_;
+        } else {
+          return prevPrevBuilder_.getMessage();
+        }
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+       */
+      public Builder setPrevPrev(org.coniks.coniks_common.UtilProtos.Hash value) {
+        if (prevPrevBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          prevPrev_ = value;
+          onChanged();
+        } else {
+          prevPrevBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000008;
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+       */
+      public Builder setPrevPrev(
+          org.coniks.coniks_common.UtilProtos.Hash.Builder builderForValue) {
+        if (prevPrevBuilder_ == null) {
+          prevPrev_ = builderForValue.build();
+          onChanged();
+        } else {
+          prevPrevBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000008;
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+       */
+      public Builder mergePrevPrev(org.coniks.coniks_common.UtilProtos.Hash value) {
+        if (prevPrevBuilder_ == null) {
+          if (((bitField0_ & 0x00000008) == 0x00000008) &&
+              prevPrev_ != org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance()) {
+            prevPrev_ =
+              org.coniks.coniks_common.UtilProtos.Hash.newBuilder(prevPrev_).mergeFrom(value).buildPartial();
+          } else {
+            prevPrev_ = value;
+          }
+          onChanged();
+        } else {
+          prevPrevBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000008;
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+       */
+      public Builder clearPrevPrev() {
+        if (prevPrevBuilder_ == null) {
+          prevPrev_ = org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance();
+          onChanged();
+        } else {
+          prevPrevBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000008);
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+       */
+      public org.coniks.coniks_common.UtilProtos.Hash.Builder getPrevPrevBuilder() {
+        bitField0_ |= 0x00000008;
+        onChanged();
+        return getPrevPrevFieldBuilder().getBuilder();
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+       */
+      public org.coniks.coniks_common.UtilProtos.HashOrBuilder getPrevPrevOrBuilder() {
+        if (prevPrevBuilder_ != null) {
+          return prevPrevBuilder_.getMessageOrBuilder();
+        } else {
+          return prevPrev_;
+        }
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash prev_prev = 4;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilder<
+          org.coniks.coniks_common.UtilProtos.Hash, org.coniks.coniks_common.UtilProtos.Hash.Builder, org.coniks.coniks_common.UtilProtos.HashOrBuilder> 
+          getPrevPrevFieldBuilder() {
+        if (prevPrevBuilder_ == null) {
+          prevPrevBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              org.coniks.coniks_common.UtilProtos.Hash, org.coniks.coniks_common.UtilProtos.Hash.Builder, org.coniks.coniks_common.UtilProtos.HashOrBuilder>(
+                  getPrevPrev(),
+                  getParentForChildren(),
+                  isClean());
+          prevPrev_ = null;
+        }
+        return prevPrevBuilder_;
+      }
+
+      // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.EpochDiff)
+    }
+
+    static {
+      defaultInstance = new EpochDiff(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.EpochDiff)
+  }
+
+  public interface LeafRangeReqOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.LeafRangeReq)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>optional uint64 epoch = 1;</code>
+     */
+    boolean hasEpoch();
+    /**
+     * <code>optional uint64 epoch = 1;</code>
+     */
+    long getEpoch();
+    /**
+     * <code>optional bytes from_index = 2;</code>
+     */
+    boolean hasFromIndex();
+    /**
+     * <code>optional bytes from_index = 2;</code>
+     */
+    com.google.protobuf.ByteString getFromIndex();
+    /**
+     * <code>optional bytes to_index = 3;</code>
+     */
+    boolean hasToIndex();
+    /**
+     * <code>optional bytes to_index = 3;</code>
+     */
+    com.google.protobuf.ByteString getToIndex();
+    /**
+     * <code>optional uint32 chunk_size = 4;</code>
+     */
+    boolean hasChunkSize();
+    /**
+     * <code>optional uint32 chunk_size = 4;</code>
+     */
+    int getChunkSize();
+    /**
+     * <code>optional uint32 limit = 5;</code>
+     */
+    boolean hasLimit();
+    /**
+     * <code>optional uint32 limit = 5;</code>
+     */
+    int getLimit();
+  }
+  /**
+   * Protobuf type {@code org.coniks.coniks_common.LeafRangeReq}
+   *
+   * <pre>
+   * sent by auditors and backups to enumerate the directory: the server
+   * streams the leaves of the tree in effect at epoch with lookup indices
+   * in [from_index, to_index) in index order, as multi auth paths of at
+   * most chunk_size leaves each and at most limit leaves in all,
+   * and ends the stream with a SUCCESS server response;
+   * unset from_index and to_index are the start and end of the index space
+   * </pre>
+   */
+  public static final class LeafRangeReq extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:org.coniks.coniks_common.LeafRangeReq)
+      LeafRangeReqOrBuilder {
+    // Use LeafRangeReq.newBuilder() to construct.
+    private LeafRangeReq(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private LeafRangeReq(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final LeafRangeReq defaultInstance;
+    public static LeafRangeReq getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public LeafRangeReq getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private LeafRangeReq(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              epoch_ = input.readUInt64();
+              break;
+            }
+            case 18: {
+              bitField0_ |= 0x00000002;
+              fromIndex_ = input.readBytes();
+              break;
+            }
+            case 26: {
+              bitField0_ |= 0x00000004;
+              toIndex_ = input.readBytes();
+              break;
+            }
+            case 32: {
+              bitField0_ |= 0x00000008;
+              chunkSize_ = input.readUInt32();
+              break;
+            }
+            case 40: {
+              bitField0_ |= 0x00000010;
+              limit_ = input.readUInt32();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_LeafRangeReq_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_LeafRangeReq_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.coniks.coniks_common.C2SProtos.LeafRangeReq.class, org.coniks.coniks_common.C2SProtos.LeafRangeReq.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<LeafRangeReq> PARSER =
+        new com.google.protobuf.AbstractParser<LeafRangeReq>() {
+      public LeafRangeReq parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new LeafRangeReq(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<LeafRangeReq> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int EPOCH_FIELD_NUMBER = 1;
+    private long epoch_;
+    /**
+     * <code>optional uint64 epoch = 1;</code>
+     */
+    public boolean hasEpoch() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional uint64 epoch = 1;</code>
+     */
+    public long getEpoch() {
+      return epoch_;
+    }
+
+    public static final int FROM_INDEX_FIELD_NUMBER = 2;
+    private com.google.protobuf.ByteString fromIndex_;
+    /**
+     * <code>optional bytes from_index = 2;</code>
+     */
+    public boolean hasFromIndex() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    /**
+     * <code>optional bytes from_index = 2;</code>
+     */
+    public com.google.protobuf.ByteString getFromIndex() {
+      return fromIndex_;
+    }
+
+    public static final int TO_INDEX_FIELD_NUMBER = 3;
+    private com.google.protobuf.ByteString toIndex_;
+    /**
+     * <code>optional bytes to_index = 3;</code>
+     */
+    public boolean hasToIndex() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    /**
+     * <code>optional bytes to_index = 3;</code>
+     */
+    public com.google.protobuf.ByteString getToIndex() {
+      return toIndex_;
+    }
+
+    public static final int CHUNK_SIZE_FIELD_NUMBER = 4;
+    private int chunkSize_;
+    /**
+     * <code>optional uint32 chunk_size = 4;</code>
+     */
+    public boolean hasChunkSize() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    /**
+     * <code>optional uint32 chunk_size = 4;</code>
+     */
+    public int getChunkSize() {
+      return chunkSize_;
+    }
+
+    public static final int LIMIT_FIELD_NUMBER = 5;
+    private int limit_;
+    /**
+     * <code>optional uint32 limit = 5;</code>
+     */
+    public boolean hasLimit() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+    /**
+     * <code>optional uint32 limit = 5;</code>
+     */
+    public int getLimit() {
+      return limit_;
+    }
+
+    private void initFields() {
+      epoch_ = 0L;
+      fromIndex_ = com.google.protobuf.ByteString.EMPTY;
+      toIndex_ = com.google.protobuf.ByteString.EMPTY;
+      chunkSize_ = 0;
+      limit_ = 0;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeUInt64(1, epoch_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeBytes(2, fromIndex_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeBytes(3, toIndex_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeUInt32(4, chunkSize_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeUInt32(5, limit_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(1, epoch_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(2, fromIndex_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(3, toIndex_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(4, chunkSize_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(5, limit_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static org.coniks.coniks_common.C2SProtos.LeafRangeReq parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.LeafRangeReq parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.LeafRangeReq parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.C2SProtos.LeafRangeReq parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.LeafRangeReq parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.LeafRangeReq parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.LeafRangeReq parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.LeafRangeReq parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.C2SProtos.LeafRangeReq parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.C2SProtos.LeafRangeReq parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.coniks.coniks_common.C2SProtos.LeafRangeReq prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code org.coniks.coniks_common.LeafRangeReq}
+     *
+     * <pre>
+     * sent by auditors and backups to enumerate the directory: the server
+     * streams the leaves of the tree in effect at epoch with lookup indices
+     * in [from_index, to_index) in index order, as multi auth paths of at
+     * most chunk_size leaves each and at most limit leaves in all,
+     * and ends the stream with a SUCCESS server response;
+     * unset from_index and to_index are the start and end of the index space
+     * </pre>
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:org.coniks.coniks_common.LeafRangeReq)
+        org.coniks.coniks_common.C2SProtos.LeafRangeReqOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_LeafRangeReq_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_LeafRangeReq_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.coniks.coniks_common.C2SProtos.LeafRangeReq.class, org.coniks.coniks_common.C2SProtos.LeafRangeReq.Builder.class);
+      }
+
+      // Construct using org.coniks.coniks_common.C2SProtos.LeafRangeReq.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        epoch_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        fromIndex_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        toIndex_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        chunkSize_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        limit_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000010);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.coniks.coniks_common.C2SProtos.internal_static_org_coniks_coniks_common_LeafRangeReq_descriptor;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.LeafRangeReq getDefaultInstanceForType() {
+        return org.coniks.coniks_common.C2SProtos.LeafRangeReq.getDefaultInstance();
+      }
+
+      public org.coniks.coniks_common.C2SProtos.LeafRangeReq build() {
+        org.coniks.coniks_common.C2SProtos.LeafRangeReq result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.coniks.coniks_common.C2SProtos.LeafRangeReq buildPartial() {
+        org.coniks.coniks_common.C2SProtos.LeafRangeReq result = new org.coniks.coniks_common.C2SProtos.LeafRangeReq(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.epoch_ = epoch_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.fromIndex_ = fromIndex_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.toIndex_ = toIndex_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.chunkSize_ = chunkSize_;
+        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        result.limit_ = limit_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.coniks.coniks_common.C2SProtos.LeafRangeReq) {
+          return mergeFrom((org.coniks.coniks_common.C2SProtos.LeafRangeReq)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.coniks.coniks_common.C2SProtos.LeafRangeReq other) {
+        if (other == org.coniks.coniks_common.C2SProtos.LeafRangeReq.getDefaultInstance()) return this;
+        if (other.hasEpoch()) {
+          setEpoch(other.getEpoch());
+        }
+        if (other.hasFromIndex()) {
+          setFromIndex(other.getFromIndex());
+        }
+        if (other.hasToIndex()) {
+          setToIndex(other.getToIndex());
+        }
+        if (other.hasChunkSize()) {
+          setChunkSize(other.getChunkSize());
+        }
+        if (other.hasLimit()) {
+          setLimit(other.getLimit());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.coniks.coniks_common.C2SProtos.LeafRangeReq parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.coniks.coniks_common.C2SProtos.LeafRangeReq) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private long epoch_ ;
+      /**
+       * <code>optional uint64 epoch = 1;</code>
+       */
+      public boolean hasEpoch() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>optional uint64 epoch = 1;</code>
+       */
+      public long getEpoch() {
+        return epoch_;
+      }
+      /**
+       * <code>optional uint64 epoch = 1;</code>
+       */
+      public Builder setEpoch(long value) {
+        bitField0_ |= 0x00000001;
+        epoch_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 epoch = 1;</code>
+       */
+      public Builder clearEpoch() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        epoch_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.ByteString fromIndex_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <code>optional bytes from_index = 2;</code>
+       */
+      public boolean hasFromIndex() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      /**
+       * <code>optional bytes from_index = 2;</code>
+       */
+      public com.google.protobuf.ByteString getFromIndex() {
+        return fromIndex_;
+      }
+      /**
+       * <code>optional bytes from_index = 2;</code>
+       */
+      public Builder setFromIndex(com.google.protobuf.ByteString value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000002;
+        fromIndex_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bytes from_index = 2;</code>
+       */
+      public Builder clearFromIndex() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        fromIndex_ = getDefaultInstance().getFromIndex();
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.ByteString toIndex_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <code>optional bytes to_index = 3;</code>
+       */
+      public boolean hasToIndex() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      /**
+       * <code>optional bytes to_index = 3;</code>
+       */
+      public com.google.protobuf.ByteString getToIndex() {
+        return toIndex_;
+      }
+      /**
+       * <code>optional bytes to_index = 3;</code>
+       */
+      public Builder setToIndex(com.google.protobuf.ByteString value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000004;
+        toIndex_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bytes to_index = 3;</code>
+       */
+      public Builder clearToIndex() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        toIndex_ = getDefaultInstance().getToIndex();
+        onChanged();
+        return this;
+      }
+
+      private int chunkSize_ ;
+      /**
+       * <code>optional uint32 chunk_size = 4;</code>
+       */
+      public boolean hasChunkSize() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      /**
+       * <code>optional uint32 chunk_size = 4;</code>
+       */
+      public int getChunkSize() {
+        return chunkSize_;
+      }
+      /**
+       * <code>optional uint32 chunk_size = 4;</code>
+       */
+      public Builder setChunkSize(int value) {
+        bitField0_ |= 0x00000008;
+        chunkSize_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 chunk_size = 4;</code>
+       */
+      public Builder clearChunkSize() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        chunkSize_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int limit_ ;
+      /**
+       * <code>optional uint32 limit = 5;</code>
+       */
+      public boolean hasLimit() {
+        return ((bitField0_ & 0x00000010) == 0x00000010);
+      }
+      /**
+       * <code>optional uint32 limit = 5;</code>
+       */
+      public int getLimit() {
+        return limit_;
+      }
+      /**
+       * <code>optional uint32 limit = 5;</code>
+       */
+      public Builder setLimit(int value) {
+        bitField0_ |= 0x00000010;
+        limit_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 limit = 5;</code>
+       */
+      public Builder clearLimit() {
+        bitField0_ = (bitField0_ & ~0x00000010);
+        limit_ = 0;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.LeafRangeReq)
+    }
+
+    static {
+      defaultInstance = new LeafRangeReq(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.LeafRangeReq)
+  }
+
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_Registration_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_Registration_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_CommitmentReq_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_CommitmentReq_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_KeyLookup_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_KeyLookup_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_RegistrationResp_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_RegistrationResp_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_AuthPath_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_AuthPath_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_AuthPath_UserLeafNode_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_AuthPath_UserLeafNode_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_AuthPath_InteriorNode_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_AuthPath_InteriorNode_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_AuthPath_RootNode_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_AuthPath_RootNode_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_BulkRegistration_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_BulkRegistration_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_BulkRegistrationResp_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_BulkRegistrationResp_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_KeyLookupBatch_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_KeyLookupBatch_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_MultiAuthPath_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_MultiAuthPath_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_EpochDiffReq_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_EpochDiffReq_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_EpochDiff_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_EpochDiff_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_LeafRangeReq_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_LeafRangeReq_fieldAccessorTable;
+
+  public static com.google.protobuf.Descriptors.FileDescriptor
+      getDescriptor() {
+    return descriptor;
+  }
+  private static com.google.protobuf.Descriptors.FileDescriptor
+      descriptor;
+  static {
+    java.lang.String[] descriptorData = {
+      "\n\tc2s.proto\022\030org.coniks.coniks_common\032\nu" +
+      "til.proto\"/\n\014Registration\022\014\n\004name\030\001 \001(\t\022" +
+      "\021\n\tpublickey\030\002 \001(\t\"\324\001\n\rCommitmentReq\022D\n\004" +
+      "type\030\001 \001(\01626.org.coniks.coniks_common.Co" +
+      "mmitmentReq.CommitmentType\022\r\n\005epoch\030\002 \001(" +
+      "\004\022\020\n\010provider\030\003 \001(\t\022\022\n\nfrom_epoch\030\004 \001(\004\022" +
+      "\020\n\010to_epoch\030\005 \001(\004\022\r\n\005limit\030\006 \001(\r\"\'\n\016Comm" +
+      "itmentType\022\010\n\004SELF\020\000\022\013\n\007WITNESS\020\001\"C\n\tKey" +
+      "Lookup\022\014\n\004name\030\001 \001(\t\022\r\n\005epoch\030\002 \001(\004\022\031\n\021c" +
+      "ached_key_digest\030\003 \001(\014\">\n\020RegistrationRe",
+      "sp\022\022\n\ninit_epoch\030\001 \001(\004\022\026\n\016epoch_interval" +
+      "\030\002 \001(\r\"\367\005\n\010AuthPath\022=\n\004leaf\030\001 \001(\0132/.org." +
+      "coniks.coniks_common.AuthPath.UserLeafNo" +
+      "de\022A\n\010interior\030\002 \003(\0132/.org.coniks.coniks" +
+      "_common.AuthPath.InteriorNode\0229\n\004root\030\003 " +
+      "\001(\0132+.org.coniks.coniks_common.AuthPath." +
+      "RootNode\032\302\001\n\014UserLeafNode\022\014\n\004name\030\001 \001(\t\022" +
+      "\021\n\tpublickey\030\002 \001(\t\022\023\n\013epoch_added\030\003 \001(\004\022" +
+      "!\n\031allows_unsigned_keychange\030\004 \001(\010\022\034\n\024al" +
+      "lows_public_lookup\030\005 \001(\010\022\024\n\014lookup_index",
+      "\030\006 \003(\007\022\021\n\tintlevels\030\007 \001(\r\022\022\n\nkey_digest\030" +
+      "\010 \001(\014\032\204\001\n\014InteriorNode\022C\n\013prunedchild\030\001 " +
+      "\001(\0162..org.coniks.coniks_common.AuthPath." +
+      "PrunedChild\022/\n\007subtree\030\002 \001(\0132\036.org.conik" +
+      "s.coniks_common.Hash\032\275\001\n\010RootNode\022C\n\013pru" +
+      "nedchild\030\001 \001(\0162..org.coniks.coniks_commo" +
+      "n.AuthPath.PrunedChild\022/\n\007subtree\030\002 \001(\0132" +
+      "\036.org.coniks.coniks_common.Hash\022,\n\004prev\030" +
+      "\003 \001(\0132\036.org.coniks.coniks_common.Hash\022\r\n" +
+      "\005epoch\030\004 \001(\004\"\"\n\013PrunedChild\022\010\n\004LEFT\020\000\022\t\n",
+      "\005RIGHT\020\001\"^\n\020BulkRegistration\022<\n\014registra" +
+      "tion\030\001 \003(\0132&.org.coniks.coniks_common.Re" +
+      "gistration\022\014\n\004more\030\002 \001(\010\"o\n\024BulkRegistra" +
+      "tionResp\022\022\n\ninit_epoch\030\001 \001(\004\022\026\n\016epoch_in" +
+      "terval\030\002 \001(\r\022\023\n\013num_entries\030\003 \001(\r\022\026\n\nreg" +
+      "istered\030\004 \003(\007B\002\020\001\"T\n\016KeyLookupBatch\0223\n\006l" +
+      "ookup\030\001 \003(\0132#.org.coniks.coniks_common.K" +
+      "eyLookup\022\r\n\005epoch\030\002 \001(\004\"\343\001\n\rMultiAuthPat" +
+      "h\022=\n\004leaf\030\001 \003(\0132/.org.coniks.coniks_comm" +
+      "on.AuthPath.UserLeafNode\022.\n\006pruned\030\002 \003(\013",
+      "2\036.org.coniks.coniks_common.Hash\022,\n\004prev" +
+      "\030\003 \001(\0132\036.org.coniks.coniks_common.Hash\022\r" +
+      "\n\005epoch\030\004 \001(\004\022\023\n\013range_start\030\005 \001(\014\022\021\n\tra" +
+      "nge_end\030\006 \001(\014\"\035\n\014EpochDiffReq\022\r\n\005epoch\030\001" +
+      " \001(\004\"\235\001\n\tEpochDiff\0226\n\005proof\030\001 \001(\0132\'.org." +
+      "coniks.coniks_common.MultiAuthPath\022\021\n\005mo" +
+      "ved\030\002 \003(\007B\002\020\001\022\022\n\nprev_epoch\030\003 \001(\004\0221\n\tpre" +
+      "v_prev\030\004 \001(\0132\036.org.coniks.coniks_common." +
+      "Hash\"f\n\014LeafRangeReq\022\r\n\005epoch\030\001 \001(\004\022\022\n\nf" +
+      "rom_index\030\002 \001(\014\022\020\n\010to_index\030\003 \001(\014\022\022\n\nchu",
+      "nk_size\030\004 \001(\r\022\r\n\005limit\030\005 \001(\rB%\n\030org.coni" +
+      "ks.coniks_commonB\tC2SProtos"
+    };
+    com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
+        new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
+          public com.google.protobuf.ExtensionRegistry assignDescriptors(
+              com.google.protobuf.Descriptors.FileDescriptor root) {
+            descriptor = root;
+            return null;
+          }
+        };
+    com.google.protobuf.Descriptors.FileDescriptor
+      .internalBuildGeneratedFileFrom(descriptorData,
+        new com.google.protobuf.Descriptors.FileDescriptor[] {
+          org.coniks.coniks_common.UtilProtos.getDescriptor(),
+        }, assigner);
+    internal_static_org_coniks_coniks_common_Registration_descriptor =
+      getDescriptor().getMessageTypes().get(0);
+    internal_static_org_coniks_coniks_common_Registration_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_Registration_descriptor,
+        new java.lang.String[] { "Name", "Publickey", });
+    internal_static_org_coniks_coniks_common_CommitmentReq_descriptor =
+      getDescriptor().getMessageTypes().get(1);
+    internal_static_org_coniks_coniks_common_CommitmentReq_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_CommitmentReq_descriptor,
+        new java.lang.String[] { "Type", "Epoch", "Provider", "FromEpoch", "ToEpoch", "Limit", });
+    internal_static_org_coniks_coniks_common_KeyLookup_descriptor =
+      getDescriptor().getMessageTypes().get(2);
+    internal_static_org_coniks_coniks_common_KeyLookup_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_KeyLookup_descriptor,
+        new java.lang.String[] { "Name", "Epoch", "CachedKeyDigest", });
+    internal_static_org_coniks_coniks_common_RegistrationResp_descriptor =
+      getDescriptor().getMessageTypes().get(3);
+    internal_static_org_coniks_coniks_common_RegistrationResp_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_RegistrationResp_descriptor,
+        new java.lang.String[] { "InitEpoch", "EpochInterval", });
+    internal_static_org_coniks_coniks_common_AuthPath_descriptor =
+      getDescriptor().getMessageTypes().get(4);
+    internal_static_org_coniks_coniks_common_AuthPath_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_AuthPath_descriptor,
+        new java.lang.String[] { "Leaf", "Interior", "Root", });
+    internal_static_org_coniks_coniks_common_AuthPath_UserLeafNode_descriptor =
+      internal_static_org_coniks_coniks_common_AuthPath_descriptor.getNestedTypes().get(0);
+    internal_static_org_coniks_coniks_common_AuthPath_UserLeafNode_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_AuthPath_UserLeafNode_descriptor,
+        new java.lang.String[] { "Name", "Publickey", "EpochAdded", "AllowsUnsignedKeychange", "AllowsPublicLookup", "LookupIndex", "Intlevels", "KeyDigest", });
+    internal_static_org_coniks_coniks_common_AuthPath_InteriorNode_descriptor =
+      internal_static_org_coniks_coniks_common_AuthPath_descriptor.getNestedTypes().get(1);
+    internal_static_org_coniks_coniks_common_AuthPath_InteriorNode_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_AuthPath_InteriorNode_descriptor,
+        new java.lang.String[] { "Prunedchild", "Subtree", });
+    internal_static_org_coniks_coniks_common_AuthPath_RootNode_descriptor =
+      internal_static_org_coniks_coniks_common_AuthPath_descriptor.getNestedTypes().get(2);
+    internal_static_org_coniks_coniks_common_AuthPath_RootNode_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_AuthPath_RootNode_descriptor,
+        new java.lang.String[] { "Prunedchild", "Subtree", "Prev", "Epoch", });
+    internal_static_org_coniks_coniks_common_BulkRegistration_descriptor =
+      getDescriptor().getMessageTypes().get(5);
+    internal_static_org_coniks_coniks_common_BulkRegistration_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_BulkRegistration_descriptor,
+        new java.lang.String[] { "Registration", "More", });
+    internal_static_org_coniks_coniks_common_BulkRegistrationResp_descriptor =
+      getDescriptor().getMessageTypes().get(6);
+    internal_static_org_coniks_coniks_common_BulkRegistrationResp_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_BulkRegistrationResp_descriptor,
+        new java.lang.String[] { "InitEpoch", "EpochInterval", "NumEntries", "Registered", });
+    internal_static_org_coniks_coniks_common_KeyLookupBatch_descriptor =
+      getDescriptor().getMessageTypes().get(7);
+    internal_static_org_coniks_coniks_common_KeyLookupBatch_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_KeyLookupBatch_descriptor,
+        new java.lang.String[] { "Lookup", "Epoch", });
+    internal_static_org_coniks_coniks_common_MultiAuthPath_descriptor =
+      getDescriptor().getMessageTypes().get(8);
+    internal_static_org_coniks_coniks_common_MultiAuthPath_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_MultiAuthPath_descriptor,
+        new java.lang.String[] { "Leaf", "Pruned", "Prev", "Epoch", "RangeStart", "RangeEnd", });
+    internal_static_org_coniks_coniks_common_EpochDiffReq_descriptor =
+      getDescriptor().getMessageTypes().get(9);
+    internal_static_org_coniks_coniks_common_EpochDiffReq_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_EpochDiffReq_descriptor,
+        new java.lang.String[] { "Epoch", });
+    internal_static_org_coniks_coniks_common_EpochDiff_descriptor =
+      getDescriptor().getMessageTypes().get(10);
+    internal_static_org_coniks_coniks_common_EpochDiff_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_EpochDiff_descriptor,
+        new java.lang.String[] { "Proof", "Moved", "PrevEpoch", "PrevPrev", });
+    internal_static_org_coniks_coniks_common_LeafRangeReq_descriptor =
+      getDescriptor().getMessageTypes().get(11);
+    internal_static_org_coniks_coniks_common_LeafRangeReq_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_LeafRangeReq_descriptor,
+        new java.lang.String[] { "Epoch", "FromIndex", "ToIndex", "ChunkSize", "Limit", });
     org.coniks.coniks_common.UtilProtos.getDescriptor();
   }
 
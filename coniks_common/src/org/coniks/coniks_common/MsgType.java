@@ -85,4 +85,62 @@ public final class MsgType {
      */
     public static final int OBSERVED_STR_PUSH = 7;
 
+    /** A lookup request for several data bindings in the same epoch.
+     */
+    public static final int KEY_LOOKUP_BATCH = 8;
+
+    /** A message containing a single proof for several data bindings
+     * (i.e. the union of their authentication paths).
+     */
+    public static final int MULTI_AUTH_PATH = 9;
+
+    /** A provider-side registration message containing many
+     * username-to-data bindings.
+     */
+    public static final int BULK_REGISTRATION = 10;
+
+    /** A response to a bulk registration indicating which
+     * entries were registered.
+     */
+    public static final int BULK_REGISTRATION_RESP = 11;
+
+    /** A follower's request for the epochs its leader
+     * published since the follower's latest epoch.
+     */
+    public static final int EPOCH_DELTA_REQ = 12;
+
+    /** A message containing a chunk of a published epoch's
+     * tree delta, sent by a leader to its followers.
+     */
+    public static final int EPOCH_DELTA = 13;
+
+    /** A request for the changes the server made to its
+     * directory in a given epoch.
+     */
+    public static final int EPOCH_DIFF_REQ = 14;
+
+    /** A message containing the leaves added in an epoch
+     * and the proof of how they changed the tree.
+     */
+    public static final int EPOCH_DIFF = 15;
+
+    /** A shard router's request for the root of a shard's
+     * subtree in the shard's latest epoch.
+     */
+    public static final int SHARD_ROOT_REQ = 16;
+
+    /** A message containing the root of a shard's subtree.
+     */
+    public static final int SHARD_ROOT = 17;
+
+    /** A request for the leaves of a given epoch's tree
+     * in a range of lookup indices.
+     */
+    public static final int LEAF_RANGE_REQ = 18;
+
+    /** A message containing a chunk of a leaf range as a
+     * multi auth path with the chunk's range bounds.
+     */
+    public static final int LEAF_RANGE = 19;
+
 }
@@ -1609,6 +1609,26 @@ public final class UtilProtos {
        * <code>NAME_NOT_FOUND_ERR = 4;</code>
        */
       NAME_NOT_FOUND_ERR(4, 4),
+      /**
+       * <code>OVERLOADED = 5;</code>
+       *
+       * <pre>
+       * request shed by admission control, retry later
+       * </pre>
+       */
+      OVERLOADED(5, 5),
+      /**
+       * <code>UNAUTHORIZED_ERR = 6;</code>
+       */
+      UNAUTHORIZED_ERR(6, 6),
+      /**
+       * <code>READ_ONLY_ERR = 7;</code>
+       *
+       * <pre>
+       * sent by a follower, which only serves lookups
+       * </pre>
+       */
+      READ_ONLY_ERR(7, 7),
       ;
 
       /**
@@ -1631,6 +1651,26 @@ public final class UtilProtos {
        * <code>NAME_NOT_FOUND_ERR = 4;</code>
        */
       public static final int NAME_NOT_FOUND_ERR_VALUE = 4;
+      /**
+       * <code>OVERLOADED = 5;</code>
+       *
+       * <pre>
+       * request shed by admission control, retry later
+       * </pre>
+       */
+      public static final int OVERLOADED_VALUE = 5;
+      /**
+       * <code>UNAUTHORIZED_ERR = 6;</code>
+       */
+      public static final int UNAUTHORIZED_ERR_VALUE = 6;
+      /**
+       * <code>READ_ONLY_ERR = 7;</code>
+       *
+       * <pre>
+       * sent by a follower, which only serves lookups
+       * </pre>
+       */
+      public static final int READ_ONLY_ERR_VALUE = 7;
 
 
       public final int getNumber() { return value; }
@@ -1642,6 +1682,9 @@ public final class UtilProtos {
           case 2: return MALFORMED_ERR;
           case 3: return SERVER_ERR;
           case 4: return NAME_NOT_FOUND_ERR;
+          case 5: return OVERLOADED;
+          case 6: return UNAUTHORIZED_ERR;
+          case 7: return READ_ONLY_ERR;
           default: return null;
         }
       }
@@ -3810,102 +3853,2633 @@ public final class UtilProtos {
     // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.WitnessedCommitment)
   }
 
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_Hash_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_Hash_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_Commitment_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_Commitment_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_ServerResp_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_ServerResp_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_CompleteRootNode_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_CompleteRootNode_fieldAccessorTable;
-  private static final com.google.protobuf.Descriptors.Descriptor
-    internal_static_org_coniks_coniks_common_WitnessedCommitment_descriptor;
-  private static
-    com.google.protobuf.GeneratedMessage.FieldAccessorTable
-      internal_static_org_coniks_coniks_common_WitnessedCommitment_fieldAccessorTable;
+  public interface EpochDeltaReqOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.EpochDeltaReq)
+      com.google.protobuf.MessageOrBuilder {
 
-  public static com.google.protobuf.Descriptors.FileDescriptor
-      getDescriptor() {
-    return descriptor;
+    /**
+     * <code>optional uint64 base_epoch = 1;</code>
+     *
+     * <pre>
+     * 0 if the follower has no tree yet
+     * </pre>
+     */
+    boolean hasBaseEpoch();
+    /**
+     * <code>optional uint64 base_epoch = 1;</code>
+     *
+     * <pre>
+     * 0 if the follower has no tree yet
+     * </pre>
+     */
+    long getBaseEpoch();
   }
-  private static com.google.protobuf.Descriptors.FileDescriptor
-      descriptor;
-  static {
-    java.lang.String[] descriptorData = {
-      "\n\nutil.proto\022\030org.coniks.coniks_common\"%" +
-      "\n\004Hash\022\013\n\003len\030\001 \001(\005\022\020\n\004hash\030\002 \003(\007B\002\020\001\"a\n" +
-      "\nCommitment\022\r\n\005epoch\030\001 \001(\004\0221\n\troot_hash\030" +
-      "\002 \001(\0132\036.org.coniks.coniks_common.Hash\022\021\n" +
-      "\tsignature\030\003 \003(\007\"\263\001\n\nServerResp\022=\n\007messa" +
-      "ge\030\001 \001(\0162,.org.coniks.coniks_common.Serv" +
-      "erResp.Message\"f\n\007Message\022\013\n\007SUCCESS\020\000\022\023" +
-      "\n\017NAME_EXISTS_ERR\020\001\022\021\n\rMALFORMED_ERR\020\002\022\016" +
-      "\n\nSERVER_ERR\020\003\022\026\n\022NAME_NOT_FOUND_ERR\020\004\"\254" +
-      "\001\n\020CompleteRootNode\022,\n\004left\030\001 \001(\0132\036.org.",
-      "coniks.coniks_common.Hash\022-\n\005right\030\002 \001(\013" +
-      "2\036.org.coniks.coniks_common.Hash\022,\n\004prev" +
-      "\030\003 \001(\0132\036.org.coniks.coniks_common.Hash\022\r" +
-      "\n\005epoch\030\004 \001(\004\"\225\001\n\023WitnessedCommitment\022\020\n" +
-      "\010provider\030\001 \001(\t\0222\n\004comm\030\002 \001(\0132$.org.coni" +
-      "ks.coniks_common.Commitment\0228\n\004root\030\003 \001(" +
-      "\0132*.org.coniks.coniks_common.CompleteRoo" +
-      "tNodeB&\n\030org.coniks.coniks_commonB\nUtilP" +
-      "rotos"
-    };
-    com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
-        new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
-          public com.google.protobuf.ExtensionRegistry assignDescriptors(
-              com.google.protobuf.Descriptors.FileDescriptor root) {
-            descriptor = root;
-            return null;
+  /**
+   * Protobuf type {@code org.coniks.coniks_common.EpochDeltaReq}
+   *
+   * <pre>
+   * sent by a follower to get the epochs its leader published after base_epoch;
+   * only accepted from servers that authenticate with a trusted certificate
+   * </pre>
+   */
+  public static final class EpochDeltaReq extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:org.coniks.coniks_common.EpochDeltaReq)
+      EpochDeltaReqOrBuilder {
+    // Use EpochDeltaReq.newBuilder() to construct.
+    private EpochDeltaReq(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private EpochDeltaReq(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final EpochDeltaReq defaultInstance;
+    public static EpochDeltaReq getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public EpochDeltaReq getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private EpochDeltaReq(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              baseEpoch_ = input.readUInt64();
+              break;
+            }
           }
-        };
-    com.google.protobuf.Descriptors.FileDescriptor
-      .internalBuildGeneratedFileFrom(descriptorData,
-        new com.google.protobuf.Descriptors.FileDescriptor[] {
-        }, assigner);
-    internal_static_org_coniks_coniks_common_Hash_descriptor =
-      getDescriptor().getMessageTypes().get(0);
-    internal_static_org_coniks_coniks_common_Hash_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_Hash_descriptor,
-        new java.lang.String[] { "Len", "Hash", });
-    internal_static_org_coniks_coniks_common_Commitment_descriptor =
-      getDescriptor().getMessageTypes().get(1);
-    internal_static_org_coniks_coniks_common_Commitment_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_Commitment_descriptor,
-        new java.lang.String[] { "Epoch", "RootHash", "Signature", });
-    internal_static_org_coniks_coniks_common_ServerResp_descriptor =
-      getDescriptor().getMessageTypes().get(2);
-    internal_static_org_coniks_coniks_common_ServerResp_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_ServerResp_descriptor,
-        new java.lang.String[] { "Message", });
-    internal_static_org_coniks_coniks_common_CompleteRootNode_descriptor =
-      getDescriptor().getMessageTypes().get(3);
-    internal_static_org_coniks_coniks_common_CompleteRootNode_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_CompleteRootNode_descriptor,
-        new java.lang.String[] { "Left", "Right", "Prev", "Epoch", });
-    internal_static_org_coniks_coniks_common_WitnessedCommitment_descriptor =
-      getDescriptor().getMessageTypes().get(4);
-    internal_static_org_coniks_coniks_common_WitnessedCommitment_fieldAccessorTable = new
-      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
-        internal_static_org_coniks_coniks_common_WitnessedCommitment_descriptor,
-        new java.lang.String[] { "Provider", "Comm", "Root", });
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_EpochDeltaReq_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_EpochDeltaReq_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.coniks.coniks_common.UtilProtos.EpochDeltaReq.class, org.coniks.coniks_common.UtilProtos.EpochDeltaReq.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<EpochDeltaReq> PARSER =
+        new com.google.protobuf.AbstractParser<EpochDeltaReq>() {
+      public EpochDeltaReq parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new EpochDeltaReq(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<EpochDeltaReq> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int BASE_EPOCH_FIELD_NUMBER = 1;
+    private long baseEpoch_;
+    /**
+     * <code>optional uint64 base_epoch = 1;</code>
+     *
+     * <pre>
+     * 0 if the follower has no tree yet
+     * </pre>
+     */
+    public boolean hasBaseEpoch() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional uint64 base_epoch = 1;</code>
+     *
+     * <pre>
+     * 0 if the follower has no tree yet
+     * </pre>
+     */
+    public long getBaseEpoch() {
+      return baseEpoch_;
+    }
+
+    private void initFields() {
+      baseEpoch_ = 0L;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeUInt64(1, baseEpoch_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(1, baseEpoch_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static org.coniks.coniks_common.UtilProtos.EpochDeltaReq parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDeltaReq parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDeltaReq parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDeltaReq parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDeltaReq parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDeltaReq parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDeltaReq parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDeltaReq parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDeltaReq parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDeltaReq parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.coniks.coniks_common.UtilProtos.EpochDeltaReq prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code org.coniks.coniks_common.EpochDeltaReq}
+     *
+     * <pre>
+     * sent by a follower to get the epochs its leader published after base_epoch;
+     * only accepted from servers that authenticate with a trusted certificate
+     * </pre>
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:org.coniks.coniks_common.EpochDeltaReq)
+        org.coniks.coniks_common.UtilProtos.EpochDeltaReqOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_EpochDeltaReq_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_EpochDeltaReq_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.coniks.coniks_common.UtilProtos.EpochDeltaReq.class, org.coniks.coniks_common.UtilProtos.EpochDeltaReq.Builder.class);
+      }
+
+      // Construct using org.coniks.coniks_common.UtilProtos.EpochDeltaReq.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        baseEpoch_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_EpochDeltaReq_descriptor;
+      }
+
+      public org.coniks.coniks_common.UtilProtos.EpochDeltaReq getDefaultInstanceForType() {
+        return org.coniks.coniks_common.UtilProtos.EpochDeltaReq.getDefaultInstance();
+      }
+
+      public org.coniks.coniks_common.UtilProtos.EpochDeltaReq build() {
+        org.coniks.coniks_common.UtilProtos.EpochDeltaReq result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.coniks.coniks_common.UtilProtos.EpochDeltaReq buildPartial() {
+        org.coniks.coniks_common.UtilProtos.EpochDeltaReq result = new org.coniks.coniks_common.UtilProtos.EpochDeltaReq(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.baseEpoch_ = baseEpoch_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.coniks.coniks_common.UtilProtos.EpochDeltaReq) {
+          return mergeFrom((org.coniks.coniks_common.UtilProtos.EpochDeltaReq)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.coniks.coniks_common.UtilProtos.EpochDeltaReq other) {
+        if (other == org.coniks.coniks_common.UtilProtos.EpochDeltaReq.getDefaultInstance()) return this;
+        if (other.hasBaseEpoch()) {
+          setBaseEpoch(other.getBaseEpoch());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.coniks.coniks_common.UtilProtos.EpochDeltaReq parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.coniks.coniks_common.UtilProtos.EpochDeltaReq) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private long baseEpoch_ ;
+      /**
+       * <code>optional uint64 base_epoch = 1;</code>
+       *
+       * <pre>
+       * 0 if the follower has no tree yet
+       * </pre>
+       */
+      public boolean hasBaseEpoch() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>optional uint64 base_epoch = 1;</code>
+       *
+       * <pre>
+       * 0 if the follower has no tree yet
+       * </pre>
+       */
+      public long getBaseEpoch() {
+        return baseEpoch_;
+      }
+      /**
+       * <code>optional uint64 base_epoch = 1;</code>
+       *
+       * <pre>
+       * 0 if the follower has no tree yet
+       * </pre>
+       */
+      public Builder setBaseEpoch(long value) {
+        bitField0_ |= 0x00000001;
+        baseEpoch_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 base_epoch = 1;</code>
+       *
+       * <pre>
+       * 0 if the follower has no tree yet
+       * </pre>
+       */
+      public Builder clearBaseEpoch() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        baseEpoch_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.EpochDeltaReq)
+    }
+
+    static {
+      defaultInstance = new EpochDeltaReq(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.EpochDeltaReq)
+  }
+
+  public interface EpochDeltaOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.EpochDelta)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>optional uint64 base_epoch = 1;</code>
+     */
+    boolean hasBaseEpoch();
+    /**
+     * <code>optional uint64 base_epoch = 1;</code>
+     */
+    long getBaseEpoch();
+
+    /**
+     * <code>optional uint64 epoch = 2;</code>
+     */
+    boolean hasEpoch();
+    /**
+     * <code>optional uint64 epoch = 2;</code>
+     */
+    long getEpoch();
+
+    /**
+     * <code>optional bytes signature = 3;</code>
+     *
+     * <pre>
+     * the leader's signature on the new root
+     * </pre>
+     */
+    boolean hasSignature();
+    /**
+     * <code>optional bytes signature = 3;</code>
+     *
+     * <pre>
+     * the leader's signature on the new root
+     * </pre>
+     */
+    com.google.protobuf.ByteString getSignature();
+
+    /**
+     * <code>optional bytes chunk = 4;</code>
+     */
+    boolean hasChunk();
+    /**
+     * <code>optional bytes chunk = 4;</code>
+     */
+    com.google.protobuf.ByteString getChunk();
+
+    /**
+     * <code>optional bool more = 5;</code>
+     *
+     * <pre>
+     * set if another chunk of this epoch follows
+     * </pre>
+     */
+    boolean hasMore();
+    /**
+     * <code>optional bool more = 5;</code>
+     *
+     * <pre>
+     * set if another chunk of this epoch follows
+     * </pre>
+     */
+    boolean getMore();
+  }
+  /**
+   * Protobuf type {@code org.coniks.coniks_common.EpochDelta}
+   *
+   * <pre>
+   * the leader streams each newer epoch as one or more chunks, followed by a
+   * SUCCESS server response; the chunks of an epoch form a tree delta with the
+   * nodes that changed since base_epoch, or a full tree if base_epoch is 0
+   * </pre>
+   */
+  public static final class EpochDelta extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:org.coniks.coniks_common.EpochDelta)
+      EpochDeltaOrBuilder {
+    // Use EpochDelta.newBuilder() to construct.
+    private EpochDelta(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private EpochDelta(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final EpochDelta defaultInstance;
+    public static EpochDelta getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public EpochDelta getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private EpochDelta(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              baseEpoch_ = input.readUInt64();
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000002;
+              epoch_ = input.readUInt64();
+              break;
+            }
+            case 26: {
+              bitField0_ |= 0x00000004;
+              signature_ = input.readBytes();
+              break;
+            }
+            case 34: {
+              bitField0_ |= 0x00000008;
+              chunk_ = input.readBytes();
+              break;
+            }
+            case 40: {
+              bitField0_ |= 0x00000010;
+              more_ = input.readBool();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_EpochDelta_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_EpochDelta_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.coniks.coniks_common.UtilProtos.EpochDelta.class, org.coniks.coniks_common.UtilProtos.EpochDelta.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<EpochDelta> PARSER =
+        new com.google.protobuf.AbstractParser<EpochDelta>() {
+      public EpochDelta parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new EpochDelta(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<EpochDelta> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int BASE_EPOCH_FIELD_NUMBER = 1;
+    private long baseEpoch_;
+    /**
+     * <code>optional uint64 base_epoch = 1;</code>
+     */
+    public boolean hasBaseEpoch() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional uint64 base_epoch = 1;</code>
+     */
+    public long getBaseEpoch() {
+      return baseEpoch_;
+    }
+
+    public static final int EPOCH_FIELD_NUMBER = 2;
+    private long epoch_;
+    /**
+     * <code>optional uint64 epoch = 2;</code>
+     */
+    public boolean hasEpoch() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    /**
+     * <code>optional uint64 epoch = 2;</code>
+     */
+    public long getEpoch() {
+      return epoch_;
+    }
+
+    public static final int SIGNATURE_FIELD_NUMBER = 3;
+    private com.google.protobuf.ByteString signature_;
+    /**
+     * <code>optional bytes signature = 3;</code>
+     *
+     * <pre>
+     * the leader's signature on the new root
+     * </pre>
+     */
+    public boolean hasSignature() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    /**
+     * <code>optional bytes signature = 3;</code>
+     *
+     * <pre>
+     * the leader's signature on the new root
+     * </pre>
+     */
+    public com.google.protobuf.ByteString getSignature() {
+      return signature_;
+    }
+
+    public static final int CHUNK_FIELD_NUMBER = 4;
+    private com.google.protobuf.ByteString chunk_;
+    /**
+     * <code>optional bytes chunk = 4;</code>
+     */
+    public boolean hasChunk() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    /**
+     * <code>optional bytes chunk = 4;</code>
+     */
+    public com.google.protobuf.ByteString getChunk() {
+      return chunk_;
+    }
+
+    public static final int MORE_FIELD_NUMBER = 5;
+    private boolean more_;
+    /**
+     * <code>optional bool more = 5;</code>
+     *
+     * <pre>
+     * set if another chunk of this epoch follows
+     * </pre>
+     */
+    public boolean hasMore() {
+      return ((bitField0_ & 0x00000010) == 0x00000010);
+    }
+    /**
+     * <code>optional bool more = 5;</code>
+     *
+     * <pre>
+     * set if another chunk of this epoch follows
+     * </pre>
+     */
+    public boolean getMore() {
+      return more_;
+    }
+
+    private void initFields() {
+      baseEpoch_ = 0L;
+      epoch_ = 0L;
+      signature_ = com.google.protobuf.ByteString.EMPTY;
+      chunk_ = com.google.protobuf.ByteString.EMPTY;
+      more_ = false;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeUInt64(1, baseEpoch_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeUInt64(2, epoch_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeBytes(3, signature_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeBytes(4, chunk_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        output.writeBool(5, more_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(1, baseEpoch_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(2, epoch_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(3, signature_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(4, chunk_);
+      }
+      if (((bitField0_ & 0x00000010) == 0x00000010)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBoolSize(5, more_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static org.coniks.coniks_common.UtilProtos.EpochDelta parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDelta parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDelta parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDelta parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDelta parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDelta parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDelta parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDelta parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDelta parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.UtilProtos.EpochDelta parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.coniks.coniks_common.UtilProtos.EpochDelta prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code org.coniks.coniks_common.EpochDelta}
+     *
+     * <pre>
+     * the leader streams each newer epoch as one or more chunks, followed by a
+     * SUCCESS server response; the chunks of an epoch form a tree delta with the
+     * nodes that changed since base_epoch, or a full tree if base_epoch is 0
+     * </pre>
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:org.coniks.coniks_common.EpochDelta)
+        org.coniks.coniks_common.UtilProtos.EpochDeltaOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_EpochDelta_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_EpochDelta_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.coniks.coniks_common.UtilProtos.EpochDelta.class, org.coniks.coniks_common.UtilProtos.EpochDelta.Builder.class);
+      }
+
+      // Construct using org.coniks.coniks_common.UtilProtos.EpochDelta.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        baseEpoch_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        epoch_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        signature_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        chunk_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000008);
+        more_ = false;
+        bitField0_ = (bitField0_ & ~0x00000010);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_EpochDelta_descriptor;
+      }
+
+      public org.coniks.coniks_common.UtilProtos.EpochDelta getDefaultInstanceForType() {
+        return org.coniks.coniks_common.UtilProtos.EpochDelta.getDefaultInstance();
+      }
+
+      public org.coniks.coniks_common.UtilProtos.EpochDelta build() {
+        org.coniks.coniks_common.UtilProtos.EpochDelta result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.coniks.coniks_common.UtilProtos.EpochDelta buildPartial() {
+        org.coniks.coniks_common.UtilProtos.EpochDelta result = new org.coniks.coniks_common.UtilProtos.EpochDelta(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.baseEpoch_ = baseEpoch_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.epoch_ = epoch_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.signature_ = signature_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.chunk_ = chunk_;
+        if (((from_bitField0_ & 0x00000010) == 0x00000010)) {
+          to_bitField0_ |= 0x00000010;
+        }
+        result.more_ = more_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.coniks.coniks_common.UtilProtos.EpochDelta) {
+          return mergeFrom((org.coniks.coniks_common.UtilProtos.EpochDelta)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.coniks.coniks_common.UtilProtos.EpochDelta other) {
+        if (other == org.coniks.coniks_common.UtilProtos.EpochDelta.getDefaultInstance()) return this;
+        if (other.hasBaseEpoch()) {
+          setBaseEpoch(other.getBaseEpoch());
+        }
+        if (other.hasEpoch()) {
+          setEpoch(other.getEpoch());
+        }
+        if (other.hasSignature()) {
+          setSignature(other.getSignature());
+        }
+        if (other.hasChunk()) {
+          setChunk(other.getChunk());
+        }
+        if (other.hasMore()) {
+          setMore(other.getMore());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.coniks.coniks_common.UtilProtos.EpochDelta parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.coniks.coniks_common.UtilProtos.EpochDelta) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private long baseEpoch_ ;
+      /**
+       * <code>optional uint64 base_epoch = 1;</code>
+       */
+      public boolean hasBaseEpoch() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>optional uint64 base_epoch = 1;</code>
+       */
+      public long getBaseEpoch() {
+        return baseEpoch_;
+      }
+      /**
+       * <code>optional uint64 base_epoch = 1;</code>
+       */
+      public Builder setBaseEpoch(long value) {
+        bitField0_ |= 0x00000001;
+        baseEpoch_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 base_epoch = 1;</code>
+       */
+      public Builder clearBaseEpoch() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        baseEpoch_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private long epoch_ ;
+      /**
+       * <code>optional uint64 epoch = 2;</code>
+       */
+      public boolean hasEpoch() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      /**
+       * <code>optional uint64 epoch = 2;</code>
+       */
+      public long getEpoch() {
+        return epoch_;
+      }
+      /**
+       * <code>optional uint64 epoch = 2;</code>
+       */
+      public Builder setEpoch(long value) {
+        bitField0_ |= 0x00000002;
+        epoch_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 epoch = 2;</code>
+       */
+      public Builder clearEpoch() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        epoch_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.ByteString signature_ ;
+      /**
+       * <code>optional bytes signature = 3;</code>
+       *
+       * <pre>
+       * the leader's signature on the new root
+       * </pre>
+       */
+      public boolean hasSignature() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      /**
+       * <code>optional bytes signature = 3;</code>
+       *
+       * <pre>
+       * the leader's signature on the new root
+       * </pre>
+       */
+      public com.google.protobuf.ByteString getSignature() {
+        return signature_;
+      }
+      /**
+       * <code>optional bytes signature = 3;</code>
+       *
+       * <pre>
+       * the leader's signature on the new root
+       * </pre>
+       */
+      public Builder setSignature(com.google.protobuf.ByteString value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000004;
+        signature_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bytes signature = 3;</code>
+       *
+       * <pre>
+       * the leader's signature on the new root
+       * </pre>
+       */
+      public Builder clearSignature() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        signature_ = com.google.protobuf.ByteString.EMPTY;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.ByteString chunk_ ;
+      /**
+       * <code>optional bytes chunk = 4;</code>
+       */
+      public boolean hasChunk() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      /**
+       * <code>optional bytes chunk = 4;</code>
+       */
+      public com.google.protobuf.ByteString getChunk() {
+        return chunk_;
+      }
+      /**
+       * <code>optional bytes chunk = 4;</code>
+       */
+      public Builder setChunk(com.google.protobuf.ByteString value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000008;
+        chunk_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bytes chunk = 4;</code>
+       */
+      public Builder clearChunk() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        chunk_ = com.google.protobuf.ByteString.EMPTY;
+        onChanged();
+        return this;
+      }
+
+      private boolean more_ ;
+      /**
+       * <code>optional bool more = 5;</code>
+       *
+       * <pre>
+       * set if another chunk of this epoch follows
+       * </pre>
+       */
+      public boolean hasMore() {
+        return ((bitField0_ & 0x00000010) == 0x00000010);
+      }
+      /**
+       * <code>optional bool more = 5;</code>
+       *
+       * <pre>
+       * set if another chunk of this epoch follows
+       * </pre>
+       */
+      public boolean getMore() {
+        return more_;
+      }
+      /**
+       * <code>optional bool more = 5;</code>
+       *
+       * <pre>
+       * set if another chunk of this epoch follows
+       * </pre>
+       */
+      public Builder setMore(boolean value) {
+        bitField0_ |= 0x00000010;
+        more_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bool more = 5;</code>
+       *
+       * <pre>
+       * set if another chunk of this epoch follows
+       * </pre>
+       */
+      public Builder clearMore() {
+        bitField0_ = (bitField0_ & ~0x00000010);
+        more_ = false;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.EpochDelta)
+    }
+
+    static {
+      defaultInstance = new EpochDelta(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.EpochDelta)
+  }
+
+  public interface ShardRootReqOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.ShardRootReq)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>optional uint32 shard_bits = 1;</code>
+     */
+    boolean hasShardBits();
+    /**
+     * <code>optional uint32 shard_bits = 1;</code>
+     */
+    int getShardBits();
+
+    /**
+     * <code>optional uint32 shard = 2;</code>
+     */
+    boolean hasShard();
+    /**
+     * <code>optional uint32 shard = 2;</code>
+     */
+    int getShard();
+  }
+  /**
+   * Protobuf type {@code org.coniks.coniks_common.ShardRootReq}
+   *
+   * <pre>
+   * sent by a shard router to get the root of a shard's subtree, i.e. the node
+   * of the shard's latest tree at depth shard_bits on the path of the shard's prefix
+   * </pre>
+   */
+  public static final class ShardRootReq extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:org.coniks.coniks_common.ShardRootReq)
+      ShardRootReqOrBuilder {
+    // Use ShardRootReq.newBuilder() to construct.
+    private ShardRootReq(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private ShardRootReq(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final ShardRootReq defaultInstance;
+    public static ShardRootReq getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public ShardRootReq getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private ShardRootReq(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              shardBits_ = input.readUInt32();
+              break;
+            }
+            case 16: {
+              bitField0_ |= 0x00000002;
+              shard_ = input.readUInt32();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_ShardRootReq_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_ShardRootReq_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.coniks.coniks_common.UtilProtos.ShardRootReq.class, org.coniks.coniks_common.UtilProtos.ShardRootReq.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<ShardRootReq> PARSER =
+        new com.google.protobuf.AbstractParser<ShardRootReq>() {
+      public ShardRootReq parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new ShardRootReq(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<ShardRootReq> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int SHARD_BITS_FIELD_NUMBER = 1;
+    private int shardBits_;
+    /**
+     * <code>optional uint32 shard_bits = 1;</code>
+     */
+    public boolean hasShardBits() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional uint32 shard_bits = 1;</code>
+     */
+    public int getShardBits() {
+      return shardBits_;
+    }
+
+    public static final int SHARD_FIELD_NUMBER = 2;
+    private int shard_;
+    /**
+     * <code>optional uint32 shard = 2;</code>
+     */
+    public boolean hasShard() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    /**
+     * <code>optional uint32 shard = 2;</code>
+     */
+    public int getShard() {
+      return shard_;
+    }
+
+    private void initFields() {
+      shardBits_ = 0;
+      shard_ = 0;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeUInt32(1, shardBits_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeUInt32(2, shard_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(1, shardBits_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(2, shard_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static org.coniks.coniks_common.UtilProtos.ShardRootReq parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRootReq parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRootReq parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRootReq parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRootReq parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRootReq parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRootReq parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRootReq parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRootReq parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRootReq parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.coniks.coniks_common.UtilProtos.ShardRootReq prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code org.coniks.coniks_common.ShardRootReq}
+     *
+     * <pre>
+     * sent by a shard router to get the root of a shard's subtree, i.e. the node
+     * of the shard's latest tree at depth shard_bits on the path of the shard's prefix
+     * </pre>
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:org.coniks.coniks_common.ShardRootReq)
+        org.coniks.coniks_common.UtilProtos.ShardRootReqOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_ShardRootReq_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_ShardRootReq_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.coniks.coniks_common.UtilProtos.ShardRootReq.class, org.coniks.coniks_common.UtilProtos.ShardRootReq.Builder.class);
+      }
+
+      // Construct using org.coniks.coniks_common.UtilProtos.ShardRootReq.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        shardBits_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        shard_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_ShardRootReq_descriptor;
+      }
+
+      public org.coniks.coniks_common.UtilProtos.ShardRootReq getDefaultInstanceForType() {
+        return org.coniks.coniks_common.UtilProtos.ShardRootReq.getDefaultInstance();
+      }
+
+      public org.coniks.coniks_common.UtilProtos.ShardRootReq build() {
+        org.coniks.coniks_common.UtilProtos.ShardRootReq result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.coniks.coniks_common.UtilProtos.ShardRootReq buildPartial() {
+        org.coniks.coniks_common.UtilProtos.ShardRootReq result = new org.coniks.coniks_common.UtilProtos.ShardRootReq(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.shardBits_ = shardBits_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.shard_ = shard_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.coniks.coniks_common.UtilProtos.ShardRootReq) {
+          return mergeFrom((org.coniks.coniks_common.UtilProtos.ShardRootReq)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.coniks.coniks_common.UtilProtos.ShardRootReq other) {
+        if (other == org.coniks.coniks_common.UtilProtos.ShardRootReq.getDefaultInstance()) return this;
+        if (other.hasShardBits()) {
+          setShardBits(other.getShardBits());
+        }
+        if (other.hasShard()) {
+          setShard(other.getShard());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.coniks.coniks_common.UtilProtos.ShardRootReq parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.coniks.coniks_common.UtilProtos.ShardRootReq) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private int shardBits_ ;
+      /**
+       * <code>optional uint32 shard_bits = 1;</code>
+       */
+      public boolean hasShardBits() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>optional uint32 shard_bits = 1;</code>
+       */
+      public int getShardBits() {
+        return shardBits_;
+      }
+      /**
+       * <code>optional uint32 shard_bits = 1;</code>
+       */
+      public Builder setShardBits(int value) {
+        bitField0_ |= 0x00000001;
+        shardBits_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 shard_bits = 1;</code>
+       */
+      public Builder clearShardBits() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        shardBits_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int shard_ ;
+      /**
+       * <code>optional uint32 shard = 2;</code>
+       */
+      public boolean hasShard() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      /**
+       * <code>optional uint32 shard = 2;</code>
+       */
+      public int getShard() {
+        return shard_;
+      }
+      /**
+       * <code>optional uint32 shard = 2;</code>
+       */
+      public Builder setShard(int value) {
+        bitField0_ |= 0x00000002;
+        shard_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint32 shard = 2;</code>
+       */
+      public Builder clearShard() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        shard_ = 0;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.ShardRootReq)
+    }
+
+    static {
+      defaultInstance = new ShardRootReq(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.ShardRootReq)
+  }
+
+  public interface ShardRootOrBuilder extends
+      // @@protoc_insertion_point(interface_extends:org.coniks.coniks_common.ShardRoot)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     * <code>optional uint64 epoch = 1;</code>
+     */
+    boolean hasEpoch();
+    /**
+     * <code>optional uint64 epoch = 1;</code>
+     */
+    long getEpoch();
+
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+     *
+     * <pre>
+     * unset if the shard is empty
+     * </pre>
+     */
+    boolean hasSubtree();
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+     *
+     * <pre>
+     * unset if the shard is empty
+     * </pre>
+     */
+    org.coniks.coniks_common.UtilProtos.Hash getSubtree();
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+     *
+     * <pre>
+     * unset if the shard is empty
+     * </pre>
+     */
+    org.coniks.coniks_common.UtilProtos.HashOrBuilder getSubtreeOrBuilder();
+
+    /**
+     * <code>optional bool leaf = 3;</code>
+     *
+     * <pre>
+     * set if the shard has a single user, whose leaf moves up the
+     * router's tree until it has a sibling
+     * </pre>
+     */
+    boolean hasLeaf();
+    /**
+     * <code>optional bool leaf = 3;</code>
+     *
+     * <pre>
+     * set if the shard has a single user, whose leaf moves up the
+     * router's tree until it has a sibling
+     * </pre>
+     */
+    boolean getLeaf();
+  }
+  /**
+   * Protobuf type {@code org.coniks.coniks_common.ShardRoot}
+   */
+  public static final class ShardRoot extends
+      com.google.protobuf.GeneratedMessage implements
+      // @@protoc_insertion_point(message_implements:org.coniks.coniks_common.ShardRoot)
+      ShardRootOrBuilder {
+    // Use ShardRoot.newBuilder() to construct.
+    private ShardRoot(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private ShardRoot(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final ShardRoot defaultInstance;
+    public static ShardRoot getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public ShardRoot getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private ShardRoot(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 8: {
+              bitField0_ |= 0x00000001;
+              epoch_ = input.readUInt64();
+              break;
+            }
+            case 18: {
+              org.coniks.coniks_common.UtilProtos.Hash.Builder subBuilder = null;
+              if (((bitField0_ & 0x00000002) == 0x00000002)) {
+                subBuilder = subtree_.toBuilder();
+              }
+              subtree_ = input.readMessage(org.coniks.coniks_common.UtilProtos.Hash.PARSER, extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(subtree_);
+                subtree_ = subBuilder.buildPartial();
+              }
+              bitField0_ |= 0x00000002;
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              leaf_ = input.readBool();
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_ShardRoot_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_ShardRoot_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              org.coniks.coniks_common.UtilProtos.ShardRoot.class, org.coniks.coniks_common.UtilProtos.ShardRoot.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<ShardRoot> PARSER =
+        new com.google.protobuf.AbstractParser<ShardRoot>() {
+      public ShardRoot parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new ShardRoot(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<ShardRoot> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    public static final int EPOCH_FIELD_NUMBER = 1;
+    private long epoch_;
+    /**
+     * <code>optional uint64 epoch = 1;</code>
+     */
+    public boolean hasEpoch() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>optional uint64 epoch = 1;</code>
+     */
+    public long getEpoch() {
+      return epoch_;
+    }
+
+    public static final int SUBTREE_FIELD_NUMBER = 2;
+    private org.coniks.coniks_common.UtilProtos.Hash subtree_;
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+     *
+     * <pre>
+     * unset if the shard is empty
+     * </pre>
+     */
+    public boolean hasSubtree() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+     *
+     * <pre>
+     * unset if the shard is empty
+     * </pre>
+     */
+    public org.coniks.coniks_common.UtilProtos.Hash getSubtree() {
+      return subtree_;
+    }
+    /**
+     * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+     *
+     * <pre>
+     * unset if the shard is empty
+     * </pre>
+     */
+    public org.coniks.coniks_common.UtilProtos.HashOrBuilder getSubtreeOrBuilder() {
+      return subtree_;
+    }
+
+    public static final int LEAF_FIELD_NUMBER = 3;
+    private boolean leaf_;
+    /**
+     * <code>optional bool leaf = 3;</code>
+     *
+     * <pre>
+     * set if the shard has a single user, whose leaf moves up the
+     * router's tree until it has a sibling
+     * </pre>
+     */
+    public boolean hasLeaf() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    /**
+     * <code>optional bool leaf = 3;</code>
+     *
+     * <pre>
+     * set if the shard has a single user, whose leaf moves up the
+     * router's tree until it has a sibling
+     * </pre>
+     */
+    public boolean getLeaf() {
+      return leaf_;
+    }
+
+    private void initFields() {
+      epoch_ = 0L;
+      subtree_ = org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance();
+      leaf_ = false;
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeUInt64(1, epoch_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeMessage(2, subtree_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeBool(3, leaf_);
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt64Size(1, epoch_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(2, subtree_);
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBoolSize(3, leaf_);
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    public static org.coniks.coniks_common.UtilProtos.ShardRoot parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRoot parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRoot parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRoot parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRoot parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRoot parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRoot parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRoot parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRoot parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static org.coniks.coniks_common.UtilProtos.ShardRoot parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(org.coniks.coniks_common.UtilProtos.ShardRoot prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code org.coniks.coniks_common.ShardRoot}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> implements
+        // @@protoc_insertion_point(builder_implements:org.coniks.coniks_common.ShardRoot)
+        org.coniks.coniks_common.UtilProtos.ShardRootOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_ShardRoot_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_ShardRoot_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                org.coniks.coniks_common.UtilProtos.ShardRoot.class, org.coniks.coniks_common.UtilProtos.ShardRoot.Builder.class);
+      }
+
+      // Construct using org.coniks.coniks_common.UtilProtos.ShardRoot.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+          getSubtreeFieldBuilder();
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        epoch_ = 0L;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        if (subtreeBuilder_ == null) {
+          subtree_ = org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance();
+        } else {
+          subtreeBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000002);
+        leaf_ = false;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return org.coniks.coniks_common.UtilProtos.internal_static_org_coniks_coniks_common_ShardRoot_descriptor;
+      }
+
+      public org.coniks.coniks_common.UtilProtos.ShardRoot getDefaultInstanceForType() {
+        return org.coniks.coniks_common.UtilProtos.ShardRoot.getDefaultInstance();
+      }
+
+      public org.coniks.coniks_common.UtilProtos.ShardRoot build() {
+        org.coniks.coniks_common.UtilProtos.ShardRoot result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public org.coniks.coniks_common.UtilProtos.ShardRoot buildPartial() {
+        org.coniks.coniks_common.UtilProtos.ShardRoot result = new org.coniks.coniks_common.UtilProtos.ShardRoot(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.epoch_ = epoch_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        if (subtreeBuilder_ == null) {
+          result.subtree_ = subtree_;
+        } else {
+          result.subtree_ = subtreeBuilder_.build();
+        }
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.leaf_ = leaf_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof org.coniks.coniks_common.UtilProtos.ShardRoot) {
+          return mergeFrom((org.coniks.coniks_common.UtilProtos.ShardRoot)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(org.coniks.coniks_common.UtilProtos.ShardRoot other) {
+        if (other == org.coniks.coniks_common.UtilProtos.ShardRoot.getDefaultInstance()) return this;
+        if (other.hasEpoch()) {
+          setEpoch(other.getEpoch());
+        }
+        if (other.hasSubtree()) {
+          mergeSubtree(other.getSubtree());
+        }
+        if (other.hasLeaf()) {
+          setLeaf(other.getLeaf());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        org.coniks.coniks_common.UtilProtos.ShardRoot parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (org.coniks.coniks_common.UtilProtos.ShardRoot) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      private long epoch_ ;
+      /**
+       * <code>optional uint64 epoch = 1;</code>
+       */
+      public boolean hasEpoch() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>optional uint64 epoch = 1;</code>
+       */
+      public long getEpoch() {
+        return epoch_;
+      }
+      /**
+       * <code>optional uint64 epoch = 1;</code>
+       */
+      public Builder setEpoch(long value) {
+        bitField0_ |= 0x00000001;
+        epoch_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional uint64 epoch = 1;</code>
+       */
+      public Builder clearEpoch() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        epoch_ = 0L;
+        onChanged();
+        return this;
+      }
+
+      private org.coniks.coniks_common.UtilProtos.Hash subtree_ = org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          org.coniks.coniks_common.UtilProtos.Hash, org.coniks.coniks_common.UtilProtos.Hash.Builder, org.coniks.coniks_common.UtilProtos.HashOrBuilder> subtreeBuilder_;
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+       *
+       * <pre>
+       * unset if the shard is empty
+       * </pre>
+       */
+      public boolean hasSubtree() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+       *
+       * <pre>
+       * unset if the shard is empty
+       * </pre>
+       */
+      public org.coniks.coniks_common.UtilProtos.Hash getSubtree() {
+        if (subtreeBuilder_ == null) {
+          return subtree_;
+        } else {
+          return subtreeBuilder_.getMessage();
+        }
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+       *
+       * <pre>
+       * unset if the shard is empty
+       * </pre>
+       */
+      public Builder setSubtree(org.coniks.coniks_common.UtilProtos.Hash value) {
+        if (subtreeBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          subtree_ = value;
+          onChanged();
+        } else {
+          subtreeBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000002;
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+       *
+       * <pre>
+       * unset if the shard is empty
+       * </pre>
+       */
+      public Builder setSubtree(
+          org.coniks.coniks_common.UtilProtos.Hash.Builder builderForValue) {
+        if (subtreeBuilder_ == null) {
+          subtree_ = builderForValue.build();
+          onChanged();
+        } else {
+          subtreeBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000002;
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+       *
+       * <pre>
+       * unset if the shard is empty
+       * </pre>
+       */
+      public Builder mergeSubtree(org.coniks.coniks_common.UtilProtos.Hash value) {
+        if (subtreeBuilder_ == null) {
+          if (((bitField0_ & 0x00000002) == 0x00000002) &&
+              subtree_ != org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance()) {
+            subtree_ =
+              org.coniks.coniks_common.UtilProtos.Hash.newBuilder(subtree_).mergeFrom(value).buildPartial();
+          } else {
+            subtree_ = value;
+          }
+          onChanged();
+        } else {
+          subtreeBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000002;
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+       *
+       * <pre>
+       * unset if the shard is empty
+       * </pre>
+       */
+      public Builder clearSubtree() {
+        if (subtreeBuilder_ == null) {
+          subtree_ = org.coniks.coniks_common.UtilProtos.Hash.getDefaultInstance();
+          onChanged();
+        } else {
+          subtreeBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000002);
+        return this;
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+       *
+       * <pre>
+       * unset if the shard is empty
+       * </pre>
+       */
+      public org.coniks.coniks_common.UtilProtos.Hash.Builder getSubtreeBuilder() {
+        bitField0_ |= 0x00000002;
+        onChanged();
+        return getSubtreeFieldBuilder().getBuilder();
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+       *
+       * <pre>
+       * unset if the shard is empty
+       * </pre>
+       */
+      public org.coniks.coniks_common.UtilProtos.HashOrBuilder getSubtreeOrBuilder() {
+        if (subtreeBuilder_ != null) {
+          return subtreeBuilder_.getMessageOrBuilder();
+        } else {
+          return subtree_;
+        }
+      }
+      /**
+       * <code>optional .org.coniks.coniks_common.Hash subtree = 2;</code>
+       *
+       * <pre>
+       * unset if the shard is empty
+       * </pre>
+       */
+      private com.google.protobuf.SingleFieldBuilder<
+          org.coniks.coniks_common.UtilProtos.Hash, org.coniks.coniks_common.UtilProtos.Hash.Builder, org.coniks.coniks_common.UtilProtos.HashOrBuilder> 
+          getSubtreeFieldBuilder() {
+        if (subtreeBuilder_ == null) {
+          subtreeBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              org.coniks.coniks_common.UtilProtos.Hash, org.coniks.coniks_common.UtilProtos.Hash.Builder, org.coniks.coniks_common.UtilProtos.HashOrBuilder>(
+                  getSubtree(),
+                  getParentForChildren(),
+                  isClean());
+          subtree_ = null;
+        }
+        return subtreeBuilder_;
+      }
+
+      private boolean leaf_ ;
+      /**
+       * <code>optional bool leaf = 3;</code>
+       *
+       * <pre>
+       * set if the shard has a single user, whose leaf moves up the
+       * router's tree until it has a sibling
+       * </pre>
+       */
+      public boolean hasLeaf() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      /**
+       * <code>optional bool leaf = 3;</code>
+       *
+       * <pre>
+       * set if the shard has a single user, whose leaf moves up the
+       * router's tree until it has a sibling
+       * </pre>
+       */
+      public boolean getLeaf() {
+        return leaf_;
+      }
+      /**
+       * <code>optional bool leaf = 3;</code>
+       *
+       * <pre>
+       * set if the shard has a single user, whose leaf moves up the
+       * router's tree until it has a sibling
+       * </pre>
+       */
+      public Builder setLeaf(boolean value) {
+        bitField0_ |= 0x00000004;
+        leaf_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bool leaf = 3;</code>
+       *
+       * <pre>
+       * set if the shard has a single user, whose leaf moves up the
+       * router's tree until it has a sibling
+       * </pre>
+       */
+      public Builder clearLeaf() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        leaf_ = false;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:org.coniks.coniks_common.ShardRoot)
+    }
+
+    static {
+      defaultInstance = new ShardRoot(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:org.coniks.coniks_common.ShardRoot)
+  }
+
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_Hash_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_Hash_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_Commitment_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_Commitment_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_ServerResp_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_ServerResp_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_CompleteRootNode_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_CompleteRootNode_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_WitnessedCommitment_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_WitnessedCommitment_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_EpochDeltaReq_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_EpochDeltaReq_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_EpochDelta_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_EpochDelta_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_ShardRootReq_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_ShardRootReq_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+    internal_static_org_coniks_coniks_common_ShardRoot_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_org_coniks_coniks_common_ShardRoot_fieldAccessorTable;
+
+  public static com.google.protobuf.Descriptors.FileDescriptor
+      getDescriptor() {
+    return descriptor;
+  }
+  private static com.google.protobuf.Descriptors.FileDescriptor
+      descriptor;
+  static {
+    java.lang.String[] descriptorData = {
+      "\n\nutil.proto\022\030org.coniks.coniks_common\"%" +
+      "\n\004Hash\022\013\n\003len\030\001 \001(\005\022\020\n\004hash\030\002 \003(\007B\002\020\001\"a\n" +
+      "\nCommitment\022\r\n\005epoch\030\001 \001(\004\0221\n\troot_hash\030" +
+      "\002 \001(\0132\036.org.coniks.coniks_common.Hash\022\021\n" +
+      "\tsignature\030\003 \003(\007\"\355\001\n\nServerResp\022=\n\007messa" +
+      "ge\030\001 \001(\0162,.org.coniks.coniks_common.Serv" +
+      "erResp.Message\"\237\001\n\007Message\022\013\n\007SUCCESS\020\000\022" +
+      "\023\n\017NAME_EXISTS_ERR\020\001\022\021\n\rMALFORMED_ERR\020\002\022" +
+      "\016\n\nSERVER_ERR\020\003\022\026\n\022NAME_NOT_FOUND_ERR\020\004\022" +
+      "\016\n\nOVERLOADED\020\005\022\024\n\020UNAUTHORIZED_ERR\020\006\022\021\n",
+      "\rREAD_ONLY_ERR\020\007\"\254\001\n\020CompleteRootNode\022,\n" +
+      "\004left\030\001 \001(\0132\036.org.coniks.coniks_common.H" +
+      "ash\022-\n\005right\030\002 \001(\0132\036.org.coniks.coniks_c" +
+      "ommon.Hash\022,\n\004prev\030\003 \001(\0132\036.org.coniks.co" +
+      "niks_common.Hash\022\r\n\005epoch\030\004 \001(\004\"\225\001\n\023Witn" +
+      "essedCommitment\022\020\n\010provider\030\001 \001(\t\0222\n\004com" +
+      "m\030\002 \001(\0132$.org.coniks.coniks_common.Commi" +
+      "tment\0228\n\004root\030\003 \001(\0132*.org.coniks.coniks_" +
+      "common.CompleteRootNode\"#\n\rEpochDeltaReq" +
+      "\022\022\n\nbase_epoch\030\001 \001(\004\"_\n\nEpochDelta\022\022\n\nba",
+      "se_epoch\030\001 \001(\004\022\r\n\005epoch\030\002 \001(\004\022\021\n\tsignatu" +
+      "re\030\003 \001(\014\022\r\n\005chunk\030\004 \001(\014\022\014\n\004more\030\005 \001(\010\"1\n" +
+      "\014ShardRootReq\022\022\n\nshard_bits\030\001 \001(\r\022\r\n\005sha" +
+      "rd\030\002 \001(\r\"Y\n\tShardRoot\022\r\n\005epoch\030\001 \001(\004\022/\n\007" +
+      "subtree\030\002 \001(\0132\036.org.coniks.coniks_common" +
+      ".Hash\022\014\n\004leaf\030\003 \001(\010B&\n\030org.coniks.coniks" +
+      "_commonB\nUtilProtos"
+    };
+    com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
+        new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
+          public com.google.protobuf.ExtensionRegistry assignDescriptors(
+              com.google.protobuf.Descriptors.FileDescriptor root) {
+            descriptor = root;
+            return null;
+          }
+        };
+    com.google.protobuf.Descriptors.FileDescriptor
+      .internalBuildGeneratedFileFrom(descriptorData,
+        new com.google.protobuf.Descriptors.FileDescriptor[] {
+        }, assigner);
+    internal_static_org_coniks_coniks_common_Hash_descriptor =
+      getDescriptor().getMessageTypes().get(0);
+    internal_static_org_coniks_coniks_common_Hash_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_Hash_descriptor,
+        new java.lang.String[] { "Len", "Hash", });
+    internal_static_org_coniks_coniks_common_Commitment_descriptor =
+      getDescriptor().getMessageTypes().get(1);
+    internal_static_org_coniks_coniks_common_Commitment_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_Commitment_descriptor,
+        new java.lang.String[] { "Epoch", "RootHash", "Signature", });
+    internal_static_org_coniks_coniks_common_ServerResp_descriptor =
+      getDescriptor().getMessageTypes().get(2);
+    internal_static_org_coniks_coniks_common_ServerResp_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_ServerResp_descriptor,
+        new java.lang.String[] { "Message", });
+    internal_static_org_coniks_coniks_common_CompleteRootNode_descriptor =
+      getDescriptor().getMessageTypes().get(3);
+    internal_static_org_coniks_coniks_common_CompleteRootNode_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_CompleteRootNode_descriptor,
+        new java.lang.String[] { "Left", "Right", "Prev", "Epoch", });
+    internal_static_org_coniks_coniks_common_WitnessedCommitment_descriptor =
+      getDescriptor().getMessageTypes().get(4);
+    internal_static_org_coniks_coniks_common_WitnessedCommitment_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_WitnessedCommitment_descriptor,
+        new java.lang.String[] { "Provider", "Comm", "Root", });
+    internal_static_org_coniks_coniks_common_EpochDeltaReq_descriptor =
+      getDescriptor().getMessageTypes().get(5);
+    internal_static_org_coniks_coniks_common_EpochDeltaReq_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_EpochDeltaReq_descriptor,
+        new java.lang.String[] { "BaseEpoch", });
+    internal_static_org_coniks_coniks_common_EpochDelta_descriptor =
+      getDescriptor().getMessageTypes().get(6);
+    internal_static_org_coniks_coniks_common_EpochDelta_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_EpochDelta_descriptor,
+        new java.lang.String[] { "BaseEpoch", "Epoch", "Signature", "Chunk", "More", });
+    internal_static_org_coniks_coniks_common_ShardRootReq_descriptor =
+      getDescriptor().getMessageTypes().get(7);
+    internal_static_org_coniks_coniks_common_ShardRootReq_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_ShardRootReq_descriptor,
+        new java.lang.String[] { "ShardBits", "Shard", });
+    internal_static_org_coniks_coniks_common_ShardRoot_descriptor =
+      getDescriptor().getMessageTypes().get(8);
+    internal_static_org_coniks_coniks_common_ShardRoot_fieldAccessorTable = new
+      com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+        internal_static_org_coniks_coniks_common_ShardRoot_descriptor,
+        new java.lang.String[] { "Epoch", "Subtree", "Leaf", });
   }
 
   // @@protoc_insertion_point(outer_class_scope)
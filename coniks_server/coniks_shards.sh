@@ -0,0 +1,138 @@
+#!/bin/bash
+
+#  Copyright (c) 2015, Princeton University.
+#  All rights reserved.
+#
+#  Redistribution and use in source and binary forms, with or without
+#  modification, are permitted provided that the following conditions are 
+#  met:
+#  * Redistributions of source code must retain the above copyright 
+#  notice, this list of conditions and the following disclaimer.
+#  * Redistributions in binary form must reproduce the above 
+#  copyright notice, this list of conditions and the following disclaimer 
+#  in the documentation and/or other materials provided with the 
+#  distribution.
+#  * Neither the name of Princeton University nor the names of its
+#  contributors may be used to endorse or promote products derived from
+#  this software without specific prior written permission.
+#
+#  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+#  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+#  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+#  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+#  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+#  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+#  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+#  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+#  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+#  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+#  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+#  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+#  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+#  POSSIBILITY OF SUCH DAMAGE.
+
+## Runs or stops the shards of a sharded CONIKS directory and their router
+## on this machine, each as its own server process
+
+# Set all the configs here
+CLASSPATH="-cp ."
+SERVER_BIN="org.coniks.coniks_server.ConiksServer"
+RUN_CONIKS="java $CLASSPATH $SERVER_BIN"
+LOG_PATH="/path/to/logs"
+# the full config of the router; the shards listen on the next ports
+BASE_CONFIG="/path/to/config"
+# must be a power of two
+NUM_SHARDS=4
+
+if [ -z "$1" ]; then
+    echo "Usage: $0 <start | stop>"
+    exit
+fi
+
+CMD=$1
+
+# writes the config of shard $1 (or of the router if $1 is empty) to $2,
+# adding a suffix to all ports, log names and paths of the base config
+write_config() {
+    awk -v shard="$1" -v n="$NUM_SHARDS" '
+    BEGIN { bits = 0; for (s = 1; s < n; s *= 2) bits++ }
+    # pad the base config with empty lines up to the sharding lines
+    { line[NR] = $0 }
+    END {
+        for (i = NR+1; i <= 29; i++) line[i] = ""
+        port = line[1]
+        if (shard != "") {
+            line[1] = port+1+shard
+            for (i = 4; i <= 6; i++) line[i] = line[i] "-shard-" shard
+            split("19 20 21 23 27 29", paths, " ")
+            for (p in paths) {
+                if (line[paths[p]] != "") line[paths[p]] = line[paths[p]] ".shard-" shard
+            }
+            # a shard is never a follower
+            line[28] = ""
+            line[30] = bits
+            line[31] = shard
+            line[32] = ""
+        }
+        else {
+            line[30] = 0
+            line[31] = 0
+            line[32] = ""
+            for (i = 0; i < n; i++) {
+                line[32] = line[32] (i > 0 ? "," : "") "localhost:" port+1+i
+            }
+        }
+        # the number lines must not be empty
+        split("12:-1 13:-1 14:-1 15:-1 16:0 17:-1 18:0 22:-1 24:-1 25:-1 26:0 34:1000000 35:0", defaults, " ")
+        for (d in defaults) {
+            split(defaults[d], kv, ":")
+            if (line[kv[1]] == "") line[kv[1]] = kv[2]
+        }
+        # keep any lines after the sharding lines, the shards share the spill directory
+        last = NR > 32 ? NR : 32
+        for (i = 1; i <= last; i++) print line[i]
+    }' "$BASE_CONFIG" > "$2"
+    chmod 600 "$2"
+}
+
+if [ "$CMD" = "start" ]; then
+    if [ -f "$LOG_PATH/pids" ]; then
+        echo "The shards are already running."
+        echo "Exiting."
+        exit
+    fi
+
+    if [ ! -d "$LOG_PATH" ]; then
+        mkdir "$LOG_PATH"
+    fi
+
+    echo "Starting up $NUM_SHARDS CONIKS shards and their router."
+    echo "All logs are in $LOG_PATH."
+
+    for (( i=0; i<$NUM_SHARDS; i++ )); do
+        write_config $i "$LOG_PATH/shard-$i.conf"
+        nohup sh -c "exec $RUN_CONIKS $LOG_PATH/shard-$i.conf >> $LOG_PATH/console-shard-$i 2>&1" >>/dev/null &
+        # need to store the PIDs in a file so we can stop the servers later
+        echo $! >> $LOG_PATH/pids
+    done
+
+    # the router waits until it can reach all shards
+    write_config "" "$LOG_PATH/router.conf"
+    nohup sh -c "exec $RUN_CONIKS $LOG_PATH/router.conf >> $LOG_PATH/console-router 2>&1" >>/dev/null &
+    echo $! >> $LOG_PATH/pids
+
+elif [ "$CMD" = "stop" ]; then
+    if [ ! -f "$LOG_PATH/pids" ]; then
+        echo "The shards are not running."
+        echo "Exiting."
+        exit
+    fi
+
+    echo "Stopping the CONIKS shards and their router."
+
+    kill -9 `cat $LOG_PATH/pids` >/dev/null
+    rm -f $LOG_PATH/pids
+
+else
+    echo "Usage: $0 <start | stop>"
+fi
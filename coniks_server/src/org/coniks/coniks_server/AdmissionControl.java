@@ -0,0 +1,206 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+import org.coniks.coniks_common.MsgType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/** Implements admission control for a {@link ConiksServer}:
+ * bounds the number of open client connections, the number of 
+ * requests of each message type being handled concurrently,
+ * and how long a request may wait between being accepted and being
+ * handled. Requests that exceed any of these limits are shed
+ * so the server can answer immediately with an overload response
+ * instead of queueing unbounded work.
+ *<p>
+ * All limits may be adjusted while the server is running.
+ * A limit of -1 means unlimited.
+ */
+public class AdmissionControl {
+
+    // message types are sent as a single unsigned byte
+    private static final int NUM_MSG_TYPES = 256;
+
+    private static volatile int maxConnections = -1;
+    private static final AtomicInteger openConnections = new AtomicInteger(0);
+
+    private static final AtomicIntegerArray limits = initArray(-1);
+    private static final AtomicLongArray deadlines = new AtomicLongArray(NUM_MSG_TYPES);
+    private static final AtomicIntegerArray inFlight = new AtomicIntegerArray(NUM_MSG_TYPES);
+    private static final AtomicLongArray shed = new AtomicLongArray(NUM_MSG_TYPES);
+
+    private static AtomicIntegerArray initArray(int val) {
+        AtomicIntegerArray arr = new AtomicIntegerArray(NUM_MSG_TYPES);
+        for (int i = 0; i < NUM_MSG_TYPES; i++) {
+            arr.set(i, val);
+        }
+        return arr;
+    }
+
+    /** Initialize the admission control limits with the
+     * server configuration {@code config}.
+     */
+    public static void initAdmissionControl(ServerConfig config) {
+        setMaxConnections(config.MAX_CONNECTIONS);
+        for (int i = 0; i < NUM_MSG_TYPES; i++) {
+            setQueueDeadline(i, config.MAX_QUEUE_TIME);
+        }
+        setConcurrencyLimit(MsgType.REGISTRATION, 
+                            config.MAX_CONCURRENT_REGISTRATIONS);
+        setConcurrencyLimit(MsgType.BULK_REGISTRATION, 
+                            config.MAX_CONCURRENT_REGISTRATIONS);
+        setConcurrencyLimit(MsgType.KEY_LOOKUP, 
+                            config.MAX_CONCURRENT_LOOKUPS);
+        setConcurrencyLimit(MsgType.KEY_LOOKUP_BATCH, 
+                            config.MAX_CONCURRENT_LOOKUPS);
+        setConcurrencyLimit(MsgType.COMMITMENT_REQ, 
+                            config.MAX_CONCURRENT_COMMITMENT_REQS);
+        setConcurrencyLimit(MsgType.EPOCH_DIFF_REQ, 
+                            config.MAX_CONCURRENT_COMMITMENT_REQS);
+        setConcurrencyLimit(MsgType.LEAF_RANGE_REQ, 
+                            config.MAX_CONCURRENT_COMMITMENT_REQS);
+        setConcurrencyLimit(MsgType.EPOCH_DELTA_REQ, 
+                            config.MAX_CONCURRENT_COMMITMENT_REQS);
+    }
+
+    /** Sets the maximum number of client connections the server
+     * handles at once to {@code max} (-1 for unlimited).
+     */
+    public static void setMaxConnections(int max) {
+        maxConnections = max;
+    }
+
+    /** Sets the maximum number of requests of type {@code msgType}
+     * handled concurrently to {@code limit} (-1 for unlimited).
+     * Requests already being handled are not affected.
+     */
+    public static void setConcurrencyLimit(int msgType, int limit) {
+        limits.set(msgType, limit);
+    }
+
+    /** Sets the maximum time in milliseconds a request of type 
+     * {@code msgType} may wait before it is handled to {@code ms}
+     * (0 or less for no deadline).
+     */
+    public static void setQueueDeadline(int msgType, long ms) {
+        deadlines.set(msgType, ms);
+    }
+
+    /** Tries to admit a new client connection.
+     * A caller that is admitted must call {@link #releaseConnection()}
+     * once the connection is closed.
+     *
+     *@return {@code true} if the connection is admitted, {@code false}
+     * if the server already has the maximum number of open connections.
+     */
+    public static boolean admitConnection() {
+        while (true) {
+            int cur = openConnections.get();
+            int max = maxConnections;
+            if (max >= 0 && cur >= max) {
+                return false;
+            }
+            if (openConnections.compareAndSet(cur, cur+1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Releases a connection previously admitted by {@link #admitConnection()}.
+     */
+    public static void releaseConnection() {
+        openConnections.decrementAndGet();
+    }
+
+    /** Tries to admit a request of type {@code msgType} which waited
+     * {@code waited} milliseconds in the workers' queue between its 
+     * connection being accepted and a worker starting to handle it. The time the client takes to
+     * send the request isn't part of the wait, it's bounded by the 
+     * connection's read timeout instead.
+     * A request that is admitted must be released via {@link #release(int)}
+     * once it has been handled.
+     *
+     *@return {@code true} if the request is admitted, {@code false}
+     * if it has missed its queue deadline or if the concurrency limit
+     * for its message type has been reached.
+     */
+    public static boolean admit(int msgType, long waited) {
+        long deadline = deadlines.get(msgType);
+        if (deadline > 0 && waited > deadline) {
+            shed.incrementAndGet(msgType);
+            return false;
+        }
+
+        while (true) {
+            int cur = inFlight.get(msgType);
+            int limit = limits.get(msgType);
+            if (limit >= 0 && cur >= limit) {
+                shed.incrementAndGet(msgType);
+                return false;
+            }
+            if (inFlight.compareAndSet(msgType, cur, cur+1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Releases a request of type {@code msgType} previously admitted 
+     * by {@link #admit(int, long)}.
+     */
+    public static void release(int msgType) {
+        inFlight.decrementAndGet(msgType);
+    }
+
+    /** Gets the number of requests of type {@code msgType} currently 
+     * being handled.
+     *
+     *@return The number of in-flight requests.
+     */
+    public static int getInFlight(int msgType) {
+        return inFlight.get(msgType);
+    }
+
+    /** Gets the number of requests of type {@code msgType} that have been
+     * shed since the server started.
+     *
+     *@return The number of shed requests.
+     */
+    public static long getShedCount(int msgType) {
+        return shed.get(msgType);
+    }
+
+}
@@ -0,0 +1,310 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/** Implements an append-only log file of checksummed records
+ * with group-committed fsyncs.
+ * Each record is written as a frame of the form
+ * {@code [length][CRC32 of payload][payload]}.
+ * When the log is opened, any torn or corrupted frames at the
+ * end of the file (e.g. after a crash) are discarded.
+ */
+public class AppendLog {
+
+    /** The size in bytes of each frame's header
+     */
+    public static final int FRAME_HEADER_BYTES = 8;
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+
+    // the end of the last complete frame
+    private long size;
+
+    // the end of the last frame known to be on disk
+    private long durableSize;
+
+    // whether some thread is currently syncing the log to disk
+    private boolean syncing;
+
+    /** Opens the log at {@code path}, creating it if needed, and
+     * truncates it after the last valid frame.
+     *
+     *@throws An {@code IOException} if the log cannot be opened.
+     */
+    public AppendLog(String path) throws IOException {
+        this.file = new RandomAccessFile(new File(path), "rw");
+        this.channel = file.getChannel();
+        this.size = 0;
+
+        // find the end of the valid frames
+        long len = channel.size();
+        while (true) {
+            int payloadLen = validFrameLength(size, len);
+            if (payloadLen < 0) {
+                break;
+            }
+            size += FRAME_HEADER_BYTES + payloadLen;
+        }
+
+        if (size < len) {
+            channel.truncate(size);
+            channel.force(false);
+        }
+        this.durableSize = size;
+        this.syncing = false;
+    }
+
+    // returns the payload length of the valid frame at offset, or -1 if there is none
+    private int validFrameLength(long offset, long len) throws IOException {
+        if (offset + FRAME_HEADER_BYTES > len) {
+            return -1;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        readFully(header, offset);
+        int payloadLen = header.getInt(0);
+        int checksum = header.getInt(4);
+        
+        if (payloadLen < 0 || offset + FRAME_HEADER_BYTES + payloadLen > len) {
+            return -1;
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(payloadLen);
+        readFully(payload, offset + FRAME_HEADER_BYTES);
+        if (checksum(payload.array(), 0, payloadLen) != checksum) {
+            return -1;
+        }
+        return payloadLen;
+    }
+
+    private void readFully(ByteBuffer buf, long offset) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, offset + buf.position()) < 0) {
+                throw new IOException("unexpected end of log");
+            }
+        }
+    }
+
+    /** Computes the checksum stored in the frame header for
+     * the {@code len} bytes in {@code buf} starting at {@code off}.
+     *
+     *@return The CRC32 checksum as an {@code int}.
+     */
+    public static int checksum(byte[] buf, int off, int len) {
+        CRC32 crc = new CRC32();
+        crc.update(buf, off, len);
+        return (int)crc.getValue();
+    }
+
+    /** Appends a frame with the given {@code payload} to the log.
+     * The frame is not guaranteed to be on disk until {@link AppendLog#sync()}
+     * returns.
+     *
+     *@return The offset of the new frame in the log.
+     *@throws An {@code IOException} if the frame cannot be written.
+     */
+    public synchronized long append(byte[] payload) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.length);
+        frame.putInt(payload.length);
+        frame.putInt(checksum(payload, 0, payload.length));
+        frame.put(payload);
+        frame.flip();
+
+        long offset = size;
+        while (frame.hasRemaining()) {
+            channel.write(frame, offset + frame.position());
+        }
+        size += frame.limit();
+        return offset;
+    }
+
+    /** Makes sure that all frames appended so far are on disk.
+     * Concurrent callers are group-committed: a single fsync covers
+     * all frames appended before it started, so callers that arrive
+     * while another fsync is in progress wait for it, and at most one
+     * more fsync is done for all of them.
+     *
+     *@throws An {@code IOException} if the log cannot be synced.
+     */
+    public void sync() throws IOException {
+        long target;
+        synchronized (this) {
+            target = size;
+            while (durableSize < target && syncing) {
+                try {
+                    wait();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted while syncing the log");
+                }
+            }
+            if (durableSize >= target) {
+                return;
+            }
+            syncing = true;
+            // this sync also covers everyone who appended until now
+            target = size;
+        }
+
+        boolean synced = false;
+        try {
+            channel.force(false);
+            synced = true;
+        }
+        finally {
+            synchronized (this) {
+                if (synced && target > durableSize) {
+                    durableSize = target;
+                }
+                syncing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /** Appends a frame with the given {@code payload} to the log
+     * and waits until it is on disk.
+     *
+     *@return The offset of the new frame in the log.
+     *@throws An {@code IOException} if the frame cannot be written.
+     */
+    public long appendAndSync(byte[] payload) throws IOException {
+        long offset = append(payload);
+        sync();
+        return offset;
+    }
+
+    /** Reads the payload of the frame at {@code offset}, which may be
+     * anywhere in the log, and checks it against the frame's checksum.
+     *
+     *@return The payload.
+     *@throws An {@code IOException} if there is no complete frame at
+     * {@code offset}, or if the frame is corrupted.
+     */
+    public byte[] read(long offset) throws IOException {
+        long end = size();
+        if (offset < 0 || offset + FRAME_HEADER_BYTES > end) {
+            throw new IOException("no frame at offset "+offset);
+        }
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        readFully(header, offset);
+        int payloadLen = header.getInt(0);
+        if (payloadLen < 0 || offset + FRAME_HEADER_BYTES + payloadLen > end) {
+            throw new IOException("no frame at offset "+offset);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadLen);
+        readFully(payload, offset + FRAME_HEADER_BYTES);
+        if (checksum(payload.array(), 0, payloadLen) != header.getInt(4)) {
+            throw new IOException("corrupted frame at offset "+offset);
+        }
+        return payload.array();
+    }
+
+    /** Reads the payloads of all frames starting at {@code offset}.
+     *
+     *@return The list of payloads in log order.
+     *@throws An {@code IOException} if the log cannot be read.
+     */
+    public synchronized ArrayList<byte[]> readFrom(long offset) throws IOException {
+        ArrayList<byte[]> payloads = new ArrayList<byte[]>();
+        
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        while (offset < size) {
+            header.clear();
+            readFully(header, offset);
+            ByteBuffer payload = ByteBuffer.allocate(header.getInt(0));
+            readFully(payload, offset + FRAME_HEADER_BYTES);
+            payloads.add(payload.array());
+            offset += FRAME_HEADER_BYTES + payload.capacity();
+        }
+        return payloads;
+    }
+
+    /** Maps all complete frames of the log into memory, read-only.
+     *
+     *@return The mapped log.
+     *@throws An {@code IOException} if the log cannot be mapped.
+     */
+    public synchronized MappedByteBuffer map() throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    /** Discards all frames in the log.
+     *
+     *@throws An {@code IOException} if the log cannot be truncated.
+     */
+    public synchronized void truncate() throws IOException {
+        // don't let an ongoing sync mark the old frames as durable
+        while (syncing) {
+            try {
+                wait();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while truncating the log");
+            }
+        }
+        channel.truncate(0);
+        channel.force(false);
+        size = 0;
+        durableSize = 0;
+    }
+
+    /** Gets the size of the log.
+     *
+     *@return The size of all complete frames in bytes.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /** Closes the log file.
+     */
+    public synchronized void close() throws IOException {
+        channel.close();
+        file.close();
+    }
+
+}
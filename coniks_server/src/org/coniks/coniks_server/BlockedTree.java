@@ -0,0 +1,295 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.coniks.coniks_server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/** Stores a published CONIKS Merkle prefix tree in a cache-friendly
+ * layout: the tree is cut into blocks of {@link BlockedTree#BLOCK_LEVELS}
+ * levels, and each block's nodes and subtree hashes are packed into
+ * contiguous arrays instead of one object per node. A lookup or an
+ * authentication path then touches one block per few levels, instead of
+ * chasing one pointer (and usually missing the cache) per bit of the
+ * lookup index. The blocks are laid out in depth-first order, so a 
+ * block's child blocks tend to follow it in memory.
+ *<p>
+ * A block has a header of bitmaps over the positions of its subtree, 
+ * numbered as in a binary heap (the block's root is 1, the children of
+ * {@code p} are {@code 2p} and {@code 2p+1}): the interior nodes in the
+ * block, the positions whose hash is stored, and the positions that refer
+ * to a leaf or to a child block. The hashes and references of a block 
+ * are stored in order of their positions, so the offset of a position is
+ * the number of set bits below it in the bitmap.
+ *<p>
+ * The layout is immutable, it's built from a fully hashed tree. All 
+ * hashes are kept in a single array, which limits a tree to about
+ * 60 million nodes.
+ */
+public class BlockedTree {
+
+    /** The number of levels of interior nodes packed into a block.
+     */
+    public static final int BLOCK_LEVELS = 4;
+
+    // the positions of a block's interior nodes are below BLOCK_SLOTS,
+    // its exits to leaves and child blocks are below 2*BLOCK_SLOTS
+    private static final int BLOCK_SLOTS = 1 << BLOCK_LEVELS;
+
+    // the header fields of a block
+    private static final int INTERIOR = 0;
+    private static final int HASHED = 1;
+    private static final int REFS = 2;
+    private static final int HASH_BASE = 3;
+    private static final int REF_BASE = 4;
+    private static final int HEADER_INTS = 5;
+
+    private int[] headers;
+    private int blockCount;
+
+    // the hashes of all blocks, HASH_SIZE_BYTES per hash
+    private byte[] hashes;
+    private int hashCount;
+
+    // a child block's number, or -(i+1) for the i-th leaf
+    private int[] refs;
+    private int refCount;
+    private UserLeafNode[] leaves;
+    private int leafCount;
+
+    private long epoch;
+    private byte[] prev;
+
+    private BlockedTree(long epoch, byte[] prev) {
+        this.headers = new int[HEADER_INTS*64];
+        this.hashes = new byte[ServerUtils.HASH_SIZE_BYTES*256];
+        this.refs = new int[256];
+        this.leaves = new UserLeafNode[256];
+        this.epoch = epoch;
+        this.prev = prev;
+    }
+
+    /** Packs the hashed tree rooted at {@code root} into blocks.
+     * The leaves are shared with the tree.
+     *
+     *@return The {@link BlockedTree}.
+     */
+    public static BlockedTree build(RootNode root) {
+        BlockedTree tree = new BlockedTree(root.getEpoch(), root.getPrev());
+        tree.addBlock(root);
+        tree.headers = Arrays.copyOf(tree.headers, tree.blockCount*HEADER_INTS);
+        tree.hashes = Arrays.copyOf(tree.hashes, tree.hashCount*ServerUtils.HASH_SIZE_BYTES);
+        tree.refs = Arrays.copyOf(tree.refs, tree.refCount);
+        tree.leaves = Arrays.copyOf(tree.leaves, tree.leafCount);
+        return tree;
+    }
+
+    /** Gets the epoch of the tree.
+     *
+     *@return The epoch as a {@code long}.
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /** Gets the previous epoch's root hash stored in the tree's root.
+     *
+     *@return The hash as a {@code byte[]}.
+     */
+    public byte[] getPrev() {
+        return prev;
+    }
+
+    /** Gets the number of blocks of the tree.
+     *
+     *@return The number of blocks.
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /** Gets the size of the tree's headers, hashes and references,
+     * not counting the leaves.
+     *
+     *@return The size in bytes.
+     */
+    public long getSizeBytes() {
+        return 4L*headers.length+hashes.length+4L*refs.length;
+    }
+
+    /** Finds the user leaf node with the lookup index {@code index}.
+     *
+     *@return The {@link UserLeafNode} or {@code null} if {@code index}
+     * is not in the tree.
+     */
+    public UserLeafNode lookup(byte[] index) {
+        return descend(index, null);
+    }
+
+    /** Gets the hashes of the subtrees pruned from the path of the lookup
+     * index {@code index}, from the root down to the leaf or empty subtree
+     * that {@code index} leads to. The pruned subtree at depth {@code d}
+     * is the sibling of the subtree that the {@code d}-th bit of
+     * {@code index} selects.
+     *
+     *@return The list of pruned subtree hashes, in which the first 
+     * hash is the root's pruned child.
+     */
+    public ArrayList<byte[]> getPrunedHashes(byte[] index) {
+        ArrayList<byte[]> pruned = new ArrayList<byte[]>();
+        descend(index, pruned);
+        return pruned;
+    }
+
+    // follows the path of index down to a leaf or an empty subtree,
+    // adding the hashes of the pruned siblings to pruned if it isn't null
+    private UserLeafNode descend(byte[] index, ArrayList<byte[]> pruned) {
+        int block = 0;
+        int depth = 0;
+        while (true) {
+            int h = block*HEADER_INTS;
+            int interior = headers[h+INTERIOR];
+            int p = 1;
+            do {
+                p = 2*p+(ServerUtils.getNthBit(index, depth) ? 1 : 0);
+                depth++;
+                if (pruned != null) {
+                    int sibling = headers[h+HASH_BASE]+rank(headers[h+HASHED], p^1);
+                    pruned.add(Arrays.copyOfRange(hashes, sibling*ServerUtils.HASH_SIZE_BYTES,
+                                                  (sibling+1)*ServerUtils.HASH_SIZE_BYTES));
+                }
+            } while (p < BLOCK_SLOTS && (interior & (1 << p)) != 0);
+
+            int refMask = headers[h+REFS];
+            if ((refMask & (1 << p)) == 0) {
+                return null;
+            }
+            int ref = refs[headers[h+REF_BASE]+rank(refMask, p)];
+            if (ref >= 0) {
+                block = ref;
+                continue;
+            }
+            UserLeafNode uln = leaves[-ref-1];
+            return Arrays.equals(uln.getIndex(), index) ? uln : null;
+        }
+    }
+
+    // packs the subtree of the interior node n into a new block and its
+    // child blocks, returns the new block's number
+    private int addBlock(InteriorNode n) {
+        int block = blockCount++;
+        if (blockCount*HEADER_INTS > headers.length) {
+            headers = Arrays.copyOf(headers, 2*headers.length);
+        }
+
+        TreeNode[] nodes = new TreeNode[2*BLOCK_SLOTS];
+        byte[][] nodeHashes = new byte[2*BLOCK_SLOTS][];
+        int interior = 0;
+        int hashed = 0;
+        int refMask = 0;
+        nodes[1] = n;
+        for (int p = 1; p < 2*BLOCK_SLOTS; p++) {
+            TreeNode t = nodes[p];
+            if (t instanceof InteriorNode && p < BLOCK_SLOTS) {
+                InteriorNode in = (InteriorNode) t;
+                interior |= 1 << p;
+                hashed |= 3 << 2*p;
+                nodes[2*p] = in.getLeft();
+                nodes[2*p+1] = in.getRight();
+                nodeHashes[2*p] = in.getLeftHash();
+                nodeHashes[2*p+1] = in.getRightHash();
+            }
+            else if (t != null && p > 1) {
+                refMask |= 1 << p;
+            }
+        }
+
+        int h = block*HEADER_INTS;
+        headers[h+INTERIOR] = interior;
+        headers[h+HASHED] = hashed;
+        headers[h+REFS] = refMask;
+        headers[h+HASH_BASE] = hashCount;
+        headers[h+REF_BASE] = refCount;
+
+        for (int p = 2; p < 2*BLOCK_SLOTS; p++) {
+            if ((hashed & (1 << p)) != 0) {
+                addHash(nodeHashes[p]);
+            }
+        }
+
+        // reserve the block's references before adding its child blocks
+        int ref = refCount;
+        refCount += Integer.bitCount(refMask);
+        if (refCount > refs.length) {
+            refs = Arrays.copyOf(refs, Math.max(2*refs.length, refCount));
+        }
+        for (int p = 2; p < 2*BLOCK_SLOTS; p++) {
+            if ((refMask & (1 << p)) == 0) {
+                continue;
+            }
+            if (nodes[p] instanceof UserLeafNode) {
+                refs[ref++] = -addLeaf((UserLeafNode)nodes[p])-1;
+            }
+            else {
+                int child = addBlock((InteriorNode)nodes[p]);
+                refs[ref++] = child;
+            }
+        }
+        return block;
+    }
+
+    private void addHash(byte[] hash) {
+        int off = hashCount*ServerUtils.HASH_SIZE_BYTES;
+        if (off+ServerUtils.HASH_SIZE_BYTES > hashes.length) {
+            hashes = Arrays.copyOf(hashes, 2*hashes.length);
+        }
+        System.arraycopy(hash, 0, hashes, off, ServerUtils.HASH_SIZE_BYTES);
+        hashCount++;
+    }
+
+    private int addLeaf(UserLeafNode uln) {
+        if (leafCount == leaves.length) {
+            leaves = Arrays.copyOf(leaves, 2*leafCount);
+        }
+        leaves[leafCount] = uln;
+        return leafCount++;
+    }
+
+    // the number of set bits in mask below bit p
+    private static int rank(int mask, int p) {
+        return Integer.bitCount(mask & ((1 << p)-1));
+    }
+
+}
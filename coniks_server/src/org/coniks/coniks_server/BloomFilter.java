@@ -0,0 +1,287 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.coniks.coniks_server;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Implements a Bloom filter over the lookup indices of the users
+ * registered in a CONIKS Merkle prefix tree, so that lookups of names
+ * that are not in the tree can skip the tree traversal. A filter never
+ * misses a registered index, but may match an index that isn't registered
+ * with a small false positive rate.
+ *<p>
+ * Since names are never removed from the tree, the filter of the latest
+ * epoch also covers all earlier epochs. The filter for the next epoch is a
+ * copy of the current one with the new indices added: only the last of 
+ * its slices is copied, and only if it isn't full, the full ones are shared.
+ * A built filter has a single full slice sized for the tree's indices. Once
+ * the last slice holds its capacity, a slice for twice as many indices as
+ * were added since the filter was built, and with more bits per index, is
+ * added. So the slice copied for each epoch is sized by the actual growth
+ * rather than by the tree, and the false positive rate stays bounded as 
+ * the tree grows without having to rebuild the filter from the tree.
+ *<p>
+ * Lookup indices are SHA-256 hashes, so the bit positions are derived 
+ * from the index itself rather than by hashing it again.
+ */
+public class BloomFilter {
+
+    // the smallest number of indices a slice is sized for
+    private static final long MIN_CAPACITY = 1024;
+
+    // each added slice uses this many more bits per index, so the
+    // false positive rates of the slices add up to a bounded rate
+    private static final int SLICE_EXTRA_BITS = 2;
+
+    // a bit array sized for capacity indices
+    private static class Slice {
+        long[] bits;
+        long numBits;
+        int numHashes;
+        long capacity;
+        long count;
+
+        Slice(long capacity, int bitsPerIndex) {
+            this.capacity = capacity;
+            this.numBits = ((capacity*bitsPerIndex+63)/64)*64;
+            this.bits = new long[(int)(this.numBits/64)];
+            // the optimal number of hashes is ln 2 per bit and index
+            this.numHashes = Math.max(1, (int)Math.round(bitsPerIndex*Math.log(2)));
+            this.count = 0;
+        }
+
+        Slice(Slice other) {
+            this.bits = other.bits.clone();
+            this.numBits = other.numBits;
+            this.numHashes = other.numHashes;
+            this.capacity = other.capacity;
+            this.count = other.count;
+        }
+    }
+
+    private int bitsPerIndex;
+    private ArrayList<Slice> slices;
+
+    // the epoch whose tree's indices are in this filter, -1 if unknown
+    private long epoch;
+
+    // the checks done with this filter, i.e. during its epoch
+    private AtomicLong checks = new AtomicLong();
+    private AtomicLong misses = new AtomicLong();
+    private AtomicLong falsePositives = new AtomicLong();
+
+    /** Constructs an empty filter for {@code capacity} lookup indices
+     * using {@code bitsPerIndex} bits per index.
+     */
+    public BloomFilter(long capacity, int bitsPerIndex) {
+        this.bitsPerIndex = bitsPerIndex;
+        this.slices = new ArrayList<Slice>();
+        this.slices.add(new Slice(Math.max(capacity, MIN_CAPACITY), bitsPerIndex));
+        this.epoch = -1;
+    }
+
+    // copies the other filter for epoch ep, sharing all full slices,
+    // which are never added to again
+    private BloomFilter(BloomFilter other, long ep) {
+        this.bitsPerIndex = other.bitsPerIndex;
+        this.slices = new ArrayList<Slice>(other.slices);
+        int last = this.slices.size()-1;
+        Slice s = this.slices.get(last);
+        if (s.count < s.capacity) {
+            this.slices.set(last, new Slice(s));
+        }
+        this.epoch = ep;
+    }
+
+    /** Builds a filter of all lookup indices registered in the tree rooted
+     * at {@code root}, with {@code bitsPerIndex} bits per index. The
+     * filter grows by adding a slice for the next new indices.
+     * Any paged out subtrees are paged in.
+     *
+     *@return The {@link BloomFilter}.
+     */
+    public static BloomFilter build(RootNode root, int bitsPerIndex) {
+        ArrayList<byte[]> indices = new ArrayList<byte[]>();
+        LeafIterator leaves = new LeafIterator(root);
+        while (leaves.hasNext()) {
+            indices.add(leaves.next().getIndex());
+        }
+
+        BloomFilter filter = new BloomFilter(indices.size(), bitsPerIndex);
+        for (byte[] index : indices) {
+            filter.add(index);
+        }
+        filter.epoch = root.getEpoch();
+        return filter;
+    }
+
+    /** Copies this filter to add the indices of epoch {@code ep} to it.
+     * The copy's checks are counted separately.
+     *
+     *@return The copy of the {@link BloomFilter}.
+     */
+    public BloomFilter copy(long ep) {
+        return new BloomFilter(this, ep);
+    }
+
+    /** Gets the epoch whose tree's lookup indices are in this filter.
+     *
+     *@return The epoch, or -1 if the filter wasn't built from a tree.
+     */
+    public long getEpoch() {
+        return epoch;
+    }
+
+    // the first and second hash of the index, from its first 16 bytes
+    private static long getHash(byte[] index, int offset) {
+        long h = 0;
+        for (int i = offset; i < offset+8; i++) {
+            h = (h << 8) | (index[i] & 0xff);
+        }
+        return h;
+    }
+
+    // gets the position of the i-th bit of the index in slice s
+    private static long getBit(Slice s, long h1, long h2, int i) {
+        return ((h1 + i*h2) & Long.MAX_VALUE) % s.numBits;
+    }
+
+    /** Adds the lookup index {@code index} to this filter. 
+     * This must not be called once the filter is used for checks.
+     */
+    public void add(byte[] index) {
+        Slice last = slices.get(slices.size()-1);
+        if (last.count >= last.capacity) {
+            long added = getCount()-slices.get(0).count;
+            last = new Slice(Math.max(2*added, MIN_CAPACITY),
+                             bitsPerIndex+SLICE_EXTRA_BITS*slices.size());
+            slices.add(last);
+        }
+
+        long h1 = getHash(index, 0);
+        long h2 = getHash(index, 8);
+        for (int i = 0; i < last.numHashes; i++) {
+            long bit = getBit(last, h1, h2, i);
+            last.bits[(int)(bit >>> 6)] |= 1L << (bit & 63);
+        }
+        last.count++;
+    }
+
+    /** Checks whether the lookup index {@code index} may be in this filter.
+     *
+     *@return {@code false} if the index is definitely not registered, 
+     * {@code true} if it may be.
+     */
+    public boolean mightContain(byte[] index) {
+        checks.incrementAndGet();
+        long h1 = getHash(index, 0);
+        long h2 = getHash(index, 8);
+        for (Slice s : slices) {
+            boolean found = true;
+            for (int i = 0; i < s.numHashes && found; i++) {
+                long bit = getBit(s, h1, h2, i);
+                found = (s.bits[(int)(bit >>> 6)] & (1L << (bit & 63))) != 0;
+            }
+            if (found) {
+                return true;
+            }
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /** Records that a lookup index that may have been in this filter
+     * was not found in the tree of the filter's epoch.
+     */
+    public void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    /** Gets the number of lookup indices in this filter.
+     *
+     *@return The number of indices as a {@code long}.
+     */
+    public long getCount() {
+        long count = 0;
+        for (Slice s : slices) {
+            count += s.count;
+        }
+        return count;
+    }
+
+    /** Gets the size of this filter's bit arrays.
+     *
+     *@return The size in bytes.
+     */
+    public long getSizeBytes() {
+        long bytes = 0;
+        for (Slice s : slices) {
+            bytes += s.numBits/8;
+        }
+        return bytes;
+    }
+
+    /** Gets the expected false positive rate of this filter, i.e. the
+     * probability that an index that isn't registered matches any slice.
+     *
+     *@return The false positive rate as a {@code double}.
+     */
+    public double getFalsePositiveRate() {
+        double none = 1.0;
+        for (Slice s : slices) {
+            double fill = 1.0 - Math.exp(-(double)s.numHashes*s.count/s.numBits);
+            none *= 1.0 - Math.pow(fill, s.numHashes);
+        }
+        return 1.0 - none;
+    }
+
+    /** Describes the filter's size, its expected and measured false
+     * positive rates, and how many tree traversals it saved out of all checks.
+     *
+     *@return The summary as a {@code String}.
+     */
+    public String toString() {
+        long c = checks.get();
+        long m = misses.get();
+        long fp = falsePositives.get();
+        return getCount()+" indices in "+slices.size()+" slices, "+getSizeBytes()+" bytes, "+
+            String.format("%.4f", getFalsePositiveRate())+" expected false positive rate; "+
+            m+" of "+c+" checks skipped the tree, "+
+            String.format("%.4f", fp+m > 0 ? (double)fp/(fp+m) : 0.0)+
+            " measured false positive rate";
+    }
+
+}
@@ -39,16 +39,29 @@ import org.coniks.coniks_common.C2SProtos.CommitmentReq;
 import org.coniks.coniks_common.C2SProtos.KeyLookup;
 import org.coniks.coniks_common.C2SProtos.RegistrationResp;
 import org.coniks.coniks_common.C2SProtos.AuthPath;
+import org.coniks.coniks_common.C2SProtos.KeyLookupBatch;
+import org.coniks.coniks_common.C2SProtos.MultiAuthPath;
+import org.coniks.coniks_common.C2SProtos.BulkRegistration;
+import org.coniks.coniks_common.C2SProtos.BulkRegistrationResp;
+import org.coniks.coniks_common.C2SProtos.EpochDiffReq;
+import org.coniks.coniks_common.C2SProtos.LeafRangeReq;
+import org.coniks.coniks_common.C2SProtos.EpochDiff;
 import org.coniks.coniks_common.UtilProtos.Hash;
 import org.coniks.coniks_common.UtilProtos.Commitment;
 import org.coniks.coniks_common.UtilProtos.ServerResp;
+import org.coniks.coniks_common.UtilProtos.EpochDeltaReq;
+import org.coniks.coniks_common.UtilProtos.EpochDelta;
+import org.coniks.coniks_common.UtilProtos.ShardRootReq;
+import org.coniks.coniks_common.UtilProtos.ShardRoot;
 
 import java.io.*;
 import java.net.*;
 import javax.net.ssl.*;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.PriorityQueue;
+import java.util.TreeMap;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.Date;
@@ -58,6 +71,11 @@ import java.io.FileInputStream;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.javatuples.*;
 import com.google.protobuf.*;
@@ -81,7 +99,7 @@ public class ConiksServer{
     // This is where the server operator must decide how to configure the server
     private static ServerConfig CONFIG = new ServerConfig();
     private static long curEpoch = CONFIG.STARTUP_TIME;
-    private static ServerUtils.Record curRecord = null; //points to the head of the history list (newest record first)
+    private static EpochHistory history = null; // the STR history, indexed by epoch
     private static int providerID; // meant to be SP ID to identify different SP's quickly
     private static Timer epochTimer = new Timer("epoch timer", false); // may wish to run as daemon later
 
@@ -89,8 +107,67 @@ public class ConiksServer{
     
     private static int epochCounter = 0; 
 
-    // keeps all the new users on a day-by-day basis
-    private static PriorityQueue<Pair<byte[],UserLeafNode>> pendingQueue;   
+    // the next epoch's tree, into which new users are inserted as they register
+    private static UserTreeBuilder stagingTree = null;
+
+    // the names in the staging tree, so we can quickly check for duplicates
+    private static HashSet<String> pendingNames = new HashSet<String>();
+
+    // the write-ahead log of the pending registrations, if any
+    private static RegistrationWAL regWal = null;
+
+    // the checkpoints of the published trees, if any
+    private static TreeCheckpoints checkpoints = null;
+
+    // the on-disk store for the published trees, if any
+    private static NodeStore nodeStore = null;
+
+    // the deltas published for followers, if this server is a leader
+    private static ReplicationLog replicationLog = null;
+
+    // the connection to the leader, if this server is a read-only follower
+    private static ReplicaFollower follower = null;
+
+    // the diffs of the published epochs, only kept by leaders
+    private static EpochDiffLog diffLog = null;
+
+    // the router of a sharded directory, only set if this server is the router
+    private static ShardRouter router = null;
+
+    // the filter of the lookup indices in the latest epoch, if any; it's 
+    // replaced before each new epoch is published, so it covers all 
+    // published epochs. Only leaders keep one.
+    private static volatile BloomFilter lookupFilter = null;
+
+    // how often the paths to new registrations in the staging tree are hashed, in ms
+    private static final long STAGING_HASH_INTERVAL = 1000;
+
+    // how often a follower polls its leader for new epochs, in ms
+    private static final long REPLICA_SYNC_INTERVAL = 1000;
+
+    // how long a read from a client may block, in ms; this also
+    // bounds the TLS handshake, which happens on the first read
+    private static final int CLIENT_READ_TIMEOUT = 10000;
+
+    // how long a shed connection may block its overload response, in ms
+    private static final int SHED_TIMEOUT = 1000;
+
+    // answers the connections shed by admission control, so the accept
+    // loop doesn't wait for their handshakes; a connection that doesn't
+    // fit in its queue is closed without a response
+    private static final int SHED_THREADS = 2;
+    private static final int MAX_PENDING_SHEDS = 256;
+    private static ThreadPoolExecutor shedder = null;
+
+    // handles the admitted connections; connections wait in its queue
+    // while all workers are busy, which is the wait bounded by the
+    // admission control's queue deadlines
+    private static final int WORKER_THREADS = 64;
+    private static ThreadPoolExecutor workers = null;
+
+    // the latencies of the key lookups in retained and in cold epochs
+    private static LatencyStats retainedLookups = new LatencyStats();
+    private static LatencyStats coldLookups = new LatencyStats();
 
     // logs are useful
     private static MsgHandlerLogger msgLog = null;
@@ -98,18 +175,193 @@ public class ConiksServer{
     private static ServerLogger serverLog = null;
       
     /** Adds a new name-to-key binding ({@code uname}, {@code pk})
-     * to the pending registrations queue.
+     * to the pending registrations, i.e. inserts it into the next 
+     * epoch's staging tree.
+     *
+     * If the server has a registration WAL, the binding is appended to it,
+     * but callers must {@link ConiksServer#syncRegistrations()} before
+     * acknowledging the registration.
+     *<p>
+     * The binding's leaf is hashed before the pending registrations are
+     * locked, so concurrent registrations are hashed in parallel and
+     * publishing the epoch only hashes the interior nodes.
+     *
+     *@return {@code true} if the binding was added, {@code false} if
+     * {@code uname} is already pending registration.
+     *@throws An {@code IOException} if the binding cannot be logged, in which
+     * case it isn't added.
      */
-    public static synchronized void register(String uname, String pk){            
+    public static boolean register(String uname, String pk)
+        throws IOException {
+        return registerLeaf(newLeaf(uname, pk));
+    }
+
+    // adds the hashed leaf node uln to the pending registrations
+    private static synchronized boolean registerLeaf(UserLeafNode uln)
+        throws IOException {
+        uln = addPending(uln);
+        if (uln == null) {
+            return false;
+        }
+        stagingTree.stageNode(uln.getIndex(), uln);
+        return true;
+    }
+
+    // creates the leaf node of the binding (uname, pk) for the next epoch,
+    // and hashes it
+    private static UserLeafNode newLeaf(String uname, String pk) {
         byte[] index = ServerUtils.unameToIndex(uname);
-        UserLeafNode uln = new UserLeafNode(uname, pk, 
-                                            curEpoch+CONFIG.EPOCH_INTERVAL, 0, index);
-        pendingQueue.add(Pair.with(index, uln));
+        UserLeafNode uln = new UserLeafNode(uname, pk, curEpoch+CONFIG.EPOCH_INTERVAL, 0, index);
+        uln.getHash();
+        return uln;
+    }
+
+    // logs the binding of the leaf node uln and returns the leaf node to add, 
+    // or null if its name is already pending registration
+    private static UserLeafNode addPending(UserLeafNode uln)
+        throws IOException {
+        String uname = uln.getUsername();
+        if (pendingNames.contains(uname)) {
+            return null;
+        }
+        if (regWal != null) {
+            regWal.append(uname, uln.getPublicKey());
+        }
+        pendingNames.add(uname);
+
+        // an epoch may have been published since the leaf was hashed
+        if (uln.getEpochAdded() != curEpoch+CONFIG.EPOCH_INTERVAL) {
+            uln = newLeaf(uname, uln.getPublicKey());
+        }
+        return uln;
+    }
+
+    // creates an empty batch of pending registrations, which spills to
+    // the configured directory if it gets too large; only worth it for
+    // batches that are generated one node at a time, like the dummy users
+    private static PendingBatch newPendingBatch(int capacity) {
+        File spillDir = null;
+        if (!CONFIG.PENDING_SPILL_PATH.isEmpty()) {
+            spillDir = new File(CONFIG.PENDING_SPILL_PATH);
+        }
+        return new PendingBatch(capacity, spillDir, CONFIG.MAX_PENDING_IN_MEMORY);
+    }
+
+    /** Checks whether the authenticated client {@code principal} is
+     * one of the certificate subjects in {@code allowed}, a
+     * semicolon-separated list such as {@link ServerConfig#FOLLOWERS}
+     * or {@link ServerConfig#PROVIDERS}.
+     *
+     *@return {@code true} if the client is allowed, {@code false} otherwise.
+     */
+    public static boolean isAllowedPeer(String principal, String allowed) {
+        for (String name : allowed.split(";")) {
+            if (!name.trim().isEmpty() && name.trim().equals(principal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Checks whether {@code uname} belongs to this server, i.e. the server 
+     * isn't a shard, or {@code uname}'s lookup index has the shard's prefix.
+     *
+     *@return {@code true} if this server owns {@code uname}, {@code false}
+     * otherwise.
+     */
+    public static boolean isInShard(String uname) {
+        return CONFIG.SHARD_BITS == 0 ||
+            ServerUtils.getShard(ServerUtils.unameToIndex(uname), 
+                                 CONFIG.SHARD_BITS) == CONFIG.SHARD_ID;
+    }
+
+    /** Adds all new name-to-key bindings in {@code entries}
+     * to the pending registrations in one pass, and inserts them into the
+     * staging tree in the order of their lookup indices. {@code null} entries
+     * are skipped, as are names that are already pending registration.
+     * Like {@link ConiksServer#register(String, String)}, the entries' leaves
+     * are hashed before the pending registrations are locked.
+     *<p>
+     * The entries are never spilled to the
+     * {@link ServerConfig#PENDING_SPILL_PATH}: they are already in memory,
+     * and all their leaves end up in the staging tree, so the heap used
+     * grows with the number of entries.
+     *
+     *@return For each entry, whether it was added.
+     *@throws An {@code IOException} if an entry cannot be logged, in which
+     * case the entries after it aren't added.
+     */
+    public static boolean[] registerAll(ArrayList<Pair<String,String>> entries)
+        throws IOException {
+        // hash the new leaves before locking the pending registrations
+        ArrayList<UserLeafNode> leaves = new ArrayList<UserLeafNode>(entries.size());
+        for (Pair<String,String> entry : entries) {
+            leaves.add(entry == null ? null : newLeaf(entry.getValue0(), entry.getValue1()));
+        }
+        return registerLeaves(leaves);
+    }
+
+    // adds all hashed leaf nodes in leaves to the pending registrations,
+    // skipping null leaves
+    private static synchronized boolean[] registerLeaves(ArrayList<UserLeafNode> leaves)
+        throws IOException {
+        boolean[] added = new boolean[leaves.size()];
+        PendingBatch batch = new PendingBatch(leaves.size());
+        try {
+            for (int i = 0; i < leaves.size(); i++) {
+                if (leaves.get(i) == null) {
+                    continue;
+                }
+                UserLeafNode uln = addPending(leaves.get(i));
+                if (uln != null) {
+                    batch.add(uln.getIndex(), uln);
+                    added[i] = true;
+                }
+            }
+        }
+        finally {
+            // the logged entries must be registered even if a later one failed
+            stagingTree.stageBatch(batch);
+            batch.clear();
+        }
+        return added;
+    }
+
+    /** Waits until all pending registrations are durably logged.
+     * This isn't synchronized so that concurrent registrations can share
+     * a single fsync of the registration WAL.
+     *
+     *@throws An {@code IOException} if the registration WAL cannot be synced.
+     */
+    public static void syncRegistrations() throws IOException {
+        if (regWal != null) {
+            regWal.sync();
+        }
     }
     
-    /** Updates the server's STR history: inserts any pending registrations 
-     * into the Merkle tree, takes a new snapshot of the whole directory,
-     * and adds a new link to the hash chain.
+    /** Starts the staging tree for the next epoch from the latest
+     * published tree, if any.
+     */
+    private static synchronized void stageNextEpoch(){
+        ServerUtils.Record r = history.getLatest();
+        stagingTree = ServerOps.startStagingTree(r == null ? null : r.getRoot(),
+                                                 curEpoch, CONFIG.EPOCH_INTERVAL);
+    }
+
+    /** Hashes the paths to the registrations inserted into the staging
+     * tree so far, so that fewer paths are left to hash when the next
+     * epoch is published.
+     */
+    private static synchronized void hashStagingTree(){
+        if (stagingTree != null) {
+            stagingTree.hashStagingTree();
+        }
+    }
+
+    /** Updates the server's STR history: hashes the paths to the registrations
+     * in the staging tree, takes a new snapshot of the whole directory,
+     * and adds a new link to the hash chain. The registrations were already
+     * inserted into the staging tree during the epoch.
      *
      *@return {@code true} if the update succeeded, {@code false} otherwise.
      */
@@ -118,10 +370,9 @@ public class ConiksServer{
         boolean isGoodExit = true; // the exit status
         RootNode newRoot = null;
 
-	int toAdd = pendingQueue.size();
-        // msm: these two cases can probably be condensed
-        if(curRecord != null){
-            ServerUtils.Record r = curRecord;
+	int toAdd = stagingTree.getStagedCount();
+        ServerUtils.Record r = history.getLatest();
+        if(r != null){
             curRoot = r.getRoot();
 
             // this is just for debugging
@@ -130,35 +381,75 @@ public class ConiksServer{
             timerLog.log("Root hash "+
                              ServerUtils.bytesToHex(ServerUtils.hash(rootBytes))
                            +"\n Prev: "+ServerUtils.bytesToHex(curRoot.getPrev()));
-            
-            newRoot = ServerOps.buildNextEpochTree(pendingQueue, curRoot,
-                                                   curEpoch, CONFIG.EPOCH_INTERVAL);
-	    
         }
-        else {
-            // we are in our first epoch
-            // we add epoch_interval since we publish an hour after the current epoch
-            newRoot = ServerOps.buildFirstEpochTree(pendingQueue, 
-                                                    ServerUtils.hash(new byte[10]), 
-                                                    curEpoch+CONFIG.EPOCH_INTERVAL);
+
+        // the staging tree only needs the paths to the new users hashed,
+        // so cutting over to the new epoch doesn't depend on the whole batch
+        long start = System.currentTimeMillis();
+        newRoot = ServerOps.buildNextEpochTree(stagingTree, curRoot);
+
+        // lookups of the new names must not be filtered out once
+        // the new epoch is published
+        BloomFilter prevFilter = lookupFilter;
+        if (newRoot != null && prevFilter != null) {
+            BloomFilter filter = prevFilter.copy(newRoot.getEpoch());
+            for (String name : pendingNames) {
+                filter.add(ServerUtils.unameToIndex(name));
+            }
+            lookupFilter = filter;
         }
 
-	// it's safe to clear the pending queue.
-	pendingQueue.clear();
+        // it's safe to clear the pending registrations.
+        stagingTree = null;
+        pendingNames.clear();
 
         if(newRoot != null){
             // now we can sign the new STR
             byte[] commSig = ServerOps.generateSTR(newRoot);
             
             if(commSig == null){
+                stageNextEpoch();
+                return false;
+            }
+
+            // add the new STR to the history, only publish the new epoch
+            // once its STR is logged
+            if (!addNewRecord(newRoot, commSig)) {
+                stageNextEpoch();
                 return false;
             }
+            timerLog.log("Cut over to epoch "+newRoot.getEpoch()+" with "+toAdd+
+                         " new users in "+(System.currentTimeMillis()-start)+" ms");
 
             // increment curEpoch for the new record
             curEpoch+=CONFIG.EPOCH_INTERVAL;
-            
-            // add the new STR to the linked list
-            addNewRecord(newRoot, commSig);
+
+            // the diff also needs the tree's dirty flags
+            recordDiff(newRoot, curRoot);
+
+            // checkpoint the new tree, so we don't have to rebuild it on restart
+            boolean isSnapshotted = checkpointTree(newRoot, 
+                                                   curRoot == null ? -1 : curRoot.getEpoch());
+
+            // the pending registrations are now part of a published epoch,
+            // but keep them in the WAL until they're also in a snapshot
+            if (regWal != null && isSnapshotted) {
+                try {
+                    regWal.truncate();
+                }
+                catch (IOException e) {
+                    timerLog.error("Could not truncate the registration WAL: "+e.getMessage());
+                }
+            }
+
+            // so do the followers' deltas
+            publishTree(newRoot, curRoot == null ? -1 : curRoot.getEpoch(), commSig);
+
+            // the checkpoint needed the in-memory tree, now it can be paged out
+            pageOutTree(newRoot);
+
+            // new registrations go into the next epoch's tree right away
+            stageNextEpoch();
 
             epochCounter++;
                 
@@ -168,11 +459,21 @@ public class ConiksServer{
             
             timerLog.log("Root hash " +
                          ServerUtils.bytesToHex(ServerUtils.hash(rootBytes)));
+            timerLog.log("Retaining "+history.getRetainedCount()+" epochs and "+
+                         history.getColdCount()+" cold epochs, new epoch uses ~"+
+                         history.getMemoryCost(newRoot.getEpoch())+" bytes, history uses ~"+
+                         history.getTotalMemoryCost()+" bytes");
+            timerLog.log("Lookups in retained epochs: "+retainedLookups);
+            timerLog.log("Lookups in cold epochs: "+coldLookups);
+            if (prevFilter != null) {
+                timerLog.log("Lookup filter of the last epoch: "+prevFilter);
+            }
             
             return isGoodExit;
             
         }
         else {
+            stageNextEpoch();
             return false;
         }
     }
@@ -184,9 +485,7 @@ public class ConiksServer{
      * N.B. Designed for few restarts in mind.
      */
     private static void initNamespace(){
-	PriorityQueue<Pair<byte[], UserLeafNode>> initUsers = 
-	    new PriorityQueue<Pair<byte[],UserLeafNode>>(
-		16384, new ServerUtils.PrefixComparator());
+	PendingBatch initUsers = newPendingBatch(SIZE);
 
 	serverLog.log("Beginning initNamespace()");
 
@@ -197,89 +496,412 @@ public class ConiksServer{
         // for demo purposes we're just going to create a bunch of dummy users 
 
         initEpoch = curEpoch;
+
+        // continue the hash chain from the latest logged STR, if any
+        byte[] prevHash = null;
+        try {
+            EpochHistory.STR latest = history.getLatestSTR();
+            if (latest != null) {
+                prevHash = latest.getRootHash();
+                serverLog.log("Continuing hash chain from epoch "+latest.getEpoch());
+            }
+        }
+        catch (IOException e) {
+            serverLog.error("Could not read the latest STR: "+e.getMessage());
+            throw new RuntimeException("initialization error.");
+        }
+
+        RootNode initRoot = null;
+
+        // restore the latest published tree from its checkpoints, if any
+        long restoredEpoch = -1;
+        if (checkpoints != null) {
+            try {
+                long start = System.currentTimeMillis();
+                RootNode snapRoot = checkpoints.recover(nodeStore);
+                if (snapRoot == null) {
+                    throw new FileNotFoundException("no tree snapshot yet");
+                }
+                restoredEpoch = snapRoot.getEpoch();
+
+                if (prevHash == null) {
+                    prevHash = ServerUtils.hash(ServerUtils.convertRootNode(snapRoot));
+                }
+
+                // the restored tree is published again for the new epoch
+                initRoot = new RootNode(snapRoot.getLeft(), snapRoot.getRight(), 
+                                        snapRoot.getLevel(), prevHash, initEpoch,
+                                        snapRoot.getLeftHash(), snapRoot.getRightHash());
+                if (initRoot.getLeft() != null) {
+                    initRoot.getLeft().setParent(initRoot);
+                }
+                if (initRoot.getRight() != null) {
+                    initRoot.getRight().setParent(initRoot);
+                }
+                serverLog.log("Restored the tree of epoch "+snapRoot.getEpoch()+
+                              " from its snapshot and "+checkpoints.getNumDeltas()+
+                              " deltas in "+(System.currentTimeMillis()-start)+" ms");
+            }
+            catch (IOException e) {
+                serverLog.error("Could not restore the tree: "+e.getMessage());
+            }
+        }
+
+        if (prevHash == null) {
+            prevHash = ServerUtils.hash(new byte[10]);
+        }
 	
         long handled = 0;
         long size = SIZE;
         long batchSize = size/10; // unused right now, but it's here for future versions
-        UserTreeBuilder utb = ServerOps.startBuildInitTree(ServerUtils.hash(new byte[10]), 
-                                                           initEpoch);
         
-        RootNode initRoot = null;
-    
         // add <size> dummy users
-        for (int i = 0 ; i < size; i++){
+        for (int i = 0 ; initRoot == null && i < size; i++){
             String userId = "test-"+i;
+            if (!isInShard(userId)) {
+                continue;
+            }
             String pubKey = "(dsa  (p #test-10000007712ECAF91762ED4E46076D846624D2A71C67A991D1FEA059593163C2B19690B1A5CA3C603F52A62D73BB91D521BA55682D38E3543CC34E384420AA32CFF440A90D28A6F54C586BB856460969C658B20ABF65A767063FE94A5DDBC2D0D5D1FD154116AE7039CC4E482DCF1245A9E4987EB6C91B32834B49052284027#) (q #00B84E385FA6263B26E9F46BF90E78684C245D5B35#) (g #77F6AA02740EF115FDA233646AAF479367B34090AEC0D62BA3E37F793D5CB995418E4F3F57F31612561A4BEA41FAC3EE05679D90D2F79A581905E432B85F4C109164EB7846DC9C3669B013D67063747ABCC4B07EAA4AC44D9DE9FC2A349859994DB683DFC7784D0F1DF1DA25014A40D8617E3EC94D8DB8FBBBC37A5C5AAEE5DC#) (y #4B41A8AA7B6F23F740DEF994D1A6582E00E4B821F65AC30BDC6710CD6111FA24DE70EACE6F4A92A84038D4B928D79F6A0DF35F729B861A6713BECC934309DE0822B8C9D2A6D3C0A4F0D0FB28A77B0393D72568D72EE60C73B2C5F6E4E1A1347EDC20AC449EFF250AC1C251E16403A610DB9EB90791E63207601714A78679283))";
             long epochAdded = initEpoch;
             byte[] index = ServerUtils.unameToIndex(userId);
             
             UserLeafNode uln = new UserLeafNode(userId, pubKey, epochAdded, 0, index);
-            initUsers.add(Pair.with(index, uln));
+            initUsers.add(index, uln);
             
         }
-        initRoot = utb.extendTree(initUsers);
-        
-        if(initRoot == null) {
-            serverLog.error("An error occured while trying to build the initial tree");
-            throw new RuntimeException("initialization error.");
-        }
+
+        if (initRoot == null) {
+            if (initUsers.getRunCount() > 0) {
+                serverLog.log("Merging "+initUsers.getRunCount()+" spilled runs of dummy users");
+            }
+            UserTreeBuilder utb = ServerOps.startBuildInitTree(prevHash, initEpoch);
+            initRoot = utb.extendTree(initUsers);
+            initUsers.clear();
         
-        initUsers.clear();
+            if(initRoot == null) {
+                serverLog.error("An error occured while trying to build the initial tree");
+                throw new RuntimeException("initialization error.");
+            }
         
-        utb.clearTemps();
+            utb.clearTemps();
+            serverLog.log("Built initial tree with "+size+" dummy users.");
+        }
+
+        // the filter is built while the tree is still in memory
+        if (CONFIG.LOOKUP_FILTER_BITS > 0) {
+            long start = System.currentTimeMillis();
+            lookupFilter = BloomFilter.build(initRoot, CONFIG.LOOKUP_FILTER_BITS);
+            serverLog.log("Built the lookup filter in "+(System.currentTimeMillis()-start)+
+                          " ms: "+lookupFilter);
+        }
             
         byte[] commSig = ServerOps.generateSTR(initRoot);
         serverLog.log("initial root epoch: "+initRoot.getEpoch()+"\n"+
                       "comm sig: "+ServerUtils.bytesToHex(commSig));
-        curRecord = new ServerUtils.Record(initRoot,
-                                           initRoot.getEpoch(), commSig, null);
-        // headRecord = curRecord;
+        if (!addNewRecord(initRoot, commSig)) {
+            throw new RuntimeException("initialization error.");
+        }
+        recordDiff(initRoot, null);
+        checkpointTree(initRoot, restoredEpoch);
+        publishTree(initRoot, -1, commSig);
+        pageOutTree(initRoot);
+        stageNextEpoch();
         epochCounter++;
-        serverLog.log("Namespace initialized with "+size+" dummy users.");
+        serverLog.log("Namespace initialized.");
     }
     
     /** Adds the new root node {@code newRoot} and STR {@code str} 
-     * as a "record" in the linked 
-     * list representing the STR hash chain. This function is usually
-     * called after updating the Merkle tree.
+     * as a "record" in the epoch-indexed history, which still links
+     * each record to the previous one.
+     * This function is usually called after updating the Merkle tree.
+     *
+     *@return {@code true} if the record was added, {@code false} if
+     * its STR could not be logged, or is not newer than the latest logged STR.
      */
-    private static synchronized void addNewRecord(RootNode newRoot, byte[] str) {
+    private static synchronized boolean addNewRecord(RootNode newRoot, byte[] str) {
         
         ServerUtils.Record newRecord = new ServerUtils.Record(newRoot, 
-                                                              curEpoch, str, curRecord);
-	if (curRecord != null){
-	    // let's not keep more than one back in memory
-	    curRecord.setPrev(null);
-	}
+                                                              newRoot.getEpoch(), str, 
+                                                              history.getLatest());
+        try {
+            history.addRecord(newRecord);
+        }
+        catch (IOException e) {
+            serverLog.error("Could not log the STR for epoch "+newRoot.getEpoch()+
+                            ": "+e.getMessage());
+            return false;
+        }
+        catch (IllegalArgumentException e) {
+            // e.g. the STR log already has a newer epoch
+            serverLog.error("Could not add the record for epoch "+newRoot.getEpoch()+
+                            ": "+e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /** Writes a checkpoint for the tree rooted at {@code root}, which
+     * was built by extending the tree of epoch {@code baseEpoch}.
+     *
+     *@return {@code true} if the checkpoint was written or the server doesn't
+     * use checkpoints, {@code false} if the write failed.
+     */
+    private static boolean checkpointTree(RootNode root, long baseEpoch) {
+        if (checkpoints == null) {
+            return true;
+        }
 
-        // reassign pointer
-        curRecord = newRecord;	
+        try {
+            long start = System.currentTimeMillis();
+            boolean isFull = checkpoints.checkpoint(root, baseEpoch);
+            timerLog.log("Wrote "+(isFull ? "full snapshot" : "delta "+checkpoints.getNumDeltas())+
+                         " for epoch "+root.getEpoch()+" in "+
+                         (System.currentTimeMillis()-start)+" ms");
+        }
+        catch (IOException e) {
+            timerLog.error("Could not checkpoint the tree: "+e.getMessage());
+            return false;
+        }
+        return true;
     }
 
-    /** Retrieves the "record" for epoch {@code ep} from the linked
-     * list representing the STR hash chain.
+    /** Generates and logs the diff of the tree rooted at {@code root} from
+     * the previous epoch's tree rooted at {@code prevRoot}, so auditors
+     * can fetch it later. A missing diff doesn't stop the epoch from
+     * being published.
+     */
+    private static void recordDiff(RootNode root, RootNode prevRoot) {
+        long start = System.currentTimeMillis();
+        EpochDiff diff = ServerOps.generateEpochDiffProto(root, prevRoot);
+        if (diff == null) {
+            timerLog.error("Could not generate the diff for epoch "+root.getEpoch());
+            return;
+        }
+
+        try {
+            diffLog.add(root.getEpoch(), diff);
+            timerLog.log("Logged the diff of "+diff.getProof().getLeafCount()+
+                         " leaves for epoch "+root.getEpoch()+" in "+
+                         (System.currentTimeMillis()-start)+" ms");
+        }
+        catch (IOException e) {
+            timerLog.error("Could not log the diff for epoch "+root.getEpoch()+
+                           ": "+e.getMessage());
+        }
+    }
+
+    /** Writes the delta for the tree rooted at {@code root}, which was built
+     * by extending the tree of epoch {@code baseEpoch}, and signed with {@code sig},
+     * so followers can catch up. Does nothing if the server has no followers.
+     */
+    private static void publishTree(RootNode root, long baseEpoch, byte[] sig) {
+        if (replicationLog == null) {
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            replicationLog.publish(root, baseEpoch, sig);
+            timerLog.log("Published epoch "+root.getEpoch()+" for followers in "+
+                         (System.currentTimeMillis()-start)+" ms");
+        }
+        catch (IOException e) {
+            // followers get a full tree once the deltas are consistent again
+            timerLog.error("Could not publish the tree for followers: "+e.getMessage());
+        }
+    }
+
+    /** Fetches the epochs the leader published since this follower's latest
+     * epoch, and adds each verified epoch to the history.
      *
-     *@return The record for epoch {@code ep}.
-     *@throws An {@code UnsupportedOperationException} in case the 
-     * head of the list is reached before the requested record is found.
+     *@return {@code true} if the follower is up to date with the leader,
+     * {@code false} otherwise.
      */
-    public static synchronized ServerUtils.Record getRecord(long ep){
-            ServerUtils.Record runner = curRecord;
-            
-            while(runner.getRoot().getEpoch() > ep && runner != null){
-                
-                // need to check if we reached the head of the list
-                if (runner.getPrev() == null) {
-                    throw new UnsupportedOperationException("reached the head of the list!");
-                }
-                else{
-                    runner = runner.getPrev();
-                }
+    private static synchronized boolean syncWithLeader() {
+        ServerUtils.Record latest = history.getLatest();
+        ArrayList<Pair<RootNode, byte[]>> applied = null;
+        try {
+            long start = System.currentTimeMillis();
+            applied = follower.sync(latest == null ? null : latest.getRoot());
+            if (!applied.isEmpty()) {
+                timerLog.log("Applied "+applied.size()+" epochs from the leader in "+
+                             (System.currentTimeMillis()-start)+" ms");
             }
-            
-            return runner;
+        }
+        catch (IOException e) {
+            timerLog.error("Could not sync with the leader: "+e.getMessage());
+            return false;
+        }
+
+        for (Pair<RootNode, byte[]> p : applied) {
+            RootNode root = p.getValue0();
+            if (!addNewRecord(root, p.getValue1())) {
+                return false;
+            }
+            curEpoch = root.getEpoch();
+            pageOutTree(root);
+            epochCounter++;
+        }
+        return true;
+    }
+
+    /** Builds the tree of epoch {@code epoch} from the roots of the
+     * shards' latest subtrees, and adds it to the history. The previous
+     * root's hash is {@code prevHash}.
+     *
+     *@return {@code true} if the new epoch was added, {@code false} if a 
+     * shard cannot be reached or the STR cannot be logged.
+     */
+    private static synchronized boolean aggregateShards(byte[] prevHash, long epoch) {
+        RootNode root = null;
+        try {
+            long start = System.currentTimeMillis();
+            root = router.aggregate(prevHash, epoch);
+            timerLog.log("Aggregated "+router.getNumShards()+" shards for epoch "+epoch+
+                         " in "+(System.currentTimeMillis()-start)+" ms");
+        }
+        catch (IOException e) {
+            timerLog.error("Could not aggregate the shards: "+e.getMessage());
+            return false;
+        }
+
+        byte[] commSig = ServerOps.generateSTR(root);
+        if (commSig == null || !addNewRecord(root, commSig)) {
+            return false;
+        }
+        curEpoch = epoch;
+        epochCounter++;
+        return true;
+    }
+
+    /** Moves the published tree rooted at {@code root} to the node store,
+     * if the server uses one. If this fails, the tree stays in memory.
+     */
+    private static void pageOutTree(RootNode root) {
+        if (nodeStore == null) {
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            long prevSize = nodeStore.size();
+            long rootAddr = nodeStore.pageOut(root);
+            history.setPagedOut(root.getEpoch(), rootAddr);
+            long bytes = nodeStore.size()-prevSize;
+
+            PageCache cache = nodeStore.getCache();
+            timerLog.log("Paged out "+bytes+" bytes of epoch "+root.getEpoch()+" in "+
+                         (System.currentTimeMillis()-start)+" ms, store has "+
+                         nodeStore.size()+" bytes, page cache hits: "+cache.getHits()+
+                         " misses: "+cache.getMisses());
+        }
+        catch (IOException e) {
+            timerLog.error("Could not page out the tree: "+e.getMessage());
+        }
+    }
+
+    /** Gets the server's epoch-indexed history, e.g. to change
+     * its retention window at runtime.
+     *
+     *@return The server's {@link EpochHistory}.
+     */
+    public static EpochHistory getHistory() {
+        return history;
+    }
+
+    /** Retrieves the "record" for epoch {@code ep} from the 
+     * epoch-indexed history, loading it from the node store if it's cold.
+     *
+     *@return The record for epoch {@code ep}, or {@code null} if epoch 
+     * {@code ep} is older than all records kept in the history, e.g.
+     * because its tree was evicted.
+     */
+    public static ServerUtils.Record getRecord(long ep){
+        return history.getRecord(ep);
     }
     
+    /** Initializes a leader's namespace, puts back any registrations
+     * that were pending before a restart, and schedules the epoch
+     * updates with {@code scheduler}.
+     */
+    private static void initLeader(ScheduledExecutorService scheduler){
+        initNamespace(); // initializes the namespace with latest stored snapshot and all registered users
+
+        // put back any registrations that were acknowledged before a restart
+        if (!CONFIG.REG_WAL_PATH.isEmpty()) {
+            try {
+                RegistrationWAL wal = new RegistrationWAL(CONFIG.REG_WAL_PATH);
+                ArrayList<Pair<String,String>> replayed = wal.replay();
+
+                // some registrations may already be in the restored tree
+                RootNode root = getRecord(curEpoch).getRoot();
+                for (int i = 0; i < replayed.size(); i++) {
+                    if (ServerOps.findUln(replayed.get(i).getValue0(), root) != null) {
+                        replayed.set(i, null);
+                    }
+                }
+                registerAll(replayed);
+                regWal = wal;
+                serverLog.log("Replayed "+replayed.size()+" pending registrations");
+            }
+            catch (IOException e) {
+                serverLog.error("Could not open the registration WAL: "+e.getMessage());
+                throw new RuntimeException("initialization error.");
+            }
+        }
+        
+        EpochTimerTask epochSnapshotTaker = new EpochTimerTask();
+        
+        scheduler.scheduleWithFixedDelay(epochSnapshotTaker, 
+					 CONFIG.EPOCH_INTERVAL, 
+					 CONFIG.EPOCH_INTERVAL,
+					 TimeUnit.MILLISECONDS);
+
+        // hash the staging tree as it grows, not all at once when publishing
+        scheduler.scheduleWithFixedDelay(new StagingHashTask(),
+                                         STAGING_HASH_INTERVAL,
+                                         STAGING_HASH_INTERVAL,
+                                         TimeUnit.MILLISECONDS);
+    }
+
+    /** Initializes a shard router's history with the first epoch it can
+     * build from all of its shards, and schedules the next epochs 
+     * with {@code scheduler}.
+     */
+    private static void initRouter(ScheduledExecutorService scheduler){
+        initEpoch = curEpoch;
+
+        // continue the hash chain from the latest logged STR, if any
+        byte[] prevHash = ServerUtils.hash(new byte[10]);
+        try {
+            EpochHistory.STR latest = history.getLatestSTR();
+            if (latest != null) {
+                prevHash = latest.getRootHash();
+                serverLog.log("Continuing hash chain from epoch "+latest.getEpoch());
+            }
+        }
+        catch (IOException e) {
+            serverLog.error("Could not read the latest STR: "+e.getMessage());
+            throw new RuntimeException("initialization error.");
+        }
+
+        while (!aggregateShards(prevHash, initEpoch)) {
+            serverLog.log("Waiting for the shards at "+CONFIG.SHARDS+"...");
+            try {
+                Thread.sleep(REPLICA_SYNC_INTERVAL);
+            }
+            catch (InterruptedException e) {
+                throw new RuntimeException("initialization error.");
+            }
+        }
+        serverLog.log("Routing to "+router.getNumShards()+" shards from epoch "+curEpoch);
+
+        scheduler.scheduleWithFixedDelay(new RouterEpochTask(),
+                                         CONFIG.EPOCH_INTERVAL,
+                                         CONFIG.EPOCH_INTERVAL,
+                                         TimeUnit.MILLISECONDS);
+    }
+
     /** Sets up several configurations and begins listening for
      * incoming connections from CONIKS clients.
      *<p>
@@ -287,6 +909,12 @@ public class ConiksServer{
      * {@code ./coniks.sh <start | stop | clean>}
      */
     public static void main(String[] args){
+        // several servers on one machine each need their own config
+        if (args.length > 0) {
+            CONFIG = new ServerConfig(args[0]);
+            curEpoch = CONFIG.STARTUP_TIME;
+        }
+
         // set some more configs
         msgLog = MsgHandlerLogger.getInstance(CONFIG.MSGHAND_LOG_PATH);
         timerLog = TimerLogger.getInstance(CONFIG.TIMER_LOG_PATH);
@@ -298,20 +926,97 @@ public class ConiksServer{
         System.setProperty("javax.net.ssl.trustStore", CONFIG.TRUSTSTORE_PATH);
         System.setProperty("javax.net.ssl.trustStorePassword", CONFIG.TRUSTSTORE_PWD);
 
-        pendingQueue = new PriorityQueue<Pair<byte[],UserLeafNode>>( 
-	    16384, new ServerUtils.PrefixComparator());
-
         SignatureOps.initSignatureOps(CONFIG);
-        initNamespace(); // initializes the namespace with latest stored snapshot and all registered users
-        
-        EpochTimerTask epochSnapshotTaker = new EpochTimerTask();
-        
+        AdmissionControl.initAdmissionControl(CONFIG);
+
+        STRLog strLog = null;
+        if (!CONFIG.STR_LOG_PATH.isEmpty()) {
+            try {
+                strLog = new STRLog(CONFIG.STR_LOG_PATH);
+            }
+            catch (IOException e) {
+                serverLog.error("Could not open the STR log: "+e.getMessage());
+                throw new RuntimeException("initialization error.");
+            }
+        }
+        // a router's trees only hold the top levels, so they are kept in memory
+        if (!CONFIG.PAGE_STORE_PATH.isEmpty() && CONFIG.SHARDS.isEmpty()) {
+            try {
+                nodeStore = new NodeStore(CONFIG.PAGE_STORE_PATH, CONFIG.PAGE_CACHE_PAGES,
+                                          CONFIG.PINNED_LEVELS);
+            }
+            catch (IOException e) {
+                serverLog.error("Could not open the node store: "+e.getMessage());
+                throw new RuntimeException("initialization error.");
+            }
+        }
+        history = new EpochHistory(CONFIG.MAX_RETAINED_EPOCHS, CONFIG.MAX_RETAINED_AGE,
+                                   CONFIG.MAX_RETAINED_BYTES, strLog, nodeStore);
+        if (!CONFIG.SHARDS.isEmpty()) {
+            try {
+                router = new ShardRouter(CONFIG.SHARDS);
+            }
+            catch (IllegalArgumentException e) {
+                serverLog.error("Bad list of shards: "+e.getMessage());
+                throw new RuntimeException("initialization error.");
+            }
+        }
+        else if (!CONFIG.LEADER.isEmpty()) {
+            if (CONFIG.REPLICATION_PATH.isEmpty()) {
+                serverLog.error("A follower needs a path for the deltas it receives");
+                throw new RuntimeException("initialization error.");
+            }
+            follower = new ReplicaFollower(CONFIG.LEADER, CONFIG.NAME, 
+                                           CONFIG.REPLICATION_PATH+".tmp");
+        }
+        else if (!CONFIG.REPLICATION_PATH.isEmpty()) {
+            // followers further behind than the kept deltas get a full tree
+            replicationLog = new ReplicationLog(CONFIG.REPLICATION_PATH, 
+                                                CONFIG.MAX_CHECKPOINT_DELTAS);
+        }
+        if (follower == null && router == null) {
+            try {
+                diffLog = CONFIG.DIFF_LOG_PATH.isEmpty() ? new EpochDiffLog() :
+                    new EpochDiffLog(CONFIG.DIFF_LOG_PATH);
+            }
+            catch (IOException e) {
+                serverLog.error("Could not open the diff log: "+e.getMessage());
+                throw new RuntimeException("initialization error.");
+            }
+        }
+        if (!CONFIG.SNAPSHOT_PATH.isEmpty() && follower == null && router == null) {
+            checkpoints = new TreeCheckpoints(CONFIG.SNAPSHOT_PATH, 
+                                              CONFIG.MAX_CHECKPOINT_DELTAS);
+        }
+
 	ScheduledExecutorService scheduler =
 	    Executors.newScheduledThreadPool(1);
-        scheduler.scheduleWithFixedDelay(epochSnapshotTaker, 
-					 CONFIG.EPOCH_INTERVAL, 
-					 CONFIG.EPOCH_INTERVAL,
-					 TimeUnit.MILLISECONDS);
+
+        if (follower != null) {
+            // a follower only serves trees it got from its leader
+            while (!syncWithLeader() || history.getLatest() == null) {
+                serverLog.log("Waiting for the leader at "+CONFIG.LEADER+"...");
+                try {
+                    Thread.sleep(REPLICA_SYNC_INTERVAL);
+                }
+                catch (InterruptedException e) {
+                    throw new RuntimeException("initialization error.");
+                }
+            }
+            serverLog.log("Following the leader at "+CONFIG.LEADER+" from epoch "+curEpoch);
+
+            scheduler.scheduleWithFixedDelay(new ReplicaSyncTask(),
+                                             REPLICA_SYNC_INTERVAL,
+                                             REPLICA_SYNC_INTERVAL,
+                                             TimeUnit.MILLISECONDS);
+        }
+        else if (router != null) {
+            // a router only builds the top of the tree from its shards
+            initRouter(scheduler);
+        }
+        else {
+            initLeader(scheduler);
+        }
         
         SSLServerSocket s;
         
@@ -319,6 +1024,18 @@ public class ConiksServer{
             SSLServerSocketFactory sslSrvFact = 
                 (SSLServerSocketFactory)SSLServerSocketFactory.getDefault();
             s =(SSLServerSocket)sslSrvFact.createServerSocket(CONFIG.PORT);
+
+            // providers doing bulk registrations authenticate with a client certificate
+            s.setWantClientAuth(true);
+
+            shedder = new ThreadPoolExecutor(SHED_THREADS, SHED_THREADS, 0, TimeUnit.MILLISECONDS,
+                                             new ArrayBlockingQueue<Runnable>(MAX_PENDING_SHEDS),
+                                             new ShedOverflowHandler());
+
+            // at most as many connections as admitted can wait for a worker
+            int maxWaiting = CONFIG.MAX_CONNECTIONS > 0 ? CONFIG.MAX_CONNECTIONS : Integer.MAX_VALUE;
+            workers = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 0, TimeUnit.MILLISECONDS,
+                                             new LinkedBlockingQueue<Runnable>(maxWaiting));
             
             serverLog.log("Listening for connections on port "+CONFIG.PORT+"...");
             
@@ -327,9 +1044,24 @@ public class ConiksServer{
                 SSLSocket c = (SSLSocket)s.accept(); // closing done by thread
                 
                 serverLog.log("Server accepted new connection.");
-                
-                ServerThread th = new ServerThread(c);
-                th.start();
+
+                // shed the connection right away if we're already at capacity
+                if (!AdmissionControl.admitConnection()) {
+                    serverLog.error("Too many open connections, shedding new connection.");
+                    shedder.execute(new ShedTask(c));
+                    continue;
+                }
+
+                c.setSoTimeout(CLIENT_READ_TIMEOUT);
+                try {
+                    workers.execute(new ServerThread(c, System.currentTimeMillis()));
+                }
+                catch (RejectedExecutionException e) {
+                    // the limit on connections was raised past the queue's size
+                    AdmissionControl.releaseConnection();
+                    serverLog.error("No room for the connection in the worker queue, shedding it.");
+                    shedder.execute(new ShedTask(c));
+                }
                 
             }
         }
@@ -364,36 +1096,130 @@ public class ConiksServer{
 
     }
 
-    /** A Thread that attempts a connection with a CONIKS client
+    /** Implements a task that hashes the paths to the new registrations
+     * in the staging tree during the epoch.
+     */
+    private static class StagingHashTask implements Runnable {
+
+        public void run() {
+            hashStagingTree();
+        }
+
+    }
+
+    /** Implements a task that keeps a follower up to date with its leader.
+     */
+    private static class ReplicaSyncTask implements Runnable {
+
+        public void run() {
+            // a failed sync is retried at the next poll
+            syncWithLeader();
+        }
+
+    }
+
+    /** Implements a task that builds a shard router's tree every epoch.
+     */
+    private static class RouterEpochTask implements Runnable {
+
+        public void run() {
+            RootNode curRoot = history.getLatest().getRoot();
+            byte[] prevHash = ServerUtils.hash(ServerUtils.convertRootNode(curRoot));
+
+            // a failed epoch is retried at the next interval
+            aggregateShards(prevHash, curEpoch+CONFIG.EPOCH_INTERVAL);
+        }
+
+    }
+
+    /** Implements a task that answers a connection shed by admission
+     * control with an overload response, and closes it.
+     */
+    private static class ShedTask implements Runnable {
+
+        private SSLSocket clientSocket;
+
+        public ShedTask(SSLSocket c) {
+            this.clientSocket = c;
+        }
+
+        public void run() {
+            try {
+                clientSocket.setSoTimeout(SHED_TIMEOUT);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                                                             clientSocket.getOutputStream()));
+                out.writeByte(MsgType.SERVER_RESP);
+                ServerResp.newBuilder().setMessage(ServerResp.Message.OVERLOADED).build()
+                    .writeDelimitedTo(out);
+                out.flush();
+            }
+            catch (IOException e) {
+                // the client is dropped either way
+            }
+            finally {
+                close();
+            }
+        }
+
+        private void close() {
+            try {
+                clientSocket.close();
+            }
+            catch (IOException e) {
+                // nothing more is sent
+            }
+        }
+
+    }
+
+    /** Closes the shed connections that the shed tasks' queue has no room for.
+     */
+    private static class ShedOverflowHandler implements RejectedExecutionHandler {
+
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            ((ShedTask)r).close();
+        }
+
+    }
+
+    /** A task that attempts a connection with a CONIKS client,
+     * run by one of the server's workers
      *
      * @author Marcela Melara
      *
      */
-    private static class ServerThread extends Thread{
+    private static class ServerThread implements Runnable{
         
         private SSLSocket clientSocket;
         private DataInputStream din;
         private DataOutputStream dout;
         private long regEpoch;
         private int msgType;
+        private long enqueuedAt;
          
         /** Constructor of a ServerThread
          *
          * @param s the client socket
+         * @param enqueuedAt the time at which the connection was queued for a worker
          */
-        public ServerThread(SSLSocket c){
+        public ServerThread(SSLSocket c, long enqueuedAt){
             this.clientSocket = c;
+            this.enqueuedAt = enqueuedAt;
         }
         
         /** Runs the ServerThread: calls the handle connection method
          * Will have a switch statement for each message type received
          */
         public void run(){
+            // the time the connection sat in the workers' queue; the time it
+            // takes the client to send its request isn't queueing
+            long waited = System.currentTimeMillis()-enqueuedAt;
             
             //attempt connection to the client
             try{	
                 din = new DataInputStream(clientSocket.getInputStream());
-                dout = new DataOutputStream(clientSocket.getOutputStream());
+                // buffer the output since ranges stream many messages
+                dout = new DataOutputStream(new BufferedOutputStream(clientSocket.getOutputStream()));
 
                 // this will also get the message type
                 AbstractMessage clientMsg = receiveMsgProto();
@@ -401,23 +1227,73 @@ public class ConiksServer{
                 if (clientMsg == null) {
                     sendSimpleResponse(ServerUtils.RespType.MALFORMED_ERR);
                 }
-                else if (msgType == MsgType.REGISTRATION) {
-                    handleRegistrationProto((Registration) clientMsg);
+                else if (!AdmissionControl.admit(msgType, waited)) {
+                    msgLog.error("Shedding request of type "+msgType+": server overloaded");
+                    sendSimpleResponse(ServerUtils.RespType.OVERLOADED);
                 }
-                else if (msgType == MsgType.COMMITMENT_REQ) {
-                    handleCommitmentReqProto((CommitmentReq) clientMsg);
+                else if (follower != null && (msgType == MsgType.REGISTRATION ||
+                                              msgType == MsgType.BULK_REGISTRATION)) {
+                    // followers only serve lookups, registrations go to the leader
+                    AdmissionControl.release(msgType);
+                    sendSimpleResponse(ServerUtils.RespType.READ_ONLY_ERR);
                 }
-                else if (msgType == MsgType.KEY_LOOKUP) {
-                    handleKeyLookupProto((KeyLookup) clientMsg);
+                else {
+                    try {
+                        if (router != null && msgType != MsgType.COMMITMENT_REQ) {
+                            handleRoutedProto(clientMsg);
+                        }
+                        else if (msgType == MsgType.REGISTRATION) {
+                            handleRegistrationProto((Registration) clientMsg);
+                        }
+                        else if (msgType == MsgType.COMMITMENT_REQ) {
+                            CommitmentReq commReq = (CommitmentReq) clientMsg;
+                            if (commReq.hasFromEpoch()) {
+                                handleCommitmentRangeReqProto(commReq);
+                            }
+                            else {
+                                handleCommitmentReqProto(commReq);
+                            }
+                        }
+                        else if (msgType == MsgType.KEY_LOOKUP) {
+                            handleKeyLookupProto((KeyLookup) clientMsg);
+                        }
+                        else if (msgType == MsgType.KEY_LOOKUP_BATCH) {
+                            handleKeyLookupBatchProto((KeyLookupBatch) clientMsg);
+                        }
+                        else if (msgType == MsgType.BULK_REGISTRATION) {
+                            handleBulkRegistrationProto((BulkRegistration) clientMsg);
+                        }
+                        else if (msgType == MsgType.EPOCH_DELTA_REQ) {
+                            handleEpochDeltaReqProto((EpochDeltaReq) clientMsg);
+                        }
+                        else if (msgType == MsgType.EPOCH_DIFF_REQ) {
+                            handleEpochDiffReqProto((EpochDiffReq) clientMsg);
+                        }
+                        else if (msgType == MsgType.SHARD_ROOT_REQ) {
+                            handleShardRootReqProto((ShardRootReq) clientMsg);
+                        }
+                        else if (msgType == MsgType.LEAF_RANGE_REQ) {
+                            handleLeafRangeReqProto((LeafRangeReq) clientMsg);
+                        }
+                    }
+                    finally {
+                        AdmissionControl.release(msgType);
+                    }
                 }
-                
-                clientSocket.close();
-                
             }
             catch(IOException e){
                 msgLog.error("Error connecting to client: "+e.getMessage());
                 e.printStackTrace();
             }
+            finally {
+                try {
+                    clientSocket.close();
+                }
+                catch (IOException e) {
+                    msgLog.error("Could not close the client connection: "+e.getMessage());
+                }
+                AdmissionControl.releaseConnection();
+            }
 
         } //ends run()
 
@@ -446,6 +1322,63 @@ public class ConiksServer{
                         return reg;
                     }
                 }
+                else if (msgType == MsgType.BULK_REGISTRATION) {
+                    BulkRegistration bulk = BulkRegistration.parseDelimitedFrom(din);
+
+                    if (!isWellFormedBulk(bulk)) {
+                        msgLog.log("Malformed bulk registration message");
+                    }
+                    else {
+                        return bulk;
+                    }
+                }
+                else if (msgType == MsgType.EPOCH_DIFF_REQ) {
+                    EpochDiffReq req = EpochDiffReq.parseDelimitedFrom(din);
+
+                    if (!req.hasEpoch() || req.getEpoch() <= 0) {
+                        msgLog.log("Malformed epoch diff request");
+                    }
+                    else {
+                        return req;
+                    }
+                }
+                else if (msgType == MsgType.LEAF_RANGE_REQ) {
+                    LeafRangeReq req = LeafRangeReq.parseDelimitedFrom(din);
+
+                    if (!req.hasEpoch() || req.getEpoch() <= 0 ||
+                        (req.hasFromIndex() && 
+                         req.getFromIndex().size() != ServerUtils.HASH_SIZE_BYTES) ||
+                        (req.hasToIndex() && 
+                         req.getToIndex().size() != ServerUtils.HASH_SIZE_BYTES) ||
+                        (req.hasFromIndex() && req.hasToIndex() &&
+                         ServerUtils.compareIndices(req.getFromIndex().toByteArray(),
+                                                    req.getToIndex().toByteArray()) > 0)) {
+                        msgLog.log("Malformed leaf range request");
+                    }
+                    else {
+                        return req;
+                    }
+                }
+                else if (msgType == MsgType.SHARD_ROOT_REQ) {
+                    ShardRootReq req = ShardRootReq.parseDelimitedFrom(din);
+
+                    if (!req.hasShardBits() || !req.hasShard()) {
+                        msgLog.log("Malformed shard root request");
+                    }
+                    else {
+                        return req;
+                    }
+                }
+                else if (msgType == MsgType.EPOCH_DELTA_REQ) {
+                    EpochDeltaReq req = EpochDeltaReq.parseDelimitedFrom(din);
+
+                    if (!req.hasBaseEpoch()) {
+                        msgLog.log("Malformed epoch delta request");
+                    }
+                    else {
+                        return req;
+                    }
+                }
                 else if (msgType == MsgType.KEY_LOOKUP) {
                     KeyLookup lookup = KeyLookup.parseDelimitedFrom(din);
                     
@@ -457,10 +1390,33 @@ public class ConiksServer{
                         return lookup;
                     }
                 }
+                else if (msgType == MsgType.KEY_LOOKUP_BATCH) {
+                    KeyLookupBatch batch = KeyLookupBatch.parseDelimitedFrom(din);
+                    
+                    if(!batch.hasEpoch() || batch.getEpoch() <= 0 ||
+                       batch.getLookupCount() == 0 ||
+                       batch.getLookupCount() > ServerUtils.MAX_LOOKUP_BATCH_SIZE){
+                        msgLog.log("Malformed key lookup batch");
+                    }
+                    else {
+                        return batch;
+                    }
+                }
                 else if (msgType == MsgType.COMMITMENT_REQ) {
                     CommitmentReq commReq = CommitmentReq.parseDelimitedFrom(din);
                     
-                    if (!commReq.hasType() || !commReq.hasEpoch() || commReq.getEpoch() <= 0) {
+                    if (commReq.hasFromEpoch()) {
+                        // range request
+                        if (!commReq.hasType() || commReq.getFromEpoch() <= 0 ||
+                            (commReq.hasToEpoch() && 
+                             commReq.getToEpoch() < commReq.getFromEpoch())) {
+                            msgLog.log("Malformed commitment range request message");
+                        }
+                        else {
+                            return commReq;
+                        }
+                    }
+                    else if (!commReq.hasType() || !commReq.hasEpoch() || commReq.getEpoch() <= 0) {
                         msgLog.log("Malformed commitment request message");
                     }
                     else {
@@ -480,46 +1436,215 @@ public class ConiksServer{
             
         }
 
-        private synchronized void handleRegistrationProto(Registration reg) 
-            throws IOException{
-            msgLog.log("Handling registration message... ");
+        private synchronized void handleRegistrationProto(Registration reg) 
+            throws IOException{
+            msgLog.log("Handling registration message... ");
+
+            //OTR has bug: adds slash to end of account name if not immediately 
+            // registered with server so remove this slash
+            String name =reg.getName();
+            if(name.charAt(name.length()-1) == '/' ){
+                name = name.substring(0,name.length()-1);
+            }
+
+            // a shard only registers the names in its part of the namespace
+            if (!isInShard(name)) {
+                msgLog.error(name+" doesn't belong to shard "+CONFIG.SHARD_ID);
+                sendSimpleResponse(ServerUtils.RespType.MALFORMED_ERR);
+                return;
+            }
+
+            // want to check first whether the name already 
+            // exists in the database before we register, if it does, reply with error
+            ServerUtils.Record r = getRecord(curEpoch);
+            RootNode root = r.getRoot();
+
+            UserLeafNode uln = getUlnFromTree(name, root);
+
+            if (uln != null) {
+                msgLog.error("Found: "+
+                             ServerUtils.bytesToHex(ServerUtils.unameToIndex(uln.getUsername()))+
+                             "\n"+uln.getUsername()+" found when trying to insert "+name);
+                sendSimpleResponse(ServerUtils.RespType.NAME_EXISTS_ERR);
+                return;
+            }
+
+            this.regEpoch = curEpoch+CONFIG.EPOCH_INTERVAL;
+                      
+            // If using a DB, insert the new user
+
+            // we register the user in the pendingQueue
+            try {
+                if (!register(name, reg.getPublickey())) {
+                    msgLog.error(name+" is already pending registration");
+                    sendSimpleResponse(ServerUtils.RespType.NAME_EXISTS_ERR);
+                    return;
+                }
+
+                // don't acknowledge the registration before it's durable
+                syncRegistrations();
+            }
+            catch (IOException e) {
+                msgLog.error("Could not log the registration of "+name+": "+e.getMessage());
+                sendSimpleResponse(ServerUtils.RespType.SERVER_ERR);
+                return;
+            }
+
+            sendRegistrationRespResponse(regEpoch, CONFIG.EPOCH_INTERVAL);
+        
+        }
+
+        // checks the number of entries in a bulk registration chunk
+        private boolean isWellFormedBulk(BulkRegistration bulk) {
+            return bulk != null && bulk.getRegistrationCount() > 0 &&
+                bulk.getRegistrationCount() <= ServerUtils.MAX_BULK_REGISTRATION_SIZE;
+        }
+
+        // registers all valid new names of each bulk registration chunk
+        // sent on this connection, and replies to each chunk with a status bitmap
+        private synchronized void handleBulkRegistrationProto(BulkRegistration bulk) 
+            throws IOException{
+            msgLog.log("Handling bulk registration message... ");
+
+            // only the configured providers may import users
+            String provider = null;
+            try {
+                provider = clientSocket.getSession().getPeerPrincipal().getName();
+            }
+            catch (SSLPeerUnverifiedException e) {
+                msgLog.error("Rejecting bulk registration from unauthenticated client");
+                sendSimpleResponse(ServerUtils.RespType.UNAUTHORIZED_ERR);
+                return;
+            }
+            if (!isAllowedPeer(provider, CONFIG.PROVIDERS)) {
+                msgLog.error("Rejecting bulk registration from "+provider+", not a provider");
+                sendSimpleResponse(ServerUtils.RespType.UNAUTHORIZED_ERR);
+                return;
+            }
+
+            while (true) {
+                ServerUtils.Record r = getRecord(curEpoch);
+                RootNode root = r.getRoot();
+                
+                ArrayList<Pair<String,String>> entries = 
+                    new ArrayList<Pair<String,String>>(bulk.getRegistrationCount());
+
+                for (Registration reg : bulk.getRegistrationList()) {
+                    String name = reg.getName();
+                    if (!reg.hasPublickey() || name.length() == 0) {
+                        entries.add(null);
+                        continue;
+                    }
+
+                    if(name.charAt(name.length()-1) == '/' ){
+                        name = name.substring(0,name.length()-1);
+                    }
+
+                    // skip any names that belong to another shard or
+                    // already exist in the tree
+                    if (!isInShard(name) || getUlnFromTree(name, root) != null) {
+                        entries.add(null);
+                        continue;
+                    }
+                    entries.add(Pair.with(name, reg.getPublickey()));
+                }
+
+                this.regEpoch = curEpoch+CONFIG.EPOCH_INTERVAL;
+
+                // this also removes duplicates of pending names
+                boolean[] registered = null;
+                try {
+                    registered = registerAll(entries);
+                    syncRegistrations();
+                }
+                catch (IOException e) {
+                    msgLog.error("Could not log the bulk registration: "+e.getMessage());
+                    sendSimpleResponse(ServerUtils.RespType.SERVER_ERR);
+                    return;
+                }
+
+                msgLog.log("Bulk registration of "+registered.length+" entries for "+provider);
 
-            //OTR has bug: adds slash to end of account name if not immediately 
-            // registered with server so remove this slash
-            String name =reg.getName();
-            if(name.charAt(name.length()-1) == '/' ){
-                name = name.substring(0,name.length()-1);
+                BulkRegistrationResp resp = buildBulkRegistrationRespMsg(regEpoch, 
+                                                                         CONFIG.EPOCH_INTERVAL,
+                                                                         registered);
+                dout.writeByte(MsgType.BULK_REGISTRATION_RESP);
+                resp.writeDelimitedTo(dout);
+                dout.flush();
+
+                if (!bulk.getMore()) {
+                    break;
+                }
+
+                // the next chunk is sent on the same connection
+                if (din.readUnsignedByte() != MsgType.BULK_REGISTRATION) {
+                    msgLog.log("Malformed bulk registration message");
+                    sendSimpleResponse(ServerUtils.RespType.MALFORMED_ERR);
+                    return;
+                }
+                bulk = BulkRegistration.parseDelimitedFrom(din);
+                if (!isWellFormedBulk(bulk)) {
+                    msgLog.log("Malformed bulk registration message");
+                    sendSimpleResponse(ServerUtils.RespType.MALFORMED_ERR);
+                    return;
+                }
             }
 
-            // want to check first whether the name already 
-            // exists in the database before we register, if it does, reply with error
-            ServerUtils.Record r = getRecord(curEpoch);
-            RootNode root = r.getRoot();
+            din.close();
+            dout.close();
+        }
 
-            UserLeafNode uln = getUlnFromTree(name, root);
+        // streams the tree deltas of all epochs published since the 
+        // follower's latest epoch, followed by a success response
+        private synchronized void handleEpochDeltaReqProto(EpochDeltaReq req)
+            throws IOException{
+            msgLog.log("Handling epoch delta request... ");
 
-            if (uln != null) {
-                msgLog.error("Found: "+
-                             ServerUtils.bytesToHex(ServerUtils.unameToIndex(uln.getUsername()))+
-                             "\n"+uln.getUsername()+" found when trying to insert "+name);
-                sendSimpleResponse(ServerUtils.RespType.NAME_EXISTS_ERR);
+            // only the configured followers may follow this one
+            String replica = null;
+            try {
+                replica = clientSocket.getSession().getPeerPrincipal().getName();
+            }
+            catch (SSLPeerUnverifiedException e) {
+                msgLog.error("Rejecting epoch delta request from unauthenticated client");
+                sendSimpleResponse(ServerUtils.RespType.UNAUTHORIZED_ERR);
+                return;
+            }
+            if (!isAllowedPeer(replica, CONFIG.FOLLOWERS)) {
+                msgLog.error("Rejecting epoch delta request from "+replica+", not a follower");
+                sendSimpleResponse(ServerUtils.RespType.UNAUTHORIZED_ERR);
                 return;
             }
 
-            this.regEpoch = curEpoch+CONFIG.EPOCH_INTERVAL;
-                      
-            // If using a DB, insert the new user
+            if (replicationLog == null) {
+                msgLog.error("Not publishing epoch deltas, rejecting request from "+replica);
+                sendSimpleResponse(ServerUtils.RespType.SERVER_ERR);
+                return;
+            }
 
-            // we register the user in the pendingQueue
-            register(name, reg.getPublickey());
+            ArrayList<ReplicationLog.Update> updates = null;
+            try {
+                updates = replicationLog.getUpdatesSince(req.getBaseEpoch());
+            }
+            catch (IOException e) {
+                msgLog.error("Could not get the epoch deltas: "+e.getMessage());
+                sendSimpleResponse(ServerUtils.RespType.SERVER_ERR);
+                return;
+            }
 
-            sendRegistrationRespResponse(regEpoch, CONFIG.EPOCH_INTERVAL);
-        
+            msgLog.log("Sending "+updates.size()+" epochs after epoch "+
+                       req.getBaseEpoch()+" to "+replica);
+            try {
+                sendEpochDeltaResponse(updates);
+            }
+            finally {
+                replicationLog.release(updates);
+            }
         }
 
         /* Helper functions for commitment requests */
 
-        // retrieves the root node and commitment signature given a specific commitment request
+        // retrieves the STR given a specific commitment request
         private synchronized void handleCommitmentReqProto 
             (CommitmentReq commReq) 
             throws IOException{
@@ -536,23 +1661,206 @@ public class ConiksServer{
 
             // TODO: handle requests for observed commitments
             if(commType == CommitmentReq.CommitmentType.SELF){
-                ServerUtils.Record record = getRecord(epoch);
-
-                // TODO: what to do if record not found?
+                // the STRs of all epochs are available, even if their trees aren't
+                EpochHistory.STR str = history.getSTR(epoch);
 
-                RootNode root = record.getRoot();
-                byte[] str = record.getSTR();
+                if (str == null) {
+                    sendSimpleResponse(ServerUtils.RespType.MALFORMED_ERR);
+                    return;
+                }
 
-                sendCommitmentResponse(Pair.with(root, str));
+                sendCommitmentResponse(str);
             }
             
         }
 
+        // streams the commitments for all epochs in the requested range
+        private synchronized void handleCommitmentRangeReqProto 
+            (CommitmentReq commReq) 
+            throws IOException{
+            
+            long fromEp = commReq.getFromEpoch();
+            long toEp = curEpoch;
+            if (commReq.hasToEpoch() && commReq.getToEpoch() < toEp) {
+                toEp = commReq.getToEpoch();
+            }
+
+            int limit = ServerUtils.MAX_COMMITMENT_RANGE_SIZE;
+            if (commReq.getLimit() > 0 && commReq.getLimit() < limit) {
+                limit = commReq.getLimit();
+            }
+
+            msgLog.log("Getting commitments for epochs "+fromEp+" to "+toEp+"...");
+
+            // TODO: handle requests for observed commitments
+            if (commReq.getType() != CommitmentReq.CommitmentType.SELF) {
+                sendSimpleResponse(ServerUtils.RespType.MALFORMED_ERR);
+                return;
+            }
+
+            sendCommitmentRangeResponse(history.getSTRRange(fromEp, toEp, limit));
+        }
+
+        // retrieves the diff logged when the requested epoch was published
+        private synchronized void handleEpochDiffReqProto(EpochDiffReq req)
+            throws IOException{
+
+            long epoch = req.getEpoch();
+            if(epoch > curEpoch){
+                epoch = curEpoch;
+            }
+
+            msgLog.log("Getting the diff for epoch "+epoch+"...");
+
+            // followers don't keep diffs, and older diffs may have been dropped
+            EpochDiff diff = null;
+            if (diffLog != null) {
+                try {
+                    diff = diffLog.get(epoch);
+                }
+                catch (IOException e) {
+                    msgLog.error("Could not read the diff for epoch "+epoch+": "+e.getMessage());
+                    sendSimpleResponse(ServerUtils.RespType.SERVER_ERR);
+                    return;
+                }
+            }
+
+            if (diff == null) {
+                sendSimpleResponse(ServerUtils.RespType.MALFORMED_ERR);
+                return;
+            }
+
+            sendEpochDiffResponse(diff);
+        }
+
+        // streams the leaves in the requested range of the tree in effect 
+        // at the requested epoch, which may be any epoch in the history
+        private synchronized void handleLeafRangeReqProto(LeafRangeReq req)
+            throws IOException{
+
+            long epoch = req.getEpoch();
+            if(epoch > curEpoch){
+                epoch = curEpoch;
+            }
+
+            ServerUtils.Record r = history.getRecord(epoch);
+            if (r == null) {
+                sendSimpleResponse(ServerUtils.RespType.MALFORMED_ERR);
+                return;
+            }
+
+            int chunkSize = ServerUtils.MAX_LEAF_RANGE_CHUNK_SIZE;
+            if (req.getChunkSize() > 0 && req.getChunkSize() < chunkSize) {
+                chunkSize = req.getChunkSize();
+            }
+            long limit = req.getLimit() > 0 ? req.getLimit() : Long.MAX_VALUE;
+
+            byte[] fromIndex = req.hasFromIndex() ? req.getFromIndex().toByteArray() :
+                new byte[ServerUtils.HASH_SIZE_BYTES];
+            byte[] toIndex = req.hasToIndex() ? req.getToIndex().toByteArray() : null;
+
+            msgLog.log("Getting leaves from "+ServerUtils.bytesToHex(fromIndex)+
+                       " in epoch "+epoch+"...");
+
+            sendLeafRangeResponse(r.getRoot(), fromIndex, toIndex, chunkSize, limit);
+        }
+
+        // sends the root of this shard's latest subtree to the shard router
+        private synchronized void handleShardRootReqProto(ShardRootReq req)
+            throws IOException{
+
+            if (CONFIG.SHARD_BITS == 0 || req.getShardBits() != CONFIG.SHARD_BITS ||
+                req.getShard() != CONFIG.SHARD_ID) {
+                msgLog.error("Shard root request for shard "+req.getShard()+" of "+
+                             (1 << req.getShardBits())+" shards");
+                sendSimpleResponse(ServerUtils.RespType.MALFORMED_ERR);
+                return;
+            }
+
+            RootNode root = history.getLatest().getRoot();
+            ShardRoot shardRoot = ServerOps.generateShardRootProto(root, CONFIG.SHARD_BITS,
+                                                                   CONFIG.SHARD_ID);
+            if (shardRoot == null) {
+                sendSimpleResponse(ServerUtils.RespType.SERVER_ERR);
+                return;
+            }
+
+            msgLog.log("Sending shard root for epoch "+shardRoot.getEpoch()+"...");
+            dout.writeByte(MsgType.SHARD_ROOT);
+            shardRoot.writeDelimitedTo(dout);
+            dout.flush();
+            din.close();
+            dout.close();
+        }
+
+        // sends a registration or lookup to the shard that owns the name; 
+        // the router can't serve any other requests since it only has
+        // the top of the tree
+        private synchronized void handleRoutedProto(AbstractMessage clientMsg)
+            throws IOException{
+
+            AbstractMessage resp = null;
+            try {
+                if (msgType == MsgType.REGISTRATION) {
+                    resp = router.register((Registration) clientMsg);
+                }
+                else if (msgType == MsgType.KEY_LOOKUP) {
+                    KeyLookup lookup = (KeyLookup) clientMsg;
+                    long epoch = lookup.getEpoch();
+                    if(epoch > curEpoch){
+                        epoch = curEpoch;
+                    }
+
+                    String username = lookup.getName();
+                    if(username.charAt(username.length()-1) == '/' ){
+                        username = username.substring(0,username.length()-1);
+                    }
+                    ServerUtils.Record r = getRecord(epoch);
+                    if (r == null) {
+                        msgLog.error("Epoch "+epoch+" is no longer in the history");
+                        sendSimpleResponse(ServerUtils.RespType.NAME_NOT_FOUND_ERR);
+                        return;
+                    }
+                    resp = router.lookup(username, r.getRoot());
+                    if (resp instanceof AuthPath && lookup.hasCachedKeyDigest()) {
+                        resp = ServerOps.omitCachedKey((AuthPath)resp, 
+                                                       lookup.getCachedKeyDigest());
+                    }
+                }
+                else {
+                    msgLog.error("Can't route request of type "+msgType);
+                    sendSimpleResponse(ServerUtils.RespType.MALFORMED_ERR);
+                    return;
+                }
+            }
+            catch (IOException e) {
+                msgLog.error("Could not route request of type "+msgType+": "+e.getMessage());
+                sendSimpleResponse(ServerUtils.RespType.SERVER_ERR);
+                return;
+            }
+
+            // the shard's response is passed on as is, except for the auth path
+            if (resp instanceof RegistrationResp) {
+                dout.writeByte(MsgType.REGISTRATION_RESP);
+            }
+            else if (resp instanceof AuthPath) {
+                dout.writeByte(MsgType.AUTH_PATH);
+            }
+            else {
+                dout.writeByte(MsgType.SERVER_RESP);
+            }
+            resp.writeDelimitedTo(dout);
+            dout.flush();
+            din.close();
+            dout.close();
+        }
+
         /* Helper functions for key lookups */
 
         // retrieves the user leaf node given a specific key lookup
         private synchronized void handleKeyLookupProto(KeyLookup lookup)
             throws IOException{
+            long start = System.nanoTime();
   
             long epoch = lookup.getEpoch();
             if(epoch > curEpoch){
@@ -569,7 +1877,13 @@ public class ConiksServer{
 
 	    msgLog.log("SHA256 of name: " + ServerUtils.bytesToHex(ServerUtils.unameToIndex(username)));
 	    
+            boolean isCold = !history.isRetained(epoch);
             ServerUtils.Record r = getRecord(epoch);
+            if (r == null) {
+                msgLog.error("Epoch "+epoch+" is no longer in the history");
+                sendSimpleResponse(ServerUtils.RespType.NAME_NOT_FOUND_ERR);
+                return;
+            }
             RootNode root = r.getRoot();	  
 
             UserLeafNode uln = getUlnFromTree(username, root);
@@ -577,10 +1891,99 @@ public class ConiksServer{
 	    if(uln == null){
 		msgLog.error(username + " not found...");
                 sendSimpleResponse(ServerUtils.RespType.NAME_NOT_FOUND_ERR);
-                return;
-	    }
+            }
+            else {
+                sendAuthPathResponse(uln, root, lookup.hasCachedKeyDigest() ? 
+                                     lookup.getCachedKeyDigest() : null);
+            }
+            recordLookupLatency(isCold, start);
+        }
+
+        // retrieves the user leaf nodes for all names in the batch
+        // and proves them all with a single multi auth path
+        private synchronized void handleKeyLookupBatchProto(KeyLookupBatch batch)
+            throws IOException{
+            long start = System.nanoTime();
   
-            sendAuthPathResponse(uln, root);
+            long epoch = batch.getEpoch();
+            if(epoch > curEpoch){
+                epoch = curEpoch;
+            }
+
+            msgLog.log("Getting keys for a batch of "+batch.getLookupCount()+" names... ");
+
+            boolean isCold = !history.isRetained(epoch);
+            ServerUtils.Record r = getRecord(epoch);
+            if (r == null) {
+                msgLog.error("Epoch "+epoch+" is no longer in the history");
+                sendSimpleResponse(ServerUtils.RespType.NAME_NOT_FOUND_ERR);
+                return;
+            }
+            RootNode root = r.getRoot();
+
+            // the proof is generated in lookup index order, and
+            // hex strings sort the same way as the indices themselves
+            TreeMap<String, UserLeafNode> found = new TreeMap<String, UserLeafNode>();
+            HashMap<String, ByteString> cachedDigests = new HashMap<String, ByteString>();
+
+            for (KeyLookup lookup : batch.getLookupList()) {
+                if (!lookup.hasName() || lookup.getName().length() == 0) {
+                    continue;
+                }
+
+                String username = lookup.getName();
+                if(username.charAt(username.length()-1) == '/' ){
+                    username = username.substring(0,username.length()-1);
+                }
+
+                UserLeafNode uln = getUlnFromTree(username, root);
+
+                if(uln == null){
+                    msgLog.log(username + " not found...");
+                    continue;
+                }
+                found.put(ServerUtils.bytesToHex(uln.getIndex()), uln);
+                if (lookup.hasCachedKeyDigest()) {
+                    cachedDigests.put(username, lookup.getCachedKeyDigest());
+                }
+            }
+
+            if(found.isEmpty()){
+                sendSimpleResponse(ServerUtils.RespType.NAME_NOT_FOUND_ERR);
+            }
+            else {
+                sendMultiAuthPathResponse(new ArrayList<UserLeafNode>(found.values()), root,
+                                          cachedDigests);
+            }
+            recordLookupLatency(isCold, start);
+        }
+
+        // adds the latency of a lookup started at start (in ns) to the
+        // stats of retained or cold epochs
+        private void recordLookupLatency(boolean isCold, long start) {
+            long nanos = System.nanoTime()-start;
+            if (isCold) {
+                coldLookups.record(nanos);
+            }
+            else {
+                retainedLookups.record(nanos);
+            }
+        }
+
+        // checks whether username, which isn't in the tree rooted at root,
+        // is also missing from the tree of the epoch the filter covers, i.e.
+        // whether the filter matched it falsely; older epochs lack the names
+        // registered after them, and the filter's epoch may not be published yet
+        private boolean isMissingFromFilterEpoch(String username, RootNode root,
+                                                 BloomFilter filter) {
+            if (root.getEpoch() == filter.getEpoch()) {
+                return true;
+            }
+            ServerUtils.Record r = history.getRecord(filter.getEpoch());
+            if (r == null || r.getRoot().getEpoch() != filter.getEpoch()) {
+                return false;
+            }
+            return ServerOps.findUln(username, r.getRoot()) == null;
         }
 
         // traverses down the tree until we reach the requested user leaf node
@@ -591,6 +1994,12 @@ public class ConiksServer{
 
             // traverse based on lookup index for this name
             byte[] lookupIndex = ServerUtils.unameToIndex(username);
+
+            // names that were never registered don't need a traversal
+            BloomFilter filter = lookupFilter;
+            if (filter != null && !filter.mightContain(lookupIndex)) {
+                return null;
+            }
             
             // not worth doing this recursively
             int curOffset = 0;
@@ -646,10 +2055,15 @@ public class ConiksServer{
             if (runner != null && runner instanceof UserLeafNode) {
                 // msm: this is ugly
                 if (!username.equals(((UserLeafNode)runner).getUsername())) {
-                        return null;
+                        runner = null;
                     }
             }
 
+            if (runner == null && filter != null && 
+                isMissingFromFilterEpoch(username, root, filter)) {
+                filter.recordFalsePositive();
+            }
+
             // we expect the runner to be the right uln at this point
             return (UserLeafNode) runner;
   
@@ -674,17 +2088,14 @@ public class ConiksServer{
         }
 
         // send back the commitment returned for the commitment request
-        private synchronized void sendCommitmentResponse(Pair<RootNode, 
-                                                         byte[]> commPair){
+        private synchronized void sendCommitmentResponse(EpochHistory.STR str){
             msgLog.log("Sending commitment response... ");
             try{              
-                Commitment comm = buildCommitmentMsg(commPair.getValue0(), 
-                                                     commPair.getValue1());
-                byte[] rootBytes = ServerUtils.convertRootNode(commPair.getValue0());
+                Commitment comm = buildCommitmentMsg(str.getEpoch(), str.getRootHash(),
+                                                     str.getSignature());
                 msgLog.log("Root hash "+
-                             ServerUtils.bytesToHex(ServerUtils.hash(rootBytes))
-                           +"\n Epoch: "+commPair.getValue0().getEpoch()
-                           +"\n Prev: "+ServerUtils.bytesToHex(commPair.getValue0().getPrev()));
+                             ServerUtils.bytesToHex(str.getRootHash())
+                           +"\n Epoch: "+str.getEpoch());
                 dout.writeByte(MsgType.COMMITMENT);
                 comm.writeDelimitedTo(dout);
                 dout.flush();
@@ -696,6 +2107,85 @@ public class ConiksServer{
             }
         }
 
+        // stream back all commitments in the range, followed by a 
+        // success response to mark the end of the range
+        private synchronized void sendCommitmentRangeResponse(ArrayList<EpochHistory.STR> strs){
+            msgLog.log("Sending "+strs.size()+" commitments... ");
+            try{              
+                for (EpochHistory.STR str : strs) {
+                    Commitment comm = buildCommitmentMsg(str.getEpoch(), 
+                                                         str.getRootHash(),
+                                                         str.getSignature());
+                    if (comm == null) {
+                        sendSimpleResponse(ServerUtils.RespType.SERVER_ERR);
+                        return;
+                    }
+                    dout.writeByte(MsgType.COMMITMENT);
+                    comm.writeDelimitedTo(dout);
+                }
+                ServerResp respMsg = buildServerRespMsg(ServerUtils.RespType.SUCCESS);
+                dout.writeByte(MsgType.SERVER_RESP);
+                respMsg.writeDelimitedTo(dout);
+                dout.flush();
+                din.close();
+                dout.close();                
+            }
+            catch(IOException e){
+                msgLog.error("Something went wrong while trying to send a message to the client");
+            }
+        }
+
+        // stream back the delta files of all updates in chunks, followed
+        // by a success response to mark the end of the updates
+        private synchronized void sendEpochDeltaResponse(ArrayList<ReplicationLog.Update> updates){
+            byte[] buf = new byte[ServerUtils.EPOCH_DELTA_CHUNK_SIZE];
+            try{
+                for (ReplicationLog.Update u : updates) {
+                    FileInputStream fis = null;
+                    try {
+                        // the replication log keeps the file until it's released
+                        fis = new FileInputStream(u.getPath());
+                    }
+                    catch (FileNotFoundException e) {
+                        sendSimpleResponse(ServerUtils.RespType.SERVER_ERR);
+                        return;
+                    }
+
+                    try {
+                        int len = fis.read(buf);
+                        while (true) {
+                            EpochDelta.Builder delta = EpochDelta.newBuilder();
+                            delta.setBaseEpoch(u.getBaseEpoch());
+                            delta.setEpoch(u.getEpoch());
+                            delta.setSignature(ByteString.copyFrom(u.getSignature()));
+                            delta.setChunk(ByteString.copyFrom(buf, 0, Math.max(len, 0)));
+
+                            int next = len < 0 ? -1 : fis.read(buf);
+                            delta.setMore(next > 0);
+                            dout.writeByte(MsgType.EPOCH_DELTA);
+                            delta.build().writeDelimitedTo(dout);
+                            if (next <= 0) {
+                                break;
+                            }
+                            len = next;
+                        }
+                    }
+                    finally {
+                        fis.close();
+                    }
+                }
+                ServerResp respMsg = buildServerRespMsg(ServerUtils.RespType.SUCCESS);
+                dout.writeByte(MsgType.SERVER_RESP);
+                respMsg.writeDelimitedTo(dout);
+                dout.flush();
+                din.close();
+                dout.close();
+            }
+            catch(IOException e){
+                msgLog.error("Something went wrong while trying to send a message to the client");
+            }
+        }
+
         // send back the initial epoch and epoch interval for the newly registered user, who will cache this info
         private synchronized void sendRegistrationRespResponse(long initEpoch, int epochInterval){
             msgLog.log("Sending registration response... ");
@@ -713,10 +2203,13 @@ public class ConiksServer{
         }
 
         // send back the authentication path based on the key lookup
-        private synchronized void sendAuthPathResponse(UserLeafNode uln, RootNode root){
+        // the key is left out if the client has the one with digest cachedDigest
+        private synchronized void sendAuthPathResponse(UserLeafNode uln, RootNode root,
+                                                       ByteString cachedDigest){
             msgLog.log("Sending authentication path response... ");
             try{              
-                AuthPath authPath = buildAuthPathMsg(uln, root);
+                AuthPath authPath = ServerOps.omitCachedKey(buildAuthPathMsg(uln, root), 
+                                                            cachedDigest);
                 dout.writeByte(MsgType.AUTH_PATH);
                 authPath.writeDelimitedTo(dout);
                 dout.flush();
@@ -728,6 +2221,89 @@ public class ConiksServer{
             }
         }
 
+        // send back the diff for the requested epoch
+        private synchronized void sendEpochDiffResponse(EpochDiff diff){
+            msgLog.log("Sending epoch diff response... ");
+            try{              
+                dout.writeByte(MsgType.EPOCH_DIFF);
+                diff.writeDelimitedTo(dout);
+                dout.flush();
+                din.close();
+                dout.close();               
+            }
+            catch(IOException e){
+                msgLog.error("Something went wrong while trying to send a message to the client");
+            }
+        }
+
+        // stream back the leaves in the range in chunks of at most chunkSize
+        // leaves, each proven as soon as it's full so only one chunk is held 
+        // in memory, followed by a success response to mark the end of the range.
+        // Each chunk ends where the next chunk's first leaf is, so the client 
+        // can resume from the end of the last chunk if limit leaves were sent.
+        private synchronized void sendLeafRangeResponse(RootNode root, byte[] fromIndex,
+                                                        byte[] toIndex, int chunkSize,
+                                                        long limit){
+            LeafIterator leaves = new LeafIterator(root, fromIndex, toIndex);
+            ArrayList<UserLeafNode> ulns = new ArrayList<UserLeafNode>(chunkSize);
+            long sent = 0;
+            try{
+                byte[] chunkStart = fromIndex;
+                do {
+                    ulns.clear();
+                    while (ulns.size() < chunkSize && sent < limit && leaves.hasNext()) {
+                        ulns.add(leaves.next());
+                        sent++;
+                    }
+                    byte[] chunkEnd = leaves.hasNext() ? leaves.peek().getIndex() : toIndex;
+
+                    MultiAuthPath chunk = ServerOps.generateLeafRangeProto(root, ulns,
+                                                                           chunkStart, chunkEnd);
+                    if (chunk == null) {
+                        sendSimpleResponse(ServerUtils.RespType.SERVER_ERR);
+                        return;
+                    }
+                    dout.writeByte(MsgType.LEAF_RANGE);
+                    chunk.writeDelimitedTo(dout);
+                    chunkStart = chunkEnd;
+                } while (leaves.hasNext() && sent < limit);
+
+                msgLog.log("Sent "+sent+" leaves... ");
+                ServerResp respMsg = buildServerRespMsg(ServerUtils.RespType.SUCCESS);
+                dout.writeByte(MsgType.SERVER_RESP);
+                respMsg.writeDelimitedTo(dout);
+                dout.flush();
+                din.close();
+                dout.close();
+            }
+            catch(IOException e){
+                msgLog.error("Something went wrong while trying to send a message to the client");
+            }
+        }
+
+        // send back the single proof for all found names in a key lookup batch
+        private synchronized void sendMultiAuthPathResponse(ArrayList<UserLeafNode> ulns, 
+                                                            RootNode root,
+                                                            HashMap<String, ByteString> cachedDigests){
+            msgLog.log("Sending multi authentication path response... ");
+            try{              
+                MultiAuthPath multiPath = ServerOps.generateMultiAuthPathProto(ulns, root);
+                if (multiPath == null) {
+                    sendSimpleResponse(ServerUtils.RespType.SERVER_ERR);
+                    return;
+                }
+                multiPath = ServerOps.omitCachedKeys(multiPath, cachedDigests);
+                dout.writeByte(MsgType.MULTI_AUTH_PATH);
+                multiPath.writeDelimitedTo(dout);
+                dout.flush();
+                din.close();
+                dout.close();               
+            }
+            catch(IOException e){
+                msgLog.error("Something went wrong while trying to send a message to the client");
+            }
+        }
+
         /* Message building functions */
 
         // create the simple server response message
@@ -746,6 +2322,15 @@ public class ConiksServer{
             case MALFORMED_ERR:
                 respMsg.setMessage(ServerResp.Message.MALFORMED_ERR);
                 break;
+            case OVERLOADED:
+                respMsg.setMessage(ServerResp.Message.OVERLOADED);
+                break;
+            case UNAUTHORIZED_ERR:
+                respMsg.setMessage(ServerResp.Message.UNAUTHORIZED_ERR);
+                break;
+            case READ_ONLY_ERR:
+                respMsg.setMessage(ServerResp.Message.READ_ONLY_ERR);
+                break;
             default:
                 respMsg.setMessage(ServerResp.Message.SERVER_ERR);
                 break;                
@@ -754,11 +2339,9 @@ public class ConiksServer{
         }
 
         // create the commitment response message
-        private Commitment buildCommitmentMsg(RootNode root, byte[] commSig){            
+        private Commitment buildCommitmentMsg(long epoch, byte[] rootHashBytes, byte[] commSig){            
 
             Commitment.Builder commMsg = Commitment.newBuilder();
-            byte[] rootBytes = ServerUtils.convertRootNode(root);
-            byte[] rootHashBytes = ServerUtils.hash(rootBytes);
 
             Hash.Builder rootHash = Hash.newBuilder();
             ArrayList<Integer> rootHashList = ServerUtils.byteArrToIntList(rootHashBytes);
@@ -769,7 +2352,7 @@ public class ConiksServer{
             }
             rootHash.setLen(rootHashList.size());
             rootHash.addAllHash(rootHashList);
-            commMsg.setEpoch(root.getEpoch());
+            commMsg.setEpoch(epoch);
             ArrayList<Integer> sigList = ServerUtils.byteArrToIntList(commSig);
             commMsg.setRootHash(rootHash.build());
             commMsg.addAllSignature(sigList);
@@ -785,6 +2368,29 @@ public class ConiksServer{
             return regRespMsg.build();
         }
 
+        // create the bulk registration response message, with
+        // one status bit per entry packed into 32-bit words
+        private BulkRegistrationResp buildBulkRegistrationRespMsg(long initEpoch, 
+                                                                  int epochInterval,
+                                                                  boolean[] registered){
+
+            BulkRegistrationResp.Builder respMsg = BulkRegistrationResp.newBuilder();
+            respMsg.setInitEpoch(initEpoch);
+            respMsg.setEpochInterval(epochInterval);
+            respMsg.setNumEntries(registered.length);
+
+            int[] bitmap = new int[(registered.length+31)/32];
+            for (int i = 0; i < registered.length; i++) {
+                if (registered[i]) {
+                    bitmap[i/32] |= (1 << (i%32));
+                }
+            }
+            for (int word : bitmap) {
+                respMsg.addRegistered(word);
+            }
+            return respMsg.build();
+        }
+
         // create the commitment response message
         private AuthPath buildAuthPathMsg(UserLeafNode uln, RootNode root){            
             return ServerOps.generateAuthPathProto(uln, root);
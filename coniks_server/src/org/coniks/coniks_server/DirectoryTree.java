@@ -0,0 +1,81 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.coniks.coniks_server;
+
+/** A Merkle tree that commits to the name-to-key bindings of the 
+ * directory, keyed by the users' lookup indices. This is the common
+ * interface of the CONIKS Merkle prefix tree ({@link PrefixDirectoryTree})
+ * and of the fixed-depth {@link SparseMerkleTree}, so they can be used
+ * and benchmarked interchangeably.
+ */
+public interface DirectoryTree {
+
+    /** Inserts all user leaf nodes in {@code batch} into the tree.
+     * The hashes of the changed paths are recomputed by 
+     * {@link DirectoryTree#computeRootHash()}.
+     *
+     *@return {@code true} if all nodes were inserted, {@code false} if
+     * the nodes spilled by {@code batch} cannot be read.
+     */
+    public boolean insertBatch(PendingBatch batch);
+
+    /** Recomputes the hashes of all paths changed since the last call
+     * and gets the hash of the whole tree.
+     *
+     *@return The root hash as a {@code byte[]}.
+     */
+    public byte[] computeRootHash();
+
+    /** Finds the user leaf node with the lookup index {@code index}.
+     *
+     *@return The {@link UserLeafNode} or {@code null} if {@code index}
+     * is not in the tree.
+     */
+    public UserLeafNode lookup(byte[] index);
+
+    /** Gets the number of subtree hashes in the proof of inclusion or
+     * absence of the lookup index {@code index}.
+     *
+     *@return The number of hashes.
+     */
+    public int getProofLength(byte[] index);
+
+    /** Gets the number of user leaf nodes in the tree.
+     *
+     *@return The number of leaves.
+     */
+    public int size();
+
+}
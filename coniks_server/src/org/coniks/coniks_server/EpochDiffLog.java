@@ -0,0 +1,248 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.coniks.coniks_server;
+
+import org.coniks.coniks_common.C2SProtos.EpochDiff;
+import com.google.protobuf.CodedInputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Keeps the diff of each published epoch, which is generated once
+ * when the epoch is published, so auditors can fetch the changes made
+ * in an epoch without the server traversing its tree again.
+ * If the log has a path, each diff is appended to an {@link AppendLog}
+ * as a record holding the epoch and the serialized diff, and only the
+ * {@code (epoch, log offset)} index is kept in memory. The index is also
+ * appended to a file next to the log, so opening the log only reads the
+ * diffs that were logged after the last indexed one. Otherwise, the
+ * diffs of the latest epochs are kept in memory.
+ */
+public class EpochDiffLog {
+
+    /** The maximum number of diffs kept in memory if the log
+     * has no path.
+     */
+    public static final int MAX_CACHED_DIFFS = 1024;
+
+    private static final int INDEX_ENTRY_BYTES = 16;
+
+    private AppendLog log;
+
+    // the persisted (epoch, offset) index, and its size in bytes
+    private RandomAccessFile indexFile;
+    private FileChannel indexChannel;
+    private long indexSize;
+
+    // the offset of each epoch's diff in the log
+    private TreeMap<Long, Long> offsets;
+
+    // the diffs themselves if there is no log
+    private TreeMap<Long, EpochDiff> cached;
+
+    /** Sets up a log that keeps the diffs of the latest
+     * {@link EpochDiffLog#MAX_CACHED_DIFFS} epochs in memory.
+     */
+    public EpochDiffLog() {
+        this.log = null;
+        this.offsets = null;
+        this.cached = new TreeMap<Long, EpochDiff>();
+    }
+
+    /** Opens the diff log at {@code path} and its index at
+     * {@code path}.idx, creating them if needed. Index entries that don't
+     * match the diff at their offset are dropped, and the diffs that are in
+     * the log but not in the index are indexed.
+     *
+     *@throws An {@code IOException} if the log or index cannot be opened.
+     */
+    public EpochDiffLog(String path) throws IOException {
+        this.log = new AppendLog(path);
+        this.offsets = new TreeMap<Long, Long>();
+        this.cached = null;
+
+        this.indexFile = new RandomAccessFile(new File(path+".idx"), "rw");
+        this.indexChannel = indexFile.getChannel();
+
+        // a torn last entry is dropped
+        long numEntries = indexChannel.size()/INDEX_ENTRY_BYTES;
+        long[] epochs = new long[(int)numEntries];
+        long[] entryOffsets = new long[(int)numEntries];
+        ByteBuffer buf = ByteBuffer.allocate(INDEX_ENTRY_BYTES*4096);
+        for (int i = 0; i < numEntries; ) {
+            buf.clear();
+            buf.limit((int)Math.min(buf.capacity(), (numEntries-i)*INDEX_ENTRY_BYTES));
+            readFully(buf, (long)i*INDEX_ENTRY_BYTES);
+            buf.flip();
+            while (buf.hasRemaining()) {
+                epochs[i] = buf.getLong();
+                entryOffsets[i] = buf.getLong();
+                i++;
+            }
+        }
+
+        // each entry is forced after its diff, so only the last
+        // entries can point to diffs that didn't make it into the log
+        int valid = (int)numEntries;
+        while (valid > 0 && 
+               !isValidEntry(epochs[valid-1], entryOffsets[valid-1],
+                             valid > 1 ? entryOffsets[valid-2] : -1)) {
+            valid--;
+        }
+        for (int i = 0; i < valid; i++) {
+            offsets.put(epochs[i], entryOffsets[i]);
+        }
+        this.indexSize = (long)valid*INDEX_ENTRY_BYTES;
+        indexChannel.truncate(indexSize);
+
+        // index the diffs that are in the log but not in the index
+        long offset = 0;
+        if (valid > 0) {
+            offset = entryOffsets[valid-1];
+            offset += AppendLog.FRAME_HEADER_BYTES + log.read(offset).length;
+        }
+        while (offset < log.size()) {
+            byte[] payload = log.read(offset);
+            long ep = ByteBuffer.wrap(payload).getLong();
+            addIndexEntry(ep, offset);
+            offset += AppendLog.FRAME_HEADER_BYTES + payload.length;
+        }
+        indexChannel.force(false);
+    }
+
+    // checks that the index entry (ep, offset) follows the entry at
+    // prevOffset and points to the diff of epoch ep
+    private boolean isValidEntry(long ep, long offset, long prevOffset) {
+        if (offset <= prevOffset) {
+            return false;
+        }
+        try {
+            byte[] payload = log.read(offset);
+            return payload.length >= 8 && ByteBuffer.wrap(payload).getLong() == ep;
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    // appends the entry (ep, offset) to the index, without forcing it
+    private void addIndexEntry(long ep, long offset) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        entry.putLong(ep);
+        entry.putLong(offset);
+        entry.flip();
+        while (entry.hasRemaining()) {
+            indexChannel.write(entry, indexSize + entry.position());
+        }
+        indexSize += INDEX_ENTRY_BYTES;
+        offsets.put(ep, offset);
+    }
+
+    private void readFully(ByteBuffer buf, long offset) throws IOException {
+        while (buf.hasRemaining()) {
+            if (indexChannel.read(buf, offset + buf.position()) < 0) {
+                throw new IOException("unexpected end of diff index");
+            }
+        }
+    }
+
+    /** Adds the diff {@code diff} of epoch {@code ep}.
+     *
+     *@throws An {@code IOException} if the diff cannot be logged.
+     */
+    public synchronized void add(long ep, EpochDiff diff) throws IOException {
+        if (log == null) {
+            cached.put(ep, diff);
+            while (cached.size() > MAX_CACHED_DIFFS) {
+                cached.pollFirstEntry();
+            }
+            return;
+        }
+
+        byte[] diffBytes = diff.toByteArray();
+        ByteBuffer rec = ByteBuffer.allocate(8 + diffBytes.length);
+        rec.putLong(ep);
+        rec.put(diffBytes);
+        addIndexEntry(ep, log.appendAndSync(rec.array()));
+        indexChannel.force(false);
+    }
+
+    /** Gets the diff of the epoch in effect at {@code ep}, i.e. of
+     * the latest epoch that is not after {@code ep}.
+     *
+     *@return The {@link EpochDiff} or {@code null} if no diff is kept
+     * for that epoch.
+     *@throws An {@code IOException} if the diff cannot be read.
+     */
+    public synchronized EpochDiff get(long ep) throws IOException {
+        if (log == null) {
+            Map.Entry<Long, EpochDiff> e = cached.floorEntry(ep);
+            return e == null ? null : e.getValue();
+        }
+
+        Map.Entry<Long, Long> e = offsets.floorEntry(ep);
+        if (e == null) {
+            return null;
+        }
+
+        // read through the channel, so the log isn't limited to 2GB
+        byte[] payload = log.read(e.getValue());
+        return EpochDiff.parseFrom(CodedInputStream.newInstance(payload, 8, payload.length-8));
+    }
+
+    /** Gets the number of epochs whose diffs are kept.
+     *
+     *@return The number of diffs.
+     */
+    public synchronized int size() {
+        return log == null ? cached.size() : offsets.size();
+    }
+
+    /** Closes the log and its index, if any.
+     */
+    public synchronized void close() throws IOException {
+        if (log != null) {
+            log.close();
+            indexChannel.close();
+            indexFile.close();
+        }
+    }
+
+}
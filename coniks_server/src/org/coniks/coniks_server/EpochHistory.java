@@ -0,0 +1,620 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Implements the server's STR history indexed by epoch.
+ * The signed tree roots of all epochs are kept, since they are small,
+ * but only the most recent records (i.e. including their Merkle trees)
+ * are retained in memory to serve lookups. How many records are retained
+ * can be limited by count, by age and by their estimated memory cost; 
+ * the latest record is always retained. Since each epoch's tree shares its
+ * unchanged subtrees with the previous epoch's tree, each record is only
+ * charged for the nodes it doesn't share with the previous record.
+ * If the history has an {@link STRLog}, the STRs are kept durably in the
+ * log instead of in memory.
+ *<p>
+ * If the history has a {@link NodeStore}, the records whose trees were paged
+ * out to the store aren't dropped when they're evicted, but are kept as cold
+ * records, i.e. only as the address of their root in the store. A lookup in a
+ * cold epoch loads the root, and then pages in only the nodes on the path it
+ * needs.
+ */
+public class EpochHistory {
+
+    // the full records for the most recent epochs, keyed by epoch
+    private TreeMap<Long, ServerUtils.Record> records;
+
+    // the STRs for all epochs, keyed by epoch, if there is no STR log
+    private TreeMap<Long, STR> strs;
+
+    private STRLog strLog;
+
+    // the store the records' trees are paged out to, if any
+    private NodeStore store;
+
+    // the addresses of the stored roots of the retained records, keyed by epoch
+    private TreeMap<Long, Long> rootAddrs;
+
+    // the evicted records that can be loaded from the store, keyed by epoch
+    private TreeMap<Long, ColdRecord> coldRecords;
+
+    // the estimated memory cost in bytes of each retained record, keyed by epoch
+    private TreeMap<Long, Long> memCosts;
+    private long residentCost;
+
+    private int maxRecords;
+    private long maxAge;
+    private long maxBytes;
+
+    /** Constructs an empty history that retains the records
+     * of the {@code maxRecords} most recent epochs (-1 for no limit, 0 to
+     * retain only the latest epoch), and of the epochs at most {@code maxAge} milliseconds older than
+     * the latest epoch (0 for no limit).
+     */
+    public EpochHistory(int maxRecords, long maxAge) {
+        this(maxRecords, maxAge, null);
+    }
+
+    /** Constructs a history with the same retention window as
+     * {@link EpochHistory#EpochHistory(int, long)}, which appends all STRs
+     * to {@code strLog} and serves them from it.
+     */
+    public EpochHistory(int maxRecords, long maxAge, STRLog strLog) {
+        this(maxRecords, maxAge, 0, strLog, null);
+    }
+
+    /** Constructs a history with the same retention window as
+     * {@link EpochHistory#EpochHistory(int, long)}, which also retains at most
+     * {@code maxBytes} bytes of records in memory (0 for no limit), and which
+     * keeps the evicted records whose trees are in {@code store} as cold records.
+     * {@code strLog} and {@code store} may be {@code null}.
+     */
+    public EpochHistory(int maxRecords, long maxAge, long maxBytes, STRLog strLog,
+                        NodeStore store) {
+        this.records = new TreeMap<Long, ServerUtils.Record>();
+        this.strs = new TreeMap<Long, STR>();
+        this.memCosts = new TreeMap<Long, Long>();
+        this.residentCost = 0;
+        this.rootAddrs = new TreeMap<Long, Long>();
+        this.coldRecords = new TreeMap<Long, ColdRecord>();
+        this.maxRecords = maxRecords;
+        this.maxAge = maxAge;
+        this.maxBytes = maxBytes;
+        this.strLog = strLog;
+        this.store = store;
+    }
+
+    /** Changes the retention window of this history to the
+     * {@code maxRecords} most recent epochs (-1 for no limit) and
+     * the epochs at most {@code maxAge} milliseconds older than
+     * the latest epoch (0 for no limit). Records which fall outside of
+     * the new window are evicted immediately.
+     */
+    public synchronized void setRetention(int maxRecords, long maxAge) {
+        setRetention(maxRecords, maxAge, this.maxBytes);
+    }
+
+    /** Changes the retention window of this history like
+     * {@link EpochHistory#setRetention(int, long)}, and limits the
+     * retained records to {@code maxBytes} bytes (0 for no limit).
+     */
+    public synchronized void setRetention(int maxRecords, long maxAge, long maxBytes) {
+        this.maxRecords = maxRecords;
+        this.maxAge = maxAge;
+        this.maxBytes = maxBytes;
+        evict();
+    }
+
+    /** Adds the record {@code r} for a new epoch to the history,
+     * and drops the oldest records that are no longer retained.
+     * The new record is only charged for the nodes on its tree's dirty
+     * sides, i.e. those it doesn't share with the latest record's tree,
+     * unless it's the first record, which is charged for its whole tree.
+     * If there is an STR log, the record's STR is on disk by the time
+     * this function returns.
+     *
+     *@throws An {@code IOException} if the STR cannot be logged, or an
+     * {@code IllegalArgumentException} if it's not newer than the latest
+     * logged STR, in which case the record is not added.
+     */
+    public void addRecord(ServerUtils.Record r) throws IOException {
+        long ep = r.getRoot().getEpoch();
+
+        // the tree is only walked along its changed nodes, and not under 
+        // the history's lock; e.g. a restored tree has no dirty sides, 
+        // so the first tree is walked in full
+        long cost = getLatest() == null ? estimateTreeBytes(r.getRoot()) 
+            : estimateChangedBytes(r.getRoot());
+
+        synchronized (this) {
+            if (strLog != null) {
+                strLog.append(r.getRoot(), r.getSTR());
+            }
+            else {
+                byte[] rootHash = ServerUtils.hash(ServerUtils.convertRootNode(r.getRoot()));
+                strs.put(ep, new STR(ep, rootHash, r.getSTR()));
+            }
+
+            records.put(ep, r);
+            setMemoryCost(ep, cost);
+
+            evict();
+        }
+    }
+
+    /** Records that the tree of the retained record for epoch {@code ep}
+     * was paged out to the node store with its root at address {@code rootAddr},
+     * so the record can be kept as a cold record once it's evicted.
+     */
+    public void setPagedOut(long ep, long rootAddr) {
+        ServerUtils.Record r;
+        synchronized (this) {
+            r = records.get(ep);
+        }
+        if (r == null) {
+            return;
+        }
+
+        // only the pinned nodes of a paged out tree are walked
+        long cost = estimateTreeBytes(r.getRoot());
+
+        synchronized (this) {
+            if (!records.containsKey(ep)) {
+                return;
+            }
+            rootAddrs.put(ep, rootAddr);
+            setMemoryCost(ep, cost);
+            evict();
+        }
+    }
+
+    private void setMemoryCost(long ep, long cost) {
+        Long old = memCosts.put(ep, cost);
+        residentCost += cost - (old == null ? 0 : old);
+    }
+
+    // evicts the oldest records until the rest fit in the retention window
+    private void evict() {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        long oldestEp = records.lastKey() - maxAge;
+        while (records.size() > 1 &&
+               ((maxRecords >= 0 && records.size() > maxRecords) ||
+                (maxAge > 0 && records.firstKey() < oldestEp) ||
+                (maxBytes > 0 && residentCost > maxBytes))) {
+            Map.Entry<Long, ServerUtils.Record> e = records.pollFirstEntry();
+            long cost = memCosts.remove(e.getKey());
+            residentCost -= cost;
+
+            // the next record's tree keeps the nodes it shared with the evicted
+            // one, unless it was paged out, so it's charged for them now
+            Map.Entry<Long, ServerUtils.Record> next = records.firstEntry();
+            if (!rootAddrs.containsKey(next.getKey())) {
+                long shared = cost - estimateReplacedBytes(e.getValue().getRoot(), 
+                                                           next.getValue().getRoot());
+                setMemoryCost(next.getKey(), memCosts.get(next.getKey()) + Math.max(shared, 0));
+            }
+
+            // the record's tree can still be loaded if it's in the store
+            Long addr = rootAddrs.remove(e.getKey());
+            if (store != null && addr != null) {
+                coldRecords.put(e.getKey(), new ColdRecord(addr, e.getValue().getRoot().getPrev(),
+                                                           e.getValue().getSTR()));
+            }
+
+            // make sure the evicted tree can be garbage collected
+            records.firstEntry().getValue().setPrev(null);
+        }
+    }
+
+    /** Gets the number of records currently retained in memory.
+     *
+     *@return The number of retained records.
+     */
+    public synchronized int getRetainedCount() {
+        return records.size();
+    }
+
+    /** Gets the number of cold records, i.e. of evicted records
+     * that can be loaded from the node store.
+     *
+     *@return The number of cold records.
+     */
+    public synchronized int getColdCount() {
+        return coldRecords.size();
+    }
+
+    /** Checks whether the record for epoch {@code ep} is retained in
+     * memory, i.e. whether a lookup in epoch {@code ep} doesn't need to 
+     * load a cold record.
+     *
+     *@return {@code true} if the record is retained, {@code false} otherwise.
+     */
+    public synchronized boolean isRetained(long ep) {
+        return records.floorKey(ep) != null;
+    }
+
+    /** Gets the estimated memory cost of the record for epoch {@code ep}.
+     * Since every epoch's tree shares all unchanged subtrees with the
+     * previous one, this is only the size of the nodes that changed since
+     * the previous epoch, except for the oldest retained record, which is
+     * charged for its whole tree. The cost of a record whose tree was 
+     * paged out is the size of its pinned nodes.
+     *
+     *@return The estimated cost in bytes, or -1 if the record for
+     * epoch {@code ep} is not retained.
+     */
+    public synchronized long getMemoryCost(long ep) {
+        Long cost = memCosts.get(ep);
+        return cost == null ? -1 : cost;
+    }
+
+    /** Gets the estimated memory cost of all retained records,
+     * including the STRs of all epochs and the cold records.
+     *
+     *@return The estimated cost in bytes.
+     */
+    public synchronized long getTotalMemoryCost() {
+        return strs.size() * STR_BYTES + coldRecords.size() * COLD_RECORD_BYTES + residentCost;
+    }
+
+    /** Gets the record of the most recent epoch.
+     *
+     *@return The latest {@link ServerUtils.Record} or {@code null} if the
+     * history is empty.
+     */
+    public synchronized ServerUtils.Record getLatest() {
+        Map.Entry<Long, ServerUtils.Record> e = records.lastEntry();
+        return e == null ? null : e.getValue();
+    }
+
+    /** Gets the record for epoch {@code ep}, i.e. the record of the latest
+     * epoch that is not after {@code ep}. If that record is cold, a new record
+     * is loaded from the node store, which isn't linked to the previous record.
+     *
+     *@return The {@link ServerUtils.Record} for epoch {@code ep} or {@code null}
+     * if that epoch is older than all retained and cold records, or its
+     * cold record cannot be loaded.
+     */
+    public ServerUtils.Record getRecord(long ep) {
+        long coldEpoch;
+        ColdRecord cr;
+        synchronized (this) {
+            Map.Entry<Long, ServerUtils.Record> e = records.floorEntry(ep);
+            if (e != null) {
+                return e.getValue();
+            }
+
+            Map.Entry<Long, ColdRecord> c = coldRecords.floorEntry(ep);
+            if (c == null) {
+                return null;
+            }
+            coldEpoch = c.getKey();
+            cr = c.getValue();
+        }
+
+        // the store is append-only, so the cold root can be read without
+        // holding up the retained epochs
+        try {
+            RootNode root = store.loadRoot(cr.rootAddr, coldEpoch, cr.prev);
+            return new ServerUtils.Record(root, coldEpoch, cr.sig, null);
+        }
+        catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /** Gets the STRs for all epochs from the epoch in effect at
+     * {@code fromEp} up to {@code toEp}, in epoch order, but at most
+     * {@code limit} of them.
+     *
+     *@return The list of {@link EpochHistory.STR}s, which may be empty.
+     *@throws An {@code IOException} if the STRs cannot be read from the log.
+     */
+    public synchronized ArrayList<STR> getSTRRange(long fromEp, long toEp, int limit) 
+        throws IOException {
+        if (strLog != null) {
+            return strLog.getSTRRange(fromEp, toEp, limit);
+        }
+
+        ArrayList<STR> range = new ArrayList<STR>();
+
+        Long start = strs.floorKey(fromEp);
+        if (start == null) {
+            start = fromEp;
+        }
+        
+        if (start > toEp) {
+            return range;
+        }
+
+        for (STR s : strs.subMap(start, true, toEp, true).values()) {
+            if (range.size() >= limit) {
+                break;
+            }
+            range.add(s);
+        }
+        return range;
+    }
+
+    /** Gets the STR for epoch {@code ep}, i.e. the STR of the latest
+     * epoch that is not after {@code ep}. Unlike the records, the STRs
+     * of all epochs are available.
+     *
+     *@return The {@link EpochHistory.STR} for epoch {@code ep} or {@code null}
+     * if {@code ep} is older than the first epoch.
+     *@throws An {@code IOException} if the STR cannot be read from the log.
+     */
+    public synchronized STR getSTR(long ep) throws IOException {
+        if (strLog != null) {
+            return strLog.getSTR(ep);
+        }
+
+        Map.Entry<Long, STR> e = strs.floorEntry(ep);
+        return e == null ? null : e.getValue();
+    }
+
+    /** Gets the STR of the latest epoch, which may have been
+     * logged before the server was restarted.
+     *
+     *@return The latest {@link EpochHistory.STR} or {@code null} if
+     * the history is empty.
+     *@throws An {@code IOException} if the STR cannot be read from the log.
+     */
+    public synchronized STR getLatestSTR() throws IOException {
+        return getSTR(Long.MAX_VALUE);
+    }
+
+    /* Rough heap sizes for a 64-bit JVM with compressed references:
+     * 12-byte object headers, 4-byte references, 8-byte alignment. */
+    private static final long INTERIOR_NODE_BYTES = 40 + 2*48; // node + both hashes
+    private static final long USER_LEAF_NODE_BYTES = 56 + 2*48; // node + index and hash
+    // key blob + digest + its weak entry in the key store, if not shared
+    private static final long KEY_BLOB_BYTES = 24 + 48 + 72;
+    private static final long PAGED_NODE_BYTES = INTERIOR_NODE_BYTES + 32; // + store addresses
+    private static final long STR_BYTES = 24 + 48 + 16 + 48 + 64; // incl. map entry
+    private static final long COLD_RECORD_BYTES = 32 + 40 + 16; // incl. map entry and key
+
+    // rounds up to the JVM's 8-byte object alignment
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    // estimates the heap size of a string of the given length
+    private static long stringBytes(String s) {
+        if (s == null) {
+            return 0;
+        }
+        return 24 + align(16 + 2*s.length());
+    }
+
+    /** Estimates the heap size of the tree rooted at {@code root}
+     * by walking over all of its nodes. Subtrees in a {@link NodeStore}
+     * are not paged in, only their pinned nodes are counted.
+     *
+     *@return The estimated size in bytes.
+     */
+    public static long estimateTreeBytes(RootNode root) {
+        return estimateSubtreeBytes(root);
+    }
+
+    /** Estimates the heap size of the nodes of the tree rooted at {@code root}
+     * that changed since the previous epoch's tree, i.e. of the subtrees on 
+     * the dirty sides of its nodes, by walking over only those nodes.
+     *
+     *@return The estimated size in bytes.
+     */
+    public static long estimateChangedBytes(RootNode root) {
+        long bytes = INTERIOR_NODE_BYTES;
+
+        ArrayList<TreeNode> stack = new ArrayList<TreeNode>();
+        pushDirtyChildren(stack, root);
+        while (!stack.isEmpty()) {
+            TreeNode n = stack.remove(stack.size()-1);
+
+            if (n instanceof UserLeafNode) {
+                bytes += estimateLeafBytes((UserLeafNode)n);
+            }
+            else if (n instanceof PagedInteriorNode) {
+                bytes += PAGED_NODE_BYTES;
+            }
+            else if (n instanceof InteriorNode) {
+                bytes += INTERIOR_NODE_BYTES;
+                pushDirtyChildren(stack, (InteriorNode)n);
+            }
+        }
+        return bytes;
+    }
+
+    private static void pushDirtyChildren(ArrayList<TreeNode> stack, InteriorNode n) {
+        if (n.isLeftDirty() && n.getLeft() != null) {
+            stack.add(n.getLeft());
+        }
+        if (n.isRightDirty() && n.getRight() != null) {
+            stack.add(n.getRight());
+        }
+    }
+
+    // estimates the heap size of the in-memory nodes of the tree rooted at 
+    // old that the tree rooted at next no longer holds, i.e. of the old nodes 
+    // in the places of the subtrees on next's dirty sides
+    private static long estimateReplacedBytes(RootNode old, RootNode next) {
+        long bytes = INTERIOR_NODE_BYTES;
+
+        ArrayList<InteriorNode> olds = new ArrayList<InteriorNode>();
+        ArrayList<InteriorNode> nexts = new ArrayList<InteriorNode>();
+        olds.add(old);
+        nexts.add(next);
+        while (!olds.isEmpty()) {
+            InteriorNode o = olds.remove(olds.size()-1);
+            InteriorNode n = nexts.remove(nexts.size()-1);
+
+            if (n.isLeftDirty()) {
+                bytes += replacedBytes(residentChild(o, true), n.getLeft(), olds, nexts);
+            }
+            if (n.isRightDirty()) {
+                bytes += replacedBytes(residentChild(o, false), n.getRight(), olds, nexts);
+            }
+        }
+        return bytes;
+    }
+
+    // counts the old node o that the next tree replaced with n, and
+    // keeps walking both trees if they both have an interior node there
+    private static long replacedBytes(TreeNode o, TreeNode n, ArrayList<InteriorNode> olds,
+                                      ArrayList<InteriorNode> nexts) {
+        if (o == null || o == n) {
+            return 0;
+        }
+        if (o instanceof InteriorNode && n instanceof InteriorNode) {
+            olds.add((InteriorNode)o);
+            nexts.add((InteriorNode)n);
+            return o instanceof PagedInteriorNode ? PAGED_NODE_BYTES : INTERIOR_NODE_BYTES;
+        }
+        // none of the old subtree is in the next tree
+        return estimateSubtreeBytes(o);
+    }
+
+    // gets a child of n without paging it in, null if it's not in memory
+    private static TreeNode residentChild(InteriorNode n, boolean left) {
+        if (n instanceof PagedInteriorNode) {
+            PagedInteriorNode p = (PagedInteriorNode)n;
+            return left ? p.pinnedLeft : p.pinnedRight;
+        }
+        return left ? n.getLeft() : n.getRight();
+    }
+
+    private static long estimateLeafBytes(UserLeafNode uln) {
+        return USER_LEAF_NODE_BYTES + stringBytes(uln.getUsername())
+            + KEY_BLOB_BYTES + align(16 + uln.getPublicKeyBytes().length);
+    }
+
+    private static long estimateSubtreeBytes(TreeNode top) {
+        long bytes = 0;
+
+        ArrayList<TreeNode> stack = new ArrayList<TreeNode>();
+        stack.add(top);
+        while (!stack.isEmpty()) {
+            TreeNode n = stack.remove(stack.size()-1);
+
+            if (n instanceof UserLeafNode) {
+                bytes += estimateLeafBytes((UserLeafNode)n);
+            }
+            else if (n instanceof PagedInteriorNode) {
+                PagedInteriorNode p = (PagedInteriorNode)n;
+                bytes += PAGED_NODE_BYTES;
+                if (p.pinnedLeft != null) {
+                    stack.add(p.pinnedLeft);
+                }
+                if (p.pinnedRight != null) {
+                    stack.add(p.pinnedRight);
+                }
+            }
+            else if (n instanceof InteriorNode) {
+                bytes += INTERIOR_NODE_BYTES;
+                if (n.getLeft() != null) {
+                    stack.add(n.getLeft());
+                }
+                if (n.getRight() != null) {
+                    stack.add(n.getRight());
+                }
+            }
+        }
+        return bytes;
+    }
+
+    // an evicted record whose tree is in the node store; its prev hash and
+    // signature are shared with the record, so they're not counted in its cost
+    private static class ColdRecord {
+        long rootAddr;
+        byte[] prev;
+        byte[] sig;
+
+        ColdRecord(long rootAddr, byte[] prev, byte[] sig) {
+            this.rootAddr = rootAddr;
+            this.prev = prev;
+            this.sig = sig;
+        }
+    }
+
+    /** Represents the signed tree root of one epoch, without
+     * the Merkle tree itself.
+     */
+    public static class STR {
+        long epoch;
+        byte[] rootHash;
+        byte[] sig;
+
+        /** Constructs the STR for epoch {@code ep} with the
+         * root hash {@code rootHash} and the signature {@code sig}.
+         */
+        public STR(long ep, byte[] rootHash, byte[] sig) {
+            this.epoch = ep;
+            this.rootHash = rootHash;
+            this.sig = sig;
+        }
+
+        /** Gets this STR's epoch.
+         *
+         *@return This STR's epoch as a {@code long}.
+         */
+        public long getEpoch() {
+            return this.epoch;
+        }
+
+        /** Gets the hash of this STR's root node.
+         *
+         *@return The root hash as a {@code byte[]}.
+         */
+        public byte[] getRootHash() {
+            return this.rootHash;
+        }
+
+        /** Gets the signature on this STR's root node.
+         *
+         *@return The signature as a {@code byte[]}.
+         */
+        public byte[] getSignature() {
+            return this.sig;
+        }
+    }
+
+}
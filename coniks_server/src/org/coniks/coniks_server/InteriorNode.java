@@ -51,6 +51,10 @@ public class InteriorNode extends TreeNode implements Serializable {
     byte[] rightHash;
     boolean hasLeaf;
 
+    // set if the subtree hash was recomputed while building this epoch's tree
+    transient boolean leftDirty;
+    transient boolean rightDirty;
+
     /** Constructs an interior node with the given
      * parent tree node {@code p} and its level {@code lvl} 
      * within the tree.
@@ -64,7 +68,6 @@ public class InteriorNode extends TreeNode implements Serializable {
 	this.leftHash = null;
 	this.rightHash = null;
         this.hasLeaf = false;
-        this.name = ""; // for debugging
 
     }
 
@@ -84,7 +87,6 @@ public class InteriorNode extends TreeNode implements Serializable {
 	this.leftHash = lh;
 	this.rightHash = rh;
         this.hasLeaf = hasLeaf;
-        this.name = ""; // for debugging
     }
 
     /** Gets the hash of the left subtree.
@@ -105,6 +107,26 @@ public class InteriorNode extends TreeNode implements Serializable {
 	return this.rightHash;
     }
 
+    /** Checks whether the hash of the left subtree was recomputed
+     * while building this epoch's tree, i.e. whether the left subtree
+     * changed since the previous epoch.
+     *
+     *@return {@code true} if the left subtree changed, {@code false} otherwise.
+     */
+    public boolean isLeftDirty(){
+        return this.leftDirty;
+    }
+
+    /** Checks whether the hash of the right subtree was recomputed
+     * while building this epoch's tree, i.e. whether the right subtree
+     * changed since the previous epoch.
+     *
+     *@return {@code true} if the right subtree changed, {@code false} otherwise.
+     */
+    public boolean isRightDirty(){
+        return this.rightDirty;
+    }
+
     /** Checks whether the interior node has at least one
      * leaf node child.
      *
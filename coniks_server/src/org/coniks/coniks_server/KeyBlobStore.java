@@ -0,0 +1,188 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.coniks.coniks_server;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Implements a content-addressed store of public keys: each distinct 
+ * key is kept once, together with its SHA-256 digest, and is found by that 
+ * digest. User leaf nodes commit to the digest instead of the key itself,
+ * so hashing a leaf and the leaf in a proof no longer grow with the size
+ * of the key, and the key only has to be sent to clients that don't
+ * have it yet.
+ *<p>
+ * Keys are only held by the leaves that refer to them: a key that is
+ * no longer in any retained tree is dropped from the store by the garbage
+ * collector. The store isn't locked, so leaves can be constructed
+ * concurrently, e.g. while a stored tree is paged in.
+ */
+public class KeyBlobStore {
+
+    /** A public key in the store, i.e. its UTF-8 encoding
+     * and its SHA-256 digest. Blobs are compared by their digest.
+     */
+    public static final class Blob {
+        private final byte[] digest;
+        private final byte[] key;
+
+        private Blob(byte[] digest, byte[] key) {
+            this.digest = digest;
+            this.key = key;
+        }
+
+        /** Gets the SHA-256 digest of the key, without copying it. 
+         * It must not be modified.
+         *
+         *@return The digest as a {@code byte[]}.
+         */
+        public byte[] getDigest() {
+            return this.digest;
+        }
+
+        /** Gets the UTF-8 encoding of the key, without copying it.
+         * It must not be modified.
+         *
+         *@return The encoded key as a {@code byte[]}.
+         */
+        public byte[] getKey() {
+            return this.key;
+        }
+
+        public boolean equals(Object o) {
+            return (o instanceof Blob) && Arrays.equals(this.digest, ((Blob)o).digest);
+        }
+
+        public int hashCode() {
+            // the digest is already uniformly distributed
+            return (digest[0] & 0xff) << 24 | (digest[1] & 0xff) << 16 |
+                (digest[2] & 0xff) << 8 | (digest[3] & 0xff);
+        }
+    }
+
+    // maps the digest of each blob to the blob, so a blob with the same
+    // digest can be found; the entry is removed once the blob is collected
+    private static ConcurrentHashMap<Blob, BlobRef> blobs =
+        new ConcurrentHashMap<Blob, BlobRef>();
+    private static ReferenceQueue<Blob> collected = new ReferenceQueue<Blob>();
+
+    // a weak reference to a blob, which knows the digest it's stored under
+    private static final class BlobRef extends WeakReference<Blob> {
+        private final Blob id;
+
+        private BlobRef(Blob blob) {
+            super(blob, collected);
+            this.id = new Blob(blob.digest, null);
+        }
+    }
+
+    /** Prevents instantiation, the store is shared by all trees.
+     */
+    private KeyBlobStore() {
+    }
+
+    /** Adds the UTF-8 encoded public key {@code key}, which is not copied
+     * and must not be modified, to the store, unless an identical key is 
+     * already in it.
+     *
+     *@return The {@link KeyBlobStore.Blob} for the key.
+     */
+    public static Blob intern(byte[] key) {
+        return intern(ServerUtils.hash(key), key);
+    }
+
+    /** Adds the UTF-8 encoded public key {@code key} with the known SHA-256
+     * digest {@code digest} like {@link KeyBlobStore#intern(byte[])}, but
+     * without hashing the key, e.g. when the digest was stored with the key.
+     * Neither array is copied, and they must not be modified.
+     *
+     *@return The {@link KeyBlobStore.Blob} for the key.
+     */
+    public static Blob intern(byte[] digest, byte[] key) {
+        expunge();
+
+        Blob blob = new Blob(digest, key);
+        BlobRef ref = new BlobRef(blob);
+        while (true) {
+            BlobRef old = blobs.putIfAbsent(ref.id, ref);
+            if (old == null) {
+                return blob;
+            }
+            Blob stored = old.get();
+            if (stored != null) {
+                return stored;
+            }
+            // the stored blob was collected, but its entry is still there
+            if (blobs.replace(ref.id, old, ref)) {
+                return blob;
+            }
+        }
+    }
+
+    // removes the entries of the collected blobs
+    private static void expunge() {
+        BlobRef ref;
+        while ((ref = (BlobRef)collected.poll()) != null) {
+            blobs.remove(ref.id, ref);
+        }
+    }
+
+    /** Gets the key with the SHA-256 digest {@code digest}.
+     *
+     *@return The UTF-8 encoded key as a {@code byte[]}, which must not be
+     * modified, or {@code null} if no retained leaf has this key.
+     */
+    public static byte[] get(byte[] digest) {
+        if (digest == null || digest.length != ServerUtils.HASH_SIZE_BYTES) {
+            return null;
+        }
+        BlobRef ref = blobs.get(new Blob(digest, null));
+        Blob stored = ref == null ? null : ref.get();
+        return stored == null ? null : stored.key;
+    }
+
+    /** Gets the number of distinct keys in the store. Keys that are
+     * no longer referred to may still be counted until they are collected.
+     *
+     *@return The number of keys as an {@code int}.
+     */
+    public static int size() {
+        expunge();
+        return blobs.size();
+    }
+
+}
@@ -127,13 +127,9 @@ public class KeyOps{
             fis = new FileInputStream(config.TRUSTSTORE_PATH);
             ks.load(fis, ts_password);
 
-            if(ks.isKeyEntry(keyOwner)){
-                KeyStore.ProtectionParameter protParam = 
-                    new KeyStore.PasswordProtection(ts_password);
-
-                KeyStore.TrustedCertificateEntry pkEntry = (KeyStore.TrustedCertificateEntry)
-                    ks.getEntry(keyOwner, protParam);
-                publicKey = (RSAPublicKey)pkEntry.getTrustedCertificate().getPublicKey();
+            // a truststore holds certificate entries, which aren't key entries
+            if(ks.isCertificateEntry(keyOwner) || ks.isKeyEntry(keyOwner)){
+                publicKey = (RSAPublicKey)ks.getCertificate(keyOwner).getPublicKey();
             }
             else{
                 throw new CertificateException();
@@ -153,9 +149,6 @@ public class KeyOps{
         catch(KeyStoreException e){
             ServerLogger.error("KeyOps:loadPublicKey: Problem getting Keystore instance");
         }
-        catch(UnrecoverableEntryException e){
-            ServerLogger.error("KeyOps:loadPublicKey: specified protParam were insufficient or invalid");
-        }
         return null;
     }
 
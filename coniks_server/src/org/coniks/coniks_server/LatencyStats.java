@@ -0,0 +1,124 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+/** Keeps simple latency statistics for one kind of request: the number
+ * of requests, their mean and maximum latency, and a histogram with
+ * power-of-two buckets from which percentiles are estimated.
+ */
+public class LatencyStats {
+
+    private static final int NUM_BUCKETS = 64;
+
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+    private long[] buckets; // bucket i counts latencies in [2^(i-1), 2^i) ns
+
+    /** Constructs empty latency statistics.
+     */
+    public LatencyStats() {
+        this.buckets = new long[NUM_BUCKETS];
+    }
+
+    /** Adds a request that took {@code nanos} nanoseconds.
+     */
+    public synchronized void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        buckets[64 - Long.numberOfLeadingZeros(nanos)]++;
+    }
+
+    /** Gets the number of recorded requests.
+     *
+     *@return The number of requests.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /** Gets the mean latency of the recorded requests.
+     *
+     *@return The mean latency in microseconds, or 0 if there are no requests.
+     */
+    public synchronized double getMeanMicros() {
+        return count == 0 ? 0 : totalNanos / 1000.0 / count;
+    }
+
+    /** Gets the maximum latency of the recorded requests.
+     *
+     *@return The maximum latency in microseconds.
+     */
+    public synchronized double getMaxMicros() {
+        return maxNanos / 1000.0;
+    }
+
+    /** Estimates the {@code p}-th percentile (0 < p <= 100) of the latency
+     * of the recorded requests, i.e. the upper bound of the histogram 
+     * bucket it falls in.
+     *
+     *@return The estimated percentile in microseconds, or 0 if there are 
+     * no requests.
+     */
+    public synchronized double getPercentileMicros(double p) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long)Math.ceil(count * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min((double)(1L << i), maxNanos) / 1000.0;
+            }
+        }
+        return maxNanos / 1000.0;
+    }
+
+    /** Summarizes the statistics for the logs.
+     *
+     *@return The summary as a {@code String}.
+     */
+    public synchronized String toString() {
+        return String.format("%d requests, mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us",
+                             count, getMeanMicros(), getPercentileMicros(50), 
+                             getPercentileMicros(99), getMaxMicros());
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/** Iterates over the user leaf nodes of a CONIKS Merkle prefix tree
+ * in lookup index order, optionally only over those with lookup indices
+ * in a range [{@code fromIndex}, {@code toIndex}). This lets auditors,
+ * backups and migrations enumerate the directory without knowing the
+ * registered names.
+ *<p>
+ * The iterator only holds the right siblings of the nodes on the path to
+ * the next leaf, so it uses memory proportional to the depth of the tree,
+ * and paged out subtrees are only paged in once the iterator reaches them.
+ * The tree of a published epoch is never modified, so it can be iterated
+ * without any locks while lookups are served from it.
+ */
+public class LeafIterator implements Iterator<UserLeafNode> {
+
+    private byte[] fromIndex;
+    private byte[] toIndex;
+
+    // the subtrees still to be visited, the leftmost one last
+    private ArrayList<TreeNode> pending;
+    private UserLeafNode next;
+
+    /** Constructs an iterator over all user leaf nodes in the tree
+     * rooted at {@code root}.
+     */
+    public LeafIterator(RootNode root){
+        this(root, null, null);
+    }
+
+    /** Constructs an iterator over the user leaf nodes in the tree
+     * rooted at {@code root} with lookup indices from {@code fromIndex}
+     * (inclusive) up to {@code toIndex} (exclusive). A {@code null}
+     * bound is the start or the end of the index space.
+     */
+    public LeafIterator(RootNode root, byte[] fromIndex, byte[] toIndex){
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.pending = new ArrayList<TreeNode>();
+
+        if (fromIndex == null) {
+            pending.add(root);
+        }
+        else {
+            // skip the subtrees left of fromIndex's path, and visit
+            // the ones right of it later, deepest first
+            TreeNode curNode = root;
+            int depth = 0;
+            while (curNode instanceof InteriorNode) {
+                InteriorNode curNodeI = (InteriorNode)curNode;
+                if (ServerUtils.getNthBit(fromIndex, depth)) {
+                    curNode = curNodeI.getRight();
+                }
+                else {
+                    TreeNode right = curNodeI.getRight();
+                    if (right != null) {
+                        pending.add(right);
+                    }
+                    curNode = curNodeI.getLeft();
+                }
+                depth++;
+            }
+            if (curNode != null) {
+                pending.add(curNode);
+            }
+        }
+        advance();
+    }
+
+    // finds the next leaf in the range
+    private void advance(){
+        next = null;
+        while (!pending.isEmpty()) {
+            TreeNode curNode = pending.remove(pending.size()-1);
+
+            if (curNode instanceof UserLeafNode) {
+                UserLeafNode uln = (UserLeafNode)curNode;
+                // only the leaf on fromIndex's path may come before it
+                if (fromIndex != null && 
+                    ServerUtils.compareIndices(uln.getIndex(), fromIndex) < 0) {
+                    continue;
+                }
+                if (toIndex != null && 
+                    ServerUtils.compareIndices(uln.getIndex(), toIndex) >= 0) {
+                    pending.clear();
+                    return;
+                }
+                next = uln;
+                return;
+            }
+            else if (curNode instanceof InteriorNode) {
+                InteriorNode curNodeI = (InteriorNode)curNode;
+                TreeNode left = curNodeI.getLeft();
+                TreeNode right = curNodeI.getRight();
+                if (right != null) {
+                    pending.add(right);
+                }
+                if (left != null) {
+                    pending.add(left);
+                }
+            }
+        }
+    }
+
+    /** Checks whether there is another user leaf node in the range.
+     *
+     *@return {@code true} if there is another leaf, {@code false} otherwise.
+     */
+    public boolean hasNext(){
+        return next != null;
+    }
+
+    /** Gets the next user leaf node in the range without advancing.
+     *
+     *@return The next {@link UserLeafNode} or {@code null} if there is none.
+     */
+    public UserLeafNode peek(){
+        return next;
+    }
+
+    /** Gets the next user leaf node in the range.
+     *
+     *@return The next {@link UserLeafNode}.
+     *@throws A {@code NoSuchElementException} if there is no next leaf.
+     */
+    public UserLeafNode next(){
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        UserLeafNode uln = next;
+        advance();
+        return uln;
+    }
+
+    /** Leaves can't be removed from a published tree.
+     *
+     *@throws An {@code UnsupportedOperationException} always.
+     */
+    public void remove(){
+        throw new UnsupportedOperationException("the tree is read-only");
+    }
+
+}
@@ -0,0 +1,394 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/** Implements an on-disk store for the nodes of the published Merkle trees,
+ * so the server doesn't need to keep whole trees in memory.
+ * Once an epoch's tree is published, its in-memory nodes are appended to the
+ * store, and its root's subtrees are replaced by {@link PagedInteriorNode}s,
+ * which page their children in through a bounded {@link PageCache} whenever
+ * they're accessed. The nodes in the top levels of the tree, which every lookup
+ * visits, are pinned in memory instead.
+ *<p>
+ * Nodes are written before their parents, and each interior node refers to
+ * its children by their address, i.e. their offset in the store. Since the
+ * next epoch's tree only replaces the nodes on the paths to its new leaves,
+ * it shares all unchanged subtrees with the previous epoch's tree in the store.
+ * The store only serves the trees published since the server was started, so
+ * it is emptied when it is opened.
+ *<p>
+ * N.B. The store is never compacted: the nodes of evicted epochs aren't
+ * reclaimed until the server restarts. Each epoch with {@code n} new users
+ * appends about {@code n} leaf records and {@code n*log2(N)} interior records
+ * of 81 bytes to a store with {@code N} users, so the store grows with the
+ * number of registrations since the start rather than with the tree's size.
+ */
+public class NodeStore {
+
+    private static final byte INTERIOR_NODE = 1;
+    private static final byte USER_LEAF_NODE = 2;
+
+    // type, level, both hashes and both child addresses
+    private static final int INTERIOR_RECORD_BYTES = 1 + 4 + 2*ServerUtils.HASH_SIZE_BYTES + 8 + 8;
+    // type, level, epoch added, flags, index, key digest and the username's length
+    private static final int LEAF_HEADER_BYTES = 1 + 4 + 8 + 1 + 2*ServerUtils.HASH_SIZE_BYTES + 4;
+
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private PageCache cache;
+    private int pinnedLevels;
+
+    private ByteBuffer writeBuf;
+    private long size; // including the buffered writes
+    private long written; // the bytes written to the file
+
+    /** Opens the node store at {@code path}, discarding any nodes in it,
+     * with a cache of at most {@code cachePages} pages, and which pins
+     * the nodes in the top {@code pinnedLevels} levels of each tree.
+     *
+     *@throws An {@code IOException} if the store cannot be opened.
+     */
+    public NodeStore(String path, int cachePages, int pinnedLevels) throws IOException {
+        this.file = new RandomAccessFile(path, "rw");
+        this.file.setLength(0);
+        this.channel = file.getChannel();
+        this.cache = new PageCache(channel, cachePages);
+        this.pinnedLevels = pinnedLevels;
+        this.writeBuf = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+        this.size = 0;
+        this.written = 0;
+    }
+
+    /** Appends all in-memory nodes of the published tree rooted at {@code root}
+     * to the store and syncs them to disk. Then replaces the root's subtrees
+     * with the stored ones, so the in-memory nodes can be garbage collected.
+     * If this fails, the tree is left in memory.
+     *
+     *@return The address of the stored root, from which the tree can be 
+     * loaded again with {@link NodeStore#loadRoot(long, long, byte[])}.
+     *@throws An {@code IOException} if the nodes cannot be written.
+     */
+    public synchronized long pageOut(RootNode root) throws IOException {
+        long la = writeNode(root.getLeft());
+        long ra = writeNode(root.getRight());
+        return attachRoot(root, la, ra);
+    }
+
+    /** Appends the user leaf node {@code uln}, e.g. one read from a snapshot
+     * that is streamed into the store. Its parent is appended after it with
+     * {@link NodeStore#appendInteriorNode(int, byte[], byte[], long, long)}.
+     *
+     *@return The address of the stored leaf.
+     *@throws An {@code IOException} if the leaf cannot be written.
+     */
+    public synchronized long appendLeaf(UserLeafNode uln) throws IOException {
+        return writeNode(uln);
+    }
+
+    /** Appends an interior node with the level {@code level}, the subtree
+     * hashes {@code lh} and {@code rh}, and the addresses {@code la} and
+     * {@code ra} of its children, which are already in the store (-1 for
+     * no child).
+     *
+     *@return The address of the stored node.
+     *@throws An {@code IOException} if the node cannot be written.
+     */
+    public synchronized long appendInteriorNode(int level, byte[] lh, byte[] rh, 
+                                                long la, long ra) 
+        throws IOException {
+        return writeInteriorNode(level, lh, rh, la, ra);
+    }
+
+    /** Appends the root node {@code root}, whose children are the stored
+     * nodes at the addresses {@code la} and {@code ra}, and syncs the store
+     * to disk. Then replaces the root's subtrees with the stored ones, pinning
+     * their top levels.
+     *
+     *@return The address of the stored root.
+     *@throws An {@code IOException} if the root cannot be written or its
+     * children cannot be read.
+     */
+    public synchronized long attachRoot(RootNode root, long la, long ra) throws IOException {
+        long rootAddr = writeInteriorNode(root.getLevel(), root.getLeftHash(), 
+                                          root.getRightHash(), la, ra);
+        flush();
+        channel.force(false);
+        cache.setReadableSize(written);
+
+        try {
+            TreeNode l = load(la, root);
+            TreeNode r = load(ra, root);
+            pin(l);
+            pin(r);
+            root.setChildren(l, r);
+        }
+        catch (IllegalStateException e) {
+            throw new IOException(e.getMessage());
+        }
+
+        return rootAddr;
+    }
+
+    // writes the in-memory nodes of the subtree n, children first,
+    // and returns n's address
+    private long writeNode(TreeNode n) throws IOException {
+        if (n == null) {
+            return -1;
+        }
+
+        if (n instanceof PagedInteriorNode && ((PagedInteriorNode)n).store == this) {
+            return ((PagedInteriorNode)n).addr;
+        }
+
+        if (n instanceof UserLeafNode) {
+            UserLeafNode uln = (UserLeafNode)n;
+            byte[] name = uln.getUsername().getBytes(StandardCharsets.UTF_8);
+            byte[] pk = uln.getPublicKeyBytes();
+            byte[] index = uln.getIndex();
+            if (index == null) {
+                index = ServerUtils.unameToIndex(uln.getUsername());
+            }
+
+            ByteBuffer rec = ByteBuffer.allocate(LEAF_HEADER_BYTES + name.length + 4 + pk.length);
+            rec.put(USER_LEAF_NODE);
+            rec.putInt(uln.getLevel());
+            rec.putLong(uln.getEpochAdded());
+            rec.put(uln.getFlags());
+            rec.put(index);
+            rec.put(uln.getKeyDigest());
+            rec.putInt(name.length);
+            rec.put(name);
+            rec.putInt(pk.length);
+            rec.put(pk);
+            return append(rec.array());
+        }
+
+        InteriorNode in = (InteriorNode)n;
+        if (in.getLeftHash() == null || in.getRightHash() == null) {
+            throw new IOException("the tree has a subtree without a hash");
+        }
+
+        long la = writeNode(in.getLeft());
+        long ra = writeNode(in.getRight());
+        return writeInteriorNode(in.getLevel(), in.getLeftHash(), in.getRightHash(), la, ra);
+    }
+
+    private long writeInteriorNode(int level, byte[] lh, byte[] rh, long la, long ra) 
+        throws IOException {
+        ByteBuffer rec = ByteBuffer.allocate(INTERIOR_RECORD_BYTES);
+        rec.put(INTERIOR_NODE);
+        rec.putInt(level);
+        rec.put(lh);
+        rec.put(rh);
+        rec.putLong(la);
+        rec.putLong(ra);
+        return append(rec.array());
+    }
+
+    // buffers the record and returns its address
+    private long append(byte[] rec) throws IOException {
+        long addr = size;
+        if (rec.length > writeBuf.remaining()) {
+            flush();
+        }
+
+        if (rec.length > writeBuf.remaining()) {
+            writeFully(ByteBuffer.wrap(rec));
+        }
+        else {
+            writeBuf.put(rec);
+        }
+        size += rec.length;
+        return addr;
+    }
+
+    private void flush() throws IOException {
+        writeBuf.flip();
+        writeFully(writeBuf);
+        writeBuf.clear();
+    }
+
+    private void writeFully(ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            written += channel.write(buf, written);
+        }
+    }
+
+    // keeps the top levels of the subtree n in memory
+    private void pin(TreeNode n) {
+        ArrayList<TreeNode> stack = new ArrayList<TreeNode>();
+        if (n != null) {
+            stack.add(n);
+        }
+
+        while (!stack.isEmpty()) {
+            TreeNode cur = stack.remove(stack.size()-1);
+            if (!(cur instanceof PagedInteriorNode) || cur.getLevel() >= pinnedLevels) {
+                continue;
+            }
+
+            PagedInteriorNode p = (PagedInteriorNode)cur;
+            p.pin();
+            if (p.pinnedLeft != null) {
+                stack.add(p.pinnedLeft);
+            }
+            if (p.pinnedRight != null) {
+                stack.add(p.pinnedRight);
+            }
+        }
+    }
+
+    /** Pages in the node at address {@code addr} with the parent tree node
+     * {@code parent}. Interior nodes are loaded as {@link PagedInteriorNode}s,
+     * and user leaf nodes as new {@link UserLeafNode}s.
+     *
+     *@return The loaded {@link TreeNode}, or {@code null} if {@code addr} is -1.
+     *@throws An {@code IllegalStateException} if the node cannot be read,
+     * since this is called when a paged node's children are accessed.
+     */
+    public TreeNode load(long addr, TreeNode parent) {
+        if (addr < 0) {
+            return null;
+        }
+
+        try {
+            // no record is shorter than an interior node's
+            byte[] rec = new byte[INTERIOR_RECORD_BYTES];
+            cache.read(addr, rec, rec.length);
+            ByteBuffer in = ByteBuffer.wrap(rec);
+
+            byte type = in.get();
+            int level = in.getInt();
+            
+            if (type == INTERIOR_NODE) {
+                byte[] lh = new byte[ServerUtils.HASH_SIZE_BYTES];
+                byte[] rh = new byte[ServerUtils.HASH_SIZE_BYTES];
+                in.get(lh);
+                in.get(rh);
+                return new PagedInteriorNode(this, addr, parent, level, lh, rh, 
+                                             in.getLong(), in.getLong());
+            }
+            else if (type != USER_LEAF_NODE) {
+                throw new IOException("bad node type "+type);
+            }
+
+            byte[] header = new byte[LEAF_HEADER_BYTES];
+            cache.read(addr, header, header.length);
+            in = ByteBuffer.wrap(header, 5, header.length-5);
+
+            long epochAdded = in.getLong();
+            byte flags = in.get();
+            byte[] index = new byte[ServerUtils.HASH_SIZE_BYTES];
+            in.get(index);
+            byte[] digest = new byte[ServerUtils.HASH_SIZE_BYTES];
+            in.get(digest);
+            int nameLen = in.getInt();
+
+            byte[] name = new byte[nameLen + 4];
+            cache.read(addr+LEAF_HEADER_BYTES, name, name.length);
+            int pkLen = ByteBuffer.wrap(name, nameLen, 4).getInt();
+            byte[] pk = new byte[pkLen];
+            cache.read(addr+LEAF_HEADER_BYTES+name.length, pk, pkLen);
+
+            UserLeafNode uln = new UserLeafNode(new String(name, 0, nameLen, StandardCharsets.UTF_8),
+                                                pk, digest, epochAdded, level, index, flags);
+            uln.setParent(parent);
+            return uln;
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("could not page in the node at "+addr+": "+
+                                            e.getMessage());
+        }
+    }
+
+    /** Loads the root of the tree for epoch {@code ep} with the previous epoch's
+     * root hash {@code prev} from the address {@code addr} returned by 
+     * {@link NodeStore#pageOut(RootNode)}. Only the root is read, the rest
+     * of the tree is paged in as it's accessed.
+     *
+     *@return The {@link RootNode} of the stored tree.
+     *@throws An {@code IOException} if the root cannot be read.
+     */
+    public RootNode loadRoot(long addr, long ep, byte[] prev) throws IOException {
+        try {
+            TreeNode n = load(addr, null);
+            if (!(n instanceof PagedInteriorNode)) {
+                throw new IOException("no root at address "+addr);
+            }
+            PagedInteriorNode p = (PagedInteriorNode)n;
+
+            RootNode root = new RootNode(null, null, p.getLevel(), prev, ep,
+                                         p.getLeftHash(), p.getRightHash());
+            root.setChildren(load(p.leftAddr, root), load(p.rightAddr, root));
+            return root;
+        }
+        catch (IllegalStateException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /** Gets the size of the store.
+     *
+     *@return The size in bytes.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /** Gets this store's page cache, e.g. to report its hit rate.
+     *
+     *@return The store's {@link PageCache}.
+     */
+    public PageCache getCache() {
+        return cache;
+    }
+
+    /** Closes the store.
+     *
+     *@throws An {@code IOException} if the file cannot be closed.
+     */
+    public synchronized void close() throws IOException {
+        file.close();
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Implements a bounded cache of the fixed-size pages of a file,
+ * which evicts the least recently used page once it is full.
+ * Only the part of the file that was marked as readable is read, since
+ * it must not change anymore, and only complete pages are cached, so the
+ * last page of a file that is still growing is always read from the file.
+ *<p>
+ * The pages are spread over {@link PageCache#STRIPES} stripes by their
+ * page number, each with its own lock and its own share of the pages, so
+ * concurrent lookups only contend when they read pages of the same stripe.
+ * Pages are read from the file without holding any lock.
+ */
+public class PageCache {
+
+    /** The size of a page in bytes.
+     */
+    public static final int PAGE_SIZE = 4096;
+
+    /** The number of independently locked parts of the cache.
+     */
+    public static final int STRIPES = 16;
+
+    private FileChannel channel;
+    private Stripe[] stripes;
+    private volatile long readableSize;
+
+    // the pages of one stripe and its hit counts, guarded by the stripe
+    private static class Stripe {
+        LinkedHashMap<Long, byte[]> pages;
+        long hits;
+        long misses;
+
+        Stripe(final int maxPages) {
+            this.pages = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                    return size() > maxPages;
+                }
+            };
+            this.hits = 0;
+            this.misses = 0;
+        }
+    }
+
+    /** Constructs a cache of at most {@code maxPages} pages of the file
+     * opened as {@code channel}.
+     */
+    public PageCache(FileChannel channel, int maxPages) {
+        this.channel = channel;
+        this.stripes = new Stripe[STRIPES];
+        // round up, so a small cache still holds a page per stripe
+        int stripePages = (int)Math.max(((long)maxPages+STRIPES-1)/STRIPES, 1);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripePages);
+        }
+        this.readableSize = 0;
+    }
+
+    /** Allows reads of the first {@code size} bytes of the file, once
+     * they have been written.
+     */
+    public void setReadableSize(long size) {
+        this.readableSize = size;
+    }
+
+    /** Reads {@code len} bytes at {@code offset} of the file into
+     * {@code dst}, paging them in as needed.
+     *
+     *@throws An {@code IOException} if the bytes cannot be read.
+     */
+    public void read(long offset, byte[] dst, int len) throws IOException {
+        int done = 0;
+        while (done < len) {
+            long pageNo = (offset+done) / PAGE_SIZE;
+            int pageOff = (int)((offset+done) % PAGE_SIZE);
+            byte[] page = getPage(pageNo);
+
+            int n = Math.min(len-done, page.length-pageOff);
+            if (n <= 0) {
+                throw new EOFException("read past the end of the file at "+(offset+done));
+            }
+            System.arraycopy(page, pageOff, dst, done, n);
+            done += n;
+        }
+    }
+
+    // gets the page from its stripe, or reads it from the file;
+    // two threads that miss the same page may both read it
+    private byte[] getPage(long pageNo) throws IOException {
+        Stripe stripe = stripes[(int)(pageNo % STRIPES)];
+        synchronized (stripe) {
+            byte[] page = stripe.pages.get(pageNo);
+            if (page != null) {
+                stripe.hits++;
+                return page;
+            }
+            stripe.misses++;
+        }
+
+        long start = pageNo * PAGE_SIZE;
+        int len = (int)Math.min(PAGE_SIZE, readableSize-start);
+        if (len <= 0) {
+            return new byte[0];
+        }
+        
+        byte[] page = new byte[len];
+        ByteBuffer buf = ByteBuffer.wrap(page);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, start+buf.position()) < 0) {
+                throw new EOFException("page "+pageNo+" is truncated");
+            }
+        }
+
+        if (len == PAGE_SIZE) {
+            synchronized (stripe) {
+                stripe.pages.put(pageNo, page);
+            }
+        }
+        return page;
+    }
+
+    /** Drops all pages from the cache, e.g. after the file is truncated.
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.pages.clear();
+            }
+        }
+    }
+
+    /** Gets the number of pages currently cached.
+     *
+     *@return The number of cached pages.
+     */
+    public int getNumPages() {
+        int n = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                n += stripe.pages.size();
+            }
+        }
+        return n;
+    }
+
+    /** Gets the number of page reads served from the cache so far.
+     *
+     *@return The number of cache hits.
+     */
+    public long getHits() {
+        long n = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                n += stripe.hits;
+            }
+        }
+        return n;
+    }
+
+    /** Gets the number of page reads that went to the file so far.
+     *
+     *@return The number of cache misses.
+     */
+    public long getMisses() {
+        long n = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                n += stripe.misses;
+            }
+        }
+        return n;
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+import java.lang.ref.WeakReference;
+
+/** Represents an interior node of a published CONIKS Merkle prefix tree
+ * whose subtrees are stored in a {@link NodeStore}. The node only holds
+ * its subtree hashes and the addresses of its children, which
+ * are paged in from the store when they are accessed. The paged-in
+ * children are kept through weak references, so repeated accesses reuse
+ * them while they're in use, e.g. by a lookup that walks this node's
+ * path, but the paged-in subtrees don't stay in the heap.
+ *<p>
+ * Paged nodes are never modified: when the next epoch's tree is built,
+ * each paged node on the path to a new leaf is replaced by an
+ * in-memory copy (see {@link PagedInteriorNode#materialize(TreeNode)}).
+ */
+public class PagedInteriorNode extends InteriorNode {
+
+    private static final long serialVersionUID = 1L;
+
+    transient NodeStore store;
+    long addr;
+    long leftAddr;
+    long rightAddr;
+
+    // the children of a node in one of the store's pinned levels
+    transient TreeNode pinnedLeft;
+    transient TreeNode pinnedRight;
+
+    // the last paged-in children of a node that isn't pinned
+    private transient volatile WeakReference<TreeNode> loadedLeft;
+    private transient volatile WeakReference<TreeNode> loadedRight;
+
+    /** Constructs a paged interior node stored at address {@code addr} of
+     * {@code store}, with the given parent tree node {@code p}, level {@code lvl},
+     * subtree hashes {@code lh} and {@code rh}, and the addresses of its left
+     * and right children {@code la} and {@code ra} (-1 for no child).
+     */
+    public PagedInteriorNode(NodeStore store, long addr, TreeNode p, int lvl, 
+                             byte[] lh, byte[] rh, long la, long ra) {
+        super(null, null, p, lvl, lh, rh, false);
+        this.store = store;
+        this.addr = addr;
+        this.leftAddr = la;
+        this.rightAddr = ra;
+    }
+
+    /** Gets this node's address in its store.
+     *
+     *@return The address as a {@code long}.
+     */
+    public long getAddress() {
+        return this.addr;
+    }
+
+    /** Gets this node's left subtree, paging it in if needed.
+     *
+     *@return The left subtree as a {@link TreeNode}.
+     *@throws An {@code IllegalStateException} if the subtree cannot be read.
+     */
+    public TreeNode getLeft() {
+        if (pinnedLeft != null) {
+            return pinnedLeft;
+        }
+        TreeNode l = loaded(loadedLeft);
+        if (l == null && leftAddr >= 0) {
+            l = store.load(leftAddr, this);
+            loadedLeft = new WeakReference<TreeNode>(l);
+        }
+        return l;
+    }
+
+    /** Gets this node's right subtree, paging it in if needed.
+     *
+     *@return The right subtree as a {@link TreeNode}.
+     *@throws An {@code IllegalStateException} if the subtree cannot be read.
+     */
+    public TreeNode getRight() {
+        if (pinnedRight != null) {
+            return pinnedRight;
+        }
+        TreeNode r = loaded(loadedRight);
+        if (r == null && rightAddr >= 0) {
+            r = store.load(rightAddr, this);
+            loadedRight = new WeakReference<TreeNode>(r);
+        }
+        return r;
+    }
+
+    // gets the child held by ref, or null if it was never paged in or was collected
+    private static TreeNode loaded(WeakReference<TreeNode> ref) {
+        return ref == null ? null : ref.get();
+    }
+
+    /** Keeps both subtrees of this node in memory, so they are no
+     * longer paged in on every access.
+     */
+    void pin() {
+        this.pinnedLeft = getLeft();
+        this.pinnedRight = getRight();
+        this.loadedLeft = null;
+        this.loadedRight = null;
+    }
+
+    /** Creates an in-memory copy of this node with the parent tree node
+     * {@code parent}, which may be modified. Its children are copies of this
+     * node's children, i.e. paged nodes or user leaf nodes.
+     *
+     *@return The in-memory {@link InteriorNode}.
+     */
+    public InteriorNode materialize(TreeNode parent) {
+        InteriorNode n = new InteriorNode(null, null, parent, this.level,
+                                          this.leftHash, this.rightHash, false);
+        TreeNode l = getLeft();
+        TreeNode r = getRight();
+        if (l != null) {
+            n.left = l.clone(n, 0, 0);
+        }
+        if (r != null) {
+            n.right = r.clone(n, 0, 0);
+        }
+        return n;
+    }
+
+    /** Clones this paged node with the given {@code parent} tree node.
+     * Since paged nodes are never modified, the clone shares the stored
+     * subtrees, which are not copied.
+     *
+     *@return The cloned paged node.
+     */
+    public TreeNode clone(TreeNode parent, long ep0, long ep1) {
+        return new PagedInteriorNode(store, addr, parent, level, leftHash, rightHash,
+                                     leftAddr, rightAddr);
+    }
+
+} // ends PagedInteriorNode
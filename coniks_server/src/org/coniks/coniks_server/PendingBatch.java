@@ -0,0 +1,490 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.coniks.coniks_server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+
+/** Buffers a batch of new user leaf nodes and sorts them by their
+ * full lookup indices, so they can be inserted into the Merkle prefix
+ * tree from left to right. The indices are copied into a single array 
+ * and sorted with an MSD radix sort, which only permutes an array of 
+ * positions, so adding a node costs no comparisons or boxed objects.
+ *<p>
+ * A batch can be given a spill directory and a maximum number of nodes
+ * to keep in memory. Whenever the batch reaches this maximum, the nodes 
+ * are sorted and written to a run file in the spill directory, and only
+ * their bindings and leaf hashes are read back when the batch is scanned
+ * in sorted order with {@link PendingBatch#startScan()} and 
+ * {@link PendingBatch#next()}, which merges all runs. So the heap used by the batch stays bounded 
+ * however many nodes are added.
+ */
+public class PendingBatch {
+
+    // buckets smaller than this are sorted by insertion sort
+    private static final int INSERTION_SORT_SIZE = 32;
+
+    private static final int INDEX_BYTES = ServerUtils.HASH_SIZE_BYTES;
+
+    // the maximum number of runs merged at once, more runs are first
+    // merged into longer runs so a scan doesn't open too many files
+    private static final int MAX_MERGED_RUNS = 64;
+
+    private byte[] indices;
+    private UserLeafNode[] leaves;
+    private int size;
+
+    // the positions of the nodes in sorted order, null until sorted
+    private int[] order;
+
+    // the directory of the run files, maxInMemory is 0 if the batch doesn't spill
+    private File spillDir;
+    private int maxInMemory;
+
+    // the sorted runs written so far, and the number of nodes in them
+    private ArrayList<File> runs;
+    private int spilled;
+
+    // the runs being merged by a scan, and the next in-memory node
+    private PriorityQueue<Run> merging;
+    private int scanPos;
+
+    /** Constructs an empty batch with room for {@code capacity} 
+     * nodes; it grows as needed and never spills to disk.
+     */
+    public PendingBatch(int capacity) {
+        this(capacity, null, 0);
+    }
+
+    /** Constructs an empty batch with room for {@code capacity} 
+     * nodes, which spills its nodes to sorted run files in the directory
+     * {@code spillDir} whenever it holds {@code maxInMemory} nodes. 
+     * If {@code spillDir} is {@code null} or {@code maxInMemory} isn't 
+     * positive, the batch keeps all nodes in memory.
+     */
+    public PendingBatch(int capacity, File spillDir, int maxInMemory) {
+        this.spillDir = spillDir;
+        this.maxInMemory = 0;
+        if (spillDir != null && maxInMemory > 0) {
+            this.maxInMemory = maxInMemory;
+            capacity = Math.min(capacity, maxInMemory);
+        }
+        capacity = Math.max(capacity, 1);
+        this.indices = new byte[capacity*INDEX_BYTES];
+        this.leaves = new UserLeafNode[capacity];
+        this.size = 0;
+        this.order = null;
+        this.runs = new ArrayList<File>();
+        this.spilled = 0;
+    }
+
+    /** Adds the user leaf node {@code uln} with the lookup index
+     * {@code index} to the batch. If the nodes in memory cannot be 
+     * written to a run file, they are kept in memory and the batch
+     * stops spilling.
+     */
+    public void add(byte[] index, UserLeafNode uln) {
+        if (maxInMemory > 0 && size == maxInMemory && !spill()) {
+            maxInMemory = 0;
+        }
+        if (size == leaves.length) {
+            UserLeafNode[] l = new UserLeafNode[2*size];
+            System.arraycopy(leaves, 0, l, 0, size);
+            leaves = l;
+            byte[] ind = new byte[2*size*INDEX_BYTES];
+            System.arraycopy(indices, 0, ind, 0, size*INDEX_BYTES);
+            indices = ind;
+        }
+        System.arraycopy(index, 0, indices, size*INDEX_BYTES, INDEX_BYTES);
+        leaves[size] = uln;
+        size++;
+        order = null;
+    }
+
+    /** Gets the number of nodes in the batch, including the spilled ones.
+     *
+     *@return The number of nodes.
+     */
+    public int size() {
+        return spilled+size;
+    }
+
+    /** Gets the number of run files the batch has spilled to disk.
+     *
+     *@return The number of runs.
+     */
+    public int getRunCount() {
+        return runs.size();
+    }
+
+    /** Removes all nodes from the batch, and deletes its run files.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            leaves[i] = null;
+        }
+        size = 0;
+        order = null;
+        closeRuns();
+        for (File run : runs) {
+            run.delete();
+        }
+        runs.clear();
+        spilled = 0;
+    }
+
+    /** Starts a scan of all nodes of the batch in sorted order: if the
+     * batch has spilled, the remaining nodes in memory are spilled as well,
+     * and the runs are merged as the nodes are read with
+     * {@link PendingBatch#next()}. No nodes may be added during the scan.
+     *
+     *@throws An {@code IOException} if a run cannot be written or read.
+     */
+    public void startScan() throws IOException {
+        closeRuns();
+        scanPos = 0;
+        if (runs.isEmpty()) {
+            sort();
+            return;
+        }
+        if (size > 0 && !spill()) {
+            throw new IOException("Could not spill the pending batch to "+spillDir);
+        }
+
+        // merge the oldest runs into one until few enough are left
+        while (runs.size() > MAX_MERGED_RUNS) {
+            ArrayList<File> oldest = new ArrayList<File>(runs.subList(0, MAX_MERGED_RUNS));
+            File merged = File.createTempFile("pending-", ".run", spillDir);
+            runs.add(merged); // so it's deleted by clear() even if the merge fails
+            openRuns(oldest);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                                                        new FileOutputStream(merged)));
+            try {
+                UserLeafNode uln = next();
+                while (uln != null) {
+                    writeNode(out, uln.getIndex(), 0, uln);
+                    uln = next();
+                }
+            }
+            finally {
+                out.close();
+                closeRuns();
+            }
+            for (File f : oldest) {
+                f.delete();
+            }
+            runs.subList(0, MAX_MERGED_RUNS).clear();
+        }
+        openRuns(runs);
+    }
+
+    /** Reads the next node of the scan started by 
+     * {@link PendingBatch#startScan()}. Spilled nodes are read back as
+     * new {@link UserLeafNode}s.
+     *
+     *@return The next {@link UserLeafNode} in sorted order, or {@code null}
+     * if all nodes have been read.
+     *@throws An {@code IOException} if a run cannot be read.
+     */
+    public UserLeafNode next() throws IOException {
+        if (merging == null) {
+            return scanPos < size ? leaves[order[scanPos++]] : null;
+        }
+        Run run = merging.poll();
+        if (run == null) {
+            return null;
+        }
+        UserLeafNode uln = run.head;
+        if (run.advance()) {
+            merging.add(run);
+        }
+        else {
+            run.close();
+        }
+        return uln;
+    }
+
+    /** Sorts the batch by the nodes' lookup indices, as unsigned
+     * big-endian numbers, i.e. in the order of the nodes' leaves 
+     * in the tree from left to right.
+     */
+    public void sort() {
+        if (order != null) {
+            return;
+        }
+        order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        radixSort(order, new int[size], 0, size, 0);
+    }
+
+    /** Gets the {@code i}-th node in memory in sorted order.
+     *
+     *@return The {@link UserLeafNode}.
+     *@throws An {@code IllegalStateException} if the batch hasn't been sorted.
+     */
+    public UserLeafNode get(int i) {
+        if (order == null) {
+            throw new IllegalStateException("batch isn't sorted");
+        }
+        return leaves[order[i]];
+    }
+
+    /** Gets the lookup index of the {@code i}-th node in memory
+     * in sorted order.
+     *
+     *@return The lookup index as a {@code byte[]}.
+     *@throws An {@code IllegalStateException} if the batch hasn't been sorted.
+     */
+    public byte[] getIndex(int i) {
+        if (order == null) {
+            throw new IllegalStateException("batch isn't sorted");
+        }
+        byte[] index = new byte[INDEX_BYTES];
+        System.arraycopy(indices, order[i]*INDEX_BYTES, index, 0, INDEX_BYTES);
+        return index;
+    }
+
+    // sorts the nodes in memory and writes them to a new run file,
+    // returns false if the run cannot be written
+    private boolean spill() {
+        File f = null;
+        try {
+            f = File.createTempFile("pending-", ".run", spillDir);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                                                        new FileOutputStream(f)));
+            try {
+                sort();
+                for (int i = 0; i < size; i++) {
+                    writeNode(out, indices, order[i]*INDEX_BYTES, leaves[order[i]]);
+                }
+            }
+            finally {
+                out.close();
+            }
+        }
+        catch (IOException e) {
+            if (f != null) {
+                f.delete();
+            }
+            return false;
+        }
+        runs.add(f);
+        spilled += size;
+        for (int i = 0; i < size; i++) {
+            leaves[i] = null;
+        }
+        size = 0;
+        order = null;
+        return true;
+    }
+
+    private void openRuns(ArrayList<File> files) throws IOException {
+        merging = new PriorityQueue<Run>(files.size());
+        for (File f : files) {
+            Run run = new Run(f);
+            if (run.advance()) {
+                merging.add(run);
+            }
+            else {
+                run.close();
+            }
+        }
+    }
+
+    private void closeRuns() {
+        if (merging == null) {
+            return;
+        }
+        for (Run run : merging) {
+            run.close();
+        }
+        merging = null;
+    }
+
+    // writes the binding of uln with the lookup index at index[off] to a run
+    private static void writeNode(DataOutputStream out, byte[] index, int off, 
+                                  UserLeafNode uln) throws IOException {
+        out.write(index, off, INDEX_BYTES);
+        writeString(out, uln.getUsername());
+        writeBytes(out, uln.getPublicKeyBytes());
+        out.write(uln.getKeyDigest());
+        out.writeLong(uln.getEpochAdded());
+        out.writeByte(uln.getFlags());
+        out.write(uln.getHash());
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] b) throws IOException {
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] b = new byte[in.readInt()];
+        in.readFully(b);
+        return b;
+    }
+
+    /** A sorted run file being merged, ordered by the lookup index
+     * of its next node.
+     */
+    private static class Run implements Comparable<Run> {
+
+        private DataInputStream in;
+        private UserLeafNode head;
+
+        private Run(File f) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+            this.head = null;
+        }
+
+        // reads the next node of the run into head,
+        // returns false at the end of the run
+        private boolean advance() throws IOException {
+            byte[] index = new byte[INDEX_BYTES];
+            try {
+                in.readFully(index);
+            }
+            catch (EOFException e) {
+                head = null;
+                return false;
+            }
+            String uname = new String(readBytes(in), StandardCharsets.UTF_8);
+            byte[] pk = readBytes(in);
+            byte[] digest = new byte[ServerUtils.HASH_SIZE_BYTES];
+            in.readFully(digest);
+            long epochAdded = in.readLong();
+            head = new UserLeafNode(uname, pk, digest, epochAdded, 0, index, in.readByte());
+            head.hash = new byte[ServerUtils.HASH_SIZE_BYTES];
+            in.readFully(head.hash);
+            return true;
+        }
+
+        private void close() {
+            try {
+                in.close();
+            }
+            catch (IOException e) {
+                // nothing more is read from the run
+            }
+        }
+
+        public int compareTo(Run other) {
+            byte[] a = head.getIndex();
+            byte[] b = other.head.getIndex();
+            for (int i = 0; i < INDEX_BYTES; i++) {
+                int diff = (a[i] & 0xff) - (b[i] & 0xff);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return 0;
+        }
+    }
+
+    // sorts the positions in pos[lo, hi), whose indices are equal 
+    // up to byte b, by byte b and the following bytes
+    private void radixSort(int[] pos, int[] tmp, int lo, int hi, int b) {
+        if (hi-lo < INSERTION_SORT_SIZE) {
+            insertionSort(pos, lo, hi, b);
+            return;
+        }
+
+        int[] counts = new int[257];
+        for (int i = lo; i < hi; i++) {
+            counts[(indices[pos[i]*INDEX_BYTES+b] & 0xff)+1]++;
+        }
+        for (int d = 0; d < 256; d++) {
+            counts[d+1] += counts[d];
+        }
+        int[] starts = counts.clone();
+        for (int i = lo; i < hi; i++) {
+            tmp[lo + counts[indices[pos[i]*INDEX_BYTES+b] & 0xff]++] = pos[i];
+        }
+        System.arraycopy(tmp, lo, pos, lo, hi-lo);
+
+        if (b+1 == INDEX_BYTES) {
+            return;
+        }
+        for (int d = 0; d < 256; d++) {
+            if (starts[d+1]-starts[d] > 1) {
+                radixSort(pos, tmp, lo+starts[d], lo+starts[d+1], b+1);
+            }
+        }
+    }
+
+    // sorts the positions in pos[lo, hi), whose indices are equal 
+    // up to byte b, by comparing the remaining bytes
+    private void insertionSort(int[] pos, int lo, int hi, int b) {
+        for (int i = lo+1; i < hi; i++) {
+            int p = pos[i];
+            int j = i;
+            while (j > lo && compare(pos[j-1], p, b) > 0) {
+                pos[j] = pos[j-1];
+                j--;
+            }
+            pos[j] = p;
+        }
+    }
+
+    // compares the indices at positions p1 and p2 from byte b on
+    private int compare(int p1, int p2, int b) {
+        int o1 = p1*INDEX_BYTES;
+        int o2 = p2*INDEX_BYTES;
+        for (int i = b; i < INDEX_BYTES; i++) {
+            int diff = (indices[o1+i] & 0xff) - (indices[o2+i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+}
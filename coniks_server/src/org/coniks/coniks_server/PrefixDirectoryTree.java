@@ -0,0 +1,129 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.coniks.coniks_server;
+
+import java.util.Arrays;
+
+/** Wraps the CONIKS Merkle prefix tree built by a {@link UserTreeBuilder}
+ * as a {@link DirectoryTree}. A new leaf is stored at the shallowest 
+ * free position on its index's path, and pushes down any leaf it 
+ * collides with, so the shape of the tree depends on the order in which
+ * the leaves were inserted. Names cannot be inserted twice.
+ */
+public class PrefixDirectoryTree implements DirectoryTree {
+
+    private UserTreeBuilder utb;
+    private RootNode root;
+    private int size;
+
+    /** Constructs an empty prefix tree for the epoch {@code epoch}.
+     */
+    public PrefixDirectoryTree(long epoch) {
+        this.utb = ServerOps.startBuildInitTree(ServerUtils.hash(new byte[10]), epoch);
+        this.root = null;
+        this.size = 0;
+    }
+
+    /** Inserts all user leaf nodes in {@code batch} into the tree, in the
+     * order of their lookup indices, and hashes their paths.
+     *
+     *@return {@code true} if all nodes were inserted, {@code false} if
+     * the nodes spilled by {@code batch} cannot be read.
+     */
+    public boolean insertBatch(PendingBatch batch) {
+        RootNode r = utb.extendTree(batch);
+        if (r == null) {
+            return false;
+        }
+        root = r;
+        size += batch.size();
+        return true;
+    }
+
+    /** Gets the hash of the whole tree, i.e. of its root's subtree hashes.
+     * The paths were already hashed when the leaves were inserted.
+     *
+     *@return The root hash as a {@code byte[]}.
+     */
+    public byte[] computeRootHash() {
+        if (root == null) {
+            return ServerUtils.hash(new byte[2*ServerUtils.HASH_SIZE_BYTES]);
+        }
+        return ServerUtils.hash(ServerUtils.convertInteriorNode(root));
+    }
+
+    /** Finds the user leaf node with the lookup index {@code index}.
+     *
+     *@return The {@link UserLeafNode} or {@code null} if {@code index}
+     * is not in the tree.
+     */
+    public UserLeafNode lookup(byte[] index) {
+        TreeNode runner = root;
+        int depth = 0;
+        while (runner != null && !(runner instanceof UserLeafNode)) {
+            runner = ServerUtils.getNthBit(index, depth) ? runner.getRight() : runner.getLeft();
+            depth++;
+        }
+        if (runner == null || !Arrays.equals(((UserLeafNode)runner).getIndex(), index)) {
+            return null;
+        }
+        return (UserLeafNode)runner;
+    }
+
+    /** Gets the number of subtree hashes in the authentication path of
+     * the lookup index {@code index}: one per level above the leaf or
+     * empty subtree that {@code index} leads to.
+     *
+     *@return The number of hashes.
+     */
+    public int getProofLength(byte[] index) {
+        int depth = 0;
+        TreeNode runner = root;
+        while (runner != null && !(runner instanceof UserLeafNode)) {
+            runner = ServerUtils.getNthBit(index, depth) ? runner.getRight() : runner.getLeft();
+            depth++;
+        }
+        return depth;
+    }
+
+    /** Gets the number of user leaf nodes in the tree.
+     *
+     *@return The number of leaves.
+     */
+    public int size() {
+        return size;
+    }
+
+}
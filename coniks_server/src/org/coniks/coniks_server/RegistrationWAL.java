@@ -0,0 +1,120 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.javatuples.*;
+
+/** Implements the write-ahead log of pending registrations.
+ * Each registration is appended to an {@link AppendLog} before it is
+ * acknowledged to the client, and the log is truncated once the
+ * registrations have been included in a published epoch. Registrations
+ * that are acknowledged concurrently share a single fsync, so the cost
+ * per registration stays small under load.
+ */
+public class RegistrationWAL {
+
+    private AppendLog log;
+
+    /** Opens the write-ahead log at {@code path}, creating it if needed.
+     *
+     *@throws An {@code IOException} if the log cannot be opened.
+     */
+    public RegistrationWAL(String path) throws IOException {
+        this.log = new AppendLog(path);
+    }
+
+    /** Appends the registration of {@code name} with the public key
+     * {@code pk} to the log. The registration isn't durable until 
+     * {@link RegistrationWAL#sync()} returns.
+     *
+     *@throws An {@code IOException} if the registration cannot be written.
+     */
+    public void append(String name, String pk) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] pkBytes = pk.getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer rec = ByteBuffer.allocate(8 + nameBytes.length + pkBytes.length);
+        rec.putInt(nameBytes.length);
+        rec.put(nameBytes);
+        rec.putInt(pkBytes.length);
+        rec.put(pkBytes);
+
+        log.append(rec.array());
+    }
+
+    /** Waits until all registrations appended so far are on disk.
+     *
+     *@throws An {@code IOException} if the log cannot be synced.
+     */
+    public void sync() throws IOException {
+        log.sync();
+    }
+
+    /** Reads all registrations in the log, e.g. to put them back
+     * into the pending queue after a restart.
+     *
+     *@return The list of (name, public key) pairs in log order.
+     *@throws An {@code IOException} if the log cannot be read.
+     */
+    public ArrayList<Pair<String,String>> replay() throws IOException {
+        ArrayList<Pair<String,String>> regs = new ArrayList<Pair<String,String>>();
+
+        for (byte[] payload : log.readFrom(0)) {
+            ByteBuffer rec = ByteBuffer.wrap(payload);
+            byte[] nameBytes = new byte[rec.getInt()];
+            rec.get(nameBytes);
+            byte[] pkBytes = new byte[rec.getInt()];
+            rec.get(pkBytes);
+
+            regs.add(Pair.with(new String(nameBytes, StandardCharsets.UTF_8),
+                               new String(pkBytes, StandardCharsets.UTF_8)));
+        }
+        return regs;
+    }
+
+    /** Discards all registrations in the log. This should only be called
+     * once they are part of a published epoch.
+     *
+     *@throws An {@code IOException} if the log cannot be truncated.
+     */
+    public void truncate() throws IOException {
+        log.truncate();
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.coniks.coniks_server;
+
+import org.coniks.coniks_common.MsgType;
+import org.coniks.coniks_common.UtilProtos.EpochDeltaReq;
+import org.coniks.coniks_common.UtilProtos.EpochDelta;
+import org.coniks.coniks_common.UtilProtos.ServerResp;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import org.javatuples.*;
+
+/** Implements the follower side of leader/follower replication:
+ * fetches the epochs a leader published since the follower's latest epoch,
+ * applies each epoch's tree delta to the follower's tree, and verifies
+ * the new root against the leader's signed tree root before it is served.
+ * Followers authenticate to their leader with their keystore's certificate.
+ */
+public class ReplicaFollower {
+
+    // how long connecting to the leader or a read from it may block, in ms,
+    // so a hung peer doesn't hold up its callers forever
+    private static final int SOCKET_TIMEOUT = 10000;
+
+    private String host;
+    private int port;
+    private String leaderName;
+    private String tmpPath;
+
+    /** Sets up a follower of the leader at {@code leader}, given as
+     * {@code host:port}, whose signing key is stored under {@code leaderName}
+     * in the truststore. Received deltas are staged at {@code tmpPath}.
+     *
+     *@throws An {@code IllegalArgumentException} if {@code leader} isn't
+     * of the form {@code host:port}.
+     */
+    public ReplicaFollower(String leader, String leaderName, String tmpPath) {
+        int sep = leader.lastIndexOf(':');
+        if (sep <= 0) {
+            throw new IllegalArgumentException("bad leader address "+leader);
+        }
+        this.host = leader.substring(0, sep);
+        this.port = Integer.parseInt(leader.substring(sep+1));
+        this.leaderName = leaderName;
+        this.tmpPath = tmpPath;
+    }
+
+    /** Fetches and applies all epochs the leader published after the tree
+     * rooted at {@code latest}, which is {@code null} if the follower has no
+     * tree yet. Each epoch's hashes are recomputed from the changed nodes,
+     * and its root must chain to the previous epoch's and be signed by the
+     * leader. If any epoch fails, none are returned, and the follower
+     * retries from its latest epoch later.
+     *
+     *@return The new roots and the leader's signatures on them, in order.
+     *@throws An {@code IOException} if the leader cannot be reached, or
+     * it sends an epoch that doesn't verify.
+     */
+    public ArrayList<Pair<RootNode, byte[]>> sync(RootNode latest) throws IOException {
+        ArrayList<Pair<RootNode, byte[]>> applied = new ArrayList<Pair<RootNode, byte[]>>();
+
+        SSLSocketFactory sslFact = (SSLSocketFactory)SSLSocketFactory.getDefault();
+        SSLSocket sock = (SSLSocket)sslFact.createSocket();
+        try {
+            // a timed out connect or read is thrown as an IOException
+            sock.connect(new InetSocketAddress(host, port), SOCKET_TIMEOUT);
+            sock.setSoTimeout(SOCKET_TIMEOUT);
+            DataOutputStream dout = new DataOutputStream(sock.getOutputStream());
+            DataInputStream din = new DataInputStream(sock.getInputStream());
+
+            EpochDeltaReq.Builder req = EpochDeltaReq.newBuilder();
+            req.setBaseEpoch(latest == null ? 0 : latest.getEpoch());
+            dout.writeByte(MsgType.EPOCH_DELTA_REQ);
+            req.build().writeDelimitedTo(dout);
+            dout.flush();
+
+            while (true) {
+                int msgType = din.readUnsignedByte();
+                if (msgType == MsgType.SERVER_RESP) {
+                    ServerResp resp = ServerResp.parseDelimitedFrom(din);
+                    if (resp.getMessage() != ServerResp.Message.SUCCESS) {
+                        throw new IOException("leader replied "+resp.getMessage());
+                    }
+                    return applied;
+                }
+                if (msgType != MsgType.EPOCH_DELTA) {
+                    throw new IOException("unexpected message type "+msgType);
+                }
+
+                EpochDelta first = EpochDelta.parseDelimitedFrom(din);
+                EpochDelta last = receiveChunks(first, din);
+
+                RootNode root = applyUpdate(latest, last.getBaseEpoch(), last.getEpoch());
+                byte[] sig = last.getSignature().toByteArray();
+                if (!SignatureOps.verifySig(ServerUtils.convertRootNode(root), sig, 
+                                            leaderName)) {
+                    throw new IOException("bad signature on epoch "+root.getEpoch());
+                }
+
+                applied.add(Pair.with(root, sig));
+                latest = root;
+            }
+        }
+        finally {
+            sock.close();
+            new File(tmpPath).delete();
+        }
+    }
+
+    // writes the chunks of one epoch's update to the staging file
+    private EpochDelta receiveChunks(EpochDelta delta, DataInputStream din) 
+        throws IOException {
+        FileOutputStream fos = new FileOutputStream(tmpPath);
+        try {
+            BufferedOutputStream out = new BufferedOutputStream(fos, 1 << 16);
+            while (true) {
+                delta.getChunk().writeTo(out);
+                if (!delta.getMore()) {
+                    break;
+                }
+                if (din.readUnsignedByte() != MsgType.EPOCH_DELTA) {
+                    throw new IOException("epoch delta is truncated");
+                }
+                EpochDelta next = EpochDelta.parseDelimitedFrom(din);
+                if (next.getEpoch() != delta.getEpoch()) {
+                    throw new IOException("epoch delta is truncated");
+                }
+                delta = next;
+            }
+            out.flush();
+        }
+        finally {
+            fos.close();
+        }
+        return delta;
+    }
+
+    // applies the staged update to the latest tree and checks that the
+    // new tree's hashes and its link to the previous epoch are correct
+    private RootNode applyUpdate(RootNode latest, long baseEpoch, long epoch) 
+        throws IOException {
+        if (latest != null && epoch <= latest.getEpoch()) {
+            throw new IOException("epoch "+epoch+" is older than the latest epoch");
+        }
+
+        RootNode root = null;
+        if (baseEpoch == 0) {
+            root = TreeSnapshot.load(tmpPath);
+        }
+        else {
+            if (latest == null) {
+                throw new IOException("got a delta for epoch "+baseEpoch+" without a tree");
+            }
+            root = TreeSnapshot.applyDelta(latest, tmpPath);
+        }
+        if (root.getEpoch() != epoch) {
+            throw new IOException("update is for epoch "+root.getEpoch()+", not "+epoch);
+        }
+
+        // the leader's hashes of the changed nodes aren't trusted,
+        // the unchanged ones were taken from the base tree
+        if (!UserTreeBuilder.verifyDirtyHashes(root)) {
+            throw new IOException("epoch "+epoch+" has bad subtree hashes");
+        }
+
+        // a full tree may skip epochs, a delta must extend the latest one
+        if (baseEpoch != 0) {
+            byte[] prevHash = ServerUtils.hash(ServerUtils.convertRootNode(latest));
+            if (!Arrays.equals(prevHash, root.getPrev())) {
+                throw new IOException("epoch "+epoch+" doesn't extend the hash chain");
+            }
+        }
+        return root;
+    }
+
+}
@@ -0,0 +1,253 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.coniks.coniks_server;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.TreeMap;
+
+/** Keeps the tree deltas of the most recently published epochs, so
+ * read-only followers can catch up with their leader by applying
+ * only the nodes that changed in each epoch. The delta for epoch
+ * {@code ep} is at {@code path.ep}. Followers whose latest epoch is 
+ * older than all kept deltas are sent a full snapshot of the latest 
+ * tree instead, which is written when it is first requested.
+ *<p>
+ * The updates returned by {@link ReplicationLog#getUpdatesSince(long)} 
+ * are held until they're passed to {@link ReplicationLog#release(ArrayList)},
+ * so their files can be streamed without the log's lock: the file of an
+ * update that is dropped while it's held is only deleted once it's released.
+ */
+public class ReplicationLog {
+
+    private String path;
+    private int maxEpochs;
+
+    // the updates for the kept epochs, indexed by epoch
+    private TreeMap<Long, Update> updates;
+
+    // the latest published tree, for followers without a usable base
+    private RootNode latestRoot;
+    private byte[] latestSig;
+    private Update latestFull;
+
+    /** Sets up the replication log at {@code path}, which keeps the deltas
+     * of at most {@code maxEpochs} epochs.
+     */
+    public ReplicationLog(String path, int maxEpochs) {
+        this.path = path;
+        this.maxEpochs = maxEpochs;
+        this.updates = new TreeMap<Long, Update>();
+        this.latestRoot = null;
+        this.latestSig = null;
+        this.latestFull = null;
+    }
+
+    /** Publishes the tree rooted at {@code root} with the signature
+     * {@code sig} on its root. If {@code root} was built by extending 
+     * the latest published tree of epoch {@code baseEpoch}, only the 
+     * nodes whose hashes are dirty are written; otherwise the whole tree is.
+     * This must be called before the tree is paged out.
+     *
+     *@throws An {@code IOException} if the delta cannot be written.
+     */
+    public synchronized void publish(RootNode root, long baseEpoch, byte[] sig) 
+        throws IOException {
+        long ep = root.getEpoch();
+        String file = path+"."+ep;
+
+        if (latestRoot != null && baseEpoch == latestRoot.getEpoch()) {
+            TreeSnapshot.writeDelta(root, baseEpoch, file);
+        }
+        else {
+            // followers can't apply this epoch to anything they have
+            TreeSnapshot.write(root, file);
+            baseEpoch = 0;
+        }
+
+        updates.put(ep, new Update(baseEpoch, ep, sig, file));
+        latestRoot = root;
+        latestSig = sig;
+
+        while (updates.size() > maxEpochs) {
+            retire(updates.pollFirstEntry().getValue());
+        }
+    }
+
+    // deletes the file of the dropped update u, or defers this until
+    // the last follower streaming it releases it
+    private void retire(Update u) {
+        u.retired = true;
+        if (u.refs == 0) {
+            new File(u.getPath()).delete();
+        }
+    }
+
+    /** Gets the updates a follower whose latest epoch is {@code baseEpoch}
+     * must apply, in order, to catch up with the latest published epoch.
+     * A follower with no tree yet uses 0 as its base epoch.
+     * The updates' files are kept until the updates are released with
+     * {@link ReplicationLog#release(ArrayList)}.
+     *
+     *@return The list of updates, which is empty if the follower is
+     * up to date or nothing has been published yet.
+     *@throws An {@code IOException} if a needed full snapshot cannot be written.
+     */
+    public synchronized ArrayList<Update> getUpdatesSince(long baseEpoch) 
+        throws IOException {
+        ArrayList<Update> res = new ArrayList<Update>();
+        if (latestRoot == null || baseEpoch == latestRoot.getEpoch()) {
+            return res;
+        }
+
+        // the kept deltas apply in a chain starting from baseEpoch
+        long cur = baseEpoch;
+        for (Update u : updates.tailMap(baseEpoch, false).values()) {
+            if (u.getBaseEpoch() != cur && u.getBaseEpoch() != 0) {
+                res.clear();
+                break;
+            }
+            res.add(u);
+            cur = u.getEpoch();
+        }
+        if (res.isEmpty()) {
+            res.add(getFullUpdate());
+        }
+
+        for (Update u : res) {
+            u.refs++;
+        }
+        return res;
+    }
+
+    /** Releases the updates returned by 
+     * {@link ReplicationLog#getUpdatesSince(long)} once their files have
+     * been streamed, deleting the files of any updates that were dropped
+     * in the meantime.
+     */
+    public synchronized void release(ArrayList<Update> held) {
+        for (Update u : held) {
+            u.refs--;
+            if (u.retired && u.refs == 0) {
+                new File(u.getPath()).delete();
+            }
+        }
+    }
+
+    // writes a full snapshot of the latest tree, once per epoch
+    private Update getFullUpdate() throws IOException {
+        long ep = latestRoot.getEpoch();
+        if (latestFull != null && latestFull.getEpoch() == ep) {
+            return latestFull;
+        }
+
+        if (latestFull != null) {
+            retire(latestFull);
+        }
+        latestFull = null;
+
+        String file = path+".full."+ep;
+        TreeSnapshot.write(latestRoot, file);
+        latestFull = new Update(0, ep, latestSig, file);
+        return latestFull;
+    }
+
+    /** Gets the number of epochs whose deltas are kept.
+     *
+     *@return The number of epochs.
+     */
+    public synchronized int getNumEpochs() {
+        return updates.size();
+    }
+
+    /** Holds the tree delta a follower applies to get from the
+     * tree of one epoch to the next.
+     */
+    public static class Update {
+        private long baseEpoch;
+        private long epoch;
+        private byte[] sig;
+        private String path;
+
+        // the followers streaming the file, and whether it's dropped;
+        // guarded by the replication log
+        private int refs;
+        private boolean retired;
+
+        private Update(long baseEpoch, long epoch, byte[] sig, String path) {
+            this.baseEpoch = baseEpoch;
+            this.epoch = epoch;
+            this.sig = sig;
+            this.path = path;
+            this.refs = 0;
+            this.retired = false;
+        }
+
+        /** Gets the epoch the delta applies to.
+         *
+         *@return The base epoch, or 0 if the update holds a full tree.
+         */
+        public long getBaseEpoch() {
+            return baseEpoch;
+        }
+
+        /** Gets the epoch of the tree after the update.
+         *
+         *@return The epoch.
+         */
+        public long getEpoch() {
+            return epoch;
+        }
+
+        /** Gets the leader's signature on the root of the tree after
+         * the update.
+         *
+         *@return The signature.
+         */
+        public byte[] getSignature() {
+            return sig;
+        }
+
+        /** Gets the path of the delta or snapshot file.
+         *
+         *@return The path.
+         */
+        public String getPath() {
+            return path;
+        }
+    }
+
+}
@@ -56,7 +56,7 @@ public class RootNode extends InteriorNode{
      * for which this root is valid.
      *<p>
      * This is the constructor used in 
-     * {@link UserTreeBuilder#copyExtendTree(RootNode, byte[], PriorityQueue<Pair<byte[], UserLeafNode>>, long)}.
+     * {@link UserTreeBuilder#copyExtendTree(RootNode, byte[], PendingBatch, long)}.
      */
     public RootNode(TreeNode l, TreeNode r, int lvl, byte[] prev, long ep){
 	this(l, r, lvl, prev, ep, null, null);
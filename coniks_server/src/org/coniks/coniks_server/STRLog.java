@@ -0,0 +1,283 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/** Implements the durable log of the server's signed tree roots.
+ * Each STR is appended to an {@link AppendLog} as a record holding
+ * the epoch, root hash, previous root hash, left and right subtree
+ * hashes, and the signature, and is synced to disk before it is published.
+ * STRs are read back through a memory-mapped index of 
+ * {@code (epoch, log offset)} entries and the memory-mapped log, so
+ * no part of the history needs to be kept in the heap. Each index entry
+ * is forced to disk before the index's entry count includes it.
+ */
+public class STRLog {
+
+    private static final int INDEX_HEADER_BYTES = 8;
+    private static final int INDEX_ENTRY_BYTES = 16;
+    private static final int INITIAL_INDEX_ENTRIES = 8192;
+
+    // epoch, root hash, prev, left and right hashes, signature length
+    private static final int STR_FIXED_BYTES = 8 + 4*ServerUtils.HASH_SIZE_BYTES + 4;
+
+    // N.B. a single mapping limits the log to 2GB, i.e. several million STRs
+    private AppendLog log;
+    private MappedByteBuffer logMap;
+
+    private RandomAccessFile indexFile;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int numEntries;
+
+    /** Opens the STR log at {@code path} and its index at
+     * {@code path}.idx, creating them if needed. The index is brought up
+     * to date with the log in case the server stopped between the two writes.
+     *
+     *@throws An {@code IOException} if the log or index cannot be opened.
+     */
+    public STRLog(String path) throws IOException {
+        this.log = new AppendLog(path);
+        this.logMap = log.map();
+
+        this.indexFile = new RandomAccessFile(new File(path+".idx"), "rw");
+        this.indexChannel = indexFile.getChannel();
+        long cap = Math.max(indexChannel.size(), 
+                            INDEX_HEADER_BYTES + (long)INITIAL_INDEX_ENTRIES*INDEX_ENTRY_BYTES);
+        this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, cap);
+        this.numEntries = (int)index.getLong(0);
+
+        // drop entries for records that didn't make it into the log,
+        // and entries that don't match the record at their offset
+        while (numEntries > 0 && !isValidEntry(numEntries-1)) {
+            numEntries--;
+        }
+
+        // index the records that are in the log but not in the index
+        long offset = 0;
+        if (numEntries > 0) {
+            offset = getOffset(numEntries-1);
+            offset += AppendLog.FRAME_HEADER_BYTES + logMap.getInt((int)offset);
+        }
+        while (offset < log.size()) {
+            addIndexEntry(logMap.getLong((int)offset + AppendLog.FRAME_HEADER_BYTES), offset);
+            offset += AppendLog.FRAME_HEADER_BYTES + logMap.getInt((int)offset);
+        }
+        index.force();
+        index.putLong(0, numEntries);
+        index.force();
+    }
+
+    // checks that the i-th index entry points to a record of its epoch
+    private boolean isValidEntry(int i) {
+        long offset = getOffset(i);
+        if (offset < 0 || offset + AppendLog.FRAME_HEADER_BYTES + 8 > log.size()) {
+            return false;
+        }
+        if (i > 0 && offset <= getOffset(i-1)) {
+            return false;
+        }
+        return logMap.getLong((int)offset + AppendLog.FRAME_HEADER_BYTES) == getEpoch(i);
+    }
+
+    private long getEpoch(int i) {
+        return index.getLong(INDEX_HEADER_BYTES + i*INDEX_ENTRY_BYTES);
+    }
+
+    private long getOffset(int i) {
+        return index.getLong(INDEX_HEADER_BYTES + i*INDEX_ENTRY_BYTES + 8);
+    }
+
+    private void addIndexEntry(long ep, long offset) throws IOException {
+        long pos = INDEX_HEADER_BYTES + (long)numEntries*INDEX_ENTRY_BYTES;
+        if (pos + INDEX_ENTRY_BYTES > index.capacity()) {
+            // double the mapped index
+            index.force();
+            index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, 2*index.capacity());
+        }
+        index.putLong((int)pos, ep);
+        index.putLong((int)pos+8, offset);
+        numEntries++;
+    }
+
+    /** Appends the STR for {@code root}, signed with {@code sig}, to
+     * the log and waits until it is on disk.
+     *
+     *@throws An {@code IOException} if the STR cannot be written, or
+     * an {@code IllegalArgumentException} if {@code root} is not newer
+     * than the latest logged STR.
+     */
+    public synchronized void append(RootNode root, byte[] sig) throws IOException {
+        long ep = root.getEpoch();
+        if (numEntries > 0 && ep <= getEpoch(numEntries-1)) {
+            throw new IllegalArgumentException("epoch "+ep+" is not newer than the latest STR");
+        }
+
+        byte[] rootHash = ServerUtils.hash(ServerUtils.convertRootNode(root));
+
+        ByteBuffer rec = ByteBuffer.allocate(STR_FIXED_BYTES + sig.length);
+        rec.putLong(ep);
+        rec.put(rootHash);
+        rec.put(root.getPrev());
+        rec.put(root.getLeftHash());
+        rec.put(root.getRightHash());
+        rec.putInt(sig.length);
+        rec.put(sig);
+
+        long offset = log.appendAndSync(rec.array());
+
+        // the entry must be on disk before the count that includes it
+        addIndexEntry(ep, offset);
+        index.force();
+        index.putLong(0, numEntries);
+        index.force();
+    }
+
+    // finds the last index entry whose epoch is not after ep, or -1 if there is none
+    private int floorEntry(long ep) {
+        int lo = 0;
+        int hi = numEntries-1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo+hi) >>> 1;
+            if (getEpoch(mid) <= ep) {
+                found = mid;
+                lo = mid+1;
+            }
+            else {
+                hi = mid-1;
+            }
+        }
+        return found;
+    }
+
+    // reads the STR for the i-th index entry from the mapped log
+    private EpochHistory.STR readSTR(int i) throws IOException {
+        long offset = getOffset(i);
+        if (offset + AppendLog.FRAME_HEADER_BYTES > logMap.capacity() ||
+            offset + AppendLog.FRAME_HEADER_BYTES + logMap.getInt((int)offset) > logMap.capacity()) {
+            // the log has grown since we last mapped it
+            logMap = log.map();
+        }
+
+        ByteBuffer frame = logMap.duplicate();
+        frame.position((int)offset);
+        int len = frame.getInt();
+        int checksum = frame.getInt();
+        
+        byte[] payload = new byte[len];
+        frame.get(payload);
+        if (AppendLog.checksum(payload, 0, len) != checksum) {
+            throw new IOException("corrupted STR at offset "+offset);
+        }
+
+        ByteBuffer rec = ByteBuffer.wrap(payload);
+        long ep = rec.getLong();
+        byte[] rootHash = new byte[ServerUtils.HASH_SIZE_BYTES];
+        rec.get(rootHash);
+        // skip the prev, left and right hashes
+        rec.position(rec.position() + 3*ServerUtils.HASH_SIZE_BYTES);
+        byte[] sig = new byte[rec.getInt()];
+        rec.get(sig);
+
+        return new EpochHistory.STR(ep, rootHash, sig);
+    }
+
+    /** Gets the STR for epoch {@code ep}, i.e. the STR of the latest
+     * epoch that is not after {@code ep}.
+     *
+     *@return The {@link EpochHistory.STR} or {@code null} if epoch {@code ep}
+     * is older than all logged STRs.
+     *@throws An {@code IOException} if the STR cannot be read.
+     */
+    public synchronized EpochHistory.STR getSTR(long ep) throws IOException {
+        int i = floorEntry(ep);
+        return i < 0 ? null : readSTR(i);
+    }
+
+    /** Gets the latest logged STR.
+     *
+     *@return The latest {@link EpochHistory.STR} or {@code null} if the
+     * log is empty.
+     *@throws An {@code IOException} if the STR cannot be read.
+     */
+    public synchronized EpochHistory.STR getLatest() throws IOException {
+        return numEntries == 0 ? null : readSTR(numEntries-1);
+    }
+
+    /** Gets the STRs for all epochs from the epoch in effect at
+     * {@code fromEp} up to {@code toEp}, in epoch order, but at most
+     * {@code limit} of them.
+     *
+     *@return The list of {@link EpochHistory.STR}s, which may be empty.
+     *@throws An {@code IOException} if the STRs cannot be read.
+     */
+    public synchronized ArrayList<EpochHistory.STR> getSTRRange(long fromEp, long toEp, 
+                                                                int limit) 
+        throws IOException {
+        ArrayList<EpochHistory.STR> range = new ArrayList<EpochHistory.STR>();
+        
+        int i = Math.max(floorEntry(fromEp), 0);
+        while (i < numEntries && range.size() < limit && getEpoch(i) <= toEp) {
+            range.add(readSTR(i));
+            i++;
+        }
+        return range;
+    }
+
+    /** Gets the number of logged STRs.
+     *
+     *@return The number of STRs.
+     */
+    public synchronized int size() {
+        return numEntries;
+    }
+
+    /** Flushes the index and closes the log.
+     */
+    public synchronized void close() throws IOException {
+        index.force();
+        indexChannel.close();
+        indexFile.close();
+        log.close();
+    }
+
+}
@@ -57,6 +57,32 @@ public class ServerConfig{
     private final int KEYSTORE_PWD_IDX = 8;
     private final int TRUSTSTORE_PATH_IDX = 9;
     private final int TRUSTSTORE_PWD_IDX = 10;
+    private final int MAX_CONNECTIONS_IDX = 11;
+    private final int MAX_CONCURRENT_REGISTRATIONS_IDX = 12;
+    private final int MAX_CONCURRENT_LOOKUPS_IDX = 13;
+    private final int MAX_CONCURRENT_COMMITMENT_REQS_IDX = 14;
+    private final int MAX_QUEUE_TIME_IDX = 15;
+    private final int MAX_RETAINED_EPOCHS_IDX = 16;
+    private final int MAX_RETAINED_AGE_IDX = 17;
+    private final int STR_LOG_PATH_IDX = 18;
+    private final int REG_WAL_PATH_IDX = 19;
+    private final int SNAPSHOT_PATH_IDX = 20;
+    private final int MAX_CHECKPOINT_DELTAS_IDX = 21;
+    private final int PAGE_STORE_PATH_IDX = 22;
+    private final int PAGE_CACHE_PAGES_IDX = 23;
+    private final int PINNED_LEVELS_IDX = 24;
+    private final int MAX_RETAINED_BYTES_IDX = 25;
+    private final int REPLICATION_PATH_IDX = 26;
+    private final int LEADER_IDX = 27;
+    private final int DIFF_LOG_PATH_IDX = 28;
+    private final int SHARD_BITS_IDX = 29;
+    private final int SHARD_ID_IDX = 30;
+    private final int SHARDS_IDX = 31;
+    private final int PENDING_SPILL_PATH_IDX = 32;
+    private final int MAX_PENDING_IN_MEMORY_IDX = 33;
+    private final int LOOKUP_FILTER_BITS_IDX = 34;
+    private final int FOLLOWERS_IDX = 35;
+    private final int PROVIDERS_IDX = 36;
 
     /** The port number on which the CONIKS server is listening
      */
@@ -104,6 +130,141 @@ public class ServerConfig{
      */
     public String TRUSTSTORE_PWD = "";
 
+    /** The maximum number of client connections the server
+     * handles at once (-1 for unlimited)
+     */
+    public int MAX_CONNECTIONS = -1;
+
+    /** The maximum number of registrations the server
+     * handles concurrently (-1 for unlimited)
+     */
+    public int MAX_CONCURRENT_REGISTRATIONS = -1;
+
+    /** The maximum number of key lookups the server
+     * handles concurrently (-1 for unlimited)
+     */
+    public int MAX_CONCURRENT_LOOKUPS = -1;
+
+    /** The maximum number of commitment requests the server
+     * handles concurrently (-1 for unlimited); this also limits each of
+     * the streaming requests for epoch diffs, leaf ranges and epoch deltas
+     */
+    public int MAX_CONCURRENT_COMMITMENT_REQS = -1;
+
+    /** The maximum time in milliseconds a request may wait
+     * between being accepted and being handled (0 for no deadline)
+     */
+    public long MAX_QUEUE_TIME = 0;
+
+    /** The maximum number of epochs whose Merkle trees the server
+     * keeps in memory to serve lookups (-1 for unlimited)
+     */
+    public int MAX_RETAINED_EPOCHS = -1;
+
+    /** The maximum age in milliseconds, relative to the latest epoch,
+     * of the epochs whose Merkle trees the server keeps in memory
+     * (0 for unlimited)
+     */
+    public long MAX_RETAINED_AGE = 0;
+
+    /** The path to the server's durable log of signed tree roots
+     * (empty to keep the STRs in memory only)
+     */
+    public String STR_LOG_PATH = "";
+
+    /** The path to the server's write-ahead log of pending
+     * registrations (empty to keep them in memory only)
+     */
+    public String REG_WAL_PATH = "";
+
+    /** The path to the snapshot of the server's latest published
+     * Merkle tree (empty to rebuild the tree on every restart)
+     */
+    public String SNAPSHOT_PATH = "";
+
+    /** The maximum number of incremental tree checkpoints written
+     * before they are compacted into a new full snapshot
+     */
+    public int MAX_CHECKPOINT_DELTAS = -1;
+
+    /** The path to the on-disk store for the nodes of the published
+     * Merkle trees (empty to keep the trees in memory)
+     */
+    public String PAGE_STORE_PATH = "";
+
+    /** The maximum number of pages of the node store that are
+     * cached in memory
+     */
+    public int PAGE_CACHE_PAGES = -1;
+
+    /** The number of top levels of the latest Merkle trees which
+     * are always kept in memory when using a node store
+     */
+    public int PINNED_LEVELS = -1;
+
+    /** The maximum estimated memory cost in bytes of the Merkle trees
+     * the server keeps in memory (0 for unlimited)
+     */
+    public long MAX_RETAINED_BYTES = 0;
+
+    /** The path prefix of the tree deltas a leader keeps for its
+     * followers, or of the deltas a follower receives (empty if the 
+     * server doesn't replicate its directory)
+     */
+    public String REPLICATION_PATH = "";
+
+    /** The {@code host:port} of the leader this server follows as a
+     * read-only replica (empty if the server is a leader)
+     */
+    public String LEADER = "";
+
+    /** The path to the server's log of epoch diffs (empty to keep
+     * only the diffs of the latest epochs in memory)
+     */
+    public String DIFF_LOG_PATH = "";
+
+    /** The number of lookup index bits that select a shard if this
+     * server is one of the shards of a directory (0 if it isn't)
+     */
+    public int SHARD_BITS = 0;
+
+    /** The shard this server is, i.e. the prefix of the lookup indices
+     * of the names it owns
+     */
+    public int SHARD_ID = 0;
+
+    /** The comma-separated {@code host:port}s of the shards, in the order
+     * of their prefixes, if this server is a shard router (empty if it isn't)
+     */
+    public String SHARDS = "";
+
+    /** The directory to which the batch of dummy users at startup is spilled
+     * as sorted runs when it gets too large (empty to keep it in memory)
+     */
+    public String PENDING_SPILL_PATH = "";
+
+    /** The maximum number of pending registrations a batch keeps in memory
+     * before it spills them to the {@link ServerConfig#PENDING_SPILL_PATH}
+     */
+    public int MAX_PENDING_IN_MEMORY = 1000000;
+
+    /** The number of bits per registered user in the Bloom filter
+     * that lets lookups and registrations of unknown names skip the tree
+     * (0 to not use a filter)
+     */
+    public int LOOKUP_FILTER_BITS = 0;
+
+    /** The semicolon-separated names of the certificate subjects of the
+     * followers that may fetch this server's epoch deltas (empty if no
+     * server may follow this one)
+     */
+    public String FOLLOWERS = "";
+
+    /** The semicolon-separated names of the certificate subjects of the
+     * providers that may bulk-register users (empty if no provider may)
+     */
+    public String PROVIDERS = "";
+
     /** The UNIX epoch time at which this instance of the server
      * was started up. This is used as the starting point for "counting" epochs.
      */
@@ -124,6 +285,32 @@ public class ServerConfig{
         this.KEYSTORE_PWD = "";
         this.TRUSTSTORE_PATH = "/path/to/truststore";
         this.TRUSTSTORE_PWD = "";
+        this.MAX_CONNECTIONS = 1024;
+        this.MAX_CONCURRENT_REGISTRATIONS = 64;
+        this.MAX_CONCURRENT_LOOKUPS = 256;
+        this.MAX_CONCURRENT_COMMITMENT_REQS = 256;
+        this.MAX_QUEUE_TIME = 5000; // five seconds in milliseconds
+        this.MAX_RETAINED_EPOCHS = 2;
+        this.MAX_RETAINED_AGE = 0;
+        this.STR_LOG_PATH = "";
+        this.REG_WAL_PATH = "";
+        this.SNAPSHOT_PATH = "";
+        this.MAX_CHECKPOINT_DELTAS = 24;
+        this.PAGE_STORE_PATH = "";
+        this.PAGE_CACHE_PAGES = 16384; // 64 MB
+        this.PINNED_LEVELS = 12;
+        this.MAX_RETAINED_BYTES = 0;
+        this.REPLICATION_PATH = "";
+        this.LEADER = "";
+        this.DIFF_LOG_PATH = "";
+        this.SHARD_BITS = 0;
+        this.SHARD_ID = 0;
+        this.SHARDS = "";
+        this.PENDING_SPILL_PATH = "";
+        this.MAX_PENDING_IN_MEMORY = 1000000;
+        this.LOOKUP_FILTER_BITS = 0;
+        this.FOLLOWERS = "";
+        this.PROVIDERS = "";
 
         this.STARTUP_TIME = System.currentTimeMillis();
     }
@@ -160,6 +347,92 @@ public class ServerConfig{
             this.KEYSTORE_PWD = configs.get(KEYSTORE_PWD_IDX);
             this.TRUSTSTORE_PATH = configs.get(TRUSTSTORE_PATH_IDX);
             this.TRUSTSTORE_PWD = configs.get(TRUSTSTORE_PWD_IDX);
+
+            // the admission control limits are optional, keep the defaults 
+            // for older config files
+            if (configs.size() > MAX_QUEUE_TIME_IDX) {
+                this.MAX_CONNECTIONS = Integer.parseInt(configs.get(MAX_CONNECTIONS_IDX));
+                this.MAX_CONCURRENT_REGISTRATIONS = Integer.parseInt(configs.get(MAX_CONCURRENT_REGISTRATIONS_IDX));
+                this.MAX_CONCURRENT_LOOKUPS = Integer.parseInt(configs.get(MAX_CONCURRENT_LOOKUPS_IDX));
+                this.MAX_CONCURRENT_COMMITMENT_REQS = Integer.parseInt(configs.get(MAX_CONCURRENT_COMMITMENT_REQS_IDX));
+                this.MAX_QUEUE_TIME = Long.parseLong(configs.get(MAX_QUEUE_TIME_IDX));
+            }
+
+            // so is the history retention window
+            if (configs.size() > MAX_RETAINED_AGE_IDX) {
+                this.MAX_RETAINED_EPOCHS = Integer.parseInt(configs.get(MAX_RETAINED_EPOCHS_IDX));
+                this.MAX_RETAINED_AGE = Long.parseLong(configs.get(MAX_RETAINED_AGE_IDX));
+            }
+
+            if (configs.size() > STR_LOG_PATH_IDX) {
+                this.STR_LOG_PATH = configs.get(STR_LOG_PATH_IDX);
+            }
+
+            if (configs.size() > REG_WAL_PATH_IDX) {
+                this.REG_WAL_PATH = configs.get(REG_WAL_PATH_IDX);
+            }
+
+            if (configs.size() > SNAPSHOT_PATH_IDX) {
+                this.SNAPSHOT_PATH = configs.get(SNAPSHOT_PATH_IDX);
+            }
+
+            if (configs.size() > MAX_CHECKPOINT_DELTAS_IDX) {
+                this.MAX_CHECKPOINT_DELTAS = Integer.parseInt(configs.get(MAX_CHECKPOINT_DELTAS_IDX));
+            }
+
+            if (configs.size() > PAGE_STORE_PATH_IDX) {
+                this.PAGE_STORE_PATH = configs.get(PAGE_STORE_PATH_IDX);
+            }
+
+            if (configs.size() > PINNED_LEVELS_IDX) {
+                this.PAGE_CACHE_PAGES = Integer.parseInt(configs.get(PAGE_CACHE_PAGES_IDX));
+                this.PINNED_LEVELS = Integer.parseInt(configs.get(PINNED_LEVELS_IDX));
+            }
+
+            if (configs.size() > MAX_RETAINED_BYTES_IDX) {
+                this.MAX_RETAINED_BYTES = Long.parseLong(configs.get(MAX_RETAINED_BYTES_IDX));
+            }
+
+            if (configs.size() > REPLICATION_PATH_IDX) {
+                this.REPLICATION_PATH = configs.get(REPLICATION_PATH_IDX);
+            }
+
+            if (configs.size() > LEADER_IDX) {
+                this.LEADER = configs.get(LEADER_IDX);
+            }
+
+            if (configs.size() > DIFF_LOG_PATH_IDX) {
+                this.DIFF_LOG_PATH = configs.get(DIFF_LOG_PATH_IDX);
+            }
+
+            if (configs.size() > SHARD_ID_IDX) {
+                this.SHARD_BITS = Integer.parseInt(configs.get(SHARD_BITS_IDX));
+                this.SHARD_ID = Integer.parseInt(configs.get(SHARD_ID_IDX));
+            }
+
+            if (configs.size() > SHARDS_IDX) {
+                this.SHARDS = configs.get(SHARDS_IDX);
+            }
+
+            if (configs.size() > PENDING_SPILL_PATH_IDX) {
+                this.PENDING_SPILL_PATH = configs.get(PENDING_SPILL_PATH_IDX);
+            }
+
+            if (configs.size() > MAX_PENDING_IN_MEMORY_IDX) {
+                this.MAX_PENDING_IN_MEMORY = Integer.parseInt(configs.get(MAX_PENDING_IN_MEMORY_IDX));
+            }
+
+            if (configs.size() > LOOKUP_FILTER_BITS_IDX) {
+                this.LOOKUP_FILTER_BITS = Integer.parseInt(configs.get(LOOKUP_FILTER_BITS_IDX));
+            }
+
+            if (configs.size() > FOLLOWERS_IDX) {
+                this.FOLLOWERS = configs.get(FOLLOWERS_IDX);
+            }
+
+            if (configs.size() > PROVIDERS_IDX) {
+                this.PROVIDERS = configs.get(PROVIDERS_IDX);
+            }
             
             this.STARTUP_TIME = System.currentTimeMillis();
         }
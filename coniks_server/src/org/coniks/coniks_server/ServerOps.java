@@ -34,7 +34,12 @@
 package org.coniks.coniks_server;
 
 import org.coniks.coniks_common.C2SProtos.AuthPath;
+import org.coniks.coniks_common.C2SProtos.MultiAuthPath;
+import org.coniks.coniks_common.C2SProtos.EpochDiff;
 import org.coniks.coniks_common.UtilProtos.Hash;
+import org.coniks.coniks_common.UtilProtos.ShardRoot;
+
+import com.google.protobuf.ByteString;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -86,13 +91,7 @@ public class ServerOps{
         AuthPath.Builder authPath = AuthPath.newBuilder();
 
         //first take care of setting the UserLeafNode
-        AuthPath.UserLeafNode.Builder ulnBuilder = AuthPath.UserLeafNode.newBuilder();
-        ulnBuilder.setName(uln.getUsername());
-        ulnBuilder.setPublickey(uln.getPublicKey());
-        ulnBuilder.setEpochAdded(uln.getEpochAdded());
-        ulnBuilder.setAllowsUnsignedKeychange(uln.allowsUnsignedKeychange());
-        ulnBuilder.setAllowsPublicLookup(uln.allowsPublicLookups());
-        ulnBuilder.addAllLookupIndex(ServerUtils.byteArrToIntList(uln.getIndex()));
+        AuthPath.UserLeafNode.Builder ulnBuilder = setupUlnProto(uln);
 
         // book-keeping for interior nodes
         int numInteriors = 0;
@@ -208,6 +207,352 @@ public class ServerOps{
         return authPath.build();
     }
 
+    /** Generates the same authentication path protobuf message as
+     * {@link ServerOps#generateAuthPathProto(UserLeafNode, RootNode)}
+     * from the blocked layout {@code tree} of the root node to the
+     * user leaf node {@code uln}.
+     *
+     *@return The {@link org.coniks.coniks_common.C2SProtos.AuthPath} 
+     * protobuf message or {@code null} upon failure.
+     */
+    public static AuthPath generateAuthPathProto(UserLeafNode uln, BlockedTree tree){
+        byte[] lookupIndex = uln.getIndex();
+        ArrayList<byte[]> pruned = tree.getPrunedHashes(lookupIndex);
+
+        AuthPath.Builder authPath = AuthPath.newBuilder();
+        ArrayList<AuthPath.InteriorNode> interiorList = new ArrayList<AuthPath.InteriorNode>(); 
+        for (int depth = 0; depth < pruned.size(); depth++) {
+            // the pruned child is the one the index doesn't lead to
+            AuthPath.PrunedChild prunedChild = ServerUtils.getNthBit(lookupIndex, depth) ?
+                AuthPath.PrunedChild.LEFT : AuthPath.PrunedChild.RIGHT;
+            Hash subtree = setupHashProto(pruned.get(depth), "pruned child hash");
+            if (subtree == null) {
+                return null;
+            }
+
+            if (depth == 0) {
+                AuthPath.RootNode.Builder rootBuilder = AuthPath.RootNode.newBuilder();
+                rootBuilder.setPrunedchild(prunedChild);
+                rootBuilder.setSubtree(subtree);
+                Hash prevHash = setupHashProto(tree.getPrev(), "prev pointer hash");
+                if (prevHash == null) {
+                    return null;
+                }
+                rootBuilder.setPrev(prevHash);
+                rootBuilder.setEpoch(tree.getEpoch());
+                authPath.setRoot(rootBuilder.build());
+            }
+            else {
+                AuthPath.InteriorNode.Builder inBuilder = AuthPath.InteriorNode.newBuilder();
+                inBuilder.setPrunedchild(prunedChild);
+                inBuilder.setSubtree(subtree);
+                interiorList.add(0, inBuilder.build());
+            }
+        }
+
+        AuthPath.UserLeafNode.Builder ulnBuilder = setupUlnProto(uln);
+        ulnBuilder.setIntlevels(interiorList.size());
+        authPath.setLeaf(ulnBuilder.build());
+        authPath.addAllInterior(interiorList);
+
+        return authPath.build();
+    }
+
+    /** Generates a single proof for all user leaf nodes in {@code ulns}
+     * from the root node {@code root}: the Merkle tree pruned down to the
+     * union of the leaves' authentication paths. 
+     * The proof is built in a single traversal of the tree,
+     * so any pruned subtree hash shared by several authentication paths
+     * is only included once.
+     * {@code ulns} must be sorted by lookup index and contain no duplicates.
+     *
+     *@return The {@link org.coniks.coniks_common.C2SProtos.MultiAuthPath} 
+     * protobuf message or {@code null} upon failure.
+     */
+    public static MultiAuthPath generateMultiAuthPathProto(ArrayList<UserLeafNode> ulns,
+                                                           RootNode root){
+
+        MultiAuthPath.Builder multiPath = MultiAuthPath.newBuilder();
+
+        // the root is at depth 0, so we split the leaves on bit 0
+        if(!addPrunedSubtreeProto(multiPath, root, 0, ulns, 0, ulns.size())){
+            return null;
+        }
+
+        Hash prevHash = setupHashProto(root.getPrev(), "prev pointer hash");
+        if(prevHash == null){
+            return null;
+        }
+        multiPath.setPrev(prevHash);
+        multiPath.setEpoch(root.getEpoch());
+
+        return multiPath.build();
+    }
+
+    // adds the children of the interior (or root) node curNode at depth {@code depth}
+    // to the multi auth path: the leaves ulns[lo, hi) are all below curNode,
+    // the ones whose bit at {@code depth} is 0 are on the left, the others on the right.
+    private static boolean addPrunedSubtreeProto(MultiAuthPath.Builder multiPath,
+                                                 InteriorNode curNode, int depth,
+                                                 ArrayList<UserLeafNode> ulns,
+                                                 int lo, int hi){
+        int mid = lo;
+        while(mid < hi && !ServerUtils.getNthBit(ulns.get(mid).getIndex(), depth)){
+            mid++;
+        }
+
+        return addChildProto(multiPath, curNode.getLeft(), curNode.getLeftHash(),
+                             depth+1, ulns, lo, mid) &&
+            addChildProto(multiPath, curNode.getRight(), curNode.getRightHash(),
+                          depth+1, ulns, mid, hi);
+    }
+
+    // adds the child node {@code child} at depth {@code depth} to the multi auth path:
+    // if no requested leaf is below it, only its hash is needed
+    private static boolean addChildProto(MultiAuthPath.Builder multiPath,
+                                         TreeNode child, byte[] childHash, int depth,
+                                         ArrayList<UserLeafNode> ulns, int lo, int hi){
+        if(lo == hi){
+            Hash pruned = setupHashProto(childHash, "pruned child hash");
+            if(pruned == null){
+                return false;
+            }
+            multiPath.addPruned(pruned);
+            return true;
+        }
+
+        if(child instanceof UserLeafNode){
+            if(hi-lo != 1 || child != ulns.get(lo)){
+                debugLog.error("Multi auth path leaf mismatch at depth "+depth);
+                return false;
+            }
+            AuthPath.UserLeafNode.Builder ulnBuilder = setupUlnProto((UserLeafNode)child);
+            ulnBuilder.setIntlevels(depth-1);
+            multiPath.addLeaf(ulnBuilder.build());
+            return true;
+        }
+        
+        if(child == null){
+            debugLog.error("Null child on multi auth path at depth "+depth);
+            return false;
+        }
+
+        return addPrunedSubtreeProto(multiPath, (InteriorNode)child, depth, ulns, lo, hi);
+    }
+
+    /** Generates the proof for the user leaf nodes {@code ulns} of the tree
+     * rooted at {@code root}, which must be all leaves with lookup indices 
+     * from {@code fromIndex} (inclusive) up to {@code toIndex} (exclusive,
+     * {@code null} for the end of the index space), in lookup index order.
+     * The proof also holds the leaves just before and just after the range,
+     * if there are any: then every pruned subtree that overlaps the range 
+     * must be empty, which shows that there are no other leaves in the range.
+     *
+     *@return The {@link org.coniks.coniks_common.C2SProtos.MultiAuthPath} 
+     * protobuf message or {@code null} upon failure.
+     */
+    public static MultiAuthPath generateLeafRangeProto(RootNode root, 
+                                                       ArrayList<UserLeafNode> ulns,
+                                                       byte[] fromIndex, byte[] toIndex){
+
+        ArrayList<UserLeafNode> bounded = new ArrayList<UserLeafNode>(ulns.size()+2);
+        UserLeafNode before = findUlnBefore(fromIndex, root);
+        if(before != null){
+            bounded.add(before);
+        }
+        bounded.addAll(ulns);
+        if(toIndex != null){
+            UserLeafNode after = new LeafIterator(root, toIndex, null).peek();
+            if(after != null){
+                bounded.add(after);
+            }
+        }
+
+        MultiAuthPath multiPath = generateMultiAuthPathProto(bounded, root);
+        if(multiPath == null){
+            return null;
+        }
+
+        MultiAuthPath.Builder rangePath = multiPath.toBuilder();
+        rangePath.setRangeStart(ByteString.copyFrom(fromIndex));
+        if(toIndex != null){
+            rangePath.setRangeEnd(ByteString.copyFrom(toIndex));
+        }
+        return rangePath.build();
+    }
+
+    /** Generates the diff of the newly built tree rooted at {@code root}
+     * from the previous epoch's tree rooted at {@code prevRoot}: a single
+     * proof for the leaves added in {@code root}'s epoch and the leaves
+     * that were moved down to make room for them. These are exactly the
+     * leaves below the subtrees whose hashes were recomputed, so this must 
+     * be called before the tree's dirty flags are reset, e.g. by paging it out.
+     * {@code prevRoot} is {@code null} for the first epoch.
+     *
+     *@return The {@link org.coniks.coniks_common.C2SProtos.EpochDiff} 
+     * protobuf message or {@code null} upon failure.
+     */
+    public static EpochDiff generateEpochDiffProto(RootNode root, RootNode prevRoot){
+        ArrayList<UserLeafNode> changed = new ArrayList<UserLeafNode>();
+        if (root.isLeftDirty()) {
+            addChangedLeaves(root.getLeft(), changed);
+        }
+        if (root.isRightDirty()) {
+            addChangedLeaves(root.getRight(), changed);
+        }
+
+        EpochDiff.Builder diff = EpochDiff.newBuilder();
+
+        // the traversal finds the leaves in lookup index order
+        MultiAuthPath proof = generateMultiAuthPathProto(changed, root);
+        if (proof == null) {
+            return null;
+        }
+        diff.setProof(proof);
+
+        int[] moved = new int[(changed.size()+31)/32];
+        for (int i = 0; i < changed.size(); i++) {
+            if (changed.get(i).getEpochAdded() < root.getEpoch()) {
+                moved[i/32] |= (1 << (i%32));
+            }
+        }
+        for (int word : moved) {
+            diff.addMoved(word);
+        }
+
+        if (prevRoot != null) {
+            Hash prevPrev = setupHashProto(prevRoot.getPrev(), "previous prev pointer hash");
+            if (prevPrev == null) {
+                return null;
+            }
+            diff.setPrevEpoch(prevRoot.getEpoch());
+            diff.setPrevPrev(prevPrev);
+        }
+        return diff.build();
+    }
+
+    // adds all leaves below curNode to changed, descending only into 
+    // the subtrees whose hashes were recomputed
+    private static void addChangedLeaves(TreeNode curNode, ArrayList<UserLeafNode> changed){
+        if (curNode instanceof UserLeafNode) {
+            changed.add((UserLeafNode)curNode);
+        }
+        else if (curNode instanceof InteriorNode) {
+            InteriorNode curNodeI = (InteriorNode)curNode;
+            if (curNodeI.isLeftDirty()) {
+                addChangedLeaves(curNodeI.getLeft(), changed);
+            }
+            if (curNodeI.isRightDirty()) {
+                addChangedLeaves(curNodeI.getRight(), changed);
+            }
+        }
+    }
+
+    /** Leaves the public key out of the leaf in the authentication path
+     * {@code authPath} if the client already has the key with the digest
+     * {@code cachedDigest}, since the leaf only commits to the key's digest.
+     *
+     *@return The {@link org.coniks.coniks_common.C2SProtos.AuthPath} 
+     * protobuf message, which is {@code authPath} if the key must be sent.
+     */
+    public static AuthPath omitCachedKey(AuthPath authPath, ByteString cachedDigest){
+        if (cachedDigest == null || !authPath.hasLeaf() || 
+            !authPath.getLeaf().getKeyDigest().equals(cachedDigest)) {
+            return authPath;
+        }
+        AuthPath.Builder omitted = authPath.toBuilder();
+        omitted.getLeafBuilder().clearPublickey();
+        return omitted.build();
+    }
+
+    /** Leaves the public keys out of the leaves in the multi auth path
+     * {@code multiPath} for which the client already has the key,
+     * i.e. whose name maps to the key's digest in {@code cachedDigests}.
+     *
+     *@return The {@link org.coniks.coniks_common.C2SProtos.MultiAuthPath} 
+     * protobuf message, which is {@code multiPath} if all keys must be sent.
+     */
+    public static MultiAuthPath omitCachedKeys(MultiAuthPath multiPath,
+                                               HashMap<String, ByteString> cachedDigests){
+        if (cachedDigests.isEmpty()) {
+            return multiPath;
+        }
+        MultiAuthPath.Builder omitted = null;
+        for (int i = 0; i < multiPath.getLeafCount(); i++) {
+            AuthPath.UserLeafNode leaf = multiPath.getLeaf(i);
+            ByteString cachedDigest = cachedDigests.get(leaf.getName());
+            if (cachedDigest == null || !leaf.getKeyDigest().equals(cachedDigest)) {
+                continue;
+            }
+            if (omitted == null) {
+                omitted = multiPath.toBuilder();
+            }
+            omitted.getLeafBuilder(i).clearPublickey();
+        }
+        return omitted == null ? multiPath : omitted.build();
+    }
+
+    /** Generates the root of shard {@code shard}'s subtree of the tree
+     * rooted at {@code root}, which only contains the shard's users, 
+     * when the namespace is split into 2^{@code shardBits} shards. 
+     * This is the node at depth {@code shardBits} on the path of the 
+     * shard's prefix, unless the shard has at most one user.
+     *
+     *@return The {@link org.coniks.coniks_common.UtilProtos.ShardRoot} 
+     * protobuf message or {@code null} upon failure.
+     */
+    public static ShardRoot generateShardRootProto(RootNode root, int shardBits, int shard){
+        ShardRoot.Builder shardRoot = ShardRoot.newBuilder();
+        shardRoot.setEpoch(root.getEpoch());
+
+        TreeNode runner = root;
+        for (int depth = 0; depth < shardBits; depth++) {
+            InteriorNode curNodeI = (InteriorNode)runner;
+            boolean direction = ((shard >> (shardBits-1-depth)) & 1) != 0;
+            byte[] childHash = direction ? curNodeI.getRightHash() : curNodeI.getLeftHash();
+            runner = direction ? curNodeI.getRight() : curNodeI.getLeft();
+
+            if (runner == null) {
+                return shardRoot.build();
+            }
+
+            if (runner instanceof UserLeafNode) {
+                UserLeafNode uln = (UserLeafNode)runner;
+                if (ServerUtils.getShard(uln.getIndex(), shardBits) != shard) {
+                    debugLog.error(uln.getUsername()+" doesn't belong to shard "+shard);
+                    return null;
+                }
+                shardRoot.setLeaf(true);
+            }
+
+            if (runner instanceof UserLeafNode || depth == shardBits-1) {
+                Hash subtree = setupHashProto(childHash, "shard subtree hash");
+                if (subtree == null) {
+                    return null;
+                }
+                shardRoot.setSubtree(subtree);
+                return shardRoot.build();
+            }
+        }
+        return shardRoot.build();
+    }
+
+    /** Generates the UserLeafNode protobuf message builder for the 
+     * user leaf node {@code uln}. The caller still needs to set the
+     * number of interior levels.
+     */
+    private static AuthPath.UserLeafNode.Builder setupUlnProto(UserLeafNode uln){
+        AuthPath.UserLeafNode.Builder ulnBuilder = AuthPath.UserLeafNode.newBuilder();
+        ulnBuilder.setName(uln.getUsername());
+        ulnBuilder.setPublickeyBytes(ByteString.copyFrom(uln.getPublicKeyBytes()));
+        ulnBuilder.setKeyDigest(ByteString.copyFrom(uln.getKeyDigest()));
+        ulnBuilder.setEpochAdded(uln.getEpochAdded());
+        ulnBuilder.setAllowsUnsignedKeychange(uln.allowsUnsignedKeychange());
+        ulnBuilder.setAllowsPublicLookup(uln.allowsPublicLookups());
+        ulnBuilder.addAllLookupIndex(ServerUtils.byteArrToIntList(uln.getIndex()));
+        return ulnBuilder;
+    }
+
     /** Generates a Hash protobuf message (e.g. included in the RootNode or
      * in the Commitment protobuf messages) with the given {@code hashBytes}.
      * The {@code name} inducates "whose" hash is being set up and is used for debugging.
@@ -228,6 +573,74 @@ public class ServerOps{
 
     }
 
+    /** Finds the user leaf node for {@code username} in the
+     * tree rooted at {@code root}.
+     *
+     *@return The {@link UserLeafNode} or {@code null} if {@code username}
+     * is not in the tree.
+     */
+    public static UserLeafNode findUln(String username, RootNode root){
+        byte[] lookupIndex = ServerUtils.unameToIndex(username);
+
+        TreeNode runner = root;
+        int curOffset = 0;
+        while (runner != null && !(runner instanceof UserLeafNode)) {
+            if (!ServerUtils.getNthBit(lookupIndex, curOffset)) {
+                runner = runner.getLeft();
+            }
+            else {
+                runner = runner.getRight();
+            }
+            curOffset++;
+        }
+
+        // the leaf may only share a prefix with the name
+        if (runner == null || 
+            !username.equals(((UserLeafNode)runner).getUsername())) {
+            return null;
+        }
+        return (UserLeafNode)runner;
+    }
+
+    /** Finds the user leaf node with the largest lookup index that is
+     * less than {@code lookupIndex} in the tree rooted at {@code root}.
+     *
+     *@return The {@link UserLeafNode} or {@code null} if there is no
+     * leaf before {@code lookupIndex}.
+     */
+    public static UserLeafNode findUlnBefore(byte[] lookupIndex, RootNode root){
+        // the leaf is either the one on lookupIndex's path, or the last
+        // leaf of the deepest subtree left of the path
+        TreeNode runner = root;
+        TreeNode leftOfPath = null;
+        int curOffset = 0;
+        while (runner instanceof InteriorNode) {
+            if (!ServerUtils.getNthBit(lookupIndex, curOffset)) {
+                runner = runner.getLeft();
+            }
+            else {
+                TreeNode left = runner.getLeft();
+                if (left != null) {
+                    leftOfPath = left;
+                }
+                runner = runner.getRight();
+            }
+            curOffset++;
+        }
+
+        if (runner instanceof UserLeafNode &&
+            ServerUtils.compareIndices(((UserLeafNode)runner).getIndex(), lookupIndex) < 0) {
+            return (UserLeafNode)runner;
+        }
+
+        runner = leftOfPath;
+        while (runner instanceof InteriorNode) {
+            TreeNode right = runner.getRight();
+            runner = right != null ? right : runner.getLeft();
+        }
+        return runner instanceof UserLeafNode ? (UserLeafNode)runner : null;
+    }
+
     /** Builds a Merkle prefix tree consisting of only a root node
      * with the previous root hash {@code prevRootHash} for
      * epoch {@code ep}. This tree "skeleton"
@@ -245,45 +658,41 @@ public class ServerOps{
 
     }
 
-    /** Builds the Merkle prefix tree for the first epoch after intializing
-     * the server's namespace with the pending registrations in {@code pendingQ},
-     * the initial epoch's root hash {@code initRootHash} and the new epoch
-     * epoch {@code ep}. 
+    /** Starts the staging tree for the epoch after {@code curRoot}'s epoch
+     * {@code ep}, given the epoch interval {@code epInt}. New registrations
+     * are inserted into the staging tree as they arrive, so that publishing
+     * the next epoch only needs to hash the paths to them.
+     * {@code curRoot} is {@code null} if no tree has been published yet.
      *
-     *@return The {@link RootNode} for the first epoch after initializing
-     * the server's namespace or {@code null} in case of an error.
+     *@return The {@link UserTreeBuilder} holding the staging tree.
      */
-    public static RootNode buildFirstEpochTree(
-                                               PriorityQueue<Pair<byte[],UserLeafNode>> pendingQ,
-					       byte[] initRootHash,
-					       long ep){
+    public static UserTreeBuilder startStagingTree(RootNode curRoot, 
+                                                   long ep, int epInt){
 
 	UserTreeBuilder utb = UserTreeBuilder.getInstance();
-	
-        return utb.createNewTree(pendingQ, initRootHash, ep);
+	utb.startStagingTree(curRoot, ep + epInt);
+	return utb;
 
     }
 
-    // update the history by adding all new users to the hash tree and updating the tree
-    /** Builds the Merkle prefix tree for the next epoch after 
-     * with the pending registrations in {@code pendingQ}, the current epoch's
-     * root node {@code curRoot}, the current epoch {@code ep},
-     * and the epoch interval {@code epInt}.
+    /** Finishes the staging tree held by {@code utb}, which was started
+     * from the current epoch's root node {@code curRoot}, so it can be 
+     * published as the next epoch's Merkle prefix tree.
      *
-     *@return The {@link RootNode} for the next epoch or {@code null} in case of an error.
+     *@return The {@link RootNode} for the next epoch.
      */
-    public static RootNode buildNextEpochTree(
-                                              PriorityQueue<Pair<byte[],UserLeafNode>> pendingQ,
-					      RootNode curRoot, 
-					      long ep, int epInt){
+    public static RootNode buildNextEpochTree(UserTreeBuilder utb, RootNode curRoot){
 
-	UserTreeBuilder utb = UserTreeBuilder.getInstance();
-	
         // curRoot will become the next epoch's prev so we need to pass current root 
-        // hash to buildTree()
-        byte[] rootBytes = ServerUtils.convertRootNode(curRoot);
-	return utb.copyExtendTree(curRoot, ServerUtils.hash(rootBytes), pendingQ, 
-				     ep + epInt);
+        // hash to the builder
+        byte[] prevRootHash = null;
+        if (curRoot != null) {
+            prevRootHash = ServerUtils.hash(ServerUtils.convertRootNode(curRoot));
+        }
+        else {
+            prevRootHash = ServerUtils.hash(new byte[10]);
+        }
+	return utb.finishStagingTree(prevRootHash);
     }
 
 } //ends ServerOps class
@@ -44,9 +44,7 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Comparator;
 
-import org.javatuples.Pair;
 
 /** Implements various utility functions
  * used by various components of a CONIKS
@@ -79,6 +77,31 @@ public class ServerUtils{
      */
     public static final int MAX_NUM_LOG_FILES = 5;
 
+    /** The maximum number of names a client may look up
+     * in a single key lookup batch.
+     */
+    public static final int MAX_LOOKUP_BATCH_SIZE = 4096;
+
+    /** The maximum number of entries in a single bulk registration
+     * chunk. Larger imports are sent as several chunks.
+     */
+    public static final int MAX_BULK_REGISTRATION_SIZE = 10000;
+
+    /** The maximum number of commitments streamed back for
+     * a single commitment range request.
+     */
+    public static final int MAX_COMMITMENT_RANGE_SIZE = 1024;
+
+    /** The maximum number of bytes of a tree delta sent to a 
+     * follower in a single epoch delta chunk.
+     */
+    public static final int EPOCH_DELTA_CHUNK_SIZE = (1 << 20);
+
+    /** The maximum number of leaves in a single chunk of a leaf range,
+     * which bounds the memory used to prove each chunk.
+     */
+    public static final int MAX_LEAF_RANGE_CHUNK_SIZE = 1024;
+
     private static final char[] hexArray = "0123456789ABCDEF".toCharArray();
 
     /** Defines the <i>specific<i> responses a server can
@@ -91,7 +114,10 @@ public class ServerUtils{
         NAME_EXISTS_ERR, //name is already in server's Coniks namespace
         MALFORMED_ERR,
         COMMITMENT_RESP,
-        AUTH_PATH
+        AUTH_PATH,
+        OVERLOADED, // request was shed by admission control
+        UNAUTHORIZED_ERR, // client is not allowed to send this request
+        READ_ONLY_ERR // a follower can't handle registrations
      }
 
     /** Generates the cryptographic hash of {@code input}.
@@ -244,6 +270,37 @@ public class ServerUtils{
 	return (maskedBit != 0);
     }
 
+    /** Gets the shard that owns the lookup index {@code index} when the
+     * namespace is split into 2^{@code shardBits} shards by the index's
+     * first {@code shardBits} bits.
+     *
+     *@return the shard's number, i.e. the index's first {@code shardBits} bits.
+     */
+    public static int getShard(byte[] index, int shardBits){
+        int shard = 0;
+        for (int i = 0; i < shardBits; i++) {
+            shard = (shard << 1) | (getNthBit(index, i) ? 1 : 0);
+        }
+        return shard;
+    }
+
+    /** Compares the lookup indices {@code index1} and {@code index2}
+     * as unsigned big-endian numbers, i.e. in the order of the 
+     * leaves in the tree.
+     *
+     *@return a negative number, zero or a positive number if {@code index1}
+     * is less than, equal to or greater than {@code index2}.
+     */
+    public static int compareIndices(byte[] index1, byte[] index2){
+        for (int i = 0; i < index1.length && i < index2.length; i++) {
+            int cmp = (index1[i] & 0xff) - (index2[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return index1.length - index2.length;
+    }
+
     /** Gets the 16-bit prefix of a byte array {@code arr}.
      *
      *@return the first 16 bits of {@code arr} or all zeros if the length
@@ -323,22 +380,24 @@ public class ServerUtils{
 
     // TODO: use real dsa keys
     /** Converts a {@link UserLeafNode} {@code uln} to a hashable array of bytes.
+     * The binding commits to the digest of the public key, so its size 
+     * doesn't depend on the key's.
      *
      *@return The {@code byte[]} containing the serialized UserLeafNode.
      */
     public static byte[] convertUserLeafNode(UserLeafNode uln){
-        byte[] pubKey = strToBytes(uln.getPublicKey());
+        byte[] keyDigest = uln.getKeyDigest();
 	byte[] usr = strToBytes(uln.getUsername());
         byte[] ep_add = longToBytes(uln.getEpochAdded());
         byte[] auk = new byte[]{(byte)(uln.allowsUnsignedKeychange() ? 0x01 : 0x00)};
         byte[] apl = new byte[]{(byte)(uln.allowsPublicLookups() ? 0x01 : 0x00)};
 
-	byte[] leafBytes = new byte[pubKey.length+usr.length+ep_add.length+auk.length+
+	byte[] leafBytes = new byte[keyDigest.length+usr.length+ep_add.length+auk.length+
                                     apl.length];
 	
 	ByteBuffer arr = ByteBuffer.wrap(leafBytes);
 	arr.put(usr);
-	arr.put(pubKey);
+	arr.put(keyDigest);
 	arr.put(ep_add);
 	arr.put(auk);
         arr.put(apl);
@@ -454,40 +513,4 @@ public class ServerUtils{
 
     }
 
-    /** Comparator for ordering the pendingQueue in
-     * increasing order of a data binding lookup index's
-     * first 24 bits.
-     *
-     *@author Marcela S. Melara (melara@cs.princeton.edu)
-     */
-    public static class PrefixComparator implements Comparator<Pair<byte[], UserLeafNode>> {
-	
-        
-        /** Compares the first 24 bits of two data binding lookup indeces.
-         *
-         *@return 0 if they are equal, 1 if the lookup index of {@code p1} is greater, and
-         * -1 if the lookup index of {@code p2} is greater.
-         *@throws A RuntimeException if either of the {@code byte[]} of the lookup indeces
-         *is smaller than 3 bytes.
-         */
-        @Override
-	public int compare(Pair<byte[], UserLeafNode> p1,  Pair<byte[], UserLeafNode> p2) {
-	    byte[] buf1 = p1.getValue0();
-	    byte[] buf2 = p2.getValue0();
-
-	    if (buf1.length < 3 || buf2.length < 3) {
-		throw new RuntimeException("bad byte array length");
-	    }
-	    
-	    for(int i = 0; i < 3; i++){
-		if(buf1[i] > buf2[i]){
-		    return 1;
-		}else if (buf1[i] < buf2[i]){
-		    return -1;
-		}
-	    }
-	    return 0;
-	}
-    }
-
 } //ends ServerUtils class
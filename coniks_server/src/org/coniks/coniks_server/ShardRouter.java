@@ -0,0 +1,405 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+import org.coniks.coniks_common.MsgType;
+import org.coniks.coniks_common.C2SProtos.Registration;
+import org.coniks.coniks_common.C2SProtos.RegistrationResp;
+import org.coniks.coniks_common.C2SProtos.KeyLookup;
+import org.coniks.coniks_common.C2SProtos.AuthPath;
+import org.coniks.coniks_common.UtilProtos.Hash;
+import org.coniks.coniks_common.UtilProtos.ShardRootReq;
+import org.coniks.coniks_common.UtilProtos.ShardRoot;
+import org.coniks.coniks_common.UtilProtos.ServerResp;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+import com.google.protobuf.AbstractMessage;
+
+/** Implements a router for a directory whose namespace is split into 
+ * 2^k shards by the first k bits of the users' lookup indices. Each shard
+ * is a separate server that builds, hashes and stores the tree of only
+ * its own users, so the shard's subtree is the same as the subtree at 
+ * depth k in the tree of the whole namespace.
+ *<p>
+ * Every epoch, the router fetches the roots of the shards' latest subtrees
+ * and builds the top k levels of the whole tree from them, so that the 
+ * router's signed tree root is the same as if a single server built the
+ * tree. Registrations and lookups are sent to the shard that owns the name,
+ * and the router replaces the top of the shard's authentication path with
+ * the path through its own tree.
+ */
+public class ShardRouter {
+
+    // how long connecting to a shard or a read from it may block, in ms,
+    // so a hung peer doesn't hold up its callers forever
+    private static final int SOCKET_TIMEOUT = 10000;
+
+    // the shards' epochs that each of the router's epochs was built from
+    private static final int MAX_TRACKED_EPOCHS = 1024;
+
+    // the kinds of subtrees in the top of the tree: a single leaf is
+    // moved up into its parent's place if its sibling is empty
+    private static final int EMPTY_SUBTREE = 0;
+    private static final int LEAF_SUBTREE = 1;
+    private static final int INTERIOR_SUBTREE = 2;
+
+    private String[] hosts;
+    private int[] ports;
+    private int shardBits;
+    private TreeMap<Long, long[]> shardEpochs;
+
+    /** Sets up a router for the shards at {@code shards}, given as a
+     * comma-separated list of {@code host:port} in the order of 
+     * their prefixes.
+     *
+     *@throws An {@code IllegalArgumentException} if the number of shards 
+     * isn't a power of two greater than one, or an address isn't 
+     * of the form {@code host:port}.
+     */
+    public ShardRouter(String shards) {
+        String[] addrs = shards.split(",");
+        if (addrs.length < 2 || Integer.bitCount(addrs.length) != 1) {
+            throw new IllegalArgumentException("bad number of shards "+addrs.length);
+        }
+        this.shardBits = Integer.numberOfTrailingZeros(addrs.length);
+        this.hosts = new String[addrs.length];
+        this.ports = new int[addrs.length];
+
+        for (int i = 0; i < addrs.length; i++) {
+            String addr = addrs[i].trim();
+            int sep = addr.lastIndexOf(':');
+            if (sep <= 0) {
+                throw new IllegalArgumentException("bad shard address "+addr);
+            }
+            this.hosts[i] = addr.substring(0, sep);
+            this.ports[i] = Integer.parseInt(addr.substring(sep+1));
+        }
+        this.shardEpochs = new TreeMap<Long, long[]>();
+    }
+
+    /** Gets the number of shards.
+     *
+     *@return The number of shards.
+     */
+    public int getNumShards() {
+        return hosts.length;
+    }
+
+    /** Gets the number of bits of the lookup indices that select a shard.
+     *
+     *@return The number of prefix bits.
+     */
+    public int getShardBits() {
+        return shardBits;
+    }
+
+    /** Fetches the roots of the shards' latest subtrees and builds the
+     * tree for epoch {@code epoch}, whose previous root has the hash
+     * {@code prevHash}. The returned tree only has the top levels
+     * down to the shards' subtrees; the nodes below are only kept 
+     * by the shards.
+     *
+     *@return The {@link RootNode} of the new tree.
+     *@throws An {@code IOException} if a shard cannot be reached.
+     */
+    public synchronized RootNode aggregate(byte[] prevHash, long epoch) throws IOException {
+        ShardRoot[] roots = new ShardRoot[hosts.length];
+        long[] epochs = new long[hosts.length];
+        for (int i = 0; i < hosts.length; i++) {
+            ShardRootReq.Builder req = ShardRootReq.newBuilder();
+            req.setShardBits(shardBits);
+            req.setShard(i);
+
+            AbstractMessage resp = request(i, MsgType.SHARD_ROOT_REQ, req.build());
+            if (!(resp instanceof ShardRoot)) {
+                throw new IOException("shard "+i+" didn't send its root");
+            }
+            roots[i] = (ShardRoot)resp;
+            epochs[i] = roots[i].getEpoch();
+        }
+
+        int mid = hosts.length/2;
+        Subtree left = buildTop(roots, 0, mid, 1);
+        Subtree right = buildTop(roots, mid, hosts.length, 1);
+
+        // the root's children stay where they are even if they're leaves
+        RootNode root = new RootNode(left.node, right.node, 0, prevHash, epoch,
+                                     left.hash, right.hash);
+        root.leftDirty = true;
+        root.rightDirty = true;
+        if (left.node != null) {
+            left.node.setParent(root);
+        }
+        if (right.node != null) {
+            right.node.setParent(root);
+        }
+
+        shardEpochs.put(epoch, epochs);
+        while (shardEpochs.size() > MAX_TRACKED_EPOCHS) {
+            shardEpochs.pollFirstEntry();
+        }
+        return root;
+    }
+
+    // a subtree of the top of the tree: only the interior nodes above the
+    // shards' subtrees are kept, the shards' subtrees and leaves are just hashes
+    private static class Subtree {
+        InteriorNode node;
+        byte[] hash;
+        int kind;
+
+        Subtree(InteriorNode node, byte[] hash, int kind) {
+            this.node = node;
+            this.hash = hash;
+            this.kind = kind;
+        }
+    }
+
+    // builds the subtree at depth containing the shards [lo, hi)
+    private Subtree buildTop(ShardRoot[] roots, int lo, int hi, int depth) 
+        throws IOException {
+        if (depth == shardBits) {
+            ShardRoot shardRoot = roots[lo];
+            if (!shardRoot.hasSubtree()) {
+                return new Subtree(null, ServerUtils.hash(new byte[ServerUtils.HASH_SIZE_BYTES]),
+                                   EMPTY_SUBTREE);
+            }
+            ArrayList<Integer> hashList = 
+                new ArrayList<Integer>(shardRoot.getSubtree().getHashList());
+            if (hashList.size() != ServerUtils.HASH_SIZE_BYTES) {
+                throw new IOException("bad subtree hash length for shard "+lo);
+            }
+            return new Subtree(null, ServerUtils.intListToByteArr(hashList),
+                               shardRoot.getLeaf() ? LEAF_SUBTREE : INTERIOR_SUBTREE);
+        }
+
+        int mid = (lo+hi)/2;
+        Subtree left = buildTop(roots, lo, mid, depth+1);
+        Subtree right = buildTop(roots, mid, hi, depth+1);
+
+        // a leaf's hash doesn't depend on its depth, so moving it up
+        // into its parent's place leaves the hash unchanged
+        if (left.kind == EMPTY_SUBTREE && right.kind != INTERIOR_SUBTREE) {
+            return right;
+        }
+        if (right.kind == EMPTY_SUBTREE && left.kind == LEAF_SUBTREE) {
+            return left;
+        }
+
+        // the top of the tree is rebuilt every epoch
+        InteriorNode node = new InteriorNode(left.node, right.node, null, depth,
+                                             left.hash, right.hash, false);
+        node.leftDirty = true;
+        node.rightDirty = true;
+        if (left.node != null) {
+            left.node.setParent(node);
+        }
+        if (right.node != null) {
+            right.node.setParent(node);
+        }
+        return new Subtree(node, ServerUtils.hash(ServerUtils.convertInteriorNode(node)),
+                           INTERIOR_SUBTREE);
+    }
+
+    /** Sends the registration {@code reg} to the shard that owns its name.
+     *
+     *@return The shard's {@link org.coniks.coniks_common.C2SProtos.RegistrationResp}
+     * or {@link org.coniks.coniks_common.UtilProtos.ServerResp} message.
+     *@throws An {@code IOException} if the shard cannot be reached.
+     */
+    public AbstractMessage register(Registration reg) throws IOException {
+        int shard = ServerUtils.getShard(ServerUtils.unameToIndex(reg.getName()), shardBits);
+
+        AbstractMessage resp = request(shard, MsgType.REGISTRATION, reg);
+        if (!(resp instanceof RegistrationResp || resp instanceof ServerResp)) {
+            throw new IOException("unexpected registration response from shard "+shard);
+        }
+        return resp;
+    }
+
+    /** Looks up {@code username} at the shard that owns it, in the shard's
+     * epoch from which the tree rooted at {@code root} was built. 
+     *
+     *@return The {@link org.coniks.coniks_common.C2SProtos.AuthPath} from 
+     * {@code root} to the user's leaf, or the shard's 
+     * {@link org.coniks.coniks_common.UtilProtos.ServerResp} message if it 
+     * didn't find the user.
+     *@throws An {@code IOException} if the shard cannot be reached, or it
+     * no longer has the epoch.
+     */
+    public AbstractMessage lookup(String username, RootNode root) throws IOException {
+        byte[] index = ServerUtils.unameToIndex(username);
+        int shard = ServerUtils.getShard(index, shardBits);
+
+        long[] epochs = null;
+        synchronized (this) {
+            epochs = shardEpochs.get(root.getEpoch());
+        }
+        if (epochs == null) {
+            throw new IOException("epoch "+root.getEpoch()+" is no longer tracked");
+        }
+
+        KeyLookup.Builder lookup = KeyLookup.newBuilder();
+        lookup.setName(username);
+        lookup.setEpoch(epochs[shard]);
+
+        AbstractMessage resp = request(shard, MsgType.KEY_LOOKUP, lookup.build());
+        if (resp instanceof ServerResp) {
+            return resp;
+        }
+        if (!(resp instanceof AuthPath)) {
+            throw new IOException("unexpected lookup response from shard "+shard);
+        }
+        return splicePath((AuthPath)resp, index, root, shard, epochs[shard]);
+    }
+
+    // replaces the top of the shard's authentication path with the path
+    // from the router's root down to the shard's subtree, or to the shard's
+    // only leaf if it was moved up
+    private AuthPath splicePath(AuthPath shardPath, byte[] index, RootNode root, 
+                                int shard, long shardEpoch) throws IOException {
+        if (!shardPath.hasRoot() || shardPath.getRoot().getEpoch() != shardEpoch) {
+            throw new IOException("shard "+shard+" no longer has epoch "+shardEpoch);
+        }
+
+        AuthPath.Builder authPath = AuthPath.newBuilder();
+        ArrayList<AuthPath.InteriorNode> topList = new ArrayList<AuthPath.InteriorNode>();
+
+        InteriorNode runner = root;
+        int depth = 0;
+        while (true) {
+            boolean direction = ServerUtils.getNthBit(index, depth);
+            byte[] prunedChildHash = direction ? runner.getLeftHash() : runner.getRightHash();
+            AuthPath.PrunedChild prunedChild = direction ? 
+                AuthPath.PrunedChild.LEFT : AuthPath.PrunedChild.RIGHT;
+
+            if (depth == 0) {
+                AuthPath.RootNode.Builder rootBuilder = AuthPath.RootNode.newBuilder();
+                rootBuilder.setPrunedchild(prunedChild);
+                rootBuilder.setSubtree(setupHashProto(prunedChildHash));
+                rootBuilder.setPrev(setupHashProto(root.getPrev()));
+                rootBuilder.setEpoch(root.getEpoch());
+                authPath.setRoot(rootBuilder.build());
+            }
+            else {
+                AuthPath.InteriorNode.Builder inBuilder = AuthPath.InteriorNode.newBuilder();
+                inBuilder.setPrunedchild(prunedChild);
+                inBuilder.setSubtree(setupHashProto(prunedChildHash));
+                topList.add(0, inBuilder.build());
+            }
+
+            TreeNode child = direction ? runner.getRight() : runner.getLeft();
+            depth++;
+            if (!(child instanceof InteriorNode)) {
+                break;
+            }
+            runner = (InteriorNode)child;
+        }
+
+        // depth is now the depth of the shard's subtree, or of its leaf
+        AuthPath.UserLeafNode.Builder ulnBuilder = shardPath.getLeaf().toBuilder();
+        int shardDepth = ulnBuilder.getIntlevels()+1;
+        if (shardPath.getInteriorCount() != shardDepth-1) {
+            throw new IOException("malformed proof from shard "+shard);
+        }
+
+        if (shardDepth == 1) {
+            ulnBuilder.setIntlevels(depth-1);
+        }
+        else if (depth == shardBits && shardDepth > shardBits) {
+            // the shard's interior nodes are listed from the leaf up
+            authPath.addAllInterior(shardPath.getInteriorList().subList(0, shardDepth-shardBits));
+        }
+        else {
+            throw new IOException("proof from shard "+shard+" doesn't match its subtree");
+        }
+        authPath.addAllInterior(topList);
+        authPath.setLeaf(ulnBuilder.build());
+
+        return authPath.build();
+    }
+
+    // sends the message msg of type msgType to the shard and receives its reply
+    private AbstractMessage request(int shard, int msgType, AbstractMessage msg) 
+        throws IOException {
+        SSLSocketFactory sslFact = (SSLSocketFactory)SSLSocketFactory.getDefault();
+        SSLSocket sock = (SSLSocket)sslFact.createSocket();
+        try {
+            // a timed out connect or read is thrown as an IOException
+            sock.connect(new InetSocketAddress(hosts[shard], ports[shard]), SOCKET_TIMEOUT);
+            sock.setSoTimeout(SOCKET_TIMEOUT);
+            DataOutputStream dout = new DataOutputStream(sock.getOutputStream());
+            DataInputStream din = new DataInputStream(sock.getInputStream());
+
+            dout.writeByte(msgType);
+            msg.writeDelimitedTo(dout);
+            dout.flush();
+
+            int respType = din.readUnsignedByte();
+            if (respType == MsgType.SERVER_RESP) {
+                return ServerResp.parseDelimitedFrom(din);
+            }
+            else if (respType == MsgType.REGISTRATION_RESP) {
+                return RegistrationResp.parseDelimitedFrom(din);
+            }
+            else if (respType == MsgType.AUTH_PATH) {
+                return AuthPath.parseDelimitedFrom(din);
+            }
+            else if (respType == MsgType.SHARD_ROOT) {
+                return ShardRoot.parseDelimitedFrom(din);
+            }
+            throw new IOException("unexpected message type "+respType+" from shard "+shard);
+        }
+        finally {
+            sock.close();
+        }
+    }
+
+    // generates the Hash protobuf message for hashBytes
+    private static Hash setupHashProto(byte[] hashBytes) {
+        Hash.Builder hash = Hash.newBuilder();
+        hash.setLen(hashBytes.length);
+        hash.addAllHash(ServerUtils.byteArrToIntList(hashBytes));
+        return hash.build();
+    }
+
+}
@@ -0,0 +1,431 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.coniks.coniks_server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/** Implements a sparse Merkle tree of fixed depth 256 as a 
+ * {@link DirectoryTree}: each user leaf node is the leaf at the position
+ * given by all bits of its lookup index, and every other leaf is empty. 
+ * The hash of an empty subtree only depends on its depth, so these 
+ * default hashes are computed once. Unlike the Merkle prefix tree, the 
+ * tree (and so each proof) only depends on the set of leaves, not on the 
+ * order in which they were inserted, and leaves can be updated in place.
+ *<p>
+ * Only the paths down to the subtrees that contain a single leaf are
+ * stored; such a subtree's hash is computed from the leaf's hash and
+ * the default hashes below it, so inserting or updating a leaf 
+ * recomputes at most 256 hashes. Disjoint subtrees are hashed in 
+ * parallel. A proof of a lookup index has a bitmap of the levels whose
+ * sibling subtree isn't empty, and only includes the hashes of these 
+ * siblings.
+ */
+public class SparseMerkleTree implements DirectoryTree {
+
+    /** The depth of the tree, i.e. the number of bits of a lookup index.
+     */
+    public static final int DEPTH = ServerUtils.HASH_SIZE_BITS;
+
+    // the hash of an empty subtree at each depth, 
+    // the empty leaf is hashed like an empty subtree of the prefix tree
+    private static final byte[][] DEFAULT_HASHES = defaultHashes();
+
+    private Node root;
+    private int size;
+
+    // the number of threads hashing disjoint subtrees, and
+    // the depth of these subtrees
+    private int threads;
+    private int parallelDepth;
+
+    /** Constructs an empty sparse Merkle tree that recomputes its hashes
+     * with up to {@code threads} threads.
+     */
+    public SparseMerkleTree(int threads) {
+        this.root = new Node();
+        this.size = 0;
+        this.threads = Math.max(threads, 1);
+        // split the tree into about 4 subtrees per thread
+        this.parallelDepth = 0;
+        while ((1 << this.parallelDepth) < 4*this.threads) {
+            this.parallelDepth++;
+        }
+    }
+
+    /** Inserts all user leaf nodes in {@code batch} into the tree. 
+     * A leaf replaces the leaf with the same lookup index, if any.
+     *
+     *@return {@code true} if all nodes were inserted, {@code false} if
+     * the nodes spilled by {@code batch} cannot be read.
+     */
+    public boolean insertBatch(PendingBatch batch) {
+        try {
+            batch.startScan();
+            UserLeafNode uln = batch.next();
+            while (uln != null) {
+                insert(uln);
+                uln = batch.next();
+            }
+        }
+        catch (IOException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /** Inserts the user leaf node {@code uln} into the tree, or
+     * replaces the leaf with the same lookup index. The hashes on its path
+     * are recomputed by {@link SparseMerkleTree#computeRootHash()}.
+     */
+    public void insert(UserLeafNode uln) {
+        byte[] index = uln.getIndex();
+        Node cur = root;
+        int depth = 0;
+        while (true) {
+            cur.hash = null;
+            boolean right = ServerUtils.getNthBit(index, depth);
+            Node child = right ? cur.right : cur.left;
+
+            if (child == null) {
+                child = new Node();
+                child.leaf = uln;
+                size++;
+            }
+            else if (child.leaf != null && Arrays.equals(child.leaf.getIndex(), index)) {
+                child.leaf = uln;
+                child.hash = null;
+            }
+            else if (child.leaf != null) {
+                // the leaf is no longer alone in this subtree,
+                // push it down one level and continue below it
+                Node split = new Node();
+                child.hash = null;
+                if (ServerUtils.getNthBit(child.leaf.getIndex(), depth+1)) {
+                    split.right = child;
+                }
+                else {
+                    split.left = child;
+                }
+                child = split;
+            }
+
+            if (right) {
+                cur.right = child;
+            }
+            else {
+                cur.left = child;
+            }
+            if (child.leaf != null) {
+                return;
+            }
+            cur = child;
+            depth++;
+        }
+    }
+
+    /** Recomputes the hashes of all paths changed since the last call,
+     * hashing the changed subtrees below a few levels in parallel.
+     *
+     *@return The root hash as a {@code byte[]}.
+     */
+    public byte[] computeRootHash() {
+        if (threads > 1 && root.hash == null) {
+            ArrayList<Callable<byte[]>> tasks = new ArrayList<Callable<byte[]>>();
+            collectDirty(root, 0, tasks);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            boolean interrupted = false;
+            try {
+                for (Future<byte[]> f : pool.invokeAll(tasks)) {
+                    f.get();
+                }
+            }
+            catch (InterruptedException e) {
+                // the remaining subtrees are hashed below
+                interrupted = true;
+            }
+            catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+            finally {
+                // no task may still be hashing when this thread does
+                pool.shutdown();
+                while (!pool.isTerminated()) {
+                    try {
+                        pool.awaitTermination(1, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return hashNode(root, 0);
+    }
+
+    /** Finds the user leaf node with the lookup index {@code index}.
+     *
+     *@return The {@link UserLeafNode} or {@code null} if {@code index}
+     * is not in the tree.
+     */
+    public UserLeafNode lookup(byte[] index) {
+        Node cur = root;
+        int depth = 0;
+        while (cur != null && cur.leaf == null) {
+            cur = ServerUtils.getNthBit(index, depth) ? cur.right : cur.left;
+            depth++;
+        }
+        if (cur == null || !Arrays.equals(cur.leaf.getIndex(), index)) {
+            return null;
+        }
+        return cur.leaf;
+    }
+
+    /** Gets the number of non-empty sibling hashes in the proof of
+     * the lookup index {@code index}.
+     *
+     *@return The number of hashes.
+     */
+    public int getProofLength(byte[] index) {
+        return getProof(index).getSiblingCount();
+    }
+
+    /** Gets the number of user leaf nodes in the tree.
+     *
+     *@return The number of leaves.
+     */
+    public int size() {
+        return size;
+    }
+
+    /** Generates the proof of inclusion or absence of the lookup index
+     * {@code index}, recomputing any hashes on its path that changed.
+     *
+     *@return The {@link SparseMerkleTree.Proof}.
+     */
+    public Proof getProof(byte[] index) {
+        Proof proof = new Proof();
+        Node cur = root;
+        int depth = 0;
+        while (cur != null && cur.leaf == null) {
+            boolean right = ServerUtils.getNthBit(index, depth);
+            Node sibling = right ? cur.left : cur.right;
+            if (sibling != null) {
+                proof.addSibling(depth, hashNode(sibling, depth+1));
+            }
+            cur = right ? cur.right : cur.left;
+            depth++;
+        }
+        if (cur == null) {
+            return proof;
+        }
+
+        byte[] other = cur.leaf.getIndex();
+        if (Arrays.equals(other, index)) {
+            proof.leaf = cur.leaf;
+            return proof;
+        }
+        // the other leaf is alone in this subtree, so the only non-empty
+        // sibling below is where the two paths diverge
+        while (ServerUtils.getNthBit(other, depth) == ServerUtils.getNthBit(index, depth)) {
+            depth++;
+        }
+        proof.addSibling(depth, hashLeaf(cur.leaf, depth+1));
+        return proof;
+    }
+
+    /** Verifies that {@code proof} proves that the lookup index {@code index} 
+     * maps to the leaf with hash {@code leafHash} ({@code null} if the
+     * leaf is empty) in the tree with the root hash {@code rootHash}.
+     *
+     *@return {@code true} if the proof is valid, {@code false} otherwise.
+     */
+    public static boolean verify(byte[] rootHash, byte[] index, byte[] leafHash, 
+                                 Proof proof) {
+        byte[] h = leafHash == null ? DEFAULT_HASHES[DEPTH] : leafHash;
+        int next = proof.siblings.size();
+        for (int depth = DEPTH-1; depth >= 0; depth--) {
+            byte[] sibling = DEFAULT_HASHES[depth+1];
+            if (ServerUtils.getNthBit(proof.bitmap, depth)) {
+                if (next == 0) {
+                    return false;
+                }
+                sibling = proof.siblings.get(--next);
+            }
+            h = ServerUtils.getNthBit(index, depth) ? hashPair(sibling, h) : hashPair(h, sibling);
+        }
+        return next == 0 && Arrays.equals(h, rootHash);
+    }
+
+    // computes the hash of the subtree of node n at the given depth,
+    // reusing the hashes of unchanged subtrees
+    private static byte[] hashNode(Node n, int depth) {
+        if (n == null) {
+            return DEFAULT_HASHES[depth];
+        }
+        if (n.hash == null) {
+            if (n.leaf != null) {
+                n.hash = hashLeaf(n.leaf, depth);
+            }
+            else {
+                n.hash = hashPair(hashNode(n.left, depth+1), hashNode(n.right, depth+1));
+            }
+        }
+        return n.hash;
+    }
+
+    // computes the hash of the subtree at the given depth 
+    // that only contains the leaf uln
+    private static byte[] hashLeaf(UserLeafNode uln, int depth) {
+        byte[] index = uln.getIndex();
+        byte[] h = uln.getHash();
+        for (int d = DEPTH-1; d >= depth; d--) {
+            if (ServerUtils.getNthBit(index, d)) {
+                h = hashPair(DEFAULT_HASHES[d+1], h);
+            }
+            else {
+                h = hashPair(h, DEFAULT_HASHES[d+1]);
+            }
+        }
+        return h;
+    }
+
+    // adds a task hashing each changed subtree at the parallel depth
+    private void collectDirty(Node n, int depth, ArrayList<Callable<byte[]>> tasks) {
+        if (n == null || n.hash != null) {
+            return;
+        }
+        if (depth == parallelDepth || n.leaf != null) {
+            final Node subtree = n;
+            final int d = depth;
+            tasks.add(new Callable<byte[]>() {
+                    public byte[] call() {
+                        return hashNode(subtree, d);
+                    }
+                });
+            return;
+        }
+        collectDirty(n.left, depth+1, tasks);
+        collectDirty(n.right, depth+1, tasks);
+    }
+
+    private static byte[] hashPair(byte[] left, byte[] right) {
+        byte[] pair = new byte[left.length+right.length];
+        System.arraycopy(left, 0, pair, 0, left.length);
+        System.arraycopy(right, 0, pair, left.length, right.length);
+        return ServerUtils.hash(pair);
+    }
+
+    private static byte[][] defaultHashes() {
+        byte[][] defaults = new byte[DEPTH+1][];
+        defaults[DEPTH] = ServerUtils.hash(new byte[ServerUtils.HASH_SIZE_BYTES]);
+        for (int d = DEPTH-1; d >= 0; d--) {
+            defaults[d] = hashPair(defaults[d+1], defaults[d+1]);
+        }
+        return defaults;
+    }
+
+    /** A node on the stored paths: either the root of a subtree
+     * that only contains {@code leaf}, or an interior node.
+     */
+    private static class Node {
+        private Node left;
+        private Node right;
+        private UserLeafNode leaf;
+
+        // the hash of the subtree, null if it changed
+        private byte[] hash;
+    }
+
+    /** A proof of inclusion or absence of a lookup index: the hashes of
+     * the non-empty sibling subtrees on its path from the root, and a
+     * bitmap of the depths at which they are.
+     */
+    public static class Proof {
+
+        private byte[] bitmap;
+        private ArrayList<byte[]> siblings;
+        private UserLeafNode leaf;
+
+        private Proof() {
+            this.bitmap = new byte[DEPTH/8];
+            this.siblings = new ArrayList<byte[]>();
+            this.leaf = null;
+        }
+
+        // adds the hash of the sibling subtree below depth, 
+        // the siblings must be added from the root down
+        private void addSibling(int depth, byte[] hash) {
+            bitmap[depth/8] |= (byte)(1 << (7 - depth%8));
+            siblings.add(hash);
+        }
+
+        /** Gets the user leaf node at the proven index.
+         *
+         *@return The {@link UserLeafNode} or {@code null} if this is
+         * a proof of absence.
+         */
+        public UserLeafNode getLeaf() {
+            return leaf;
+        }
+
+        /** Gets the number of non-empty sibling hashes in this proof.
+         *
+         *@return The number of hashes.
+         */
+        public int getSiblingCount() {
+            return siblings.size();
+        }
+
+        /** Gets the size of this proof's bitmap and hashes.
+         *
+         *@return The size in bytes.
+         */
+        public int getSizeBytes() {
+            return bitmap.length+siblings.size()*ServerUtils.HASH_SIZE_BYTES;
+        }
+    }
+
+}
@@ -0,0 +1,939 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.coniks.coniks_server;
+
+import org.coniks.coniks_common.C2SProtos.AuthPath;
+import org.coniks.coniks_common.C2SProtos.MultiAuthPath;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.javatuples.*;
+
+/** Measures the cost of building the CONIKS Merkle prefix tree 
+ * for dummy users, independently of the server.
+ */
+public class TreeBenchmark {
+
+    // the dummy public key of all test users
+    private static final String FAKE_PK = "(dsa (p #7712ECAF91762ED4E46076D846624D2A71C67A991D1FEA059593163C2B19690B1A5CA3C603F52A62D73BB91D521BA55682D38E3543CC34E384420AA32CFF440A90D28A6F54C586BB856460969C658B20ABF65A767063FE94A5DDBC2D0D5D1FD154116AE7039CC4E482DCF1245A9E4987EB6C91B32834B49052284027#))";
+
+    // the number of untimed runs before each measurement, so the JIT has compiled the builder
+    private static final int WARMUP_RUNS = 2;
+
+    // the lookups timed with cold caches, and the buffer written before each
+    // of them to evict the tree from the CPU caches, larger than any last-level cache
+    private static final int COLD_LOOKUPS = 2000;
+    private static final int FLUSH_BYTES = 64 << 20;
+
+    // keeps the cache flushes from being optimized away
+    private static long flushSum = 0;
+
+    /** Creates the pending registrations of {@code count} dummy users,
+     * starting at the user {@code offset}, for epoch {@code ep}.
+     *
+     *@return The batch of pending registrations.
+     */
+    private static PendingBatch makeUsers(int offset, int count, long ep) {
+        PendingBatch batch = new PendingBatch(count);
+        addUsers(batch, offset, count, ep);
+        return batch;
+    }
+
+    /** Adds the pending registrations of {@code count} dummy users,
+     * starting at the user {@code offset}, for epoch {@code ep} 
+     * to {@code batch}.
+     */
+    private static void addUsers(PendingBatch batch, int offset, int count, long ep) {
+        for (int i = offset; i < offset+count; i++) {
+            String uname = "test-"+i;
+            byte[] index = ServerUtils.unameToIndex(uname);
+            batch.add(index, new UserLeafNode(uname, FAKE_PK, ep, 0, index));
+        }
+    }
+
+    // the heap currently in use, after a full collection
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory()-rt.freeMemory();
+    }
+
+    /** The order of the pending registrations before they were kept
+     * in a {@link PendingBatch}: only the first 24 bits of the
+     * lookup indices are compared, as signed bytes.
+     */
+    private static class PrefixComparator implements Comparator<Pair<byte[], UserLeafNode>> {
+
+        public int compare(Pair<byte[], UserLeafNode> p1,  Pair<byte[], UserLeafNode> p2) {
+            byte[] buf1 = p1.getValue0();
+            byte[] buf2 = p2.getValue0();
+            for (int i = 0; i < 3; i++) {
+                if (buf1[i] != buf2[i]) {
+                    return buf1[i] > buf2[i] ? 1 : -1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    // compares two lookup indices as unsigned big-endian numbers
+    private static int compareIndices(byte[] a, byte[] b) {
+        for (int i = 0; i < a.length; i++) {
+            int diff = (a[i] & 0xff) - (b[i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    /** Orders {@code entries} lookup indices with the priority queue that
+     * used to hold the pending registrations and with a {@link PendingBatch},
+     * and prints the time of both and how many consecutive indices are
+     * out of order in the tree.
+     */
+    private static void benchSort(int entries, int runs) {
+        System.out.println("Ordering "+entries+" lookup indices, "+runs+" runs");
+
+        // the leaves don't matter for the order, so only the indices are created
+        byte[][] indices = new byte[entries][];
+        for (int i = 0; i < entries; i++) {
+            indices[i] = ServerUtils.unameToIndex("test-"+i);
+        }
+
+        long nanos = 0;
+        int unsorted = 0;
+        for (int run = 0; run < WARMUP_RUNS+runs; run++) {
+            long start = System.nanoTime();
+            PriorityQueue<Pair<byte[],UserLeafNode>> pendingQ = 
+                new PriorityQueue<Pair<byte[],UserLeafNode>>(16384, new PrefixComparator());
+            for (int i = 0; i < entries; i++) {
+                pendingQ.add(Pair.with(indices[i], (UserLeafNode)null));
+            }
+            byte[] prev = null;
+            unsorted = 0;
+            Pair<byte[],UserLeafNode> p = pendingQ.poll();
+            while (p != null) {
+                if (prev != null && compareIndices(prev, p.getValue0()) > 0) {
+                    unsorted++;
+                }
+                prev = p.getValue0();
+                p = pendingQ.poll();
+            }
+            if (run >= WARMUP_RUNS) {
+                nanos += System.nanoTime()-start;
+            }
+        }
+        System.out.println(" priority queue: "+String.format("%.1f", nanos/1e6/runs)+
+                           " ms, "+unsorted+" indices out of order");
+
+        nanos = 0;
+        for (int run = 0; run < WARMUP_RUNS+runs; run++) {
+            long start = System.nanoTime();
+            PendingBatch batch = new PendingBatch(16384);
+            for (int i = 0; i < entries; i++) {
+                batch.add(indices[i], null);
+            }
+            batch.sort();
+            unsorted = 0;
+            byte[] prev = null;
+            for (int i = 0; i < entries; i++) {
+                byte[] index = batch.getIndex(i);
+                if (prev != null && compareIndices(prev, index) > 0) {
+                    unsorted++;
+                }
+                prev = index;
+            }
+            if (run >= WARMUP_RUNS) {
+                nanos += System.nanoTime()-start;
+            }
+        }
+        System.out.println(" radix sort:     "+String.format("%.1f", nanos/1e6/runs)+
+                           " ms, "+unsorted+" indices out of order");
+    }
+
+    /** Builds a tree of {@code users} dummy users in a single sorted batch,
+     * starting each insertion from the root or from the previous insertion's
+     * path, and prints the number of visited nodes and the build time of both.
+     */
+    private static void benchFinger(int users, int runs) {
+        System.out.println("Sorted batch of "+users+" users, "+runs+" runs");
+        for (int mode = 0; mode < 2; mode++) {
+            boolean useFinger = (mode == 1);
+            long visited = 0;
+            long nanos = 0;
+            for (int run = 0; run < WARMUP_RUNS+runs; run++) {
+                PendingBatch batch = makeUsers(0, users, 1);
+
+                long start = System.nanoTime();
+                UserTreeBuilder utb = ServerOps.startBuildInitTree(ServerUtils.hash(new byte[10]), 1);
+                utb.setFingerInsertion(useFinger);
+                utb.extendTree(batch);
+                long t = System.nanoTime()-start;
+
+                if (run >= WARMUP_RUNS) {
+                    visited = utb.getVisitedCount();
+                    nanos += t;
+                }
+            }
+            System.out.println((useFinger ? " finger: " : " root:   ")+
+                               visited+" visited nodes ("+
+                               String.format("%.1f", (double)visited/users)+" per insertion), "+
+                               String.format("%.1f", nanos/1e6/runs)+" ms per build");
+        }
+    }
+
+    /** Fills a batch with {@code users} dummy users, once in memory and
+     * once spilling sorted runs of a tenth of the users to a temporary 
+     * directory, and builds a tree from it. Prints the heap held by the
+     * full batch and the fill and build times of both.
+     */
+    private static void benchSpill(int users, int runs) {
+        System.out.println("Batch of "+users+" users, "+runs+" runs");
+        File spillDir = new File(System.getProperty("java.io.tmpdir"));
+        int maxInMemory = Math.max(users/10, 1);
+        for (int mode = 0; mode < 2; mode++) {
+            boolean spill = (mode == 1);
+            long heap = 0;
+            long fillNanos = 0;
+            long buildNanos = 0;
+            int runFiles = 0;
+            for (int run = 0; run < WARMUP_RUNS+runs; run++) {
+                long before = usedHeap();
+                long start = System.nanoTime();
+                PendingBatch batch = spill ? new PendingBatch(users, spillDir, maxInMemory) :
+                    new PendingBatch(users);
+                addUsers(batch, 0, users, 1);
+                long fill = System.nanoTime()-start;
+                long held = usedHeap()-before;
+
+                start = System.nanoTime();
+                UserTreeBuilder utb = ServerOps.startBuildInitTree(ServerUtils.hash(new byte[10]), 1);
+                if (utb.extendTree(batch) == null) {
+                    System.out.println("Could not read the spilled runs.");
+                    batch.clear();
+                    return;
+                }
+                long build = System.nanoTime()-start;
+                runFiles = batch.getRunCount();
+                batch.clear();
+
+                if (run >= WARMUP_RUNS) {
+                    heap += held;
+                    fillNanos += fill;
+                    buildNanos += build;
+                }
+            }
+            System.out.println((spill ? " spilled ("+runFiles+" runs): " : " in memory:        ")+
+                               String.format("%.1f", heap/1048576.0/runs)+" MB held by the batch, "+
+                               String.format("%.1f", fillNanos/1e6/runs)+" ms to fill, "+
+                               String.format("%.1f", buildNanos/1e6/runs)+" ms to build");
+        }
+    }
+
+    /** Builds a tree of {@code users} dummy users, once hashing the new
+     * leaves during the build and once with the leaves hashed when they
+     * were registered. Prints the time spent hashing the leaves at
+     * registration and the build time of both.
+     */
+    private static void benchLeafHash(int users, int runs) {
+        System.out.println("Batch of "+users+" users, "+runs+" runs");
+        for (int mode = 0; mode < 2; mode++) {
+            boolean prehash = (mode == 1);
+            long hashNanos = 0;
+            long buildNanos = 0;
+            for (int run = 0; run < WARMUP_RUNS+runs; run++) {
+                PendingBatch batch = makeUsers(0, users, 1);
+
+                long start = System.nanoTime();
+                if (prehash) {
+                    batch.sort();
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).getHash();
+                    }
+                }
+                long hash = System.nanoTime()-start;
+
+                start = System.nanoTime();
+                UserTreeBuilder utb = ServerOps.startBuildInitTree(ServerUtils.hash(new byte[10]), 1);
+                utb.extendTree(batch);
+                long build = System.nanoTime()-start;
+
+                if (run >= WARMUP_RUNS) {
+                    hashNanos += hash;
+                    buildNanos += build;
+                }
+            }
+            System.out.println((prehash ? " hashed at registration: " : " hashed during build:    ")+
+                               String.format("%.1f", hashNanos/1e3/runs/users)+" us per registration, "+
+                               String.format("%.1f", buildNanos/1e6/runs)+" ms per build");
+        }
+    }
+
+    // creates an empty tree of the given engine, see benchEngines()
+    private static DirectoryTree newEngine(int engine, int threads) {
+        if (engine == 0) {
+            return new PrefixDirectoryTree(1);
+        }
+        return new SparseMerkleTree(engine == 1 ? 1 : threads);
+    }
+
+    /** Builds a tree of {@code users} dummy users with each
+     * {@link DirectoryTree} engine: the Merkle prefix tree, and the sparse
+     * Merkle tree hashed with one thread and with one thread per processor.
+     * Then inserts another 1% of users into it. Prints the build and update
+     * times, and the average number of hashes and size of the proofs 
+     * of 1000 registered users.
+     */
+    private static void benchEngines(int users, int runs) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int updates = Math.max(users/100, 1);
+        System.out.println("Tree of "+users+" users, update of "+updates+" users, "+
+                           runs+" runs, "+threads+" processors");
+        for (int engine = 0; engine < 3; engine++) {
+            long buildNanos = 0;
+            long updateNanos = 0;
+            long hashes = 0;
+            long proofBytes = 0;
+            int proofs = Math.min(users, 1000);
+            for (int run = 0; run < WARMUP_RUNS+runs; run++) {
+                PendingBatch batch = makeUsers(0, users, 1);
+                PendingBatch update = makeUsers(users, updates, 2);
+
+                long start = System.nanoTime();
+                DirectoryTree tree = newEngine(engine, threads);
+                tree.insertBatch(batch);
+                byte[] rootHash = tree.computeRootHash();
+                long build = System.nanoTime()-start;
+
+                start = System.nanoTime();
+                tree.insertBatch(update);
+                rootHash = tree.computeRootHash();
+                long upd = System.nanoTime()-start;
+
+                if (run < WARMUP_RUNS) {
+                    continue;
+                }
+                buildNanos += build;
+                updateNanos += upd;
+                for (int i = 0; i < proofs; i++) {
+                    byte[] index = ServerUtils.unameToIndex("test-"+i);
+                    if (engine == 0) {
+                        int len = tree.getProofLength(index);
+                        hashes += len;
+                        proofBytes += len*ServerUtils.HASH_SIZE_BYTES;
+                        continue;
+                    }
+                    SparseMerkleTree.Proof proof = ((SparseMerkleTree)tree).getProof(index);
+                    if (!SparseMerkleTree.verify(rootHash, index, 
+                                                 proof.getLeaf().getHash(), proof)) {
+                        System.out.println("Invalid proof for test-"+i);
+                        return;
+                    }
+                    hashes += proof.getSiblingCount();
+                    proofBytes += proof.getSizeBytes();
+                }
+            }
+            String name = engine == 0 ? " prefix tree:          " :
+                (engine == 1 ? " sparse, 1 thread:     " : " sparse, "+threads+" threads:    ");
+            System.out.println(name+String.format("%.1f", buildNanos/1e6/runs)+" ms per build, "+
+                               String.format("%.1f", updateNanos/1e6/runs)+" ms per update, "+
+                               String.format("%.1f", (double)hashes/runs/proofs)+" hashes and "+
+                               String.format("%.0f", (double)proofBytes/runs/proofs)+
+                               " bytes per proof");
+        }
+    }
+
+    // follows the path of index down the tree rooted at root,
+    // returns whether it leads to a leaf
+    private static boolean walk(RootNode root, byte[] index) {
+        TreeNode runner = root;
+        int depth = 0;
+        while (runner != null && !(runner instanceof UserLeafNode)) {
+            runner = ServerUtils.getNthBit(index, depth) ? runner.getRight() : runner.getLeft();
+            depth++;
+        }
+        return runner != null;
+    }
+
+    // writes one word per cache line of buf, evicting everything else
+    // from the CPU caches
+    private static void flushCaches(long[] buf) {
+        long sum = 0;
+        for (int i = 0; i < buf.length; i += 8) {
+            buf[i] += i;
+            sum += buf[i];
+        }
+        flushSum += sum;
+    }
+
+    /** Builds a tree of {@code users} dummy users and packs it into a
+     * {@link BlockedTree}. Then looks up 100000 random users and generates
+     * their authentication paths in the pointer-based tree and in the
+     * blocked layout. Prints the lookup and proof latencies, and the
+     * number of nodes or blocks touched per lookup, each of which is 
+     * likely a cache miss in a large tree. Also times 2000 lookups that
+     * each start with cold CPU caches, which approximates the cost of those
+     * cache misses, since Java cannot read the hardware's miss counters.
+     */
+    private static void benchBlocked(int users, int runs) {
+        System.out.println("Tree of "+users+" users, "+runs+" runs");
+        UserTreeBuilder utb = ServerOps.startBuildInitTree(ServerUtils.hash(new byte[10]), 1);
+        RootNode root = utb.extendTree(makeUsers(0, users, 1));
+        utb.clearTemps();
+
+        long start = System.nanoTime();
+        BlockedTree blocked = BlockedTree.build(root);
+        System.out.println(" packed "+blocked.getBlockCount()+" blocks of "+
+                           BlockedTree.BLOCK_LEVELS+" levels in "+
+                           String.format("%.1f", (System.nanoTime()-start)/1e6)+" ms, "+
+                           String.format("%.1f", blocked.getSizeBytes()/1048576.0)+" MB");
+
+        int lookups = 100000;
+        Random rand = new Random(1);
+        byte[][] indices = new byte[lookups][];
+        for (int i = 0; i < lookups; i++) {
+            indices[i] = ServerUtils.unameToIndex("test-"+rand.nextInt(users));
+        }
+
+        long[] flush = new long[FLUSH_BYTES/8];
+
+        for (int mode = 0; mode < 2; mode++) {
+            boolean useBlocks = (mode == 1);
+            long lookupNanos = 0;
+            long proofNanos = 0;
+            long touched = 0;
+            for (int i = 0; i < lookups; i++) {
+                int depth = blocked.getPrunedHashes(indices[i]).size();
+                touched += useBlocks ? 
+                    (depth+BlockedTree.BLOCK_LEVELS-1)/BlockedTree.BLOCK_LEVELS : depth+1;
+            }
+            for (int run = 0; run < WARMUP_RUNS+runs; run++) {
+                long lookupStart = System.nanoTime();
+                int found = 0;
+                for (int i = 0; i < lookups; i++) {
+                    if (useBlocks ? blocked.lookup(indices[i]) != null : walk(root, indices[i])) {
+                        found++;
+                    }
+                }
+                long lookup = System.nanoTime()-lookupStart;
+                if (found != lookups) {
+                    System.out.println("Could not find all users.");
+                    return;
+                }
+
+                long proofStart = System.nanoTime();
+                for (int i = 0; i < lookups; i++) {
+                    UserLeafNode uln = blocked.lookup(indices[i]);
+                    AuthPath path = useBlocks ? ServerOps.generateAuthPathProto(uln, blocked) :
+                        ServerOps.generateAuthPathProto(uln, root);
+                    if (path == null) {
+                        System.out.println("Could not generate the authentication path.");
+                        return;
+                    }
+                }
+                long proof = System.nanoTime()-proofStart;
+
+                if (run >= WARMUP_RUNS) {
+                    lookupNanos += lookup;
+                    proofNanos += proof;
+                }
+            }
+
+            long coldNanos = 0;
+            for (int i = 0; i < COLD_LOOKUPS; i++) {
+                flushCaches(flush);
+                long lookupStart = System.nanoTime();
+                if (useBlocks ? blocked.lookup(indices[i]) == null : !walk(root, indices[i])) {
+                    System.out.println("Could not find all users.");
+                    return;
+                }
+                coldNanos += System.nanoTime()-lookupStart;
+            }
+
+            System.out.println((useBlocks ? " blocked: " : " pointer: ")+
+                               String.format("%.2f", (double)touched/lookups)+
+                               (useBlocks ? " blocks" : " nodes")+" per lookup, "+
+                               String.format("%.0f", lookupNanos/(double)runs/lookups)+
+                               " ns per lookup, "+
+                               String.format("%.0f", coldNanos/(double)COLD_LOOKUPS)+
+                               " ns per lookup with cold caches, "+
+                               String.format("%.0f", proofNanos/(double)runs/lookups)+
+                               " ns per authentication path");
+        }
+
+        // the blocked layout must generate the same proofs
+        for (int i = 0; i < Math.min(lookups, 1000); i++) {
+            UserLeafNode uln = blocked.lookup(indices[i]);
+            if (!ServerOps.generateAuthPathProto(uln, blocked).equals(
+                    ServerOps.generateAuthPathProto(uln, root))) {
+                System.out.println("The authentication paths differ for "+uln.getUsername());
+                return;
+            }
+        }
+    }
+
+    /** Creates {@code users} dummy user leaves, each with its own copy
+     * of the dummy public key, and builds a tree of them. Prints the heap
+     * used per leaf and per user of the whole tree, and the tree's 
+     * estimated size used to limit the retained epochs.
+     */
+    private static void benchLeafHeap(int users) {
+        System.out.println("Tree of "+users+" users");
+        long before = usedHeap();
+        PendingBatch batch = new PendingBatch(users);
+        for (int i = 0; i < users; i++) {
+            String uname = "test-"+i;
+            byte[] index = ServerUtils.unameToIndex(uname);
+            UserLeafNode uln = new UserLeafNode(uname, FAKE_PK.substring(0, FAKE_PK.length()-8)+
+                                                String.format("%08x", i), 1, 0, index);
+            uln.getHash();
+            batch.add(index, uln);
+        }
+        long leaves = usedHeap()-before;
+        System.out.println(" leaves: "+String.format("%.0f", (double)leaves/users)+
+                           " bytes per leaf");
+
+        UserTreeBuilder utb = ServerOps.startBuildInitTree(ServerUtils.hash(new byte[10]), 1);
+        RootNode root = utb.extendTree(batch);
+        utb.clearTemps();
+        batch.clear();
+        long tree = usedHeap()-before;
+        System.out.println(" tree:   "+String.format("%.0f", (double)tree/users)+
+                           " bytes per user, "+
+                           String.format("%.0f", (double)EpochHistory.estimateTreeBytes(root)/users)+
+                           " bytes per user estimated");
+    }
+
+    /** Builds trees of {@code users} dummy users with public keys of
+     * increasing size. Prints the time to hash a leaf's binding when it
+     * commits to the key itself and when it commits to the key's digest,
+     * and the size of an authentication path with and without the key,
+     * as sent to clients that already have it.
+     */
+    private static void benchKeyBlob(int users, int runs) {
+        System.out.println("Tree of "+users+" users, "+runs+" runs");
+        int[] keySizes = {256, 1024, 4096};
+        for (int keySize : keySizes) {
+            PendingBatch batch = new PendingBatch(users);
+            StringBuilder pad = new StringBuilder();
+            while (pad.length() < keySize-8) {
+                pad.append(FAKE_PK);
+            }
+            String base = pad.substring(0, keySize-8);
+            for (int i = 0; i < users; i++) {
+                String uname = "test-"+i;
+                byte[] index = ServerUtils.unameToIndex(uname);
+                batch.add(index, new UserLeafNode(uname, base+String.format("%08x", i), 
+                                                  1, 0, index));
+            }
+            UserTreeBuilder utb = ServerOps.startBuildInitTree(ServerUtils.hash(new byte[10]), 1);
+            RootNode root = utb.extendTree(batch);
+            utb.clearTemps();
+
+            long keyNanos = 0;
+            long digestNanos = 0;
+            for (int run = 0; run < WARMUP_RUNS+runs; run++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < batch.size(); i++) {
+                    UserLeafNode uln = batch.get(i);
+                    byte[] usr = ServerUtils.strToBytes(uln.getUsername());
+                    byte[] key = uln.getPublicKeyBytes();
+                    byte[] leafBytes = new byte[usr.length+key.length+10];
+                    System.arraycopy(usr, 0, leafBytes, 0, usr.length);
+                    System.arraycopy(key, 0, leafBytes, usr.length, key.length);
+                    ServerUtils.hash(leafBytes);
+                }
+                long withKey = System.nanoTime()-start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < batch.size(); i++) {
+                    ServerUtils.hash(ServerUtils.convertUserLeafNode(batch.get(i)));
+                }
+                long withDigest = System.nanoTime()-start;
+
+                if (run >= WARMUP_RUNS) {
+                    keyNanos += withKey;
+                    digestNanos += withDigest;
+                }
+            }
+
+            long fullBytes = 0;
+            long omittedBytes = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                UserLeafNode uln = batch.get(i);
+                AuthPath path = ServerOps.generateAuthPathProto(uln, root);
+                fullBytes += path.getSerializedSize();
+                omittedBytes += ServerOps.omitCachedKey(path, path.getLeaf().getKeyDigest())
+                    .getSerializedSize();
+            }
+            batch.clear();
+
+            System.out.println(" "+keySize+" byte keys: "+
+                               String.format("%.2f", keyNanos/1e3/runs/users)+" us per leaf hash with the key, "+
+                               String.format("%.2f", digestNanos/1e3/runs/users)+" us with its digest; "+
+                               String.format("%.0f", (double)fullBytes/users)+" bytes per auth path, "+
+                               String.format("%.0f", (double)omittedBytes/users)+" bytes with a cached key");
+        }
+    }
+
+    /** Builds a tree of {@code users} dummy users and Bloom filters of
+     * their lookup indices with 8, 10 and 16 bits per user. Then looks up
+     * 100000 names that aren't registered and 100000 that are, with and
+     * without checking the filter first. Prints the lookup latencies, and
+     * the filter's size and expected and measured false positive rates.
+     */
+    private static void benchBloom(int users, int runs) {
+        System.out.println("Tree of "+users+" users, "+runs+" runs");
+        PendingBatch batch = makeUsers(0, users, 1);
+        UserTreeBuilder utb = ServerOps.startBuildInitTree(ServerUtils.hash(new byte[10]), 1);
+        RootNode root = utb.extendTree(batch);
+        utb.clearTemps();
+        batch.clear();
+
+        int lookups = 100000;
+        Random r = new Random(1);
+        byte[][] absent = new byte[lookups][];
+        byte[][] present = new byte[lookups][];
+        for (int i = 0; i < lookups; i++) {
+            absent[i] = ServerUtils.unameToIndex("absent-"+i);
+            present[i] = ServerUtils.unameToIndex("test-"+r.nextInt(users));
+        }
+
+        int[] bitsPerUser = {0, 8, 10, 16};
+        for (int bits : bitsPerUser) {
+            long start = System.nanoTime();
+            BloomFilter filter = bits == 0 ? null : BloomFilter.build(root, bits);
+            long buildNanos = System.nanoTime()-start;
+
+            long absentNanos = 0;
+            long presentNanos = 0;
+            long walks = 0;
+            for (int run = 0; run < WARMUP_RUNS+runs; run++) {
+                walks = 0;
+                start = System.nanoTime();
+                for (byte[] index : absent) {
+                    if (filter == null || filter.mightContain(index)) {
+                        walk(root, index);
+                        walks++;
+                    }
+                }
+                long a = System.nanoTime()-start;
+
+                start = System.nanoTime();
+                for (byte[] index : present) {
+                    if (filter == null || filter.mightContain(index)) {
+                        walk(root, index);
+                    }
+                }
+                long p = System.nanoTime()-start;
+
+                if (run >= WARMUP_RUNS) {
+                    absentNanos += a;
+                    presentNanos += p;
+                }
+            }
+
+            if (filter == null) {
+                System.out.print(" no filter: ");
+            }
+            else {
+                System.out.println(" "+bits+" bits per user: "+
+                                   String.format("%.1f", filter.getSizeBytes()/1e6)+" MB, built in "+
+                                   String.format("%.1f", buildNanos/1e6)+" ms, "+
+                                   String.format("%.4f", filter.getFalsePositiveRate())+
+                                   " expected and "+
+                                   String.format("%.4f", (double)walks/lookups)+
+                                   " measured false positive rate");
+                System.out.print("  ");
+            }
+            System.out.println(String.format("%.0f", absentNanos/(double)runs/lookups)+
+                               " ns per unknown name, "+
+                               String.format("%.0f", presentNanos/(double)runs/lookups)+
+                               " ns per registered name");
+        }
+    }
+
+    /** Builds a tree of {@code users} dummy users, iterates over all 
+     * leaves in lookup index order, and exports all leaves as leaf range
+     * chunks of 64, 256 and 1024 leaves, each with the proof of its range.
+     * Prints the time per leaf, and the proof bytes per leaf for each 
+     * chunk size.
+     */
+    private static void benchScan(int users, int runs) {
+        System.out.println("Tree of "+users+" users, "+runs+" runs");
+        PendingBatch batch = makeUsers(0, users, 1);
+        UserTreeBuilder utb = ServerOps.startBuildInitTree(ServerUtils.hash(new byte[10]), 1);
+        RootNode root = utb.extendTree(batch);
+        utb.clearTemps();
+        batch.clear();
+
+        long iterNanos = 0;
+        for (int run = 0; run < WARMUP_RUNS+runs; run++) {
+            long start = System.nanoTime();
+            int count = 0;
+            for (LeafIterator leaves = new LeafIterator(root); leaves.hasNext(); ) {
+                leaves.next();
+                count++;
+            }
+            long t = System.nanoTime()-start;
+            if (count != users) {
+                System.out.println("Iterated over "+count+" leaves");
+                return;
+            }
+            if (run >= WARMUP_RUNS) {
+                iterNanos += t;
+            }
+        }
+        System.out.println(" iteration: "+
+                           String.format("%.0f", iterNanos/(double)runs/users)+" ns per leaf");
+
+        int[] chunkSizes = {64, 256, 1024};
+        for (int chunkSize : chunkSizes) {
+            long exportNanos = 0;
+            long bytes = 0;
+            int chunks = 0;
+            for (int run = 0; run < WARMUP_RUNS+runs; run++) {
+                long start = System.nanoTime();
+                bytes = 0;
+                chunks = 0;
+                LeafIterator leaves = new LeafIterator(root);
+                ArrayList<UserLeafNode> ulns = new ArrayList<UserLeafNode>(chunkSize);
+                byte[] chunkStart = new byte[ServerUtils.HASH_SIZE_BYTES];
+                do {
+                    ulns.clear();
+                    while (ulns.size() < chunkSize && leaves.hasNext()) {
+                        ulns.add(leaves.next());
+                    }
+                    byte[] chunkEnd = leaves.hasNext() ? leaves.peek().getIndex() : null;
+                    MultiAuthPath chunk = ServerOps.generateLeafRangeProto(root, ulns,
+                                                                           chunkStart, chunkEnd);
+                    bytes += chunk.getSerializedSize();
+                    chunks++;
+                    chunkStart = chunkEnd;
+                } while (leaves.hasNext());
+                long t = System.nanoTime()-start;
+                if (run >= WARMUP_RUNS) {
+                    exportNanos += t;
+                }
+            }
+            System.out.println(" "+chunkSize+" leaves per chunk: "+chunks+" chunks, "+
+                               String.format("%.2f", exportNanos/1e3/runs/users)+" us per leaf, "+
+                               String.format("%.0f", (double)bytes/users)+" bytes per leaf");
+        }
+    }
+
+    /** Builds a tree of {@code users} dummy users, looks up 100000 random
+     * users in memory, and then pages the tree out to a {@link NodeStore} in
+     * the temporary directory, once with a page cache that holds the whole
+     * store and once with one that holds a hundredth of it, and looks the
+     * users up again from 1 and 4 threads. Prints the heap held by the tree,
+     * the lookup latencies and throughput, and the page cache hit rate.
+     */
+    private static void benchPaging(int users, int runs) throws Exception {
+        System.out.println("Tree of "+users+" users, "+runs+" runs");
+        final int lookups = 100000;
+        Random r = new Random(1);
+        final byte[][] present = new byte[lookups][];
+        for (int i = 0; i < lookups; i++) {
+            present[i] = ServerUtils.unameToIndex("test-"+r.nextInt(users));
+        }
+
+        long base = usedHeap();
+        UserTreeBuilder utb = ServerOps.startBuildInitTree(ServerUtils.hash(new byte[10]), 1);
+        RootNode root = utb.extendTree(makeUsers(0, users, 1));
+        utb.clearTemps();
+        utb = null;
+        long held = usedHeap()-base;
+        System.out.print(" in memory: "+String.format("%.1f", held/1048576.0)+" MB held, ");
+        benchPagedLookups(root, present, 1, runs);
+        System.out.println();
+        root = null;
+
+        File storeFile = File.createTempFile("coniks-nodes", ".store");
+        storeFile.deleteOnExit();
+        int storePages = Integer.MAX_VALUE;
+        int[] fractions = {1, 100};
+        for (int fraction : fractions) {
+            int cachePages = Math.max(storePages/fraction, 1);
+            NodeStore store = new NodeStore(storeFile.getPath(), cachePages, 12);
+
+            base = usedHeap();
+            utb = ServerOps.startBuildInitTree(ServerUtils.hash(new byte[10]), 1);
+            root = utb.extendTree(makeUsers(0, users, 1));
+            utb.clearTemps();
+            store.pageOut(root);
+            utb = null;
+            held = usedHeap()-base;
+            storePages = (int)(store.size()/PageCache.PAGE_SIZE + 1);
+
+            System.out.print(" paged, cache of 1/"+fraction+" of "+storePages+" pages: "+
+                             String.format("%.1f", held/1048576.0)+" MB held, ");
+            for (int threads = 1; threads <= 4; threads *= 4) {
+                PageCache cache = store.getCache();
+                long hits = cache.getHits();
+                long misses = cache.getMisses();
+                if (threads > 1) {
+                    System.out.print("  "+threads+" threads: ");
+                }
+                benchPagedLookups(root, present, threads, runs);
+                hits = cache.getHits()-hits;
+                misses = cache.getMisses()-misses;
+                System.out.println("  "+String.format("%.3f", (double)hits/Math.max(hits+misses, 1))+
+                                   " page cache hit rate");
+            }
+            store.close();
+            root = null;
+        }
+        storeFile.delete();
+    }
+
+    // looks up all indices in present from the given number of threads
+    // over WARMUP_RUNS+runs runs, and prints the mean latency and
+    // throughput of the timed runs
+    private static void benchPagedLookups(final RootNode root, final byte[][] present,
+                                          int threads, int runs) throws Exception {
+        long nanos = 0;
+        for (int run = 0; run < WARMUP_RUNS+runs; run++) {
+            Thread[] workers = new Thread[threads];
+            final int share = present.length/threads;
+            for (int t = 0; t < threads; t++) {
+                final int from = t*share;
+                workers[t] = new Thread() {
+                        public void run() {
+                            for (int i = from; i < from+share; i++) {
+                                walk(root, present[i]);
+                            }
+                        }
+                    };
+            }
+            long start = System.nanoTime();
+            for (Thread w : workers) {
+                w.start();
+            }
+            for (Thread w : workers) {
+                w.join();
+            }
+            long t = System.nanoTime()-start;
+            if (run >= WARMUP_RUNS) {
+                nanos += t;
+            }
+        }
+        int done = present.length/threads*threads;
+        System.out.print(String.format("%.0f", nanos/(double)runs/done*threads)+" ns per lookup, "+
+                         String.format("%.0f", done/(nanos/1e9/runs))+" lookups/s");
+    }
+
+    /** Prints the usage of the TreeBenchmark.
+     */
+    private static void usage() {
+        System.out.println("TreeBenchmark <benchmark> [users = 100000] [runs = 5]");
+        System.out.println("benchmark := (FINGER SORT SPILL LEAFHASH ENGINES BLOCKED LEAFHEAP KEYBLOB BLOOM SCAN PAGING)");
+    }
+
+    /** Usage:
+     * {@code TreeBenchmark [-h] <benchmark> [users = 100000] [runs = 5]}
+     * <p>
+     * benchmark := ({@code FINGER SORT SPILL LEAFHASH ENGINES BLOCKED LEAFHEAP KEYBLOB BLOOM SCAN PAGING})
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args[0].equals("-h")) {
+            usage();
+            return;
+        }
+        String benchmark = args[0];
+        int users = 100000;
+        int runs = 5;
+        try {
+            if (args.length >= 2)
+                users = Integer.parseInt(args[1]);
+            if (args.length >= 3)
+                runs = Integer.parseInt(args[2]);
+        }
+        catch (NumberFormatException e) {
+            System.out.println("users and runs must be positive integers.");
+            return;
+        }
+
+        if (benchmark.equalsIgnoreCase("FINGER")) {
+            benchFinger(users, runs);
+        }
+        else if (benchmark.equalsIgnoreCase("SORT")) {
+            benchSort(users, runs);
+        }
+        else if (benchmark.equalsIgnoreCase("SPILL")) {
+            benchSpill(users, runs);
+        }
+        else if (benchmark.equalsIgnoreCase("LEAFHASH")) {
+            benchLeafHash(users, runs);
+        }
+        else if (benchmark.equalsIgnoreCase("ENGINES")) {
+            benchEngines(users, runs);
+        }
+        else if (benchmark.equalsIgnoreCase("BLOCKED")) {
+            benchBlocked(users, runs);
+        }
+        else if (benchmark.equalsIgnoreCase("LEAFHEAP")) {
+            benchLeafHeap(users);
+        }
+        else if (benchmark.equalsIgnoreCase("KEYBLOB")) {
+            benchKeyBlob(users, runs);
+        }
+        else if (benchmark.equalsIgnoreCase("BLOOM")) {
+            benchBloom(users, runs);
+        }
+        else if (benchmark.equalsIgnoreCase("SCAN")) {
+            benchScan(users, runs);
+        }
+        else if (benchmark.equalsIgnoreCase("PAGING")) {
+            try {
+                benchPaging(users, runs);
+            }
+            catch (Exception e) {
+                System.out.println("Could not page out the tree: "+e.getMessage());
+            }
+        }
+        else {
+            usage();
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+import java.io.File;
+import java.io.IOException;
+
+/** Manages the chain of tree checkpoints: a full {@link TreeSnapshot}
+ * followed by delta snapshots for the epochs published since, so each 
+ * epoch only writes the nodes its registrations changed. 
+ * The chain is compacted into a new full snapshot after a number of deltas,
+ * or once the deltas together are as large as the full snapshot.
+ * The full snapshot is at {@code path}, and the i-th delta since then at
+ * {@code path.delta.i}.
+ */
+public class TreeCheckpoints {
+
+    private String path;
+    private int maxDeltas;
+
+    // the epoch of the latest checkpoint, -1 if there is none
+    private long lastEpoch;
+
+    private int numDeltas;
+    private long baseBytes;
+    private long deltaBytes;
+
+    /** Sets up the checkpoints at {@code path}, which are compacted
+     * after at most {@code maxDeltas} deltas.
+     */
+    public TreeCheckpoints(String path, int maxDeltas) {
+        this.path = path;
+        this.maxDeltas = maxDeltas;
+        this.lastEpoch = -1;
+        this.numDeltas = 0;
+        this.baseBytes = 0;
+        this.deltaBytes = 0;
+    }
+
+    private String deltaPath(int i) {
+        return path+".delta."+i;
+    }
+
+    /** Recovers the latest checkpointed tree by loading the full snapshot
+     * and applying the deltas in order. Deltas that don't belong to the
+     * current chain, e.g. left over after a crash during compaction,
+     * are ignored. If {@code store} isn't {@code null}, the snapshot is 
+     * loaded into it, so only the nodes the deltas changed are built in memory.
+     *
+     *@return The {@link RootNode} of the recovered tree, or {@code null} if 
+     * there is no snapshot.
+     *@throws An {@code IOException} if the snapshot cannot be read.
+     */
+    public synchronized RootNode recover(NodeStore store) throws IOException {
+        File base = new File(path);
+        if (!base.exists()) {
+            return null;
+        }
+
+        RootNode root = store == null ? TreeSnapshot.load(path) : TreeSnapshot.load(path, store);
+        baseBytes = base.length();
+        deltaBytes = 0;
+        numDeltas = 0;
+
+        while (new File(deltaPath(numDeltas+1)).exists()) {
+            try {
+                root = TreeSnapshot.applyDelta(root, deltaPath(numDeltas+1));
+            }
+            catch (IOException e) {
+                // the rest of the chain is unusable
+                break;
+            }
+            numDeltas++;
+            deltaBytes += new File(deltaPath(numDeltas)).length();
+        }
+
+        lastEpoch = root.getEpoch();
+        return root;
+    }
+
+    /** Checkpoints the tree rooted at {@code root}, which was built by
+     * extending the tree of epoch {@code baseEpoch}. If the latest checkpoint 
+     * is for {@code baseEpoch}, only the changed nodes are written as a delta,
+     * unless the chain is due for compaction; otherwise a full snapshot is written.
+     *
+     *@return Whether a full snapshot was written.
+     *@throws An {@code IOException} if the checkpoint cannot be written.
+     */
+    public synchronized boolean checkpoint(RootNode root, long baseEpoch) 
+        throws IOException {
+        boolean isFull = lastEpoch < 0 || baseEpoch != lastEpoch || 
+            numDeltas >= maxDeltas || deltaBytes >= baseBytes;
+
+        // don't let a failed write leave the chain inconsistent
+        lastEpoch = -1;
+
+        if (isFull) {
+            TreeSnapshot.write(root, path);
+            baseBytes = new File(path).length();
+
+            // the old deltas are now merged into the snapshot
+            for (int i = 1; new File(deltaPath(i)).exists(); i++) {
+                new File(deltaPath(i)).delete();
+            }
+            numDeltas = 0;
+            deltaBytes = 0;
+        }
+        else {
+            TreeSnapshot.writeDelta(root, baseEpoch, deltaPath(numDeltas+1));
+            numDeltas++;
+            deltaBytes += new File(deltaPath(numDeltas)).length();
+        }
+
+        lastEpoch = root.getEpoch();
+        return isFull;
+    }
+
+    /** Gets the number of deltas since the last full snapshot.
+     *
+     *@return The number of deltas.
+     */
+    public synchronized int getNumDeltas() {
+        return numDeltas;
+    }
+
+    /** Gets the total size of the deltas since the last full snapshot.
+     *
+     *@return The size in bytes.
+     */
+    public synchronized long getDeltaBytes() {
+        return deltaBytes;
+    }
+
+}
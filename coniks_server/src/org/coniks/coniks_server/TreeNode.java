@@ -47,8 +47,6 @@ public class TreeNode implements Serializable {
     transient TreeNode parent; // the parent of the node
     int level; // indicates the level in the tree
 
-    String name; // used for debugging
-
      /** Gets this tree node's left subtree.
      *
      *@return The left subtree as a {@link TreeNode}.
@@ -82,16 +80,6 @@ public class TreeNode implements Serializable {
 	return level;
     }
 
-    /** Gets this tree node's name. 
-     *<p>
-     * This is used for debugging.
-     *
-     *@return The node's name as a {@code String}.
-     */
-    public String getName() {
-        return name;
-    }
-
     /** Sets this tree node's left subtree to {@code n}
      */
     public void setLeft(TreeNode n){
@@ -116,12 +104,6 @@ public class TreeNode implements Serializable {
         this.level = l;
     }
 
-    /** Sets this tree node's name to {@code name}
-     */
-    public void setName(String name) {
-        this.name = name;
-    }
-
     /** Cloning is not supported by generic {@link TreeNode}s,
      * only by their sub classes as these specify the more
      * specific data that needs to be duplicated when rebuilding
@@ -0,0 +1,503 @@
+/*
+  Copyright (c) 2015, Princeton University.
+  All rights reserved.
+  
+  Redistribution and use in source and binary forms, with or without
+  modification, are permitted provided that the following conditions are 
+  met:
+  * Redistributions of source code must retain the above copyright 
+  notice, this list of conditions and the following disclaimer.
+  * Redistributions in binary form must reproduce the above 
+  copyright notice, this list of conditions and the following disclaimer 
+  in the documentation and/or other materials provided with the 
+  distribution.
+  * Neither the name of Princeton University nor the names of its
+  contributors may be used to endorse or promote products derived from
+  this software without specific prior written permission.
+
+  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND 
+  CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, 
+  INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF 
+  MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+  DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+  CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, 
+  SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, 
+  BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+  SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS 
+  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+  LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT 
+  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY 
+  OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE 
+  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.coniks.coniks_server;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/** Implements a compact binary snapshot of a published epoch's Merkle tree,
+ * so the server can restart without rebuilding its directory.
+ * The snapshot holds a header with the root node's fields, the tree's
+ * nodes in pre-order, and a CRC32 checksum of both. Interior nodes 
+ * are stored with their subtree hashes, and user leaf nodes with their key's
+ * digest, so no hashes need to be recomputed when the snapshot is loaded.
+ * The hashes of the snapshots of version 1, which were written before leaves
+ * committed to their key's digest, are recomputed when they are loaded.
+ *<p>
+ * A delta snapshot has the same format, but only holds the nodes that 
+ * changed since the previous epoch's tree, and a marker in place of
+ * each unchanged subtree. It is applied to the previous epoch's tree.
+ */
+public class TreeSnapshot {
+
+    private static final int MAGIC = 0x434e4b53; // "CNKS"
+    private static final int DELTA_MAGIC = 0x434e4b44; // "CNKD"
+    private static final int VERSION = 2;
+
+    // the version whose leaves don't store their key's digest
+    private static final int UNDIGESTED_VERSION = 1;
+
+    private static final byte NULL_NODE = 0;
+    private static final byte INTERIOR_NODE = 1;
+    private static final byte USER_LEAF_NODE = 2;
+    private static final byte UNCHANGED_NODE = 3;
+
+    // the size of the window of the snapshot file that is mapped at a time
+    private static final int MAP_WINDOW_BYTES = 1 << 30;
+
+    /** Writes the tree rooted at {@code root} to a snapshot at {@code path}.
+     * The snapshot is first written to a temporary file, synced to disk
+     * and then renamed, so {@code path} always holds a complete snapshot.
+     *
+     *@return The number of nodes written, not including the root.
+     *@throws An {@code IOException} if the snapshot cannot be written.
+     */
+    public static long write(RootNode root, String path) throws IOException {
+        return writeFile(root, -1, path);
+    }
+
+    /** Writes the nodes of the tree rooted at {@code root} that changed since 
+     * the tree of epoch {@code baseEpoch}, i.e. whose hashes are dirty, to a 
+     * delta snapshot at {@code path}. {@code root} must have been built by
+     * extending the tree of {@code baseEpoch}.
+     *
+     *@return The number of nodes written, not including the root.
+     *@throws An {@code IOException} if the snapshot cannot be written.
+     */
+    public static long writeDelta(RootNode root, long baseEpoch, String path) 
+        throws IOException {
+        return writeFile(root, baseEpoch, path);
+    }
+
+    // writes a full snapshot if baseEpoch < 0, and a delta snapshot otherwise
+    private static long writeFile(RootNode root, long baseEpoch, String path) 
+        throws IOException {
+        File tmp = new File(path+".tmp");
+        FileOutputStream fos = new FileOutputStream(tmp);
+        long numNodes = 0;
+        boolean isDelta = baseEpoch >= 0;
+
+        try {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                                                        new CheckedOutputStream(fos, crc), 
+                                                        1 << 16));
+
+            out.writeInt(isDelta ? DELTA_MAGIC : MAGIC);
+            out.writeInt(VERSION);
+            if (isDelta) {
+                out.writeLong(baseEpoch);
+            }
+            out.writeLong(root.getEpoch());
+            out.writeInt(root.getLevel());
+            out.write(root.getPrev());
+            out.write(root.getLeftHash());
+            out.write(root.getRightHash());
+            
+            numNodes += writeNode(out, root.getLeft(), !isDelta || root.isLeftDirty(), isDelta);
+            numNodes += writeNode(out, root.getRight(), !isDelta || root.isRightDirty(), isDelta);
+            out.flush();
+
+            // the checksum isn't part of the checksummed data
+            DataOutputStream trailer = new DataOutputStream(fos);
+            trailer.writeInt((int)crc.getValue());
+            trailer.flush();
+            fos.getFD().sync();
+        }
+        finally {
+            fos.close();
+        }
+
+        Files.move(tmp.toPath(), new File(path).toPath(), 
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return numNodes;
+    }
+
+    // writes the subtree rooted at n in pre-order. 
+    // in a delta, only the subtrees that changed are written
+    private static long writeNode(DataOutputStream out, TreeNode n, boolean changed, 
+                                  boolean isDelta) 
+        throws IOException {
+        if (!changed) {
+            out.writeByte(UNCHANGED_NODE);
+            return 0;
+        }
+
+        if (n == null) {
+            out.writeByte(NULL_NODE);
+            return 0;
+        }
+
+        if (n instanceof UserLeafNode) {
+            UserLeafNode uln = (UserLeafNode)n;
+            out.writeByte(USER_LEAF_NODE);
+            out.writeInt(uln.getLevel());
+            out.writeLong(uln.getEpochAdded());
+            
+            out.writeByte(uln.getFlags());
+            
+            byte[] index = uln.getIndex();
+            if (index == null) {
+                index = ServerUtils.unameToIndex(uln.getUsername());
+            }
+            out.write(index);
+            writeString(out, uln.getUsername());
+            writeBytes(out, uln.getPublicKeyBytes());
+            out.write(uln.getKeyDigest());
+            return 1;
+        }
+
+        InteriorNode in = (InteriorNode)n;
+        out.writeByte(INTERIOR_NODE);
+        out.writeInt(in.getLevel());
+        out.write(in.getLeftHash());
+        out.write(in.getRightHash());
+        
+        return 1 + writeNode(out, in.getLeft(), !isDelta || in.isLeftDirty(), isDelta) 
+            + writeNode(out, in.getRight(), !isDelta || in.isRightDirty(), isDelta);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] b) throws IOException {
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    /** Loads the tree in the snapshot at {@code path} by memory-mapping
+     * the snapshot file. The whole tree is built in memory.
+     *
+     *@return The {@link RootNode} of the loaded tree.
+     *@throws An {@code IOException} if the snapshot cannot be read or is
+     * corrupted.
+     */
+    public static RootNode load(String path) throws IOException {
+        return readFile(null, path, null);
+    }
+
+    /** Loads the tree in the snapshot at {@code path} into the node store
+     * {@code store}: the nodes are appended to the store as they are read from
+     * the mapped snapshot, so only the root and the store's pinned levels
+     * are built in memory. A snapshot of version 1 is built in memory
+     * to recompute its hashes, and then paged out.
+     *
+     *@return The {@link RootNode} of the loaded tree.
+     *@throws An {@code IOException} if the snapshot cannot be read or is
+     * corrupted, or the nodes cannot be written to the store.
+     */
+    public static RootNode load(String path, NodeStore store) throws IOException {
+        return readFile(null, path, store);
+    }
+
+    /** Applies the delta snapshot at {@code path} to the tree rooted at
+     * {@code base}. The unchanged subtrees of {@code base} become part
+     * of the new tree, so {@code base} must not be extended afterwards,
+     * but it can still be read. The sides of the new tree's nodes that 
+     * were read from the delta are marked dirty.
+     *
+     *@return The {@link RootNode} of the new tree.
+     *@throws An {@code IOException} if the delta cannot be read, is
+     * corrupted, or doesn't apply to {@code base}'s epoch.
+     */
+    public static RootNode applyDelta(RootNode base, String path) throws IOException {
+        return readFile(base, path, null);
+    }
+
+    // loads a full snapshot if base is null, and applies a delta to base otherwise;
+    // a full snapshot is streamed into the store, if any
+    private static RootNode readFile(RootNode base, String path, NodeStore store) 
+        throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            long dataLen = channel.size() - 4;
+            if (dataLen < 0) {
+                throw new IOException("snapshot is truncated");
+            }
+
+            // check the whole snapshot before building anything
+            CRC32 crc = new CRC32();
+            for (long pos = 0; pos < dataLen; pos += MAP_WINDOW_BYTES) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, pos, 
+                                       Math.min(MAP_WINDOW_BYTES, dataLen-pos)));
+            }
+            MappedInput in = new MappedInput(channel, dataLen+4);
+            
+            int hsize = ServerUtils.HASH_SIZE_BYTES;
+            in.ensure((base == null ? 20 : 28) + 3*hsize);
+            if (in.buf.getInt() != (base == null ? MAGIC : DELTA_MAGIC)) {
+                throw new IOException("not a tree "+(base == null ? "snapshot" : "delta"));
+            }
+            int version = in.buf.getInt();
+            if (version != VERSION && version != UNDIGESTED_VERSION) {
+                throw new IOException("unsupported snapshot version "+version);
+            }
+            boolean hasDigests = version != UNDIGESTED_VERSION;
+            if (base != null) {
+                long baseEpoch = in.buf.getLong();
+                if (baseEpoch != base.getEpoch()) {
+                    throw new IOException("delta is for epoch "+baseEpoch+
+                                          ", not "+base.getEpoch());
+                }
+            }
+            long epoch = in.buf.getLong();
+            int level = in.buf.getInt();
+            byte[] prev = in.getBytes(hsize);
+            byte[] lh = in.getBytes(hsize);
+            byte[] rh = in.getBytes(hsize);
+            
+            RootNode root = new RootNode(null, null, level, prev, epoch, lh, rh);
+            if (store != null && hasDigests) {
+                long la = storeNode(in, store);
+                long ra = storeNode(in, store);
+                checkTrailer(in, crc);
+                store.attachRoot(root, la, ra);
+                root.leftDirty = true;
+                root.rightDirty = true;
+                return root;
+            }
+
+            TreeNode oldLeft = base == null ? null : base.getLeft();
+            TreeNode oldRight = base == null ? null : base.getRight();
+            root.left = readNode(in, root, oldLeft, hasDigests);
+            root.right = readNode(in, root, oldRight, hasDigests);
+            root.leftDirty = root.left != oldLeft || root.left == null;
+            root.rightDirty = root.right != oldRight || root.right == null;
+            if (base != null) {
+                shareHashes(root, base);
+            }
+
+            checkTrailer(in, crc);
+
+            // the stored hashes of the read nodes are of the old leaf format
+            if (!hasDigests) {
+                rehashDirty(root);
+            }
+            if (store != null) {
+                store.pageOut(root);
+            }
+            return root;
+        }
+        finally {
+            file.close();
+        }
+    }
+
+    private static void checkTrailer(MappedInput in, CRC32 crc) throws IOException {
+        in.ensure(4);
+        if (in.buf.getInt() != (int)crc.getValue()) {
+            throw new IOException("snapshot checksum mismatch");
+        }
+    }
+
+    // appends the subtree in pre-order to the store, children before
+    // their parents, and returns the address of its top node
+    private static long storeNode(MappedInput in, NodeStore store) throws IOException {
+        in.ensure(1);
+        byte tag = in.buf.get();
+
+        if (tag == NULL_NODE) {
+            return -1;
+        }
+        else if (tag == USER_LEAF_NODE) {
+            return store.appendLeaf(readLeaf(in, true));
+        }
+        else if (tag == INTERIOR_NODE) {
+            in.ensure(4 + 2*ServerUtils.HASH_SIZE_BYTES);
+            int level = in.buf.getInt();
+            byte[] lh = in.getBytes(ServerUtils.HASH_SIZE_BYTES);
+            byte[] rh = in.getBytes(ServerUtils.HASH_SIZE_BYTES);
+
+            long la = storeNode(in, store);
+            long ra = storeNode(in, store);
+            return store.appendInteriorNode(level, lh, rh, la, ra);
+        }
+        throw new IOException("bad node tag "+tag);
+    }
+
+    private static UserLeafNode readLeaf(MappedInput in, boolean hasDigests) 
+        throws IOException {
+        in.ensure(13 + ServerUtils.HASH_SIZE_BYTES);
+        int level = in.buf.getInt();
+        long epochAdded = in.buf.getLong();
+        byte flags = in.buf.get();
+        byte[] index = in.getBytes(ServerUtils.HASH_SIZE_BYTES);
+        String name = in.getString();
+        byte[] pk = in.getLengthPrefixedBytes();
+
+        if (hasDigests) {
+            byte[] digest = in.getBytes(ServerUtils.HASH_SIZE_BYTES);
+            return new UserLeafNode(name, pk, digest, epochAdded, level, index, flags);
+        }
+        return new UserLeafNode(name, pk, epochAdded, level, index, flags);
+    }
+
+    // reads the subtree in pre-order and sets the parent pointers,
+    // old is the node at the same position in the base tree, if any
+    private static TreeNode readNode(MappedInput in, TreeNode parent, TreeNode old,
+                                     boolean hasDigests) 
+        throws IOException {
+        in.ensure(1);
+        byte tag = in.buf.get();
+
+        if (tag == NULL_NODE) {
+            return null;
+        }
+        else if (tag == UNCHANGED_NODE) {
+            if (old != null) {
+                old.setParent(parent);
+            }
+            return old;
+        }
+        else if (tag == USER_LEAF_NODE) {
+            UserLeafNode uln = readLeaf(in, hasDigests);
+            uln.parent = parent;
+            return uln;
+        }
+        else if (tag == INTERIOR_NODE) {
+            in.ensure(4 + 2*ServerUtils.HASH_SIZE_BYTES);
+            int level = in.buf.getInt();
+            byte[] lh = in.getBytes(ServerUtils.HASH_SIZE_BYTES);
+            byte[] rh = in.getBytes(ServerUtils.HASH_SIZE_BYTES);
+
+            // a changed subtree may replace a leaf that was pushed down
+            TreeNode oldLeft = null;
+            TreeNode oldRight = null;
+            if (old instanceof InteriorNode) {
+                oldLeft = old.getLeft();
+                oldRight = old.getRight();
+            }
+
+            InteriorNode n = new InteriorNode(null, null, parent, level, lh, rh, false);
+            n.left = readNode(in, n, oldLeft, hasDigests);
+            n.right = readNode(in, n, oldRight, hasDigests);
+
+            // only the unchanged subtrees are shared with the base tree
+            n.leftDirty = n.left != oldLeft || n.left == null;
+            n.rightDirty = n.right != oldRight || n.right == null;
+            if (old instanceof InteriorNode) {
+                shareHashes(n, (InteriorNode)old);
+            }
+            return n;
+        }
+        throw new IOException("bad node tag "+tag);
+    }
+
+    // recomputes the hashes of the dirty sides of the subtree rooted at n
+    private static void rehashDirty(InteriorNode n) {
+        if (n.leftDirty) {
+            n.leftHash = rehash(n.left);
+        }
+        if (n.rightDirty) {
+            n.rightHash = rehash(n.right);
+        }
+    }
+
+    private static byte[] rehash(TreeNode n) {
+        if (n == null) {
+            return ServerUtils.hash(new byte[ServerUtils.HASH_SIZE_BYTES]);
+        }
+        if (n instanceof UserLeafNode) {
+            return ((UserLeafNode)n).getHash();
+        }
+        rehashDirty((InteriorNode)n);
+        return ServerUtils.hash(ServerUtils.convertInteriorNode((InteriorNode)n));
+    }
+
+    // the hashes of the unchanged sides are the base tree's, 
+    // not the ones in the delta
+    private static void shareHashes(InteriorNode n, InteriorNode old) {
+        if (!n.leftDirty) {
+            n.leftHash = old.getLeftHash();
+        }
+        if (!n.rightDirty) {
+            n.rightHash = old.getRightHash();
+        }
+    }
+
+    /** Reads a file through a sliding read-only mapping, since
+     * a single mapping is limited to 2GB.
+     */
+    private static class MappedInput {
+        FileChannel channel;
+        long size;
+        long base;
+        MappedByteBuffer buf;
+
+        MappedInput(FileChannel channel, long size) throws IOException {
+            this.channel = channel;
+            this.size = size;
+            this.base = 0;
+            this.buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, 
+                                   Math.min(MAP_WINDOW_BYTES, size));
+        }
+
+        // makes sure the next n bytes are mapped
+        void ensure(int n) throws IOException {
+            if (buf.remaining() >= n) {
+                return;
+            }
+            base += buf.position();
+            if (base + n > size) {
+                throw new IOException("snapshot is truncated");
+            }
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, base, 
+                              Math.min(MAP_WINDOW_BYTES, size-base));
+        }
+
+        byte[] getBytes(int n) throws IOException {
+            ensure(n);
+            byte[] b = new byte[n];
+            buf.get(b);
+            return b;
+        }
+
+        String getString() throws IOException {
+            return new String(getLengthPrefixedBytes(), StandardCharsets.UTF_8);
+        }
+
+        byte[] getLengthPrefixedBytes() throws IOException {
+            ensure(4);
+            int len = buf.getInt();
+            if (len < 0) {
+                throw new IOException("bad length "+len);
+            }
+            return getBytes(len);
+        }
+    }
+
+}
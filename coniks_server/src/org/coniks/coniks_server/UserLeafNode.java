@@ -34,44 +34,82 @@
 package org.coniks.coniks_server;
 
 import java.io.Serializable;
-import java.security.interfaces.DSAPublicKey;
-import java.security.interfaces.RSAPublicKey;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
 
 /** Represents a leaf node containing a user's data binding interior node
  *  in the CONIKS binary Merkle prefix tree.
+ *<p>
+ * The public key is kept in the {@link KeyBlobStore} as its UTF-8 encoding,
+ * and the binding commits to the key's digest rather than the key itself.
+ * The key change and lookup policies are packed into a
+ * single flags byte. The binding's arrays are never modified, so all
+ * clones of a leaf share them.
  *
  *@author Marcela S. Melara (melara@cs.princeton.edu)
  */
 public class UserLeafNode extends LeafNode implements Serializable{
 
+    /** The flag set if the user allows unsigned key changes.
+     */
+    public static final byte ALLOWS_UNSIGNED_KEYCHANGE = 1;
+
+    /** The flag set if the user allows public lookups.
+     */
+    public static final byte ALLOWS_PUBLIC_LOOKUP = 2;
+
     String username;
-    String pubKey;
+    KeyBlobStore.Blob key;
     long epochAdded;
-    boolean allowUnsignedKeychange;
-    boolean allowPublicLookup;
+    byte flags;
     byte[] index;
-    byte[] signature;
 
-    // TODO: use real dsa key
-   
+    // the hash of the leaf's binding, null until computed; it doesn't
+    // depend on the leaf's position, so clones share it
+    byte[] hash;
+
     /** Constructs a user leaf node for the username {@code u}
      * and the public key {@code pub} with the given
      * epoch {@code ep}, its level {@code lvl} within the tree, and
      * the lookup index {@code index} for the username.
      */
     public UserLeafNode(String u, String pub, long e, int lvl, byte[] index){
+        // unsigned key changes and public lookups are the default for now
+        this(u, pub.getBytes(StandardCharsets.UTF_8), e, lvl, index, 
+             (byte)(ALLOWS_UNSIGNED_KEYCHANGE | ALLOWS_PUBLIC_LOOKUP));
+    }
+
+    /** Constructs a user leaf node for the username {@code u} and the
+     * UTF-8 encoded public key {@code pub}, which is not copied, with the
+     * given epoch {@code ep}, its level {@code lvl} within the tree, the
+     * lookup index {@code index} for the username and the policy 
+     * {@code flags}. The key is added to the {@link KeyBlobStore}.
+     */
+    public UserLeafNode(String u, byte[] pub, long e, int lvl, byte[] index, byte flags){
+        this(u, KeyBlobStore.intern(pub), e, lvl, index, flags);
+    }
+
+    /** Constructs a user leaf node like
+     * {@link UserLeafNode#UserLeafNode(String, byte[], long, int, byte[], byte)},
+     * whose key's SHA-256 digest {@code digest} was stored with the leaf,
+     * so the key isn't hashed again. Neither array is copied.
+     */
+    public UserLeafNode(String u, byte[] pub, byte[] digest, long e, int lvl, 
+                        byte[] index, byte flags){
+        this(u, KeyBlobStore.intern(digest, pub), e, lvl, index, flags);
+    }
+
+    // constructs a user leaf node for a key that is already in the store
+    private UserLeafNode(String u, KeyBlobStore.Blob key, long e, int lvl, 
+                         byte[] index, byte flags){
 	this.username = u;
-	this.pubKey = pub;
+	this.key = key;
 	this.epochAdded = e;
-	this.allowUnsignedKeychange = true; // this is the default for now
-        this.allowPublicLookup = true; // default for now
+        this.flags = flags;
 	this.left = null;
 	this.right = null;
 	this.parent = null;
 	this.level = lvl;
         this.index = index;
-        this.signature = new byte[256]; // dummy array
     }
 
     /** Gets the username contained in this UserLeafNode.
@@ -87,7 +125,26 @@ public class UserLeafNode extends LeafNode implements Serializable{
      *@return The {@code String} representation of the public key.
      */
     public String getPublicKey(){
-        return this.pubKey;
+        return new String(this.key.getKey(), StandardCharsets.UTF_8);
+    }
+
+    /** Gets the UTF-8 encoding of the public key contained in this
+     * UserLeafNode, without copying it. It must not be modified.
+     *
+     *@return The encoded public key as a {@code byte[]}.
+     */
+    public byte[] getPublicKeyBytes(){
+        return this.key.getKey();
+    }
+
+    /** Gets the SHA-256 digest of the public key contained in this
+     * UserLeafNode, which is what the binding commits to, without copying
+     * it. It must not be modified.
+     *
+     *@return The digest as a {@code byte[]}.
+     */
+    public byte[] getKeyDigest(){
+        return this.key.getDigest();
     }
     
     /** Gets the epoch in which this UserLeafNode was added to the tree.
@@ -97,6 +154,16 @@ public class UserLeafNode extends LeafNode implements Serializable{
     public long getEpochAdded(){
         return this.epochAdded;
     }
+
+    /** Gets the policy flags of this UserLeafNode, i.e.
+     * {@link UserLeafNode#ALLOWS_UNSIGNED_KEYCHANGE} and
+     * {@link UserLeafNode#ALLOWS_PUBLIC_LOOKUP}.
+     *
+     *@return The flags as a {@code byte}.
+     */
+    public byte getFlags(){
+        return this.flags;
+    }
     
     /** Checks whether this UserLeafNode allows unsigned key
      * changes.
@@ -105,7 +172,7 @@ public class UserLeafNode extends LeafNode implements Serializable{
      * otherwise.
      */
     public boolean allowsUnsignedKeychange(){
-        return this.allowUnsignedKeychange;
+        return (this.flags & ALLOWS_UNSIGNED_KEYCHANGE) != 0;
     }
 
     /** Checks whether this UserLeafNode allows public lookups.
@@ -114,7 +181,7 @@ public class UserLeafNode extends LeafNode implements Serializable{
      * otherwise.
      */
     public boolean allowsPublicLookups() {
-        return this.allowPublicLookup;
+        return (this.flags & ALLOWS_PUBLIC_LOOKUP) != 0;
     }
 
     /** Gets the lookup index for the username in this UserLeafNode.
@@ -132,19 +199,35 @@ public class UserLeafNode extends LeafNode implements Serializable{
         this.index = i;
     }
 
+    /** Gets the hash of the binding in this UserLeafNode, i.e. of
+     * its serialization by {@link ServerUtils#convertUserLeafNode(UserLeafNode)},
+     * computing it if it hasn't been computed yet. The binding must not
+     * be changed once it has been hashed.
+     *
+     *@return The hash as a {@code byte[]}.
+     */
+    public byte[] getHash() {
+        if (this.hash == null) {
+            this.hash = ServerUtils.hash(ServerUtils.convertUserLeafNode(this));
+        }
+        return this.hash;
+    }
+
     /** Clones (i.e. duplicates) this user leaf node from the current
      * epoch {@code ep0} for the next epoch {@code ep1} with the
      * given {@code parent} tree node.
      *<p>
      * This function is called as part of the CONIKS Merkle tree
-     * rebuilding process at the beginning of every epoch.
+     * rebuilding process at the beginning of every epoch. The clone
+     * shares the binding's arrays, key and hash with this node.
      *@return The cloned user leaf node.
      */
     public UserLeafNode clone(TreeNode parent, long ep0, long ep1){
 	
-	UserLeafNode cloneN = new UserLeafNode(this.username, this.pubKey,
-					       this.epochAdded, this.level, this.index);
+	UserLeafNode cloneN = new UserLeafNode(this.username, this.key, this.epochAdded,
+					       this.level, this.index, this.flags);
 	cloneN.parent = (parent);
+	cloneN.hash = this.hash;
 	
 	return cloneN;
     }
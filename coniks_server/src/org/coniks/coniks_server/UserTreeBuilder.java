@@ -33,9 +33,13 @@
 
 package org.coniks.coniks_server;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
 
-import java.util.PriorityQueue;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.security.KeyPair;
 import java.security.interfaces.DSAPublicKey;
 import java.security.interfaces.RSAPublicKey;
@@ -55,16 +59,65 @@ public class UserTreeBuilder{
     private RootNode out;
     private long prevEpoch, epoch;
 
+    // the nodes of a staging tree that are no longer shared with the
+    // published tree it was staged from, null unless staging
+    private Set<TreeNode> staged;
+    private int stagedCount;
+
+    // the interior nodes on the path of the last inserted index, by depth,
+    // so the next insertion can resume from their deepest common ancestor
+    private InteriorNode[] finger;
+    private int fingerTop;
+    private byte[] lastKey;
+    private RootNode fingerRoot;
+    private boolean useFinger;
+
+    // the number of nodes visited by all insertions
+    private long visited;
+
     /** Clears some temporary variables set
      * during a previous call to 
-     * {@link UserTreeBuilder#createNewTree(PriorityQueue<Pair<byte[], UserLeafNode>>, byte[], long)}.
+     * {@link UserTreeBuilder#createNewTree(PendingBatch, byte[], long)}.
      */
     public void clearTemps(){
 	out = null;
+        staged = null;
     }
 
     private UserTreeBuilder(){
 	lastLevel = 0;
+        finger = new InteriorNode[ServerUtils.HASH_SIZE_BITS+1];
+        fingerTop = -1;
+        useFinger = true;
+    }
+
+    /** Sets whether each insertion resumes from the deepest node on the
+     * path of the previous insertion that is also on its own path, 
+     * instead of starting from the root. This is on by default, and saves
+     * the most when the indices are inserted in sorted order.
+     */
+    public void setFingerInsertion(boolean useFinger){
+        this.useFinger = useFinger;
+    }
+
+    /** Gets the number of tree nodes visited by all insertions
+     * of this builder so far.
+     *
+     *@return The number of visited nodes.
+     */
+    public long getVisitedCount(){
+        return visited;
+    }
+
+    // the number of leading bits that two indices have in common
+    private static int commonPrefixBits(byte[] a, byte[] b){
+	for (int i = 0; i < a.length; i++) {
+	    int diff = (a[i] ^ b[i]) & 0xff;
+	    if (diff != 0) {
+		return i*8 + Integer.numberOfLeadingZeros(diff) - 24;
+	    }
+	}
+	return a.length*8;
     }
 
     /** Generates a single instance of the user tree builder.
@@ -80,11 +133,20 @@ public class UserTreeBuilder{
 	// This code would be a lot more natural
 	//   if our tries were byte-branching rather than bit-branching, but whatevs.
 
-	toAdd.level = 0;
 	TreeNode curNode = root;
 
-        curNode.setName("root");
-        int counter = 1;
+	// the nodes above depth k on the last path are on this path too if 
+	// the indices share their first k bits, and only this builder has
+	// changed the tree since
+	if (useFinger && fingerRoot == root && fingerTop >= 0) {
+	    curOffset = Math.min(commonPrefixBits(lastKey, key), fingerTop);
+	    curNode = finger[curOffset];
+	}
+	fingerRoot = root;
+	fingerTop = curOffset-1;
+	lastKey = key;
+
+	toAdd.level = curOffset;
 	
     insertLoop:
 	while(true){
@@ -93,6 +155,7 @@ public class UserTreeBuilder{
 	    // 0 is left-most byte in string
 	    // 0 of left-most byte is the *left-most* bit of that byte. 
 	    toAdd.level++;
+	    visited++;
 	    
 	    if( curNode instanceof UserLeafNode ){
 		// reached a "bottom" of the tree.
@@ -103,14 +166,22 @@ public class UserTreeBuilder{
 		}
 		InteriorNode newInt = new InteriorNode(curNode.parent,
 						       curNode.level);
+                if (staged != null) {
+                    staged.add(newInt);
+                }
 
 		UserLeafNode curNodeUL = (UserLeafNode) curNode;
 		if (curNodeUL.username.equals( toAdd.username )){
 		    throw new UnsupportedOperationException("Username of added node already exists!");
 		}
 
-		byte[] curNodeKey = ServerUtils.unameToIndex(curNodeUL.username);
-                curNodeUL.setIndex(curNodeKey);
+		// the pushed down leaf keeps its index, it's only derived
+		// from the username if it hasn't been set
+		byte[] curNodeKey = curNodeUL.getIndex();
+		if (curNodeKey == null) {
+		    curNodeKey = ServerUtils.unameToIndex(curNodeUL.username);
+		    curNodeUL.setIndex(curNodeKey);
+		}
                 // This is what's happening below:
                 // int maskedBit = curNodeKey[(curOffset + 1)/8] & (1 << (7 - ((curOffset + 1) % 8)));
 		int maskedBit = curNodeKey[arrayOffset] & (1 << (7 - bitOfByte));
@@ -138,6 +209,9 @@ public class UserTreeBuilder{
 	    } 
             else {
 		InteriorNode curNodeI = (InteriorNode) curNode;
+		finger[curOffset] = curNodeI;
+		fingerTop = curOffset;
+
 		int maskedBit = key[arrayOffset] & (1 << (7 - bitOfByte));
 		// direction here is going to be false = left,
 		//                               true = right
@@ -152,7 +226,8 @@ public class UserTreeBuilder{
                         toAdd.parent = curNode;
 			break insertLoop;
 		    }else{
-			curNode = curNodeI.right;
+			curNode = getChildForUpdate(curNodeI, curNodeI.right);
+			curNodeI.right = curNode;
 		    }
 		}else{
 		    // mark left tree as needing hash recompute
@@ -162,28 +237,69 @@ public class UserTreeBuilder{
                         toAdd.parent = curNode;
 			break insertLoop;
 		    }else{
-			curNode = curNodeI.left;
+			curNode = getChildForUpdate(curNodeI, curNodeI.left);
+			curNodeI.left = curNode;
 		    }
 		}
 		curOffset++;
 	    }
-            curNode.setName("n"+counter);
-            counter++;
 	}
 	if (toAdd.level > lastLevel){
 	    lastLevel = toAdd.level;
 	}
     }
 
+    // returns the child of curNodeI that the insertion descends into,
+    // so it can be modified: a stored subtree is paged in, and a node
+    // of a staging tree that is still shared with the published tree is
+    // copied, so the published tree doesn't change
+    private TreeNode getChildForUpdate(InteriorNode curNodeI, TreeNode child){
+	if (child instanceof PagedInteriorNode) {
+	    InteriorNode n = ((PagedInteriorNode)child).materialize(curNodeI);
+	    if (staged != null) {
+		// materializing already copied the node and its children
+		staged.add(n);
+		if (n.left != null) {
+		    staged.add(n.left);
+		}
+		if (n.right != null) {
+		    staged.add(n.right);
+		}
+	    }
+	    return n;
+	}
+	if (staged == null || staged.contains(child)) {
+	    return child;
+	}
+
+	TreeNode copy;
+	if (child instanceof UserLeafNode) {
+	    copy = ((UserLeafNode)child).clone(curNodeI, prevEpoch, epoch);
+	}
+	else {
+	    // the copy's children are still shared, and none of its
+	    // subtrees have changed yet
+	    InteriorNode childI = (InteriorNode)child;
+	    copy = new InteriorNode(childI.left, childI.right, curNodeI, childI.level,
+				    childI.leftHash, childI.rightHash, childI.hasLeaf);
+	}
+	staged.add(copy);
+	return copy;
+    }
+
     // Compute the hashes of the left and right subtrees
     // of the Merkle tree root
     // Wrapper for innerComputeHash
+    // Hashes that were recomputed are marked as dirty, so 
+    // incremental checkpoints know which subtrees changed
     private static void computeHashes(RootNode root){
 	if (root.leftHash == null){
 	    root.leftHash = innerComputeHash(root.left);	    
+            root.leftDirty = true;
 	}
 	if (root.rightHash == null){
 	    root.rightHash = innerComputeHash(root.right);
+            root.rightDirty = true;
 	}
     }
     
@@ -199,31 +315,81 @@ public class UserTreeBuilder{
 	    if(curNodeI.leftHash == null){
 		// compute left-side hash
 		curNodeI.leftHash = innerComputeHash(curNode.left);
+                curNodeI.leftDirty = true;
 	    }
 	    if(curNodeI.rightHash == null){
 		// compute right-side hash
 		curNodeI.rightHash = innerComputeHash(curNode.right);
+                curNodeI.rightDirty = true;
 	    }
 	    return ServerUtils.hash(ServerUtils.convertInteriorNode(curNodeI));
 	}else{
 	    // assertion: must be user leaf node.
+	    // new leaves were already hashed when they were registered
 	    UserLeafNode curNodeU = (UserLeafNode) curNode;
-	    return ServerUtils.hash(ServerUtils.convertUserLeafNode(curNodeU));
+	    return curNodeU.getHash();
+	}
+    }
+
+    /** Recomputes the hashes of all dirty subtrees of the tree
+     * rooted at {@code root}, e.g. after a replica applied a tree delta
+     * sent by its leader, and checks them against the hashes the tree
+     * was loaded with. The hashes of the unchanged subtrees were already
+     * verified in a previous epoch, so only the changed nodes are hashed.
+     *
+     *@return {@code true} if every recomputed hash matches, 
+     * {@code false} otherwise.
+     */
+    public static boolean verifyDirtyHashes(InteriorNode root){
+	if (root.leftDirty){
+	    byte[] h = verifySubtreeHash(root.left);
+	    if (h == null || !Arrays.equals(h, root.leftHash)){
+		return false;
+	    }
+	}
+	if (root.rightDirty){
+	    byte[] h = verifySubtreeHash(root.right);
+	    if (h == null || !Arrays.equals(h, root.rightHash)){
+		return false;
+	    }
 	}
+	return true;
+    }
+
+    // recomputes the hash of the subtree rooted at curNode from
+    // its dirty sides, or returns null if one of them doesn't match
+    private static byte[] verifySubtreeHash(TreeNode curNode){
+	if (curNode == null){
+	    return ServerUtils.hash(new byte[ServerUtils.HASH_SIZE_BYTES]);
+	}
+	if (curNode instanceof InteriorNode){
+	    InteriorNode curNodeI = (InteriorNode) curNode;
+	    if (!verifyDirtyHashes(curNodeI)){
+		return null;
+	    }
+	    return ServerUtils.hash(ServerUtils.convertInteriorNode(curNodeI));
+	}
+	// the leaf's key must match the digest it commits to
+	UserLeafNode curNodeU = (UserLeafNode) curNode;
+	if (!Arrays.equals(ServerUtils.hash(curNodeU.getPublicKeyBytes()), 
+			   curNodeU.getKeyDigest())){
+	    return null;
+	}
+	return curNodeU.getHash();
     }
 
     /** Clones the previous epoch's tree {@code prevRoot} and 
-     * extends it with any new nodes in {@code pendingQ} 
+     * extends it with any new nodes in {@code batch} 
      * to add for the next epoch {@code epoch}.
      *<p> 
      * This is a useful wrapper for 
-     * {@link UserTreeBuilder#extendTree(PriorityQueue<Pair<byte[], UserLeafNode>>)}.
+     * {@link UserTreeBuilder#extendTree(PendingBatch)}.
      *
      *@return The {@link RootNode} for the next epoch's Merkle tree.
      */
     public RootNode copyExtendTree(RootNode prevRoot,
 				   byte[] prevRootHash,
-				   PriorityQueue<Pair<byte[], UserLeafNode>> pendingQ, 
+				   PendingBatch batch, 
 				   long epoch){
 	// clone old tree
 	RootNode out;
@@ -241,70 +407,149 @@ public class UserTreeBuilder{
 	this.epoch = epoch;
 	this.out = out;
 
-	if(pendingQ == null)
+	if(batch == null)
 	    return null;
-	return extendTree(pendingQ);
+	return extendTree(batch);
     }
 
-    /** Inserts any new nodes in {@code pendingQ} ordered by the 24-bit prefix
-     * of their lookup index into the Merkle tree, and recomputes all necessary 
-     * hashes.
+    /** Inserts any new nodes in {@code batch} into the Merkle tree in the
+     * order of their lookup indices, and recomputes all necessary hashes. 
+     * Consecutive indices share long prefixes, so unless finger
+     * insertion is turned off, each insertion resumes from the previous
+     * one's path.
      *
-     *@return The {@link RootNode} of the extended Merkle tree.
+     *@return The {@link RootNode} of the extended Merkle tree, or 
+     * {@code null} if the nodes spilled by {@code batch} cannot be read.
      */
-    public RootNode extendTree(PriorityQueue<Pair<byte[], UserLeafNode>> pendingQ){
+    public RootNode extendTree(PendingBatch batch){
         
         // set up new root
 	out.epoch = epoch;
+	fingerTop = -1;
 	
-	// insert nodes
+	// insert nodes from left to right
+	if (!insertBatch(batch, false)) {
+	    return null;
+	}
 
-        // record the prefix for each index and compare to the prefix of the
-        // previous node added
-        byte[] prefix = null;
-        byte[] prevPrefix = null;        
-        
-	int prevPrefixLevel = 0;
-	int insCount = 0;
-        // need to insert all nodes with the same prefix into the correct prefix subtree
-	
-	int toInsert = pendingQ.size();
-
-	Pair<byte[], UserLeafNode> p = pendingQ.poll();
-	while(p != null){
-            // while we're handing the same prefix,
-            // insert as normal
-	    byte[] index = p.getValue0();
-            prefix = ServerUtils.getPrefixBytes(index);
-	    
-	    UserLeafNode toAdd = p.getValue1();
+	// recompute hashes
+	computeHashes(out);
 
-            insertNode(index, toAdd, out);
-  
-	    if (prevPrefixLevel < toAdd.getLevel())
-		prevPrefixLevel = toAdd.getLevel(); 
-	    
-            prevPrefix = prefix;
+	return out;
+    }
 
-	    p = pendingQ.poll();
+    // inserts all nodes in batch in sorted order, merging any spilled runs,
+    // returns false if the batch cannot be read
+    private boolean insertBatch(PendingBatch batch, boolean stage){
+	try {
+	    batch.startScan();
+	    UserLeafNode toAdd = batch.next();
+	    while (toAdd != null) {
+		insertNode(toAdd.getIndex(), toAdd, out);
+		if (stage) {
+		    staged.add(toAdd);
+		    stagedCount++;
+		}
+		toAdd = batch.next();
+	    }
+	}
+	catch (IOException e) {
+	    return false;
+	}
+	return true;
+    }
 
+    /** Starts a staging tree for the next epoch {@code epoch} from the
+     * published tree {@code prevRoot}, into which new nodes can be inserted 
+     * as they are registered during the epoch. Only the nodes on the paths to 
+     * the new nodes are copied, all other subtrees are shared with 
+     * {@code prevRoot}, which isn't modified.
+     *<p>
+     * The staging tree is finished with 
+     * {@link UserTreeBuilder#finishStagingTree(byte[])}.
+     */
+    public void startStagingTree(RootNode prevRoot, long epoch){
+	RootNode out;
+	if (prevRoot != null){
+	    this.prevEpoch = prevRoot.epoch;
+	    out = new RootNode(prevRoot.left, prevRoot.right, prevRoot.level, null, epoch,
+			       prevRoot.leftHash, prevRoot.rightHash);
+	}else{
+	    this.prevEpoch = -1;
+	    out = new RootNode(null, null, 0, null, epoch);
 	}
 
-	// recompute hashes
+	this.epoch = epoch;
+	this.out = out;
+	this.staged = Collections.newSetFromMap(new IdentityHashMap<TreeNode,Boolean>());
+	this.staged.add(out);
+	this.stagedCount = 0;
+    }
+
+    /** Inserts the new node {@code toAdd} with the lookup index 
+     * {@code index} into the staging tree. The hashes on its path
+     * are only recomputed when the tree is finished.
+     */
+    public void stageNode(byte[] index, UserLeafNode toAdd){
+	insertNode(index, toAdd, out);
+	staged.add(toAdd);
+	stagedCount++;
+    }
+
+    /** Inserts all new nodes in {@code batch} into the staging tree,
+     * in the order of their lookup indices.
+     *
+     *@return {@code true} if all nodes were inserted, {@code false} if
+     * the nodes spilled by {@code batch} cannot be read, in which case
+     * only the nodes read so far are inserted.
+     */
+    public boolean stageBatch(PendingBatch batch){
+	return insertBatch(batch, true);
+    }
+
+    /** Gets the number of nodes inserted into the staging tree.
+     *
+     *@return The number of staged nodes.
+     */
+    public int getStagedCount(){
+	return stagedCount;
+    }
+
+    /** Recomputes the hashes on the paths to the nodes staged so far,
+     * so that finishing the staging tree only needs to hash the paths
+     * that nodes staged after this are inserted into.
+     */
+    public void hashStagingTree(){
 	computeHashes(out);
 
-	return out;
+	// the next insertion must clear the hashes on its whole path again
+	fingerTop = -1;
+    }
+
+    /** Finishes the staging tree with the previous epoch's root hash 
+     * {@code prevRootHash}: only the hashes on the paths to the staged
+     * nodes are recomputed. No more nodes can be staged afterwards.
+     *
+     *@return The {@link RootNode} of the finished Merkle tree.
+     */
+    public RootNode finishStagingTree(byte[] prevRootHash){
+	RootNode root = out;
+	root.prev = prevRootHash;
+	computeHashes(root);
+
+	clearTemps();
+	return root;
     }
 
-    /** Creates a completely new Merkle tree with any nodes in {@code pendingQ},
+    /** Creates a completely new Merkle tree with any nodes in {@code batch},
      * and with the previous epoch's root hash {@code prevRootHash} for the new epoch
      * {@code epoch}.
      *
      *@return The {@link RootNode} of the new Merkle tree.
      */
-    public RootNode createNewTree(PriorityQueue<Pair<byte[], UserLeafNode>> pendingQ,
+    public RootNode createNewTree(PendingBatch batch,
 				  byte[] prevRootHash, long epoch){
-	return copyExtendTree(null, prevRootHash, pendingQ, epoch);
+	return copyExtendTree(null, prevRootHash, batch, epoch);
     }
 
 }
@@ -39,7 +39,7 @@ CLIENT_BIN="org.coniks.coniks_test_client.TestClient"
 RUN_CONIKS="java $CLASSPATH $CLIENT_BIN"
 
 if [ "$#" -lt 2 ]; then
-    echo "Usage: $0 <server> <REGISTER | LOOKUP | VERIFY> [iters = 1] [offset = 0] [verbosity = 0]"
+    echo "Usage: $0 <server> <REGISTER | LOOKUP | VERIFY | BATCHVERIFY | BULKREGISTER | HISTORY> [iters = 1] [offset = 0] [verbosity = 0]"
     exit
 fi
 
@@ -59,5 +59,5 @@ elif [ "$#" = 5 ]; then
     $RUN_CONIKS $SERVER $CMD $3 $4 $5
 
 else
-    echo echo "Usage: $0 <server> <REGISTER | LOOKUP | VERIFY> [iters = 1] [offset = 0] [verbosity = 0]"
+    echo echo "Usage: $0 <server> <REGISTER | LOOKUP | VERIFY | BATCHVERIFY | BULKREGISTER | HISTORY> [iters = 1] [offset = 0] [verbosity = 0]"
 fi
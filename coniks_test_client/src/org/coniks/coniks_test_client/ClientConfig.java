@@ -47,6 +47,8 @@ public class ClientConfig{
     private final int PORT_IDX = 0;
     private final int TRUSTSTORE_PATH_IDX = 1;
     private final int TRUSTSTORE_PWD_IDX = 2;
+    private final int KEYSTORE_PATH_IDX = 3;
+    private final int KEYSTORE_PWD_IDX = 4;
 
     /** The port number on which the CONIKS server is listening
      */
@@ -60,6 +62,16 @@ public class ClientConfig{
      */
     public String TRUSTSTORE_PWD = "";
 
+    /** The path to the client's private key store. This is only
+     * needed by providers doing bulk registrations, which must
+     * authenticate to the server.
+     */
+    public String KEYSTORE_PATH = "";
+    
+    /** The password to the client's private key store
+     */
+    public String KEYSTORE_PWD = "";
+
     /** Set a {@link ConiksClient}'s configuration according to the following
      * default parameters.
      */
@@ -67,6 +79,8 @@ public class ClientConfig{
         this.PORT = 40012;
         this.TRUSTSTORE_PATH = "";
         this.TRUSTSTORE_PWD = "";
+        this.KEYSTORE_PATH = "";
+        this.KEYSTORE_PWD = "";
     }
 
     /** Set a {@link ConiksClient}'s configuration according to the parameters in
@@ -93,6 +107,12 @@ public class ClientConfig{
             this.PORT = Integer.parseInt(configs.get(PORT_IDX));
             this.TRUSTSTORE_PATH = configs.get(TRUSTSTORE_PATH_IDX);
             this.TRUSTSTORE_PWD = configs.get(TRUSTSTORE_PWD_IDX);
+
+            // the key store is optional
+            if (configs.size() > KEYSTORE_PWD_IDX) {
+                this.KEYSTORE_PATH = configs.get(KEYSTORE_PATH_IDX);
+                this.KEYSTORE_PWD = configs.get(KEYSTORE_PWD_IDX);
+            }
             
         }
         catch (Exception e) {
@@ -34,6 +34,7 @@
 package org.coniks.coniks_test_client;
 
 import org.coniks.coniks_common.C2SProtos.AuthPath;
+import org.coniks.coniks_common.C2SProtos.MultiAuthPath;
 import org.coniks.coniks_common.UtilProtos.Commitment;
 import org.coniks.coniks_common.UtilProtos.Hash;
 
@@ -219,6 +220,61 @@ public class ClientUtils{
 	return (maskedBit != 0);
     }
     
+    /** Compares the lookup indices {@code index1} and {@code index2}
+     * as unsigned big-endian numbers, i.e. in the order of the 
+     * leaves in the tree.
+     *
+     *@return a negative number, zero or a positive number if {@code index1}
+     * is less than, equal to or greater than {@code index2}.
+     */
+    public static int compareIndices(byte[] index1, byte[] index2){
+        for (int i = 0; i < index1.length && i < index2.length; i++) {
+            int cmp = (index1[i] & 0xff) - (index2[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return index1.length - index2.length;
+    }
+
+    /** Gets the first (if {@code last} is {@code false}) or the last lookup
+     * index in the subtree at depth {@code depth} whose path from the root
+     * is given by the first {@code depth} bits of {@code prefix}.
+     *
+     *@return the lookup index as a {@code byte[]}.
+     */
+    public static byte[] getSubtreeBound(byte[] prefix, int depth, boolean last){
+        byte[] bound = new byte[HASH_SIZE_BYTES];
+        for (int i = 0; i < HASH_SIZE_BITS; i++) {
+            boolean bit = i < depth ? getNthBit(prefix, i) : last;
+            if (bit) {
+                bound[i/8] |= (1 << (7 - i%8));
+            }
+        }
+        return bound;
+    }
+
+    /** Gets the leaves of the leaf range chunk {@code chunk} whose lookup 
+     * indices are in the chunk's range, leaving out the leaves just outside
+     * the range that are only there to prove its bounds.
+     *
+     *@return The leaves in the range, in lookup index order.
+     */
+    public static ArrayList<AuthPath.UserLeafNode> getRangeLeaves(MultiAuthPath chunk){
+        byte[] rangeStart = chunk.getRangeStart().toByteArray();
+        byte[] rangeEnd = chunk.hasRangeEnd() ? chunk.getRangeEnd().toByteArray() : null;
+
+        ArrayList<AuthPath.UserLeafNode> leaves = new ArrayList<AuthPath.UserLeafNode>();
+        for (AuthPath.UserLeafNode leaf : chunk.getLeafList()) {
+            byte[] index = intListToByteArr(new ArrayList<Integer>(leaf.getLookupIndexList()));
+            if (compareIndices(index, rangeStart) >= 0 &&
+                (rangeEnd == null || compareIndices(index, rangeEnd) < 0)) {
+                leaves.add(leaf);
+            }
+        }
+        return leaves;
+    }
+
     /** Gets the 16-bit prefix of a byte array {@code arr}.
      *
      *@return the first 16 bits of {@code arr} or all zeros if the length
@@ -261,7 +317,7 @@ public class ClientUtils{
      */
     public static byte[] ulnProtoToBytes(AuthPath.UserLeafNode uln){
         // TODO: add the generic blob of data and the change key fields
-        byte[] pubKey = strToBytes(uln.getPublickey());
+        byte[] pubKey = keyDigestProtoToBytes(uln);
 	byte[] usr = strToBytes(uln.getName());
         byte[] ep_add = longToBytes(uln.getEpochAdded());
         byte[] auk = new byte[]{(byte)(uln.getAllowsUnsignedKeychange() ? 0x01 : 0x00)};
@@ -280,6 +336,39 @@ public class ClientUtils{
 	return arr.array();
     }
 
+    /** Gets the digest of the public key to which the AuthPath.UserLeafNode
+     * protobuf {@code uln} commits: the key digest sent by the server,
+     * or the hash of the public key if the server didn't send it.
+     *
+     *@return The digest as a {@code byte[]}.
+     */
+    public static byte[] keyDigestProtoToBytes(AuthPath.UserLeafNode uln){
+        if (uln.hasKeyDigest()) {
+            return uln.getKeyDigest().toByteArray();
+        }
+        return hash(strToBytes(uln.getPublickey()));
+    }
+
+    /** Checks that the public key in the AuthPath.UserLeafNode protobuf
+     * {@code uln}, if the server sent it, matches the key digest to which 
+     * the leaf commits. A leaf without the key must have a digest, 
+     * and the client must already have the key.
+     *
+     *@return {@code true} if the key is consistent with the leaf, 
+     * {@code false} otherwise.
+     */
+    public static boolean checkKeyDigestProto(AuthPath.UserLeafNode uln){
+        if (!uln.hasKeyDigest()) {
+            return uln.hasPublickey();
+        }
+        if (uln.getKeyDigest().size() != HASH_SIZE_BYTES) {
+            return false;
+        }
+        return !uln.hasPublickey() ||
+            compareByteBuffers(hash(strToBytes(uln.getPublickey())), 
+                               uln.getKeyDigest().toByteArray());
+    }
+
     /** Takes the hash of a user leaf node {@code ulnHash} and recomputes
      * the hashes of each given interior node on the authentication path
      * {@code inList} up to the root's left or right child and returns this hash
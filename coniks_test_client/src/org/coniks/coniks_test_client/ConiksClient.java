@@ -36,6 +36,8 @@ package org.coniks.coniks_test_client;
 import javax.net.ssl.*;
 import java.net.*;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
 
 import com.google.protobuf.*;
 
@@ -45,6 +47,13 @@ import org.coniks.coniks_common.C2SProtos.CommitmentReq;
 import org.coniks.coniks_common.C2SProtos.KeyLookup;
 import org.coniks.coniks_common.C2SProtos.RegistrationResp;
 import org.coniks.coniks_common.C2SProtos.AuthPath;
+import org.coniks.coniks_common.C2SProtos.KeyLookupBatch;
+import org.coniks.coniks_common.C2SProtos.MultiAuthPath;
+import org.coniks.coniks_common.C2SProtos.BulkRegistration;
+import org.coniks.coniks_common.C2SProtos.BulkRegistrationResp;
+import org.coniks.coniks_common.C2SProtos.EpochDiffReq;
+import org.coniks.coniks_common.C2SProtos.EpochDiff;
+import org.coniks.coniks_common.C2SProtos.LeafRangeReq;
 import org.coniks.coniks_common.UtilProtos.Commitment;
 import org.coniks.coniks_common.UtilProtos.ServerResp;
 
@@ -60,6 +69,10 @@ public class ConiksClient {
     private static DataOutputStream dout;
     private static DataInputStream din;
 
+    // the public keys of users whose bindings were verified, so the 
+    // server doesn't have to send them again
+    private static HashMap<String, String> cachedKeys = new HashMap<String, String>();
+
     /** Sets the default truststore according to the {@link ClientConfig}.
      * This is needed to set up SSL connections with a CONIKS server.
      */
@@ -70,6 +83,17 @@ public class ConiksClient {
                            CONFIG.TRUSTSTORE_PWD);
     }
 
+    /** Sets the default keystore according to the {@link ClientConfig}.
+     * This is needed to authenticate to a CONIKS server, e.g. for bulk 
+     * registrations.
+     */
+    public static void setDefaultKeystore() {
+        System.setProperty("javax.net.ssl.keyStore", 
+                           CONFIG.KEYSTORE_PATH);
+        System.setProperty("javax.net.ssl.keyStorePassword",
+                           CONFIG.KEYSTORE_PWD);
+    }
+
     /* Functions for sending CONIKS messages to the server */
 
     /** Sends a Registration protobuf message with the given
@@ -84,6 +108,29 @@ public class ConiksClient {
 
     }
 
+    /** Caches the public key of the verified user leaf node {@code uln},
+     * or gets the cached key if the server left it out because 
+     * the client already has it.
+     *
+     *@return The public key as a {@code String}, or {@code null} if 
+     * the key was left out but isn't cached or doesn't match the 
+     * leaf's key digest.
+     */
+    public static String cacheKey (AuthPath.UserLeafNode uln) {
+        if (uln.hasPublickey()) {
+            cachedKeys.put(uln.getName(), uln.getPublickey());
+            return uln.getPublickey();
+        }
+
+        String cachedKey = cachedKeys.get(uln.getName());
+        if (cachedKey == null || !ClientUtils.compareByteBuffers(
+                ClientUtils.hash(ClientUtils.strToBytes(cachedKey)), 
+                ClientUtils.keyDigestProtoToBytes(uln))) {
+            return null;
+        }
+        return cachedKey;
+    }
+
     /** Sends a KeyLookup protobuf message with the given
         {@code username} and {@code epoch} to
         to the {@code server}.
@@ -96,6 +143,79 @@ public class ConiksClient {
 
     }
 
+    /** Registers all {@code usernames} with their {@code publicKeys}
+     * at the {@code server} using a single connection, sending
+     * BulkRegistration protobuf messages of at most {@code chunkSize} entries
+     * and receiving a BulkRegistrationResp for each one.
+     *
+     *@return For each username, whether it was registered, or {@code null}
+     * if an error occurred.
+     */
+    public static boolean[] sendBulkRegistrationProto (String[] usernames, 
+                                                       String[] publicKeys,
+                                                       int chunkSize,
+                                                       String server) {
+        boolean[] registered = new boolean[usernames.length];
+
+        try {
+            connect(server);
+
+            for (int start = 0; start < usernames.length; start += chunkSize) {
+                int end = Math.min(start+chunkSize, usernames.length);
+
+                BulkRegistration.Builder bulkBuild = BulkRegistration.newBuilder();
+                for (int i = start; i < end; i++) {
+                    bulkBuild.addRegistration(buildRegistrationMsgProto(usernames[i], 
+                                                                        publicKeys[i]));
+                }
+                bulkBuild.setMore(end < usernames.length);
+
+                dout.writeByte(MsgType.BULK_REGISTRATION);
+                bulkBuild.build().writeDelimitedTo(dout);
+                dout.flush();
+
+                AbstractMessage serverMsg = receiveMsgProto();
+                if (serverMsg instanceof ServerResp) {
+                    printServerRespMsgProto((ServerResp)serverMsg);
+                    close();
+                    return null;
+                }
+                else if (!(serverMsg instanceof BulkRegistrationResp) ||
+                         ((BulkRegistrationResp)serverMsg).getNumEntries() != end-start) {
+                    System.out.println("Unexpected server response");
+                    close();
+                    return null;
+                }
+
+                BulkRegistrationResp resp = (BulkRegistrationResp)serverMsg;
+                for (int i = start; i < end; i++) {
+                    int word = resp.getRegistered((i-start)/32);
+                    registered[i] = (word & (1 << ((i-start)%32))) != 0;
+                }
+            }
+            close();
+        }
+        catch (IOException e) {
+            System.out.println("Something went wrong while trying to send a bulk registration");
+            System.out.println("Error: "+e.getMessage());
+            return null;
+        }
+
+        return registered;
+    }
+
+    /** Sends a KeyLookupBatch protobuf message with the given
+        {@code usernames} and {@code epoch} to
+        to the {@code server}.
+    */
+    public static void sendKeyLookupBatchProto (String[] usernames, long epoch,
+                                                String server) {
+
+        KeyLookupBatch batch = buildKeyLookupBatchMsgProto(usernames, epoch);
+        sendMsgProto(MsgType.KEY_LOOKUP_BATCH, batch, server);
+
+    }
+
     /** Sends a CommitmentReq protobuf message requesting {@code provider}'s 
       commitment for {@code epoch} from {@code server}.
         If the server and provider are the same, {@code commitmentType} 
@@ -112,6 +232,63 @@ public class ConiksClient {
 
     }
 
+    /** Sends a CommitmentReq protobuf message requesting {@code provider}'s 
+      commitments for all epochs from {@code fromEpoch} up to {@code toEpoch}
+      from {@code server}, at most {@code limit} of them. 
+      Set {@code toEpoch} to 0 to request all commitments up to the 
+      current epoch, and {@code limit} to 0 to use the server's limit.
+    */
+    public static void sendCommitmentRangeReqProto (long fromEpoch, long toEpoch,
+                                                    int limit, String provider,
+                                                    String server) {
+        
+        CommitmentReq commReq = buildCommitmentRangeReqMsgProto(fromEpoch, toEpoch,
+                                                                limit, provider);
+        sendMsgProto(MsgType.COMMITMENT_REQ, commReq, server);
+
+    }
+
+    /** Sends an EpochDiffReq protobuf message requesting the diff
+      of the tree published in {@code epoch} from {@code server}.
+    */
+    public static void sendEpochDiffReqProto (long epoch, String server) {
+        
+        EpochDiffReq diffReq = EpochDiffReq.newBuilder().setEpoch(epoch).build();
+        sendMsgProto(MsgType.EPOCH_DIFF_REQ, diffReq, server);
+
+    }
+
+    /** Sends a LeafRangeReq protobuf message requesting the leaves 
+      of the tree in effect at {@code epoch} with lookup indices from
+      {@code fromIndex} up to {@code toIndex} from {@code server},
+      in chunks of at most {@code chunkSize} leaves and at most 
+      {@code limit} leaves in all. 
+      Set {@code fromIndex} and {@code toIndex} to {@code null} to start 
+      and end at the ends of the index space, and {@code chunkSize} and
+      {@code limit} to 0 to use the server's chunk size and get all leaves.
+    */
+    public static void sendLeafRangeReqProto (long epoch, byte[] fromIndex, 
+                                              byte[] toIndex, int chunkSize,
+                                              int limit, String server) {
+        
+        LeafRangeReq.Builder rangeReq = LeafRangeReq.newBuilder();
+        rangeReq.setEpoch(epoch);
+        if (fromIndex != null) {
+            rangeReq.setFromIndex(ByteString.copyFrom(fromIndex));
+        }
+        if (toIndex != null) {
+            rangeReq.setToIndex(ByteString.copyFrom(toIndex));
+        }
+        if (chunkSize > 0) {
+            rangeReq.setChunkSize(chunkSize);
+        }
+        if (limit > 0) {
+            rangeReq.setLimit(limit);
+        }
+        sendMsgProto(MsgType.LEAF_RANGE_REQ, rangeReq.build(), server);
+
+    }
+
     /* Helper functions for implementing the sending functions */
 
     /** Sends any protobuf message {@code msg} of type {@code msgType}
@@ -155,11 +332,32 @@ public class ConiksClient {
         KeyLookup.Builder keyLookupBuild = KeyLookup.newBuilder();
         keyLookupBuild.setName(username);
         keyLookupBuild.setEpoch(epoch);
+
+        String cachedKey = cachedKeys.get(username);
+        if (cachedKey != null) {
+            byte[] digest = ClientUtils.hash(ClientUtils.strToBytes(cachedKey));
+            keyLookupBuild.setCachedKeyDigest(ByteString.copyFrom(digest));
+        }
      
         return keyLookupBuild.build();
     
     }
 
+    /** Builds the KeyLookupBatch protobuf message with the given
+        {@code usernames} and {@code epoch}.
+    */
+    private static KeyLookupBatch buildKeyLookupBatchMsgProto(String[] usernames, 
+                                                              long epoch) {
+        KeyLookupBatch.Builder batchBuild = KeyLookupBatch.newBuilder();
+        for (String username : usernames) {
+            batchBuild.addLookup(buildKeyLookupMsgProto(username, epoch));
+        }
+        batchBuild.setEpoch(epoch);
+     
+        return batchBuild.build();
+    
+    }
+
     /** Builds the CommitmentReq protobuf message with a given
         {@code commType}, {@code epoch}, and {@code server}.
     */
@@ -175,6 +373,29 @@ public class ConiksClient {
     
     }
 
+    /** Builds the CommitmentReq protobuf message for a range
+        of commitments with the given {@code fromEpoch}, {@code toEpoch},
+        {@code limit} and {@code server}.
+    */
+    private static CommitmentReq buildCommitmentRangeReqMsgProto (long fromEpoch,
+                                                                  long toEpoch,
+                                                                  int limit, 
+                                                                  String server) {
+        CommitmentReq.Builder commReqBuild = CommitmentReq.newBuilder();
+        commReqBuild.setType(CommitmentReq.CommitmentType.SELF);
+        commReqBuild.setFromEpoch(fromEpoch);
+        if (toEpoch > 0) {
+            commReqBuild.setToEpoch(toEpoch);
+        }
+        if (limit > 0) {
+            commReqBuild.setLimit(limit);
+        }
+        commReqBuild.setProvider(server);
+     
+        return commReqBuild.build();
+    
+    }
+
     /* Functions for handling messages received from the server */
 
     /** Receives and parses a RegistrationResp protobuf message
@@ -229,6 +450,33 @@ public class ConiksClient {
         
         return authPath;
 
+    }
+
+     /** Receives and parses a MultiAuthPath protobuf message
+     * from the server.
+     *
+     *@return The MultiAuthPath message upon success. {@code null} otherwise.
+     */
+    public static MultiAuthPath receiveMultiAuthPathProto() {
+        
+        // first receive the generic message from the server
+        AbstractMessage serverMsg = receiveMsgProto();
+
+        MultiAuthPath multiPath = null;
+
+        if (serverMsg == null || 
+            !((serverMsg instanceof MultiAuthPath) || (serverMsg instanceof ServerResp))) {
+            System.out.println("Unexpected server response");
+        }
+        else if (serverMsg instanceof ServerResp) {
+            printServerRespMsgProto((ServerResp)serverMsg);
+        }
+        else {
+            multiPath = (MultiAuthPath)serverMsg;
+        }
+        
+        return multiPath;
+
     }
 
      /** Receives and parses a Commitment protobuf message
@@ -258,6 +506,117 @@ public class ConiksClient {
 
     }
 
+    /** Receives and parses the stream of Commitment protobuf messages
+     * sent by the server for a commitment range request, up to the
+     * success response that ends the stream.
+     *
+     *@return The list of Commitment messages in epoch order upon success. 
+     * {@code null} otherwise.
+     */
+    public static ArrayList<Commitment> receiveCommitmentRangeProto() {
+        
+        ArrayList<Commitment> comms = new ArrayList<Commitment>();
+
+        while (true) {
+            AbstractMessage serverMsg = receiveMsgProto();
+
+            if (serverMsg == null || 
+                !((serverMsg instanceof Commitment) || (serverMsg instanceof ServerResp))) {
+                System.out.println("Unexpected server response");
+                return null;
+            }
+            else if (serverMsg instanceof ServerResp) {
+                if (((ServerResp)serverMsg).getMessage() == ServerResp.Message.SUCCESS) {
+                    return comms;
+                }
+                printServerRespMsgProto((ServerResp)serverMsg);
+                return null;
+            }
+            
+            Commitment comm = (Commitment)serverMsg;
+            
+            // the server must send the commitments in epoch order
+            if (!comms.isEmpty() && 
+                comm.getEpoch() <= comms.get(comms.size()-1).getEpoch()) {
+                System.out.println("Commitments out of order");
+                return null;
+            }
+            comms.add(comm);
+        }
+
+    }
+
+    /** Receives and parses an EpochDiff protobuf message
+     * from the server 
+     *
+     *@return The EpochDiff message upon success. {@code null} otherwise.
+     */
+    public static EpochDiff receiveEpochDiffProto() {
+        
+        // first receive the generic message from the server
+        AbstractMessage serverMsg = receiveMsgProto();
+
+        EpochDiff diff = null;
+
+        if (serverMsg == null || 
+            !((serverMsg instanceof EpochDiff) || (serverMsg instanceof ServerResp))) {
+            System.out.println("Unexpected server response");
+        }
+        else if (serverMsg instanceof ServerResp) {
+            printServerRespMsgProto((ServerResp)serverMsg);
+        }
+        else {
+            diff = (EpochDiff)serverMsg;
+        }
+        
+        return diff;
+
+    }
+
+    /** Receives and parses the stream of leaf range chunks sent by the 
+     * server for a leaf range request, up to the success response that 
+     * ends the stream. Each chunk must start where the previous one ended.
+     *
+     *@return The list of chunks as MultiAuthPath messages in lookup index 
+     * order upon success. {@code null} otherwise.
+     */
+    public static ArrayList<MultiAuthPath> receiveLeafRangeProto() {
+        
+        ArrayList<MultiAuthPath> chunks = new ArrayList<MultiAuthPath>();
+
+        while (true) {
+            AbstractMessage serverMsg = receiveMsgProto();
+
+            if (serverMsg == null || 
+                !((serverMsg instanceof MultiAuthPath) || (serverMsg instanceof ServerResp))) {
+                System.out.println("Unexpected server response");
+                return null;
+            }
+            else if (serverMsg instanceof ServerResp) {
+                if (((ServerResp)serverMsg).getMessage() == ServerResp.Message.SUCCESS) {
+                    return chunks;
+                }
+                printServerRespMsgProto((ServerResp)serverMsg);
+                return null;
+            }
+            
+            MultiAuthPath chunk = (MultiAuthPath)serverMsg;
+            
+            // there must be no gaps between the chunks
+            if (!chunks.isEmpty()) {
+                MultiAuthPath prev = chunks.get(chunks.size()-1);
+                if (!prev.hasRangeEnd() || 
+                    !prev.getRangeEnd().equals(chunk.getRangeStart()) ||
+                    prev.getEpoch() != chunk.getEpoch()) {
+                    System.out.println("Leaf range chunks out of order");
+                    return null;
+                }
+            }
+            chunks.add(chunk);
+        }
+
+    }
+
     /* Helper functions for implementing the receiving functions */
 
     /** Receives a protobuf message from the server the client is currently
@@ -295,6 +654,41 @@ public class ConiksClient {
                     return authPath;
                 }
             }
+            else if (msgType == MsgType.BULK_REGISTRATION_RESP) {
+                BulkRegistrationResp resp = BulkRegistrationResp.parseDelimitedFrom(din);
+                
+                if (!resp.hasInitEpoch() || !resp.hasNumEntries() ||
+                    resp.getRegisteredCount() != (resp.getNumEntries()+31)/32) {
+                    System.out.println("Malformed bulk registration response");
+                }
+                else {
+                    return resp;
+                }
+            }
+            else if (msgType == MsgType.MULTI_AUTH_PATH) {
+                MultiAuthPath multiPath = MultiAuthPath.parseDelimitedFrom(din);
+                
+                if (multiPath.getLeafCount() == 0 || !multiPath.hasPrev() || 
+                    !multiPath.hasEpoch()) {
+                    System.out.println("Malformed multi auth path");
+                }
+                else {
+                    return multiPath;
+                }
+            }
+            else if (msgType == MsgType.LEAF_RANGE) {
+                MultiAuthPath chunk = MultiAuthPath.parseDelimitedFrom(din);
+                
+                if (!chunk.hasPrev() || !chunk.hasEpoch() ||
+                    chunk.getRangeStart().size() != ClientUtils.HASH_SIZE_BYTES ||
+                    (chunk.hasRangeEnd() && 
+                     chunk.getRangeEnd().size() != ClientUtils.HASH_SIZE_BYTES)) {
+                    System.out.println("Malformed leaf range chunk");
+                }
+                else {
+                    return chunk;
+                }
+            }
             else if (msgType == MsgType.COMMITMENT) {
                 Commitment comm = Commitment.parseDelimitedFrom(din);
                 
@@ -305,6 +699,18 @@ public class ConiksClient {
                     return comm;
                 }
             }
+            else if (msgType == MsgType.EPOCH_DIFF) {
+                EpochDiff diff = EpochDiff.parseDelimitedFrom(din);
+                
+                if (!diff.hasProof() || !diff.getProof().hasPrev() || 
+                    !diff.getProof().hasEpoch() ||
+                    diff.getMovedCount() != (diff.getProof().getLeafCount()+31)/32) {
+                    System.out.println("Malformed epoch diff");
+                }
+                else {
+                    return diff;
+                }
+            }
             
             // Some error occurred so the server responded with a simple response
             else if (msgType == MsgType.SERVER_RESP) {
@@ -352,6 +758,15 @@ public class ConiksClient {
         case MALFORMED_ERR:
             System.out.println("The message received by the server was malformed.");
             break;
+        case OVERLOADED:
+            System.out.println("The server is overloaded, please try again later.");
+            break;
+        case UNAUTHORIZED_ERR:
+            System.out.println("The client is not authorized to make this request.");
+            break;
+        case READ_ONLY_ERR:
+            System.out.println("The server is a read-only replica, please register with its leader.");
+            break;
         default:
             System.out.println("Some server error occurred.");
             break;                
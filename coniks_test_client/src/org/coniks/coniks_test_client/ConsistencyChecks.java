@@ -37,12 +37,16 @@ import javax.net.ssl.*;
 import java.net.*;
 import java.io.*;
 import java.util.ArrayList;
+import java.nio.ByteBuffer;
 
 import com.google.protobuf.*;
 import org.javatuples.*;
 
 import org.coniks.coniks_common.C2SProtos.RegistrationResp;
 import org.coniks.coniks_common.C2SProtos.AuthPath;
+import org.coniks.coniks_common.C2SProtos.MultiAuthPath;
+import org.coniks.coniks_common.C2SProtos.EpochDiff;
+import org.coniks.coniks_common.UtilProtos.Hash;
 import org.coniks.coniks_common.UtilProtos.Commitment;
 import org.coniks.coniks_common.UtilProtos.ServerResp;
 
@@ -98,6 +102,330 @@ public class ConsistencyChecks {
 
     }
 
+    /** Recomputes the root node from a MultiAuthPath protobuf message
+     * {@code multiPath}. The root is only computed once for all
+     * data bindings in the proof. If {@code multiPath} is a chunk of a 
+     * leaf range, every pruned subtree that overlaps the range must also 
+     * be empty, so that the proof holds all leaves in the range.
+     *
+     *@return The recomputed root node as a {@code byte[]} or {@code null} 
+     * upon failure.
+     */
+    private static byte[] recomputeMultiAuthPathRootProto(MultiAuthPath multiPath){
+
+        ArrayList<AuthPath.UserLeafNode> leaves = 
+            new ArrayList<AuthPath.UserLeafNode>(multiPath.getLeafList());
+        ArrayList<byte[]> indices = getSortedLookupIndices(leaves);
+        if (indices == null) {
+            return null;
+        }
+
+        ArrayList<Hash> pruned = new ArrayList<Hash>(multiPath.getPrunedList());
+        int[] nextPruned = new int[]{0};
+
+        byte[][] range = null;
+        if (multiPath.hasRangeStart()) {
+            range = new byte[][]{multiPath.getRangeStart().toByteArray(),
+                                 multiPath.hasRangeEnd() ? 
+                                 multiPath.getRangeEnd().toByteArray() : null};
+        }
+        byte[] prefix = new byte[ClientUtils.HASH_SIZE_BYTES];
+
+        byte[] left = null;
+        byte[] right = null;
+        int mid = splitLeaves(indices, 0, leaves.size(), 0);
+
+        left = computeSubtreeProtoHash(leaves, indices, 0, mid, 1, pruned, nextPruned,
+                                       prefix, range);
+        if (left != null) {
+            prefix[0] |= 0x80;
+            right = computeSubtreeProtoHash(leaves, indices, mid, leaves.size(), 1, 
+                                            pruned, nextPruned, prefix, range);
+        }
+
+        if (left == null || right == null) {
+            return null;
+        }
+
+        // every pruned hash must have been used exactly once
+        if (nextPruned[0] != pruned.size()) {
+            System.out.println("Bad number of pruned subtrees");
+            return null;
+        }
+
+        byte[] prevHash = hashProtoToBytes(multiPath.getPrev());
+        if (prevHash == null) {
+            return null;
+        }
+
+        return rootToBytes(left, right, prevHash, multiPath.getEpoch());
+
+    }
+
+    /** Recomputes the previous epoch's root node from an EpochDiff
+     * protobuf message {@code diff}: removing the leaves added in the
+     * diff's epoch from its proof, and moving each remaining leaf back up
+     * to where its subtree no longer holds any other leaf, 
+     * must give the previous tree.
+     *
+     *@return The recomputed previous root node as a {@code byte[]} or 
+     * {@code null} upon failure.
+     */
+    private static byte[] recomputeEpochDiffPrevRootProto(EpochDiff diff){
+
+        MultiAuthPath proof = diff.getProof();
+        ArrayList<AuthPath.UserLeafNode> leaves = 
+            new ArrayList<AuthPath.UserLeafNode>(proof.getLeafList());
+        ArrayList<byte[]> indices = getSortedLookupIndices(leaves);
+        if (indices == null) {
+            return null;
+        }
+
+        boolean[] moved = new boolean[leaves.size()];
+        for (int i = 0; i < moved.length; i++) {
+            moved[i] = (diff.getMoved(i/32) & (1 << (i%32))) != 0;
+        }
+
+        ArrayList<Hash> pruned = new ArrayList<Hash>(proof.getPrunedList());
+        int[] nextPruned = new int[]{0};
+        int[] kind = new int[1];
+
+        byte[] left = null;
+        byte[] right = null;
+        int mid = splitLeaves(indices, 0, leaves.size(), 0);
+
+        // the root's children stay where they are even if they're leaves
+        left = computePrevSubtreeProtoHash(leaves, indices, moved, 0, mid, 1, 
+                                           pruned, nextPruned, kind);
+        if (left != null) {
+            right = computePrevSubtreeProtoHash(leaves, indices, moved, mid, leaves.size(), 1, 
+                                                pruned, nextPruned, kind);
+        }
+
+        if (left == null || right == null) {
+            return null;
+        }
+
+        if (nextPruned[0] != pruned.size()) {
+            System.out.println("Bad number of pruned subtrees");
+            return null;
+        }
+
+        byte[] prevHash = hashProtoToBytes(diff.getPrevPrev());
+        if (prevHash == null) {
+            return null;
+        }
+
+        return rootToBytes(left, right, prevHash, diff.getPrevEpoch());
+
+    }
+
+    // checks that each leaf's lookup index actually belongs to its name,
+    // and that the leaves are sorted by lookup index
+    private static ArrayList<byte[]> getSortedLookupIndices(ArrayList<AuthPath.UserLeafNode> leaves) {
+        ArrayList<byte[]> indices = new ArrayList<byte[]>();
+
+        for (int i = 0; i < leaves.size(); i++) {
+            AuthPath.UserLeafNode apUln = leaves.get(i);
+            byte[] lookupIndex = ClientUtils.intListToByteArr(
+                                                              new ArrayList<Integer>(apUln.getLookupIndexList()));
+            
+            if (!ClientUtils.compareByteBuffers(lookupIndex, 
+                                                ClientUtils.unameToIndex(apUln.getName()))) {
+                System.out.println("Bad lookup index for "+apUln.getName());
+                return null;
+            }
+
+            if (i > 0 && ClientUtils.bytesToHex(indices.get(i-1)).compareTo(
+                                                                           ClientUtils.bytesToHex(lookupIndex)) >= 0) {
+                System.out.println("Leaves are not sorted");
+                return null;
+            }
+            indices.add(lookupIndex);
+        }
+        return indices;
+    }
+
+    // serializes a root node the same way the server hashes it
+    private static byte[] rootToBytes(byte[] left, byte[] right, byte[] prevHash, long epoch) {
+        byte[] ep = ClientUtils.longToBytes(epoch);
+
+        byte[] rootBytes = new byte[left.length+right.length+prevHash.length+ep.length];
+        ByteBuffer arr = ByteBuffer.wrap(rootBytes);
+        arr.put(left);
+        arr.put(right);
+        arr.put(prevHash);
+        arr.put(ep);
+
+        return arr.array();
+    }
+
+    // finds the first leaf in [lo, hi) whose bit at depth is 1,
+    // i.e. the first leaf in the right subtree
+    private static int splitLeaves(ArrayList<byte[]> indices, int lo, int hi, int depth) {
+        int mid = lo;
+        while (mid < hi && !ClientUtils.getNthBit(indices.get(mid), depth)) {
+            mid++;
+        }
+        return mid;
+    }
+
+    // recomputes the hash of the subtree at depth containing leaves[lo, hi),
+    // consuming pruned subtree hashes in depth-first, left-to-right order.
+    // The first depth bits of prefix are the subtree's path: if range is set,
+    // a pruned subtree that overlaps [range[0], range[1]) must be empty
+    private static byte[] computeSubtreeProtoHash(ArrayList<AuthPath.UserLeafNode> leaves, 
+                                                  ArrayList<byte[]> indices,
+                                                  int lo, int hi, int depth,
+                                                  ArrayList<Hash> pruned, int[] nextPruned,
+                                                  byte[] prefix, byte[][] range) {
+        if (lo == hi) {
+            if (nextPruned[0] >= pruned.size()) {
+                System.out.println("Missing pruned subtree at depth "+depth);
+                return null;
+            }
+            byte[] prunedHash = hashProtoToBytes(pruned.get(nextPruned[0]));
+            nextPruned[0]++;
+
+            if (prunedHash != null && range != null && overlapsRange(prefix, depth, range) &&
+                !ClientUtils.compareByteBuffers(prunedHash, 
+                                                ClientUtils.hash(new byte[ClientUtils.HASH_SIZE_BYTES]))) {
+                System.out.println("Pruned subtree in leaf range at depth "+depth);
+                return null;
+            }
+            return prunedHash;
+        }
+
+        // a leaf sits at depth intlevels+1 below the root
+        int leafDepth = leaves.get(lo).getIntlevels()+1;
+        if (leafDepth == depth) {
+            if (hi-lo != 1) {
+                System.out.println("Leaves overlap at depth "+depth);
+                return null;
+            }
+            return ClientUtils.hash(ClientUtils.ulnProtoToBytes(leaves.get(lo)));
+        }
+
+        if (leafDepth < depth || depth >= ClientUtils.HASH_SIZE_BITS) {
+            System.out.println("Bad leaf depth for "+leaves.get(lo).getName());
+            return null;
+        }
+
+        int mid = splitLeaves(indices, lo, hi, depth);
+        int mask = 1 << (7 - depth%8);
+
+        prefix[depth/8] &= ~mask;
+        byte[] left = computeSubtreeProtoHash(leaves, indices, lo, mid, depth+1, 
+                                              pruned, nextPruned, prefix, range);
+        if (left == null) {
+            return null;
+        }
+        prefix[depth/8] |= mask;
+        byte[] right = computeSubtreeProtoHash(leaves, indices, mid, hi, depth+1, 
+                                               pruned, nextPruned, prefix, range);
+        if (right == null) {
+            return null;
+        }
+        return ClientUtils.hashChildren(left, right);
+    }
+
+    // checks whether the subtree at depth with the path given by the 
+    // first depth bits of prefix overlaps the range [range[0], range[1])
+    private static boolean overlapsRange(byte[] prefix, int depth, byte[][] range) {
+        return ClientUtils.compareIndices(ClientUtils.getSubtreeBound(prefix, depth, true),
+                                          range[0]) >= 0 &&
+            (range[1] == null ||
+             ClientUtils.compareIndices(ClientUtils.getSubtreeBound(prefix, depth, false),
+                                        range[1]) < 0);
+    }
+
+    // the kinds of subtrees in the previous tree: an empty subtree 
+    // and a single leaf are moved up into their parent's place
+    // if their sibling is empty
+    private static final int EMPTY_SUBTREE = 0;
+    private static final int LEAF_SUBTREE = 1;
+    private static final int INTERIOR_SUBTREE = 2;
+
+    // recomputes the hash of the previous epoch's subtree at depth containing 
+    // the leaves[lo, hi) that were moved, and sets kind[0] to the subtree's kind.
+    // Pruned subtrees are unchanged, so they are only empty if they hash like it.
+    private static byte[] computePrevSubtreeProtoHash(ArrayList<AuthPath.UserLeafNode> leaves, 
+                                                      ArrayList<byte[]> indices, boolean[] moved,
+                                                      int lo, int hi, int depth,
+                                                      ArrayList<Hash> pruned, int[] nextPruned,
+                                                      int[] kind) {
+        byte[] emptyHash = ClientUtils.hash(new byte[ClientUtils.HASH_SIZE_BYTES]);
+        if (lo == hi) {
+            if (nextPruned[0] >= pruned.size()) {
+                System.out.println("Missing pruned subtree at depth "+depth);
+                return null;
+            }
+            byte[] prunedHash = hashProtoToBytes(pruned.get(nextPruned[0]));
+            nextPruned[0]++;
+            if (prunedHash != null) {
+                kind[0] = ClientUtils.compareByteBuffers(prunedHash, emptyHash) ? 
+                    EMPTY_SUBTREE : INTERIOR_SUBTREE;
+            }
+            return prunedHash;
+        }
+
+        int leafDepth = leaves.get(lo).getIntlevels()+1;
+        if (leafDepth == depth) {
+            if (hi-lo != 1) {
+                System.out.println("Leaves overlap at depth "+depth);
+                return null;
+            }
+            if (!moved[lo]) {
+                kind[0] = EMPTY_SUBTREE;
+                return emptyHash;
+            }
+            kind[0] = LEAF_SUBTREE;
+            return ClientUtils.hash(ClientUtils.ulnProtoToBytes(leaves.get(lo)));
+        }
+
+        if (leafDepth < depth || depth >= ClientUtils.HASH_SIZE_BITS) {
+            System.out.println("Bad leaf depth for "+leaves.get(lo).getName());
+            return null;
+        }
+
+        int mid = splitLeaves(indices, lo, hi, depth);
+        byte[] left = computePrevSubtreeProtoHash(leaves, indices, moved, lo, mid, depth+1, 
+                                                  pruned, nextPruned, kind);
+        if (left == null) {
+            return null;
+        }
+        int leftKind = kind[0];
+        byte[] right = computePrevSubtreeProtoHash(leaves, indices, moved, mid, hi, depth+1, 
+                                                   pruned, nextPruned, kind);
+        if (right == null) {
+            return null;
+        }
+        int rightKind = kind[0];
+
+        // a leaf's hash doesn't depend on its depth, so moving it up 
+        // into its parent's place leaves the hash unchanged
+        if (leftKind == EMPTY_SUBTREE && rightKind != INTERIOR_SUBTREE) {
+            return right;
+        }
+        if (rightKind == EMPTY_SUBTREE && leftKind == LEAF_SUBTREE) {
+            kind[0] = LEAF_SUBTREE;
+            return left;
+        }
+        kind[0] = INTERIOR_SUBTREE;
+        return ClientUtils.hashChildren(left, right);
+    }
+
+    // converts a Hash protobuf into a byte[], or null if it has the wrong length
+    private static byte[] hashProtoToBytes(Hash hash) {
+        ArrayList<Integer> hashList = new ArrayList<Integer>(hash.getHashList());
+
+        if(hashList.size() != ClientUtils.HASH_SIZE_BYTES){
+            System.out.println("Bad hash length");
+            return null;
+        }
+        return ClientUtils.intListToByteArr(hashList);
+    }
+
     /** Verifies that a given data binding is consistent with the server's STR
      * using the proof {@code authPath} and the STR {@code comm}.
      *
@@ -110,6 +438,10 @@ public class ConsistencyChecks {
         if (authPath == null /*|| comm == null*/) {
             return ConsistencyErr.MSG_ERR;
         }
+
+        if (!ClientUtils.checkKeyDigestProto(authPath.getLeaf())) {
+            return ConsistencyErr.BAD_BINDING_ERR;
+        }
         
         // first recompute the root node from the authentication path
         byte[] recomputedRoot = recomputeAuthPathRootProto(authPath);
@@ -132,4 +464,110 @@ public class ConsistencyChecks {
 
     }
 
+    /** Verifies that all data bindings in {@code multiPath} are 
+     * consistent with the server's STR {@code comm}, recomputing the 
+     * root only once for the whole batch. The batch is only bound to the
+     * server's tree by the STR, so it must be given.
+     *
+     *@return A {@link utils.ConsistencyErr} error code. {@code NO_ERR} indicates
+     * that the verification passed.
+     */
+    public static int verifyMultiDataBindingProto (MultiAuthPath multiPath, 
+                                                   Commitment comm){
+
+        if (multiPath == null || comm == null) {
+            return ConsistencyErr.MSG_ERR;
+        }
+
+        for (AuthPath.UserLeafNode leaf : multiPath.getLeafList()) {
+            if (!ClientUtils.checkKeyDigestProto(leaf)) {
+                return ConsistencyErr.BAD_BINDING_ERR;
+            }
+        }
+        
+        // first recompute the root node from the pruned tree
+        byte[] recomputedRoot = recomputeMultiAuthPathRootProto(multiPath);
+       
+        if (recomputedRoot == null) {
+            return ConsistencyErr.BAD_BINDING_ERR;
+        }
+
+        // verify the signature on the commitment
+        // TODO: implement this
+
+        // compute the hash of the recomputed root
+        byte[] recomputedRootHash = ClientUtils.hash(recomputedRoot);
+
+        // get the received root hash from the commitment and compare
+        // the two byte buffers
+        byte[] rootHash = hashProtoToBytes(comm.getRootHash());
+        if (rootHash == null || 
+            !ClientUtils.compareByteBuffers(rootHash, recomputedRootHash)) {
+            return ConsistencyErr.BAD_STR_ERR;
+        }
+
+        return ConsistencyErr.NO_ERR;
+
+    }
+
+    /** Verifies that the diff {@code diff} is consistent with the server's 
+     * STR {@code comm} for the diff's epoch, and with the STR 
+     * {@code prevComm} for the previous epoch: the proof must recompute
+     * the new root, and removing the added leaves from it must recompute
+     * the previous root to which the new root points.
+     * Either STR may be {@code null} to skip comparing with it.
+     *
+     *@return A {@link utils.ConsistencyErr} error code. {@code NO_ERR} indicates
+     * that the verification passed.
+     */
+    public static int verifyEpochDiffProto (EpochDiff diff, Commitment comm,
+                                            Commitment prevComm){
+
+        if (diff == null) {
+            return ConsistencyErr.MSG_ERR;
+        }
+
+        byte[] recomputedRoot = recomputeMultiAuthPathRootProto(diff.getProof());
+        if (recomputedRoot == null) {
+            return ConsistencyErr.BAD_BINDING_ERR;
+        }
+        byte[] recomputedRootHash = ClientUtils.hash(recomputedRoot);
+
+        if (comm != null) {
+            byte[] rootHash = hashProtoToBytes(comm.getRootHash());
+            if (comm.getEpoch() != diff.getProof().getEpoch() || rootHash == null || 
+                !ClientUtils.compareByteBuffers(rootHash, recomputedRootHash)) {
+                return ConsistencyErr.BAD_STR_ERR;
+            }
+        }
+
+        // the first epoch's tree has no predecessor
+        if (!diff.hasPrevEpoch()) {
+            return ConsistencyErr.NO_ERR;
+        }
+
+        byte[] recomputedPrevRoot = recomputeEpochDiffPrevRootProto(diff);
+        if (recomputedPrevRoot == null) {
+            return ConsistencyErr.BAD_BINDING_ERR;
+        }
+        byte[] recomputedPrevRootHash = ClientUtils.hash(recomputedPrevRoot);
+
+        byte[] prevHash = hashProtoToBytes(diff.getProof().getPrev());
+        if (prevHash == null || 
+            !ClientUtils.compareByteBuffers(prevHash, recomputedPrevRootHash)) {
+            return ConsistencyErr.BAD_BINDING_ERR;
+        }
+
+        if (prevComm != null && prevComm.getEpoch() == diff.getPrevEpoch()) {
+            byte[] rootHash = hashProtoToBytes(prevComm.getRootHash());
+            if (rootHash == null || 
+                !ClientUtils.compareByteBuffers(rootHash, recomputedPrevRootHash)) {
+                return ConsistencyErr.BAD_STR_ERR;
+            }
+        }
+
+        return ConsistencyErr.NO_ERR;
+
+    }
+
 }
@@ -33,6 +33,13 @@
 
 package org.coniks.coniks_test_client;
 
+import java.util.ArrayList;
+
+import org.coniks.coniks_common.C2SProtos.AuthPath;
+import org.coniks.coniks_common.C2SProtos.CommitmentReq;
+import org.coniks.coniks_common.C2SProtos.MultiAuthPath;
+import org.coniks.coniks_common.UtilProtos.Commitment;
+
 /** Implementation of a simple CONIKS test client
  * that simply displays how each component of the
  * protocol works.
@@ -44,6 +51,9 @@ package org.coniks.coniks_test_client;
  */
 public class TestClient {
 
+    // the number of users sent in each chunk of a bulk registration
+    private static final int BULK_CHUNK_SIZE = 5000;
+
     // since we're only creating dummy users, use this 
     // DSA-looking string as the test public key
     private static final String FAKE_PK_BASE = "(dsa \n (p #7712ECAF91762ED4E46076D846624D2A71C67A991D1FEA059593163C2B19690B1A5CA3C603F52A62D73BB91D521BA55682D38E3543CC34E384420AA32CFF440A90D28A6F54C586BB856460969C658B20ABF65A767063FE94A5DDBC2D0D5D1FD154116AE7039CC4E482DCF1245A9E4987EB6C91B32834B49052284027#)\n (q #00B84E385FA6263B26E9F46BF90E78684C245D5B35#)\n (g #77F6AA02740EF115FDA233646AAF479367B34090AEC0D62BA3E37F793D5CB995418E4F3F57F31612561A4BEA41FAC3EE05679D90D2F79A581905E432B85F4C109164EB7846DC9C3669B013D67063747ABCC4B07EAA4AC44D9DE9FC2A349859994DB683DFC7784D0F1DF1DA25014A40D8617E3EC94D8DB8FBBBC37A5C5AAEE5DC#)\n (y #4B41A8AA7B6F23F740DEF994D1A6582E00E4B821F65AC30BDC6710CD6111FA24DE70EACE6F4A92A84038D4B928D79F6A0DF35F729B861A6713BECC934309DE0822B8C9D2A6D3C0A4F0D0FB28A77B0393D72568D72EE60C73B2C5F6E4E1A1347EDC20AC449EFF250AC1C251E16403A610DB9EB90791E63207601714A786792835#)";
@@ -74,6 +84,33 @@ public class TestClient {
         return true;
     }
 
+    /** Registers all dummy users {@code usernames} with {@code server}
+     * using the bulk registration protocol.
+     *
+     *@return The number of users that were registered, or -1 if an error occurred.
+     */
+    public static int bulkRegister (String[] usernames, String server) {
+        String[] pks = new String[usernames.length];
+        for (int i = 0; i < usernames.length; i++) {
+            pks[i] = createPkFor(usernames[i]);
+        }
+        
+        boolean[] registered = ConiksClient.sendBulkRegistrationProto(usernames, pks, 
+                                                                      BULK_CHUNK_SIZE, server);
+        
+        if (registered == null) {
+            return -1;
+        }
+
+        int count = 0;
+        for (boolean r : registered) {
+            if (r) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /** Perfoms the CONIKS public key lookup protocol with {@code server}
      * for the dummy user {@code username}.
      *
@@ -103,27 +140,147 @@ public class TestClient {
 
         ConiksClient.sendKeyLookupProto(username, epoch, server);
         
-        int result = ConsistencyChecks.verifyDataBindingProto(
-                                                              ConiksClient.receiveAuthPathProto(), null);
+        AuthPath authPath = ConiksClient.receiveAuthPathProto();
+        int result = ConsistencyChecks.verifyDataBindingProto(authPath, null);
 
-        if (result == ConsistencyErr.NO_ERR) {
-            return true;
+        if (result != ConsistencyErr.NO_ERR) {
+            return false;
         }
+
+        // a key left out by the server must be the one we have
+        return ConiksClient.cacheKey(authPath.getLeaf()) != null;
+    }
+
+    /** Perfoms the data binding consistency check to
+     * verify all dummy users' {@code usernames} public keys 
+     * with a single batched lookup at {@code server}, against
+     * the server's commitment for the epoch of the lookup.
+     *
+     *@return Whether the verification succeeded.
+     */
+    public static boolean doBatchLookupVerification (String[] usernames, String server) {
+        ConiksClient.sendCommitmentReqProto(CommitmentReq.CommitmentType.SELF, 
+                                            System.currentTimeMillis(), server, server);
+
+        Commitment comm = ConiksClient.receiveCommitmentProto();
+
+        if (comm == null) {
+            return false;
+        }
+
+        // look up the names in the epoch the commitment is for
+        ConiksClient.sendKeyLookupBatchProto(usernames, comm.getEpoch(), server);
         
-        return false;
+        MultiAuthPath multiPath = ConiksClient.receiveMultiAuthPathProto();
+        int result = ConsistencyChecks.verifyMultiDataBindingProto(multiPath, comm);
+
+        if (result != ConsistencyErr.NO_ERR) {
+            return false;
+        }
+
+        for (AuthPath.UserLeafNode leaf : multiPath.getLeafList()) {
+            if (ConiksClient.cacheKey(leaf) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Fetches up to {@code count} of the commitments published by
+     * {@code server}, oldest first, with a single range request.
+     *
+     *@return The number of commitments received, or -1 if an error occurred.
+     */
+    public static int fetchHistory (int count, String server) {
+        ConiksClient.sendCommitmentRangeReqProto(1, 0, count, server, server);
+
+        ArrayList<Commitment> comms = ConiksClient.receiveCommitmentRangeProto();
+
+        if (comms == null) {
+            return -1;
+        }
+        return comms.size();
+    }
+
+    /** Audits up to {@code count} of the epochs published by
+     * {@code server}, oldest first: each epoch's diff must be consistent
+     * with that epoch's commitment and with the previous one.
+     *
+     *@return The number of epochs audited, or -1 if an error occurred.
+     */
+    public static int audit (int count, String server) {
+        ConiksClient.sendCommitmentRangeReqProto(1, 0, count, server, server);
+
+        ArrayList<Commitment> comms = ConiksClient.receiveCommitmentRangeProto();
+
+        if (comms == null) {
+            return -1;
+        }
+
+        Commitment prevComm = null;
+        for (Commitment comm : comms) {
+            ConiksClient.sendEpochDiffReqProto(comm.getEpoch(), server);
+
+            int result = ConsistencyChecks.verifyEpochDiffProto(
+                                                                ConiksClient.receiveEpochDiffProto(), 
+                                                                comm, prevComm);
+            if (result != ConsistencyErr.NO_ERR) {
+                System.out.println("Bad diff for epoch "+comm.getEpoch()+": "+result);
+                return -1;
+            }
+            prevComm = comm;
+        }
+        return comms.size();
+    }
+
+    /** Exports up to {@code count} of the leaves of the latest epoch's
+     * tree from {@code server} in lookup index order, with a single leaf
+     * range request: each chunk must be consistent with the epoch's 
+     * commitment and hold all leaves in its range.
+     *
+     *@return The number of leaves exported, or -1 if an error occurred.
+     */
+    public static int export (int count, String server) {
+        ConiksClient.sendCommitmentReqProto(CommitmentReq.CommitmentType.SELF, 
+                                            System.currentTimeMillis(), server, server);
+
+        Commitment comm = ConiksClient.receiveCommitmentProto();
+
+        if (comm == null) {
+            return -1;
+        }
+
+        ConiksClient.sendLeafRangeReqProto(comm.getEpoch(), null, null, 0, count, server);
+
+        ArrayList<MultiAuthPath> chunks = ConiksClient.receiveLeafRangeProto();
+
+        if (chunks == null) {
+            return -1;
+        }
+
+        int exported = 0;
+        for (MultiAuthPath chunk : chunks) {
+            int result = ConsistencyChecks.verifyMultiDataBindingProto(chunk, comm);
+            if (result != ConsistencyErr.NO_ERR) {
+                System.out.println("Bad leaf range chunk: "+result);
+                return -1;
+            }
+            exported += ClientUtils.getRangeLeaves(chunk).size();
+        }
+        return exported;
     }
 
     /** Prints the usage of the TestClient.
      */
     private static void usage() {
         System.out.println("TestClient <server> <command> [iterations = 1] [offset = 0] [verbosity = 0]");
-        System.out.println("command := (REGISTER LOOKUP VERIFY)");
+        System.out.println("command := (REGISTER LOOKUP VERIFY BATCHVERIFY BULKREGISTER HISTORY AUDIT EXPORT)");
     }
 
     /** Usage:
      * {@code TestClient [-h] <server> <command> [iterations = 1] [offset = 0] [verbosity = 1]}
      * <p>
-     * command := ({@code REGISTER LOOKUP VERIFY})
+     * command := ({@code REGISTER LOOKUP VERIFY BATCHVERIFY BULKREGISTER HISTORY AUDIT EXPORT})
      */
     public static void main(String[] args){
         if (args.length < 2 || args[0].equals("-h")){
@@ -151,6 +308,66 @@ public class TestClient {
         // this is needed to enable the client to communicate using SSL
         ConiksClient.setDefaultTruststore();
 
+        if (command.equalsIgnoreCase("HISTORY")) {
+            int count = fetchHistory(iters, server);
+            if (count < 0)
+                System.out.println("An error occurred.");
+            else if (verbosity == 1)
+                System.out.println("received "+count+" commitments");
+
+            System.out.println(" done!");
+            return;
+        }
+
+        if (command.equalsIgnoreCase("AUDIT")) {
+            int count = audit(iters, server);
+            if (count < 0)
+                System.out.println("An error occurred.");
+            else if (verbosity == 1)
+                System.out.println("audited "+count+" epochs");
+
+            System.out.println(" done!");
+            return;
+        }
+
+        if (command.equalsIgnoreCase("EXPORT")) {
+            int count = export(iters, server);
+            if (count < 0)
+                System.out.println("An error occurred.");
+            else if (verbosity == 1)
+                System.out.println("exported "+count+" leaves");
+
+            System.out.println(" done!");
+            return;
+        }
+
+        // these commands handle all names at once
+        if (command.equalsIgnoreCase("BATCHVERIFY") || 
+            command.equalsIgnoreCase("BULKREGISTER")) {
+            String[] unames = new String[iters];
+            for (int i = 0; i < iters; i++) {
+                unames[i] = "test-"+(offset+i);
+            }
+
+            if (command.equalsIgnoreCase("BATCHVERIFY")) {
+                if (!doBatchLookupVerification(unames, server))
+                    System.out.println("An error occurred.");
+            }
+            else {
+                // bulk registrations need to authenticate to the server
+                ConiksClient.setDefaultKeystore();
+
+                int count = bulkRegister(unames, server);
+                if (count < 0)
+                    System.out.println("An error occurred.");
+                else if (verbosity == 1)
+                    System.out.println("registered "+count+" of "+iters+" users");
+            }
+
+            System.out.println(" done!");
+            return;
+        }
+
         for (int i = 0; i < iters; i++){
             if (i % (1 + (iters / 10)) == 0)
                 System.err.print(".");